@@ -19,6 +19,7 @@ package org.apache.ranger.audit.provider;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
 
@@ -107,6 +108,10 @@ public class MultiDestAuditProvider extends BaseAuditHandler {
 		}
 	}
 
+	public List<AuditHandler> getAuditProviders() {
+		return Collections.unmodifiableList(mProviders);
+	}
+
 	@Override
 	public boolean log(AuditEventBase event) {
 		for (AuditHandler provider : mProviders) {
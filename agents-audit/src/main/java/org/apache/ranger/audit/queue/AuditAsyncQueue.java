@@ -47,6 +47,11 @@ public class AuditAsyncQueue extends AuditQueue implements Runnable {
 		setName(DEFAULT_NAME);
 	}
 
+	@Override
+	public int getQueueSize() {
+		return queue.size();
+	}
+
 	/*
 	 * (non-Javadoc)
 	 *
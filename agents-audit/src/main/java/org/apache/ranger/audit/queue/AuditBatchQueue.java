@@ -47,6 +47,13 @@ public class AuditBatchQueue extends AuditQueue implements Runnable {
 		setName(DEFAULT_NAME);
 	}
 
+	@Override
+	public int getQueueSize() {
+		BlockingQueue<AuditEventBase> queue = this.queue;
+
+		return queue != null ? queue.size() : 0;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 *
@@ -387,6 +387,16 @@ public class AuditFileSpool implements Runnable {
 		return isPending;
 	}
 
+	/**
+	 * Number of spool files that are complete and are yet to be sent to the
+	 * destination
+	 *
+	 * @return
+	 */
+	public int getPendingFileCount() {
+		return indexQueue.size();
+	}
+
 	/**
 	 * Milliseconds from last attempt time
 	 *
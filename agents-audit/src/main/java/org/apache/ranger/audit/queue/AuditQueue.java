@@ -157,6 +157,19 @@ public abstract class AuditQueue extends BaseAuditHandler {
 		return consumer;
 	}
 
+	/**
+	 * Number of audit events waiting in this queue to be sent to the consumer
+	 *
+	 * @return
+	 */
+	public int getQueueSize() {
+		return 0;
+	}
+
+	public AuditFileSpool getFileSpooler() {
+		return fileSpooler;
+	}
+
 	public boolean isDrainMaxTimeElapsed() {
 		return (stopTime - System.currentTimeMillis()) > AUDIT_CONSUMER_THREAD_WAIT_MS;
 	}
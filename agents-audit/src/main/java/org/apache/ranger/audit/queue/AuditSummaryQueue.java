@@ -61,6 +61,11 @@ public class AuditSummaryQueue extends AuditQueue implements Runnable {
 		setName(DEFAULT_NAME);
 	}
 
+	@Override
+	public int getQueueSize() {
+		return queue.size();
+	}
+
 	@Override
 	public void init(Properties props, String propPrefix) {
 		super.init(props, propPrefix);
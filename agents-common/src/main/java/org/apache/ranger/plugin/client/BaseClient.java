@@ -157,6 +157,12 @@ public abstract class BaseClient {
 		return hdpException;
 	}
 
+	/**
+	 * Releases resources held by this client, like connections. Called when BaseClientPool discards the client.
+	 */
+	public void close() {
+	}
+
 	public String getSerivceName() {
 		return serviceName;
 	}
@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.client;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Pool of resource-lookup clients, per service.
+ *
+ * A lookup borrows a client for the duration of one request and releases it afterwards, so that successive lookups
+ * for a service - like autocomplete requests while a user types - reuse the connection and login of an earlier one.
+ * A client is used by only one lookup at a time. Clients that stay idle longer than idleTimeoutMs are closed by a
+ * daemon timer, which runs only while the pool has idle clients.
+ */
+public class BaseClientPool<T extends BaseClient> {
+	private static final Log LOG = LogFactory.getLog(BaseClientPool.class);
+
+	public static final int  DEFAULT_MAX_IDLE_CLIENTS_PER_SERVICE = 4;
+	public static final long DEFAULT_IDLE_TIMEOUT_MS              = 5 * 60 * 1000L;
+
+	public interface ClientFactory<T> {
+		T createClient(String serviceName, Map<String, String> configs) throws Exception;
+	}
+
+	private final String                            name;
+	private final ClientFactory<T>                  clientFactory;
+	private final int                               maxIdleClientsPerService;
+	private final long                              idleTimeoutMs;
+	private final Map<String, Deque<IdleClient<T>>> idleClients = new HashMap<>();
+	private       Timer                             evictionTimer;
+
+	public BaseClientPool(String name, ClientFactory<T> clientFactory) {
+		this(name, clientFactory, DEFAULT_MAX_IDLE_CLIENTS_PER_SERVICE, DEFAULT_IDLE_TIMEOUT_MS);
+	}
+
+	public BaseClientPool(String name, ClientFactory<T> clientFactory, int maxIdleClientsPerService, long idleTimeoutMs) {
+		this.name                     = name;
+		this.clientFactory            = clientFactory;
+		this.maxIdleClientsPerService = maxIdleClientsPerService;
+		this.idleTimeoutMs            = idleTimeoutMs;
+	}
+
+	/**
+	 * Returns an idle client of the service that was created with the same configs, or a new client. The client must
+	 * be returned with releaseClient(), or closed with invalidateClient() if it failed.
+	 */
+	public T borrowClient(String serviceName, Map<String, String> configs) throws Exception {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> BaseClientPool.borrowClient(" + name + ", " + serviceName + ")");
+		}
+
+		T       ret     = null;
+		List<T> toClose = null;
+
+		synchronized (this) {
+			Deque<IdleClient<T>> serviceClients = idleClients.get(serviceName);
+
+			while (ret == null && serviceClients != null && !serviceClients.isEmpty()) {
+				IdleClient<T> idleClient = serviceClients.pollFirst();
+
+				if (Objects.equals(idleClient.configs, configs)) {
+					ret = idleClient.client;
+				} else { // service configs were updated after the client was created
+					if (toClose == null) {
+						toClose = new ArrayList<>();
+					}
+
+					toClose.add(idleClient.client);
+				}
+			}
+		}
+
+		closeClients(toClose);
+
+		if (ret == null) {
+			ret = clientFactory.createClient(serviceName, configs);
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== BaseClientPool.borrowClient(" + name + ", " + serviceName + "): " + ret);
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Returns a client, obtained from borrowClient() with the same serviceName and configs, to the pool
+	 */
+	public void releaseClient(String serviceName, Map<String, String> configs, T client) {
+		if (client == null) {
+			return;
+		}
+
+		boolean isPooled = false;
+
+		synchronized (this) {
+			Deque<IdleClient<T>> serviceClients = idleClients.get(serviceName);
+
+			if (serviceClients == null) {
+				serviceClients = new ArrayDeque<>();
+
+				idleClients.put(serviceName, serviceClients);
+			}
+
+			if (serviceClients.size() < maxIdleClientsPerService) {
+				serviceClients.addFirst(new IdleClient<>(client, configs, System.currentTimeMillis()));
+
+				isPooled = true;
+
+				scheduleEviction();
+			}
+		}
+
+		if (!isPooled) {
+			closeClient(client);
+		}
+	}
+
+	/**
+	 * Closes a client, obtained from borrowClient(), that failed or could still be in use - for example by a timed-out lookup
+	 */
+	public void invalidateClient(T client) {
+		closeClient(client);
+	}
+
+	public synchronized int getIdleClientCount(String serviceName) {
+		Deque<IdleClient<T>> serviceClients = idleClients.get(serviceName);
+
+		return serviceClients != null ? serviceClients.size() : 0;
+	}
+
+	void evictIdleClients(long now) {
+		List<T> toClose = new ArrayList<>();
+
+		synchronized (this) {
+			for (Iterator<Deque<IdleClient<T>>> iter = idleClients.values().iterator(); iter.hasNext(); ) {
+				Deque<IdleClient<T>> serviceClients = iter.next();
+
+				// clients are added at the head, hence the least recently used are at the tail
+				while (!serviceClients.isEmpty() && (now - serviceClients.peekLast().lastUsedTime) >= idleTimeoutMs) {
+					toClose.add(serviceClients.pollLast().client);
+				}
+
+				if (serviceClients.isEmpty()) {
+					iter.remove();
+				}
+			}
+
+			if (idleClients.isEmpty() && evictionTimer != null) {
+				evictionTimer.cancel();
+
+				evictionTimer = null;
+			}
+		}
+
+		if (LOG.isDebugEnabled() && !toClose.isEmpty()) {
+			LOG.debug("BaseClientPool.evictIdleClients(" + name + "): closing " + toClose.size() + " idle clients");
+		}
+
+		closeClients(toClose);
+	}
+
+	private void scheduleEviction() {
+		if (evictionTimer == null) {
+			long period = Math.max(idleTimeoutMs / 2, 1000L);
+
+			evictionTimer = new Timer(name + "-IdleClientEvictor", true);
+
+			evictionTimer.schedule(new TimerTask() {
+				@Override
+				public void run() {
+					evictIdleClients(System.currentTimeMillis());
+				}
+			}, period, period);
+		}
+	}
+
+	private void closeClients(List<T> clients) {
+		if (clients != null) {
+			for (T client : clients) {
+				closeClient(client);
+			}
+		}
+	}
+
+	private void closeClient(T client) {
+		if (client != null) {
+			try {
+				client.close();
+			} catch (Exception excp) {
+				LOG.warn("BaseClientPool(" + name + "): failed to close client " + client, excp);
+			}
+		}
+	}
+
+	private static class IdleClient<T> {
+		final T                   client;
+		final Map<String, String> configs;
+		final long                lastUsedTime;
+
+		IdleClient(T client, Map<String, String> configs, long lastUsedTime) {
+			this.client       = client;
+			this.configs      = configs != null ? new HashMap<>(configs) : null;
+			this.lastUsedTime = lastUsedTime;
+		}
+	}
+}
@@ -19,6 +19,8 @@
 
 package org.apache.ranger.plugin.conditionevaluator;
 
+import java.util.Set;
+
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
 import org.apache.ranger.plugin.model.RangerServiceDef;
 import org.apache.ranger.plugin.model.RangerServiceDef.RangerPolicyConditionDef;
@@ -34,4 +36,13 @@ public interface RangerConditionEvaluator {
 	void init();
 
 	boolean isMatched(RangerAccessRequest request);
+
+	/**
+	 * Returns the names of request-context entries read by this evaluator, so that the policy engine can run the
+	 * context enrichers that produce them before the evaluator is called.
+	 * @return null if not known, in which case all enrichers are run before the evaluator is called
+	 */
+	default Set<String> getRequiredContextKeys() {
+		return null;
+	}
 }
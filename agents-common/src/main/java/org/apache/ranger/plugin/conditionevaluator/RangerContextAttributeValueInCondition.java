@@ -25,7 +25,9 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 
 public class RangerContextAttributeValueInCondition extends RangerAbstractConditionEvaluator {
 	private static final Log LOG = LogFactory.getLog(RangerContextAttributeValueInCondition.class);
@@ -51,6 +53,11 @@ public class RangerContextAttributeValueInCondition extends RangerAbstractCondit
 		}
 	}
 
+	@Override
+	public Set<String> getRequiredContextKeys() {
+		return attributeName != null ? Collections.singleton(attributeName) : Collections.<String>emptySet();
+	}
+
 	@Override
 	public boolean isMatched(RangerAccessRequest request) {
 		if (LOG.isDebugEnabled()) {
@@ -25,7 +25,9 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 
 public class RangerContextAttributeValueNotInCondition extends RangerAbstractConditionEvaluator {
 	private static final Log LOG = LogFactory.getLog(RangerContextAttributeValueNotInCondition.class);
@@ -51,6 +53,11 @@ public class RangerContextAttributeValueNotInCondition extends RangerAbstractCon
 		}
 	}
 
+	@Override
+	public Set<String> getRequiredContextKeys() {
+		return attributeName != null ? Collections.singleton(attributeName) : Collections.<String>emptySet();
+	}
+
 	@Override
 	public boolean isMatched(RangerAccessRequest request) {
 		if (LOG.isDebugEnabled()) {
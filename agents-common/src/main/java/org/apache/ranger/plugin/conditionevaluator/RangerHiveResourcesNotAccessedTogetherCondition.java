@@ -32,9 +32,11 @@ import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.apache.ranger.plugin.util.RangerRequestedResources;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class RangerHiveResourcesNotAccessedTogetherCondition extends RangerAbstractConditionEvaluator {
 	private static final Log LOG = LogFactory.getLog(RangerHiveResourcesNotAccessedTogetherCondition.class);
@@ -61,6 +63,11 @@ public class RangerHiveResourcesNotAccessedTogetherCondition extends RangerAbstr
 		}
 	}
 
+	@Override
+	public Set<String> getRequiredContextKeys() {
+		return Collections.singleton(RangerAccessRequestUtil.KEY_CONTEXT_REQUESTED_RESOURCES);
+	}
+
 	@Override
 	public boolean isMatched(final RangerAccessRequest request) {
 		boolean ret = true;
@@ -21,17 +21,28 @@
 package org.apache.ranger.plugin.conditionevaluator;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerIpPrefixTree;
 
 /**
+ * Matches the client IP address against a list of addresses, wildcard prefixes like 10.1.* and CIDR blocks like 10.1.0.0/16.
+ *
+ * The values are compiled at init into a RangerIpPrefixTree, so a lookup does not depend on the number of values.
+ * Client addresses that can't be parsed, and values that can't be compiled, are matched as strings as earlier.
+ *
  * Credits: Large parts of this file have been lifted as is from org.apache.ranger.pdp.knox.URLBasedAuthDB.  Credits for those are due to Dilli Arumugam.
  * @author alal
  */
@@ -39,6 +50,9 @@ public class RangerIpMatcher extends RangerAbstractConditionEvaluator {
 	private static final Log LOG = LogFactory.getLog(RangerIpMatcher.class);
 	private List<String> _exactIps = new ArrayList<>();
 	private List<String> _wildCardIps = new ArrayList<>();
+	private List<String> _uncompiledExactIps = new ArrayList<>();
+	private List<String> _uncompiledWildCardIps = new ArrayList<>();
+	private RangerIpPrefixTree _ipPrefixTree = new RangerIpPrefixTree();
 	private boolean _allowAny;
 	
 	@Override
@@ -67,17 +81,30 @@ public class RangerIpMatcher extends RangerAbstractConditionEvaluator {
 					_allowAny = true;
 				} else if (digestedIp.equals(ip)) {
 					_exactIps.add(ip);
+
+					if (!compileIp(ip, digestedIp)) {
+						_uncompiledExactIps.add(ip);
+					}
 				} else {
 					_wildCardIps.add(digestedIp);
+
+					if (!compileIp(ip, digestedIp)) {
+						_uncompiledWildCardIps.add(digestedIp);
+					}
 				}
 			}
 		}
 
 		if(LOG.isDebugEnabled()) {
-			LOG.debug("<== RangerIpMatcher.init(" + condition + "): exact-ips[" + _exactIps + "], wildcard-ips[" + _wildCardIps + "]");
+			LOG.debug("<== RangerIpMatcher.init(" + condition + "): exact-ips[" + _exactIps + "], wildcard-ips[" + _wildCardIps + "], compiled-prefix-count=" + _ipPrefixTree.getPrefixCount() + ", uncompiled-exact-ips" + _uncompiledExactIps + ", uncompiled-wildcard-ips" + _uncompiledWildCardIps);
 		}
 	}
 
+	@Override
+	public Set<String> getRequiredContextKeys() {
+		return Collections.emptySet();
+	}
+
 	@Override
 	public boolean isMatched(final RangerAccessRequest request) {
 		if(LOG.isDebugEnabled()) {
@@ -92,7 +119,13 @@ public class RangerIpMatcher extends RangerAbstractConditionEvaluator {
 			if (requestIp == null) {
 				LOG.debug("isMatched: couldn't get ip address from request.  Ok.  Implicitly matched!");
 			} else {
-				ipMatched = isWildcardMatched(_wildCardIps, requestIp) || isExactlyMatched(_exactIps, requestIp);
+				byte[] requestAddress = getParsedAddress(request, requestIp);
+
+				if (requestAddress != null) {
+					ipMatched = _ipPrefixTree.contains(requestAddress) || isWildcardMatched(_uncompiledWildCardIps, requestIp) || isExactlyMatched(_uncompiledExactIps, requestIp);
+				} else {
+					ipMatched = isWildcardMatched(_wildCardIps, requestIp) || isExactlyMatched(_exactIps, requestIp);
+				}
 			}
 		}
 		
@@ -103,6 +136,82 @@ public class RangerIpMatcher extends RangerAbstractConditionEvaluator {
 		return ipMatched;
 	}
 	
+	/**
+	 * Adds the policy ip - an address, a CIDR block or a wildcard prefix digested by digestPolicyIp() - to the prefix tree
+	 * @param policyIp
+	 * @param digestedIp
+	 * @return false if the policy ip could not be compiled
+	 */
+	boolean compileIp(final String policyIp, final String digestedIp) {
+		byte[] address      = null;
+		int    prefixLength = -1;
+
+		int slashIdx = policyIp.indexOf('/');
+
+		if (slashIdx != -1) { // CIDR block, like 10.1.0.0/16
+			address = RangerIpPrefixTree.parseAddress(policyIp.substring(0, slashIdx));
+
+			if (address != null && StringUtils.isNumeric(policyIp.substring(slashIdx + 1)) && policyIp.length() > slashIdx + 1 && policyIp.length() - slashIdx <= 4) {
+				prefixLength = Integer.parseInt(policyIp.substring(slashIdx + 1));
+			}
+		} else if (digestedIp.equals(policyIp)) {
+			address = RangerIpPrefixTree.parseAddress(policyIp);
+
+			if (address != null) {
+				prefixLength = address.length * 8;
+			}
+		} else if (digestedIp.endsWith(".")) { // like 10.1.
+			String[] octets = digestedIp.substring(0, digestedIp.length() - 1).split("\\.", -1);
+
+			if (octets.length < RangerIpPrefixTree.IPV4_ADDRESS_LENGTH) {
+				StringBuilder sb = new StringBuilder(digestedIp);
+
+				for (int i = octets.length; i < RangerIpPrefixTree.IPV4_ADDRESS_LENGTH; i++) {
+					sb.append(i == octets.length ? "0" : ".0");
+				}
+
+				address      = RangerIpPrefixTree.parseAddress(sb.toString());
+				prefixLength = octets.length * 8;
+			}
+		} else if (digestedIp.endsWith(":") && !digestedIp.contains("::")) { // like a0:b0:
+			String[] groups = digestedIp.substring(0, digestedIp.length() - 1).split(":", -1);
+
+			if (groups.length < RangerIpPrefixTree.IPV6_ADDRESS_LENGTH / 2) {
+				address      = RangerIpPrefixTree.parseAddress(digestedIp + ":");
+				prefixLength = groups.length * 16;
+			}
+		}
+
+		boolean ret = address != null && prefixLength >= 0 && prefixLength <= address.length * 8;
+
+		if (ret) {
+			_ipPrefixTree.add(address, prefixLength);
+		} else if (LOG.isDebugEnabled()) {
+			LOG.debug("compileIp: policyIp[" + policyIp + "] could not be compiled. Will be matched as string");
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Returns the parsed client ip address, which is cached in the request context for other ip conditions to use
+	 * @param request
+	 * @param requestIp
+	 * @return null if the address could not be parsed
+	 */
+	byte[] getParsedAddress(final RangerAccessRequest request, final String requestIp) {
+		Map<String, Object> context = request.getContext();
+		byte[]              ret     = RangerAccessRequestUtil.getParsedClientIPAddressFromContext(context, requestIp);
+
+		if (ret == null) {
+			ret = RangerIpPrefixTree.parseAddress(requestIp);
+
+			RangerAccessRequestUtil.setParsedClientIPAddressInContext(context, requestIp, ret);
+		}
+
+		return ret != null && ret.length > 0 ? ret : null;
+	}
+
 	/**
 	 * Pre-digests the policy ip address to drop any trailing wildcard specifiers such that a simple beginsWith match can be done to check for match during authorization calls
 	 * @param ip
@@ -22,9 +22,11 @@ package org.apache.ranger.plugin.conditionevaluator;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -131,6 +133,11 @@ public class RangerTimeOfDayMatcher extends RangerAbstractConditionEvaluator {
 		return result;
 	}
 
+	@Override
+	public Set<String> getRequiredContextKeys() {
+		return Collections.emptySet();
+	}
+
 	@Override
 	public boolean isMatched(RangerAccessRequest request) {
 		
@@ -27,7 +27,10 @@ import org.apache.ranger.plugin.geo.RangerGeolocationDatabase;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.store.GeolocationStore;
 
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 public abstract class RangerAbstractGeolocationProvider extends RangerAbstractContextEnricher {
 
@@ -38,6 +41,7 @@ public abstract class RangerAbstractGeolocationProvider extends RangerAbstractCo
 	public static final String KEY_CONTEXT_GEOLOCATION_PREFIX = "LOCATION_";
 	private GeolocationStore store;
 	private String geoMetaPrefix;
+	private Set<String> contextKeys = Collections.emptySet();
 
 	abstract public String getGeoSourceLoader();
 
@@ -92,6 +96,14 @@ public abstract class RangerAbstractGeolocationProvider extends RangerAbstractCo
 
 		if (store == null) {
 			LOG.error("RangerAbstractGeolocationProvider.init() - is not initialized correctly.");
+		} else if (store.getGeoDatabase() != null) {
+			Set<String> keys = new HashSet<>();
+
+			for (String attributeName : store.getGeoDatabase().getMetadata().getLocationDataItemNames()) {
+				keys.add(KEY_CONTEXT_GEOLOCATION_PREFIX + geoMetaPrefix + attributeName);
+			}
+
+			contextKeys = Collections.unmodifiableSet(keys);
 		}
 
 		if (LOG.isDebugEnabled()) {
@@ -99,6 +111,11 @@ public abstract class RangerAbstractGeolocationProvider extends RangerAbstractCo
 		}
 	}
 
+	@Override
+	public Set<String> getProducedContextKeys() {
+		return contextKeys;
+	}
+
 	@Override
 	public void enrich(RangerAccessRequest request) {
 		if (LOG.isDebugEnabled()) {
@@ -20,6 +20,8 @@
 package org.apache.ranger.plugin.contextenricher;
 
 
+import java.util.Set;
+
 import org.apache.ranger.plugin.model.RangerServiceDef;
 import org.apache.ranger.plugin.model.RangerServiceDef.RangerContextEnricherDef;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
@@ -43,4 +45,13 @@ public interface RangerContextEnricher {
 
 	String getName();
 
+	/**
+	 * Returns the names of request-context entries set by this enricher. The policy engine runs an enricher that
+	 * returns a non-null set only for requests whose evaluation - a condition, or the engine itself - reads one of these entries.
+	 * @return null if not known, in which case the enricher is run for every request
+	 */
+	default Set<String> getProducedContextKeys() {
+		return null;
+	}
+
 }
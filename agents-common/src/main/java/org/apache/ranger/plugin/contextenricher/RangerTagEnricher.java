@@ -27,6 +27,7 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
+import org.apache.ranger.plugin.metrics.RangerPerfMetrics;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerServiceDef;
 import org.apache.ranger.plugin.model.RangerServiceResource;
@@ -61,6 +62,8 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 
 	private static final Log PERF_CONTEXTENRICHER_INIT_LOG = RangerPerfTracer.getPerfLogger("contextenricher.init");
 
+	private static final Set<String> PRODUCED_CONTEXT_KEYS = Collections.singleton(RangerAccessRequestUtil.KEY_CONTEXT_TAGS);
+
 	public static final String TAG_REFRESHER_POLLINGINTERVAL_OPTION = "tagRefresherPollingInterval";
 	public static final String TAG_RETRIEVER_CLASSNAME_OPTION       = "tagRetrieverClassName";
 	public static final String TAG_DISABLE_TRIE_PREFILTER_OPTION    = "disableTrieLookupPrefilter";
@@ -136,6 +139,14 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 		}
 	}
 
+	/*
+	 * Tags are read by the policy engine only when there are tag policies that can match the request; see RangerPolicyEngineImpl.evaluateTagPolicies()
+	 */
+	@Override
+	public Set<String> getProducedContextKeys() {
+		return PRODUCED_CONTEXT_KEYS;
+	}
+
 	@Override
 	public void enrich(RangerAccessRequest request) {
 		if (LOG.isDebugEnabled()) {
@@ -198,7 +209,11 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 	}
 
 	public void setServiceTags(final ServiceTags serviceTags) {
-		if (serviceTags == null || CollectionUtils.isEmpty(serviceTags.getServiceResources())) {
+		if (serviceTags != null && serviceTags.getIsDelta()) {
+			if (applyServiceTagsDelta(serviceTags) == null) {
+				LOG.error("RangerTagEnricher.setServiceTags(): failed to apply tags delta for service " + serviceName + ", tagVersion=" + serviceTags.getTagVersion());
+			}
+		} else if (serviceTags == null || CollectionUtils.isEmpty(serviceTags.getServiceResources())) {
 			LOG.info("ServiceTags is null or there are no tagged resources for service " + serviceName);
 			enrichedServiceTags = null;
 		} else {
@@ -211,62 +226,182 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 			ResourceHierarchies hierarchies = new ResourceHierarchies();
 
 			for (RangerServiceResource serviceResource : serviceResources) {
-				final Collection<String> resourceKeys = serviceResource.getResourceElements().keySet();
+				addResourceMatchers(serviceResource, serviceDefHelper, hierarchies, resourceMatchers);
+			}
+
+			enrichedServiceTags = buildEnrichedServiceTags(serviceTags, resourceMatchers);
+		}
+	}
 
-				for (int policyType : RangerPolicy.POLICY_TYPES) {
-					Boolean isValidHierarchy = hierarchies.isValidHierarchy(policyType, resourceKeys);
-					if (isValidHierarchy == null) { // hierarchy not yet validated
-						isValidHierarchy = Boolean.FALSE;
+	/*
+	 * Applies the delta to a copy of the current service-tags, so that the requests being evaluated continue to see
+	 * the current tags. Matchers are created only for the resources in the delta; matchers of other resources are reused,
+	 * as are the nodes of the resource tries not affected by the delta.
+	 *
+	 * Returns the service-tags after applying the delta; null if the delta could not be applied, in which case
+	 * all the tags should be retrieved again.
+	 */
+	ServiceTags applyServiceTagsDelta(final ServiceTags delta) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerTagEnricher.applyServiceTagsDelta(tagVersion=" + delta.getTagVersion() + ", resourceCount=" + delta.getServiceResources().size() + ", tagCount=" + delta.getTags().size() + ")");
+		}
 
-						for (List<RangerServiceDef.RangerResourceDef> hierarchy : serviceDefHelper.getResourceHierarchies(policyType)) {
-							if (serviceDefHelper.hierarchyHasAllResources(hierarchy, resourceKeys)) {
-								isValidHierarchy = Boolean.TRUE;
+		final EnrichedServiceTags enrichedServiceTags = this.enrichedServiceTags;
 
-								break;
-							}
-						}
+		ServiceTags ret = null;
+
+		if (enrichedServiceTags == null) {
+			LOG.info("RangerTagEnricher.applyServiceTagsDelta(): no tags present to apply the delta to, for service " + serviceName);
+		} else {
+			final ServiceTags                      current          = enrichedServiceTags.getServiceTags();
+			final Map<Long, RangerServiceResource> changedResources = new HashMap<>();
 
-						hierarchies.addHierarchy(policyType, resourceKeys, isValidHierarchy);
+			for (RangerServiceResource serviceResource : delta.getServiceResources()) {
+				changedResources.put(serviceResource.getId(), serviceResource);
+			}
+
+			List<RangerServiceResource>        serviceResources = new ArrayList<>(current.getServiceResources().size() + changedResources.size());
+			List<RangerServiceResourceMatcher> resourceMatchers = new ArrayList<>(enrichedServiceTags.getServiceResourceMatchers().size() + changedResources.size());
+			Map<Long, List<Long>>              resourceToTagIds = new HashMap<>(current.getResourceToTagIds());
+			Map<Long, RangerTag>               tags             = new HashMap<>(current.getTags());
+
+			for (RangerServiceResource serviceResource : current.getServiceResources()) {
+				if (!changedResources.containsKey(serviceResource.getId())) {
+					serviceResources.add(serviceResource);
+				}
+			}
+
+			List<RangerServiceResourceMatcher> removedMatchers = new ArrayList<>();
+			List<RangerServiceResourceMatcher> addedMatchers   = new ArrayList<>();
+
+			for (RangerServiceResourceMatcher resourceMatcher : enrichedServiceTags.getServiceResourceMatchers()) {
+				if (!changedResources.containsKey(resourceMatcher.getServiceResource().getId())) {
+					resourceMatchers.add(resourceMatcher);
+				} else {
+					removedMatchers.add(resourceMatcher);
+				}
+			}
+
+			RangerServiceDefHelper serviceDefHelper = new RangerServiceDefHelper(serviceDef, false);
+			ResourceHierarchies    hierarchies      = new ResourceHierarchies();
+
+			for (RangerServiceResource serviceResource : changedResources.values()) {
+				resourceToTagIds.remove(serviceResource.getId());
+
+				if (MapUtils.isEmpty(serviceResource.getResourceElements())) { // deleted resource
+					continue;
+				}
+
+				List<Long> tagIds = delta.getResourceToTagIds().get(serviceResource.getId());
+
+				if (tagIds != null) {
+					resourceToTagIds.put(serviceResource.getId(), tagIds);
+				}
+
+				serviceResources.add(serviceResource);
+
+				addResourceMatchers(serviceResource, serviceDefHelper, hierarchies, addedMatchers);
+			}
+
+			resourceMatchers.addAll(addedMatchers);
+
+			for (Map.Entry<Long, RangerTag> entry : delta.getTags().entrySet()) {
+				if (StringUtils.isEmpty(entry.getValue().getType())) { // deleted tag
+					tags.remove(entry.getKey());
+				} else {
+					tags.put(entry.getKey(), entry.getValue());
+				}
+			}
+
+			ret = new ServiceTags(current.getOp(), current.getServiceName(), delta.getTagVersion(), delta.getTagUpdateTime(), current.getTagDefinitions(), tags, serviceResources, resourceToTagIds);
+
+			if (serviceResources.isEmpty()) {
+				LOG.info("There are no tagged resources for service " + serviceName);
+
+				this.enrichedServiceTags = null;
+			} else {
+				Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie = null;
+
+				if (enrichedServiceTags.getServiceResourceTrie() != null) {
+					serviceResourceTrie = new HashMap<>();
+
+					// only the trie nodes of the changed resources are copied; the rest are shared with the current tries
+					for (Map.Entry<String, RangerResourceTrie<RangerServiceResourceMatcher>> entry : enrichedServiceTags.getServiceResourceTrie().entrySet()) {
+						serviceResourceTrie.put(entry.getKey(), entry.getValue().copyWithChanges(removedMatchers, addedMatchers));
 					}
+				}
 
-					if (isValidHierarchy) {
-						RangerDefaultPolicyResourceMatcher matcher = new RangerDefaultPolicyResourceMatcher();
+				this.enrichedServiceTags = buildEnrichedServiceTags(ret, resourceMatchers, serviceResourceTrie);
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerTagEnricher.applyServiceTagsDelta(tagVersion=" + delta.getTagVersion() + "): " + (ret != null));
+		}
 
-						matcher.setServiceDef(this.serviceDef);
-						matcher.setPolicyResources(serviceResource.getResourceElements(), policyType);
+		return ret;
+	}
 
-						if (LOG.isDebugEnabled()) {
-							LOG.debug("RangerTagEnricher.setServiceTags() - Initializing matcher with (resource=" + serviceResource
-									+ ", serviceDef=" + this.serviceDef.getName() + ")");
+	private void addResourceMatchers(RangerServiceResource serviceResource, RangerServiceDefHelper serviceDefHelper, ResourceHierarchies hierarchies, List<RangerServiceResourceMatcher> resourceMatchers) {
+		final Collection<String> resourceKeys = serviceResource.getResourceElements().keySet();
 
-						}
-						matcher.setServiceDefHelper(serviceDefHelper);
-						matcher.init();
+		for (int policyType : RangerPolicy.POLICY_TYPES) {
+			Boolean isValidHierarchy = hierarchies.isValidHierarchy(policyType, resourceKeys);
+			if (isValidHierarchy == null) { // hierarchy not yet validated
+				isValidHierarchy = Boolean.FALSE;
 
-						RangerServiceResourceMatcher serviceResourceMatcher = new RangerServiceResourceMatcher(serviceResource, matcher);
-						resourceMatchers.add(serviceResourceMatcher);
+				for (List<RangerServiceDef.RangerResourceDef> hierarchy : serviceDefHelper.getResourceHierarchies(policyType)) {
+					if (serviceDefHelper.hierarchyHasAllResources(hierarchy, resourceKeys)) {
+						isValidHierarchy = Boolean.TRUE;
+
+						break;
 					}
 				}
+
+				hierarchies.addHierarchy(policyType, resourceKeys, isValidHierarchy);
 			}
 
+			if (isValidHierarchy) {
+				RangerDefaultPolicyResourceMatcher matcher = new RangerDefaultPolicyResourceMatcher();
 
-			Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie = null;
+				matcher.setServiceDef(this.serviceDef);
+				matcher.setPolicyResources(serviceResource.getResourceElements(), policyType);
 
-			if (!disableTrieLookupPrefilter) {
-				serviceResourceTrie = new HashMap<>();
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("RangerTagEnricher.setServiceTags() - Initializing matcher with (resource=" + serviceResource
+							+ ", serviceDef=" + this.serviceDef.getName() + ")");
 
-				for (RangerServiceDef.RangerResourceDef resourceDef : serviceDef.getResources()) {
-					serviceResourceTrie.put(resourceDef.getName(), new RangerResourceTrie<RangerServiceResourceMatcher>(resourceDef, resourceMatchers));
 				}
+				matcher.setServiceDefHelper(serviceDefHelper);
+				matcher.init();
+
+				RangerServiceResourceMatcher serviceResourceMatcher = new RangerServiceResourceMatcher(serviceResource, matcher);
+				resourceMatchers.add(serviceResourceMatcher);
 			}
+		}
+	}
+
+	private EnrichedServiceTags buildEnrichedServiceTags(ServiceTags serviceTags, List<RangerServiceResourceMatcher> resourceMatchers) {
+		Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie = null;
+
+		if (!disableTrieLookupPrefilter) {
+			serviceResourceTrie = new HashMap<>();
 
-			Set<RangerTagForEval> tagsForEmptyResourceAndAnyAccess = new HashSet<>();
-			for (Map.Entry<Long, RangerTag> entry : serviceTags.getTags().entrySet()) {
-				tagsForEmptyResourceAndAnyAccess.add(new RangerTagForEval(entry.getValue(), RangerPolicyResourceMatcher.MatchType.DESCENDANT));
+			for (RangerServiceDef.RangerResourceDef resourceDef : serviceDef.getResources()) {
+				serviceResourceTrie.put(resourceDef.getName(), new RangerResourceTrie<RangerServiceResourceMatcher>(resourceDef, resourceMatchers));
 			}
+		}
 
-			enrichedServiceTags = new EnrichedServiceTags(serviceTags, resourceMatchers, serviceResourceTrie, tagsForEmptyResourceAndAnyAccess);
+		return buildEnrichedServiceTags(serviceTags, resourceMatchers, serviceResourceTrie);
+	}
+
+	private EnrichedServiceTags buildEnrichedServiceTags(ServiceTags serviceTags, List<RangerServiceResourceMatcher> resourceMatchers, Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie) {
+		Set<RangerTagForEval> tagsForEmptyResourceAndAnyAccess = new HashSet<>();
+		for (Map.Entry<Long, RangerTag> entry : serviceTags.getTags().entrySet()) {
+			tagsForEmptyResourceAndAnyAccess.add(new RangerTagForEval(entry.getValue(), RangerPolicyResourceMatcher.MatchType.DESCENDANT));
 		}
+
+		return new EnrichedServiceTags(serviceTags, resourceMatchers, serviceResourceTrie, tagsForEmptyResourceAndAnyAccess);
 	}
 
 	protected Long getServiceTagsVersion() {
@@ -529,13 +664,16 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 					} else {
 						break;
 					}
-					RangerPerfTracer perf = null;
+					RangerPerfTracer perf       = null;
+					long             startNanos = RangerPerfMetrics.startTimer();
 
 					if(RangerPerfTracer.isPerfTraceEnabled(PERF_CONTEXTENRICHER_INIT_LOG)) {
 						perf = RangerPerfTracer.getPerfTracer(PERF_CONTEXTENRICHER_INIT_LOG, "RangerTagRefresher.populateTags(serviceName=" + tagRetriever.getServiceName() + ",lastKnownVersion=" + lastKnownVersion + ")");
 					}
 					populateTags();
 
+					RangerPerfMetrics.stopTimer(RangerPerfMetrics.TAG_REFRESH, startNanos);
+
 					RangerPerfTracer.log(perf);
 
 				} catch (InterruptedException excp) {
@@ -557,6 +695,21 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 				try {
 					serviceTags = tagRetriever.retrieveTags(lastKnownVersion, lastActivationTimeInMillis);
 
+					boolean isApplied = false;
+
+					if (serviceTags != null && serviceTags.getIsDelta()) {
+						ServiceTags allServiceTags = tagEnricher.applyServiceTagsDelta(serviceTags);
+
+						if (allServiceTags != null) {
+							serviceTags = allServiceTags;
+							isApplied   = true;
+						} else {
+							LOG.warn("RangerTagRefresher.populateTags() - failed to apply tags delta, tagVersion=" + serviceTags.getTagVersion() + "; retrieving all tags");
+
+							serviceTags = tagRetriever.retrieveTags(-1L, lastActivationTimeInMillis);
+						}
+					}
+
 					if (serviceTags == null) {
 						if (!hasProvidedTagsToReceiver) {
 							serviceTags = loadFromCache();
@@ -566,7 +719,9 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 					}
 
 					if (serviceTags != null) {
-						tagEnricher.setServiceTags(serviceTags);
+						if (!isApplied) {
+							tagEnricher.setServiceTags(serviceTags);
+						}
 						LOG.info("RangerTagRefresher.populateTags() - Updated tags-cache to new version of tags, lastKnownVersion=" + lastKnownVersion + "; newVersion="
 								+ (serviceTags.getTagVersion() == null ? -1L : serviceTags.getTagVersion()));
 						hasProvidedTagsToReceiver = true;
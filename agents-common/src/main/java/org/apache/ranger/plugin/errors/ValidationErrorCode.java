@@ -91,6 +91,8 @@ public enum ValidationErrorCode {
     POLICY_VALIDATION_ERR_MISSING_RESOURCE_LIST(3026, "Resource list was empty or contains null. At least one resource must be specified"),
     POLICY_VALIDATION_ERR_POLICY_UPDATE_MOVE_SERVICE_NOT_ALLOWED(3027, "attempt to move policy id={0} from service={1} to service={2} is not allowed"),
     POLICY_VALIDATION_ERR_POLICY_TYPE_CHANGE_NOT_ALLOWED(3028, "attempt to change type of policy id={0} from type={1} to type={2} is not allowed"),
+    POLICY_VALIDATION_ERR_POLICY_NAME_CONFLICT_IN_BATCH(3029, "Another policy in the same batch has this name: policy-name=[{0}], service=[{1}]"),
+    POLICY_VALIDATION_ERR_DUPLICATE_POLICY_RESOURCE_IN_BATCH(3030, "Another policy in the same batch has matching resource: policy-name=[{0}], service=[{1}]"),
    ;
 
 
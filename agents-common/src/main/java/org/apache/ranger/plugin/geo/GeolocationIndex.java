@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.geo;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Immutable index of IPv4 address ranges, sorted by start address, to their location data.
+ *
+ * Ranges are held in primitive arrays and looked up with a binary search; location data shared by many ranges (like
+ * country-level entries) is stored once. The index can be written to, and read back from, a compact binary form.
+ */
+public final class GeolocationIndex {
+	private static final Log LOG = LogFactory.getLog(GeolocationIndex.class);
+
+	public static final GeolocationIndex EMPTY = new GeolocationIndex(new long[0], new long[0], new int[0], new String[0][]);
+
+	private final long[]     fromIPAddresses;
+	private final long[]     toIPAddresses;
+	private final int[]      locationIndexes;
+	private final String[][] locations;
+
+	private GeolocationIndex(long[] fromIPAddresses, long[] toIPAddresses, int[] locationIndexes, String[][] locations) {
+		this.fromIPAddresses = fromIPAddresses;
+		this.toIPAddresses   = toIPAddresses;
+		this.locationIndexes = locationIndexes;
+		this.locations       = locations;
+	}
+
+	public int size() {
+		return fromIPAddresses.length;
+	}
+
+	public int getLocationCount() {
+		return locations.length;
+	}
+
+	/*
+	 * Returns the position of the range containing the given address, or -1 if there is no such range
+	 */
+	public int find(long ipAddress) {
+		int low  = 0;
+		int high = fromIPAddresses.length - 1;
+		int ret  = -1;
+
+		// find the last range that starts at or before ipAddress
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+
+			if (fromIPAddresses[mid] <= ipAddress) {
+				ret = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+
+		if (ret != -1 && toIPAddresses[ret] < ipAddress) {
+			ret = -1;
+		}
+
+		return ret;
+	}
+
+	public long getFromIPAddress(int position) {
+		return fromIPAddresses[position];
+	}
+
+	public long getToIPAddress(int position) {
+		return toIPAddresses[position];
+	}
+
+	public String[] getLocationData(int position) {
+		return locations[locationIndexes[position]];
+	}
+
+	public RangerGeolocationData getGeolocationData(int position) {
+		return new RangerGeolocationData(fromIPAddresses[position], toIPAddresses[position], locations[locationIndexes[position]]);
+	}
+
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeInt(locations.length);
+
+		for (String[] location : locations) {
+			out.writeInt(location.length);
+
+			for (String value : location) {
+				out.writeUTF(value);
+			}
+		}
+
+		out.writeInt(fromIPAddresses.length);
+
+		for (int i = 0; i < fromIPAddresses.length; i++) {
+			out.writeInt((int) fromIPAddresses[i]);
+			out.writeInt((int) toIPAddresses[i]);
+			out.writeInt(locationIndexes[i]);
+		}
+	}
+
+	public static GeolocationIndex readFrom(DataInput in) throws IOException {
+		String[][] locations = new String[in.readInt()][];
+
+		for (int i = 0; i < locations.length; i++) {
+			String[] location = new String[in.readInt()];
+
+			for (int j = 0; j < location.length; j++) {
+				location[j] = in.readUTF();
+			}
+
+			locations[i] = location;
+		}
+
+		int    count           = in.readInt();
+		long[] fromIPAddresses = new long[count];
+		long[] toIPAddresses   = new long[count];
+		int[]  locationIndexes = new int[count];
+
+		for (int i = 0; i < count; i++) {
+			fromIPAddresses[i] = in.readInt() & 0xFFFFFFFFL;
+			toIPAddresses[i]   = in.readInt() & 0xFFFFFFFFL;
+			locationIndexes[i] = in.readInt();
+
+			if (locationIndexes[i] < 0 || locationIndexes[i] >= locations.length) {
+				throw new IOException("invalid location index " + locationIndexes[i] + " at " + i);
+			}
+		}
+
+		return new GeolocationIndex(fromIPAddresses, toIPAddresses, locationIndexes, locations);
+	}
+
+	public static class Builder {
+		private long[] fromIPAddresses = new long[1024];
+		private long[] toIPAddresses   = new long[1024];
+		private int[]  locationIndexes = new int[1024];
+		private int    count           = 0;
+		private boolean isSorted       = true;
+
+		private final List<String[]>            locations          = new ArrayList<>();
+		private final Map<List<String>, Integer> locationToIndexMap = new HashMap<>();
+
+		public Builder add(long fromIPAddress, long toIPAddress, String[] locationData) {
+			if (count == fromIPAddresses.length) {
+				int newLength = count * 2;
+
+				fromIPAddresses = Arrays.copyOf(fromIPAddresses, newLength);
+				toIPAddresses   = Arrays.copyOf(toIPAddresses, newLength);
+				locationIndexes = Arrays.copyOf(locationIndexes, newLength);
+			}
+
+			if (count > 0 && fromIPAddresses[count - 1] > fromIPAddress) {
+				isSorted = false;
+			}
+
+			fromIPAddresses[count] = fromIPAddress;
+			toIPAddresses[count]   = toIPAddress;
+			locationIndexes[count] = getLocationIndex(locationData);
+
+			count++;
+
+			return this;
+		}
+
+		public GeolocationIndex build() {
+			long[] sortedFrom     = Arrays.copyOf(fromIPAddresses, count);
+			long[] sortedTo       = Arrays.copyOf(toIPAddresses, count);
+			int[]  sortedLocation = Arrays.copyOf(locationIndexes, count);
+
+			if (!isSorted) {
+				// sort positions by start address: addresses are 32-bit and positions 31-bit, hence both fit in one long
+				long[] keys = new long[count];
+
+				for (int i = 0; i < count; i++) {
+					keys[i] = (fromIPAddresses[i] << 31) | i;
+				}
+
+				Arrays.sort(keys);
+
+				for (int i = 0; i < count; i++) {
+					int pos = (int) (keys[i] & 0x7FFFFFFFL);
+
+					sortedFrom[i]     = fromIPAddresses[pos];
+					sortedTo[i]       = toIPAddresses[pos];
+					sortedLocation[i] = locationIndexes[pos];
+				}
+			}
+
+			int overlapCount = 0;
+
+			for (int i = 1; i < count; i++) {
+				if (sortedFrom[i] <= sortedTo[i - 1]) {
+					overlapCount++;
+				}
+			}
+
+			if (overlapCount > 0) {
+				LOG.warn("GeolocationIndex.Builder.build(): " + overlapCount + " ranges overlap with preceding range; lookup of addresses in overlapping ranges will find the range that starts last");
+			}
+
+			return new GeolocationIndex(sortedFrom, sortedTo, sortedLocation, locations.toArray(new String[locations.size()][]));
+		}
+
+		private int getLocationIndex(String[] locationData) {
+			List<String> key = Arrays.asList(locationData);
+			Integer      ret = locationToIndexMap.get(key);
+
+			if (ret == null) {
+				ret = locations.size();
+
+				locations.add(locationData);
+				locationToIndexMap.put(key, ret);
+			}
+
+			return ret;
+		}
+	}
+}
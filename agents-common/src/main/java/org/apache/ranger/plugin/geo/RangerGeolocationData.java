@@ -23,8 +23,6 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import java.net.InetAddress;
-import java.net.UnknownHostException;
 import java.util.Objects;
 
 public class RangerGeolocationData implements Comparable<RangerGeolocationData>, RangeChecker<Long> {
@@ -71,7 +69,7 @@ public class RangerGeolocationData implements Comparable<RangerGeolocationData>,
 		return data;
 	}
 
-	private RangerGeolocationData(final long fromIPAddress, final long toIPAddress, final String[] locationData) {
+	RangerGeolocationData(final long fromIPAddress, final long toIPAddress, final String[] locationData) {
 		this.fromIPAddress = fromIPAddress;
 		this.toIPAddress = toIPAddress;
 		this.locationData = locationData;
@@ -131,24 +129,50 @@ public class RangerGeolocationData implements Comparable<RangerGeolocationData>,
 	}
 
 	public static long ipAddressToLong(final String ipAddress) {
+		long ret = parseIPv4Address(ipAddress);
 
-		long ret = 0L;
+		if (ret == -1) {
+			LOG.error("RangerGeolocationData.ipAddressToLong() - Invalid IP address " + ipAddress);
+
+			ret = 0L;
+		}
+
+		return ret;
+	}
+
+	/*
+	 * Parses an IPv4 address in dotted-decimal notation, without the name-service lookup done by InetAddress.getByName().
+	 * Returns -1 if the given string is not such an address.
+	 */
+	public static long parseIPv4Address(final String ipAddress) {
+		if (ipAddress == null) {
+			return -1;
+		}
 
-		try {
-			byte[] bytes = InetAddress.getByName(ipAddress).getAddress();
+		long ret          = 0L;
+		int  segmentCount = 0;
+		int  segment      = -1;
 
-			if (bytes != null && bytes.length <= 4) {
-				for (int i = 0; i < bytes.length; i++) {
-					int val = bytes[i] < 0 ? (256 + bytes[i]) : bytes[i];
-					ret += (val << (8 * (3 - i)));
+		for (int i = 0, len = ipAddress.length(); i <= len; i++) {
+			char c = i < len ? ipAddress.charAt(i) : '.';
+
+			if (c >= '0' && c <= '9') {
+				segment = (segment == -1 ? 0 : segment * 10) + (c - '0');
+
+				if (segment > 255) {
+					return -1;
 				}
+			} else if (c == '.' && segment != -1 && segmentCount < 4) {
+				ret     = (ret << 8) | segment;
+				segment = -1;
+
+				segmentCount++;
+			} else {
+				return -1;
 			}
 		}
-		catch (UnknownHostException exception) {
-			LOG.error("RangerGeolocationData.ipAddressToLong() - Invalid IP address " + ipAddress);
-		}
 
-		return ret;
+		return segmentCount == 4 ? ret : -1;
 	}
 
 	public static String unsignedIntToIPAddress(final long val) {
@@ -170,14 +194,9 @@ public class RangerGeolocationData implements Comparable<RangerGeolocationData>,
 			return StringUtils.isNumeric(ipAddress);
 		}
 
-		boolean ret = false;
+		boolean ret = parseIPv4Address(ipAddress) != -1;
 
-		try {
-			// Only to validate to see if ipAddress is in correct format
-			InetAddress.getByName(ipAddress).getAddress();
-			ret = true;
-		}
-		catch(UnknownHostException exception) {
+		if (!ret) {
 			LOG.error("RangerGeolocationData.validateAsIP() - Invalid address " + ipAddress);
 		}
 
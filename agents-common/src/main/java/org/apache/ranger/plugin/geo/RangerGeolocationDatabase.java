@@ -19,6 +19,10 @@
 
 package org.apache.ranger.plugin.geo;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -26,7 +30,10 @@ import org.apache.commons.logging.LogFactory;
 public class RangerGeolocationDatabase {
 	private static final Log LOG = LogFactory.getLog(RangerGeolocationDatabase.class);
 
-	private BinarySearchTree<RangerGeolocationData, Long> data = new BinarySearchTree<>();
+	private static final int INDEX_FORMAT_MAGIC   = 0x52474549; // "RGEI"
+	private static final int INDEX_FORMAT_VERSION = 1;
+
+	private GeolocationIndex data = GeolocationIndex.EMPTY;
 
 	private GeolocationMetadata metadata = new GeolocationMetadata();
 
@@ -55,35 +62,74 @@ public class RangerGeolocationDatabase {
 	public RangerGeolocationData find(final String ipAddressStr) {
 		RangerGeolocationData ret = null;
 
-		if (StringUtils.isNotBlank(ipAddressStr) && RangerGeolocationData.validateAsIP(ipAddressStr, true)) {
-			ret = data.find(RangerGeolocationData.ipAddressToLong(ipAddressStr));
+		if (StringUtils.isNotBlank(ipAddressStr)) {
+			long ipAddress = RangerGeolocationData.parseIPv4Address(ipAddressStr);
+
+			if (ipAddress != -1) {
+				int position = data.find(ipAddress);
+
+				if (position != -1) {
+					ret = data.getGeolocationData(position);
+				}
+			} else if (LOG.isDebugEnabled()) {
+				LOG.debug("RangerGeolocationDatabase.find() - not an IPv4 address: " + ipAddressStr);
+			}
 		}
 		return ret;
 	}
 
-	public void optimize() {
-		long start = 0L, end = 0L;
+	public void setData(final GeolocationIndex dataArg) { data = dataArg != null ? dataArg : GeolocationIndex.EMPTY;}
+
+	public void setMetadata(final GeolocationMetadata metadataArg) { metadata = metadataArg != null ? metadataArg : new GeolocationMetadata();}
+
+	public GeolocationMetadata getMetadata() { return metadata; }
+
+	public GeolocationIndex getData() { return data; }
 
-		start = System.currentTimeMillis();
-		data.rebalance();
-		end = System.currentTimeMillis();
+	/*
+	 * Writes metadata and index, along with the given source-file attributes, which readFrom() uses to detect a stale index
+	 */
+	public void writeTo(DataOutput out, long sourceLength, long sourceLastModified) throws IOException {
+		String[] itemNames = metadata.getLocationDataItemNames();
 
-		if (LOG.isDebugEnabled()) {
-			LOG.debug("RangerGeolocationDatabase.optimize() - Time taken for optimizing database = " + (end - start) + " milliseconds");
+		out.writeInt(INDEX_FORMAT_MAGIC);
+		out.writeInt(INDEX_FORMAT_VERSION);
+		out.writeLong(sourceLength);
+		out.writeLong(sourceLastModified);
+		out.writeInt(itemNames.length);
+
+		for (String itemName : itemNames) {
+			out.writeUTF(itemName);
 		}
+
+		data.writeTo(out);
 	}
 
-	public void setData(final BinarySearchTree<RangerGeolocationData, Long> dataArg) { data = dataArg != null ? dataArg : new BinarySearchTree<RangerGeolocationData, Long>();}
+	/*
+	 * Returns null if the input is not an index written for a source with the given attributes
+	 */
+	public static RangerGeolocationDatabase readFrom(DataInput in, long sourceLength, long sourceLastModified) throws IOException {
+		RangerGeolocationDatabase ret = null;
 
-	public void setMetadata(final GeolocationMetadata metadataArg) { metadata = metadataArg != null ? metadataArg : new GeolocationMetadata();}
+		if (in.readInt() == INDEX_FORMAT_MAGIC && in.readInt() == INDEX_FORMAT_VERSION && in.readLong() == sourceLength && in.readLong() == sourceLastModified) {
+			String[] itemNames = new String[in.readInt()];
 
-	public GeolocationMetadata getMetadata() { return metadata; }
+			for (int i = 0; i < itemNames.length; i++) {
+				itemNames[i] = in.readUTF();
+			}
 
-	public BinarySearchTree<RangerGeolocationData, Long> getData() { return data; }
+			ret = new RangerGeolocationDatabase();
+
+			ret.setMetadata(new GeolocationMetadata(itemNames));
+			ret.setData(GeolocationIndex.readFrom(in));
+		}
+
+		return ret;
+	}
 
 	public void dump(ValuePrinter<RangerGeolocationData> processor) {
 
-		BinarySearchTree<RangerGeolocationData, Long> geoDatabase = getData();
+		GeolocationIndex geoDatabase = getData();
 		GeolocationMetadata metadata = getMetadata();
 		processor.build();
 
@@ -91,7 +137,9 @@ public class RangerGeolocationDatabase {
 		processor.print(metadata.toString());
 
 		processor.print("#================== Dump of geoDatabase - START ==================");
-		geoDatabase.preOrderTraverseTree(processor);
+		for (int i = 0; i < geoDatabase.size(); i++) {
+			processor.process(geoDatabase.getGeolocationData(i));
+		}
 		processor.print("#================== Dump of geoDatabase - END   ==================");
 
 		processor.close();
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanNotificationInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+
+/**
+ * Publishes metrics as the read-only attributes of an MBean named org.apache.ranger:type=Metrics,name=<name>.
+ * Attributes are read from the source on every access, so metrics that appear after start() are published too.
+ */
+public class RangerJmxMetricsReporter implements RangerMetricsReporter, DynamicMBean {
+	private static final Log LOG = LogFactory.getLog(RangerJmxMetricsReporter.class);
+
+	public static final String OBJECT_NAME_PREFIX = "org.apache.ranger:type=Metrics,name=";
+
+	private RangerMetricsSource source;
+	private ObjectName          objectName;
+
+	@Override
+	public void start(String name, RangerMetricsSource source, Configuration config, String propertyPrefix) throws Exception {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerJmxMetricsReporter.start(" + name + ")");
+		}
+
+		MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+
+		this.source     = source;
+		this.objectName = new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(name));
+
+		if (mbeanServer.isRegistered(objectName)) { // left behind by an earlier instance of the plugin
+			mbeanServer.unregisterMBean(objectName);
+		}
+
+		mbeanServer.registerMBean(this, objectName);
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerJmxMetricsReporter.start(" + name + "): objectName=" + objectName);
+		}
+	}
+
+	@Override
+	public void stop() {
+		ObjectName objectName = this.objectName;
+
+		this.objectName = null;
+
+		if (objectName != null) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+			} catch (Exception excp) {
+				LOG.warn("RangerJmxMetricsReporter.stop(): failed to unregister " + objectName, excp);
+			}
+		}
+	}
+
+	public ObjectName getObjectName() {
+		return objectName;
+	}
+
+	@Override
+	public Object getAttribute(String attribute) throws AttributeNotFoundException {
+		Number ret = source.getMetrics().get(attribute);
+
+		if (ret == null) {
+			throw new AttributeNotFoundException(attribute);
+		}
+
+		return ret;
+	}
+
+	@Override
+	public AttributeList getAttributes(String[] attributes) {
+		AttributeList             ret     = new AttributeList();
+		SortedMap<String, Number> metrics = source.getMetrics();
+
+		for (String attribute : attributes) {
+			Number value = metrics.get(attribute);
+
+			if (value != null) {
+				ret.add(new Attribute(attribute, value));
+			}
+		}
+
+		return ret;
+	}
+
+	@Override
+	public void setAttribute(Attribute attribute) {
+		throw new UnsupportedOperationException("metrics are read-only");
+	}
+
+	@Override
+	public AttributeList setAttributes(AttributeList attributes) {
+		return new AttributeList();
+	}
+
+	@Override
+	public Object invoke(String actionName, Object[] params, String[] signature) {
+		throw new UnsupportedOperationException(actionName);
+	}
+
+	@Override
+	public MBeanInfo getMBeanInfo() {
+		List<MBeanAttributeInfo> attributes = new ArrayList<>();
+
+		for (Map.Entry<String, Number> entry : source.getMetrics().entrySet()) {
+			attributes.add(new MBeanAttributeInfo(entry.getKey(), entry.getValue().getClass().getName(), entry.getKey(), true, false, false));
+		}
+
+		return new MBeanInfo(getClass().getName(), "Ranger plugin metrics", attributes.toArray(new MBeanAttributeInfo[attributes.size()]),
+				null, new MBeanOperationInfo[0], new MBeanNotificationInfo[0]);
+	}
+}
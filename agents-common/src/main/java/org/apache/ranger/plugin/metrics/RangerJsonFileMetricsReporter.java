@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.metrics;
+
+import java.io.File;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Periodically dumps metrics, as a JSON object, to a file. The file is written in full to a temporary file and then
+ * renamed, so that readers never see a partial dump.
+ *
+ * Options:
+ *   <propertyPrefix>.json.file        - path of the file; default: <java.io.tmpdir>/ranger-metrics-<name>.json
+ *   <propertyPrefix>.json.interval.ms - interval between dumps; default: 60000
+ */
+public class RangerJsonFileMetricsReporter implements RangerMetricsReporter {
+	private static final Log LOG = LogFactory.getLog(RangerJsonFileMetricsReporter.class);
+
+	public static final String PROP_FILE        = ".json.file";
+	public static final String PROP_INTERVAL_MS = ".json.interval.ms";
+
+	public static final long DEFAULT_INTERVAL_MS = 60 * 1000;
+
+	private final Gson                gson = new GsonBuilder().setPrettyPrinting().create();
+	private       String              name;
+	private       RangerMetricsSource source;
+	private       File                file;
+	private       Timer               timer;
+
+	@Override
+	public void start(String name, RangerMetricsSource source, Configuration config, String propertyPrefix) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerJsonFileMetricsReporter.start(" + name + ")");
+		}
+
+		String defaultFile = new File(System.getProperty("java.io.tmpdir"), "ranger-metrics-" + name.replaceAll("[^A-Za-z0-9_.-]", "_") + ".json").getPath();
+		long   intervalMs  = config.getLong(propertyPrefix + PROP_INTERVAL_MS, DEFAULT_INTERVAL_MS);
+
+		this.name   = name;
+		this.source = source;
+		this.file   = new File(config.get(propertyPrefix + PROP_FILE, defaultFile));
+		this.timer  = new Timer("RangerJsonFileMetricsReporter-" + name, true);
+
+		timer.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				report();
+			}
+		}, intervalMs, intervalMs);
+
+		LOG.info("RangerJsonFileMetricsReporter(" + name + "): writing metrics to " + file + " every " + intervalMs + "ms");
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerJsonFileMetricsReporter.start(" + name + ")");
+		}
+	}
+
+	@Override
+	public void stop() {
+		Timer timer = this.timer;
+
+		this.timer = null;
+
+		if (timer != null) {
+			timer.cancel();
+
+			report(); // final dump, so that the file reflects everything recorded until now
+		}
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	void report() {
+		Map<String, Object> dump = new LinkedHashMap<>();
+
+		dump.put("name", name);
+		dump.put("timestamp", System.currentTimeMillis());
+		dump.put("metrics", source.getMetrics());
+
+		File tmpFile = new File(file.getPath() + ".tmp");
+
+		try {
+			File dir = file.getAbsoluteFile().getParentFile();
+
+			if (dir != null && !dir.exists() && !dir.mkdirs()) {
+				LOG.warn("RangerJsonFileMetricsReporter.report(): failed to create directory " + dir);
+			}
+
+			try (Writer writer = new OutputStreamWriter(Files.newOutputStream(tmpFile.toPath()), StandardCharsets.UTF_8)) {
+				gson.toJson(dump, writer);
+			}
+
+			Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (Exception excp) {
+			LOG.warn("RangerJsonFileMetricsReporter.report(): failed to write metrics to " + file, excp);
+		}
+	}
+}
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Lock-free histogram of latencies, in nanoseconds.
+ *
+ * Buckets are log-linear, as in HdrHistogram: every power-of-two range is split into SUB_BUCKET_COUNT linear
+ * sub-buckets, so that a recorded value is known to within 1/SUB_BUCKET_COUNT of itself. Each bucket is a LongAdder,
+ * which keeps concurrent recording from different threads off a shared cache line; recording is a handful of
+ * arithmetic operations and three uncontended adds.
+ *
+ * Snapshots are not atomic with respect to concurrent recording: a value recorded while a snapshot is taken may be
+ * seen in some of its aggregates and not in others. That is fine for monitoring.
+ */
+public class RangerLatencyHistogram {
+	static final int SUB_BUCKET_BITS  = 3;
+	static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	static final int BUCKET_COUNT     = bucketIndex(Long.MAX_VALUE) + 1;
+
+	private static final LongBinaryOperator MIN = new LongBinaryOperator() {
+		@Override
+		public long applyAsLong(long left, long right) {
+			return Math.min(left, right);
+		}
+	};
+
+	private static final LongBinaryOperator MAX = new LongBinaryOperator() {
+		@Override
+		public long applyAsLong(long left, long right) {
+			return Math.max(left, right);
+		}
+	};
+
+	private final String           name;
+	private final LongAdder[]      buckets = new LongAdder[BUCKET_COUNT];
+	private final LongAdder        sum     = new LongAdder();
+	private final LongAccumulator  min     = new LongAccumulator(MIN, Long.MAX_VALUE);
+	private final LongAccumulator  max     = new LongAccumulator(MAX, 0L);
+
+	public RangerLatencyHistogram(String name) {
+		this.name = name;
+
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = new LongAdder();
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void recordNanos(long elapsedNanos) {
+		if (elapsedNanos < 0) { // System.nanoTime() is monotonic, but be safe with values from elsewhere
+			elapsedNanos = 0;
+		}
+
+		buckets[bucketIndex(elapsedNanos)].increment();
+		sum.add(elapsedNanos);
+		min.accumulate(elapsedNanos);
+		max.accumulate(elapsedNanos);
+	}
+
+	public Snapshot getSnapshot() {
+		long[] counts = new long[buckets.length];
+		long   count  = 0;
+
+		for (int i = 0; i < buckets.length; i++) {
+			counts[i] = buckets[i].sum();
+			count    += counts[i];
+		}
+
+		return new Snapshot(counts, count, sum.sum(), count > 0 ? min.get() : 0L, count > 0 ? max.get() : 0L);
+	}
+
+	public void reset() {
+		for (LongAdder bucket : buckets) {
+			bucket.reset();
+		}
+
+		sum.reset();
+		min.reset();
+		max.reset();
+	}
+
+	@Override
+	public String toString() {
+		return "RangerLatencyHistogram={name=" + name + ", " + getSnapshot() + "}";
+	}
+
+	/*
+	 * values below SUB_BUCKET_COUNT * 2 have a bucket each; above that, bucket index grows by SUB_BUCKET_COUNT for
+	 * every doubling of the value, and the next SUB_BUCKET_BITS bits below the highest set bit pick the sub-bucket.
+	 */
+	static int bucketIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subIndex = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1));
+
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subIndex;
+	}
+
+	static long bucketLowerBound(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+
+		int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+		int subIndex = index % SUB_BUCKET_COUNT;
+
+		return ((long) (SUB_BUCKET_COUNT + subIndex)) << (exponent - SUB_BUCKET_BITS);
+	}
+
+	static long bucketUpperBound(int index) {
+		return index + 1 < BUCKET_COUNT ? bucketLowerBound(index + 1) - 1 : Long.MAX_VALUE;
+	}
+
+	public static class Snapshot {
+		private final long[] counts;
+		private final long   count;
+		private final long   sumNanos;
+		private final long   minNanos;
+		private final long   maxNanos;
+
+		Snapshot(long[] counts, long count, long sumNanos, long minNanos, long maxNanos) {
+			this.counts   = counts;
+			this.count    = count;
+			this.sumNanos = sumNanos;
+			this.minNanos = minNanos;
+			this.maxNanos = maxNanos;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getSumNanos() {
+			return sumNanos;
+		}
+
+		public long getMinNanos() {
+			return minNanos;
+		}
+
+		public long getMaxNanos() {
+			return maxNanos;
+		}
+
+		public double getMeanNanos() {
+			return count > 0 ? (double) sumNanos / count : 0d;
+		}
+
+		/*
+		 * percentile: 0 to 100. Returns the upper bound of the bucket holding the value at the given percentile,
+		 * capped by the maximum recorded value; 0 returns the minimum recorded value
+		 */
+		public long getPercentileNanos(double percentile) {
+			long ret = 0L;
+
+			if (count > 0 && percentile <= 0d) {
+				ret = minNanos;
+			} else if (count > 0) {
+				long rank       = (long) Math.ceil(Math.min(Math.max(percentile, 0d), 100d) / 100d * count);
+				long cumulative = 0L;
+
+				if (rank < 1) {
+					rank = 1;
+				}
+
+				for (int i = 0; i < counts.length; i++) {
+					cumulative += counts[i];
+
+					if (cumulative >= rank) {
+						ret = Math.min(bucketUpperBound(i), maxNanos);
+
+						break;
+					}
+				}
+
+				if (ret < minNanos) {
+					ret = minNanos;
+				}
+			}
+
+			return ret;
+		}
+
+		@Override
+		public String toString() {
+			return "count=" + count + ", meanNanos=" + (long) getMeanNanos() + ", minNanos=" + minNanos + ", maxNanos=" + maxNanos
+					+ ", p50Nanos=" + getPercentileNanos(50) + ", p99Nanos=" + getPercentileNanos(99);
+		}
+	}
+}
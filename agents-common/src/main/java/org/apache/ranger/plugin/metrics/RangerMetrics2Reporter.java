@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.metrics;
+
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.metrics2.MetricsCollector;
+import org.apache.hadoop.metrics2.MetricsRecordBuilder;
+import org.apache.hadoop.metrics2.MetricsSource;
+import org.apache.hadoop.metrics2.MetricsSystem;
+import org.apache.hadoop.metrics2.lib.DefaultMetricsSystem;
+import org.apache.hadoop.metrics2.lib.Interns;
+
+/**
+ * Publishes metrics as gauges of a Hadoop metrics2 source, so that they reach the sinks configured for the host
+ * service (hadoop-metrics2.properties). The metrics system of the host is used if it has been initialized; this
+ * reporter does not initialize one.
+ */
+public class RangerMetrics2Reporter implements RangerMetricsReporter, MetricsSource {
+	private static final Log LOG = LogFactory.getLog(RangerMetrics2Reporter.class);
+
+	public static final String CONTEXT = "ranger";
+
+	private String              name;
+	private RangerMetricsSource source;
+
+	@Override
+	public void start(String name, RangerMetricsSource source, Configuration config, String propertyPrefix) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerMetrics2Reporter.start(" + name + ")");
+		}
+
+		MetricsSystem metricsSystem = DefaultMetricsSystem.instance();
+
+		this.name   = name;
+		this.source = source;
+
+		if (metricsSystem.getSource(name) != null) { // left behind by an earlier instance of the plugin
+			metricsSystem.unregisterSource(name);
+		}
+
+		metricsSystem.register(name, "Ranger plugin metrics", this);
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerMetrics2Reporter.start(" + name + ")");
+		}
+	}
+
+	@Override
+	public void stop() {
+		String name = this.name;
+
+		this.name = null;
+
+		if (name != null) {
+			try {
+				DefaultMetricsSystem.instance().unregisterSource(name);
+			} catch (Exception excp) {
+				LOG.warn("RangerMetrics2Reporter.stop(): failed to unregister source " + name, excp);
+			}
+		}
+	}
+
+	@Override
+	public void getMetrics(MetricsCollector collector, boolean all) {
+		MetricsRecordBuilder record = collector.addRecord(name).setContext(CONTEXT);
+
+		for (Map.Entry<String, Number> entry : source.getMetrics().entrySet()) {
+			Number value = entry.getValue();
+
+			if (value instanceof Long || value instanceof Integer) {
+				record.addGauge(Interns.info(entry.getKey(), entry.getKey()), value.longValue());
+			} else {
+				record.addGauge(Interns.info(entry.getKey(), entry.getKey()), value.doubleValue());
+			}
+		}
+	}
+}
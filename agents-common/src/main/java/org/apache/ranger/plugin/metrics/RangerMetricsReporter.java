@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.metrics;
+
+import org.apache.hadoop.conf.Configuration;
+
+/**
+ * Publishes the metrics of a {@link RangerMetricsSource} - to JMX, to a file, to a Hadoop metrics system.
+ *
+ * Implementations must have a public no-argument constructor; they are instantiated by
+ * {@link RangerMetricsReporterFactory} from the class names in configuration.
+ */
+public interface RangerMetricsReporter {
+	/*
+	 * name: identifies the source within the process, for example in a JMX object name; options of the reporter are
+	 * read from config, with names starting with propertyPrefix
+	 */
+	void start(String name, RangerMetricsSource source, Configuration config, String propertyPrefix) throws Exception;
+
+	void stop();
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+
+/**
+ * Creates and starts the reporters listed in <propertyPrefix>.reporters - a comma separated list of class names of
+ * {@link RangerMetricsReporter} implementations, or of the short names jmx, json and metrics2. Default: jmx.
+ */
+public class RangerMetricsReporterFactory {
+	private static final Log LOG = LogFactory.getLog(RangerMetricsReporterFactory.class);
+
+	public static final String PROP_REPORTERS    = ".reporters";
+	public static final String REPORTER_JMX      = "jmx";
+	public static final String REPORTER_JSON     = "json";
+	public static final String REPORTER_METRICS2 = "metrics2";
+
+	public static final String DEFAULT_REPORTERS = REPORTER_JMX;
+
+	private RangerMetricsReporterFactory() {
+	}
+
+	/*
+	 * A reporter that fails to start is logged and left out; metrics must never keep the plugin from starting
+	 */
+	public static List<RangerMetricsReporter> startReporters(String name, RangerMetricsSource source, Configuration config, String propertyPrefix) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerMetricsReporterFactory.startReporters(" + name + ", " + propertyPrefix + ")");
+		}
+
+		List<RangerMetricsReporter> ret = new ArrayList<>();
+
+		for (String reporterName : StringUtils.split(config.get(propertyPrefix + PROP_REPORTERS, DEFAULT_REPORTERS), ',')) {
+			reporterName = reporterName.trim();
+
+			if (StringUtils.isEmpty(reporterName)) {
+				continue;
+			}
+
+			try {
+				RangerMetricsReporter reporter = createReporter(reporterName);
+
+				reporter.start(name, source, config, propertyPrefix);
+
+				ret.add(reporter);
+			} catch (Throwable excp) {
+				LOG.error("failed to start metrics reporter " + reporterName + " for " + name + ". Ignored", excp);
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerMetricsReporterFactory.startReporters(" + name + ", " + propertyPrefix + "): " + ret.size() + " reporters");
+		}
+
+		return ret;
+	}
+
+	public static void stopReporters(List<RangerMetricsReporter> reporters) {
+		if (reporters != null) {
+			for (RangerMetricsReporter reporter : reporters) {
+				try {
+					reporter.stop();
+				} catch (Throwable excp) {
+					LOG.warn("failed to stop metrics reporter " + reporter.getClass().getName() + ". Ignored", excp);
+				}
+			}
+		}
+	}
+
+	static RangerMetricsReporter createReporter(String reporterName) throws Exception {
+		final RangerMetricsReporter ret;
+
+		if (REPORTER_JMX.equalsIgnoreCase(reporterName)) {
+			ret = new RangerJmxMetricsReporter();
+		} else if (REPORTER_JSON.equalsIgnoreCase(reporterName)) {
+			ret = new RangerJsonFileMetricsReporter();
+		} else if (REPORTER_METRICS2.equalsIgnoreCase(reporterName)) {
+			ret = new RangerMetrics2Reporter();
+		} else {
+			ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+
+			if (classLoader == null) {
+				classLoader = RangerMetricsReporterFactory.class.getClassLoader();
+			}
+
+			ret = Class.forName(reporterName, true, classLoader).asSubclass(RangerMetricsReporter.class).newInstance();
+		}
+
+		return ret;
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.metrics;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Always-on latency metrics of the plugin hot paths: one {@link RangerLatencyHistogram} per name, recorded through
+ * startTimer()/stopTimer().
+ *
+ * Unlike RangerPerfTracer, this does not depend on a logger level and does not build a tag string per call: callers
+ * pass one of the constant names below (or another constant of their own), and when metrics are disabled - the
+ * default - startTimer() returns 0 and stopTimer() returns without reading the clock.
+ *
+ * Usage:
+ *   long startNanos = RangerPerfMetrics.startTimer();
+ *   ...
+ *   RangerPerfMetrics.stopTimer(RangerPerfMetrics.POLICY_ENGINE_REQUEST, startNanos);
+ */
+public class RangerPerfMetrics {
+	public static final String POLICY_ENGINE_REQUEST    = "policyengine.request";
+	public static final String POLICY_ENGINE_ENRICHMENT = "policyengine.enrichment";
+	public static final String POLICY_ENGINE_AUDIT      = "policyengine.audit";
+	public static final String POLICY_REFRESH           = "policy.refresh";
+	public static final String TAG_REFRESH              = "tag.refresh";
+	public static final String PLUGIN_PREFIX            = "plugin.";
+
+	public static final String METRIC_COUNT     = ".count";
+	public static final String METRIC_MEAN_US   = ".mean_us";
+	public static final String METRIC_MIN_US    = ".min_us";
+	public static final String METRIC_MAX_US    = ".max_us";
+	public static final String METRIC_P50_US    = ".p50_us";
+	public static final String METRIC_P90_US    = ".p90_us";
+	public static final String METRIC_P99_US    = ".p99_us";
+	public static final String METRIC_P999_US   = ".p999_us";
+
+	private static final ConcurrentMap<String, RangerLatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+	private static volatile boolean isEnabled = false;
+
+	private static final RangerMetricsSource SOURCE = new RangerMetricsSource() {
+		@Override
+		public SortedMap<String, Number> getMetrics() {
+			return RangerPerfMetrics.getMetrics();
+		}
+	};
+
+	private RangerPerfMetrics() {
+	}
+
+	public static boolean isEnabled() {
+		return isEnabled;
+	}
+
+	public static void setEnabled(boolean enabled) {
+		isEnabled = enabled;
+	}
+
+	/*
+	 * Returns the start time to pass to stopTimer(), or 0 if metrics are disabled. A System.nanoTime() of exactly 0
+	 * is treated as disabled too; losing that one sample is not worth another volatile read in stopTimer()
+	 */
+	public static long startTimer() {
+		return isEnabled ? System.nanoTime() : 0L;
+	}
+
+	public static void stopTimer(String name, long startNanos) {
+		if (startNanos != 0L) {
+			getHistogram(name).recordNanos(System.nanoTime() - startNanos);
+		}
+	}
+
+	public static void record(String name, long elapsedNanos) {
+		if (isEnabled) {
+			getHistogram(name).recordNanos(elapsedNanos);
+		}
+	}
+
+	public static RangerLatencyHistogram getHistogram(String name) {
+		RangerLatencyHistogram ret = histograms.get(name);
+
+		if (ret == null) {
+			RangerLatencyHistogram histogram = new RangerLatencyHistogram(name);
+
+			ret = histograms.putIfAbsent(name, histogram);
+
+			if (ret == null) {
+				ret = histogram;
+			}
+		}
+
+		return ret;
+	}
+
+	public static SortedMap<String, RangerLatencyHistogram.Snapshot> getSnapshots() {
+		SortedMap<String, RangerLatencyHistogram.Snapshot> ret = new TreeMap<>();
+
+		for (Map.Entry<String, RangerLatencyHistogram> entry : histograms.entrySet()) {
+			ret.put(entry.getKey(), entry.getValue().getSnapshot());
+		}
+
+		return ret;
+	}
+
+	/*
+	 * Flattens the snapshot of each histogram into <name>.count, <name>.mean_us, <name>.p99_us, ...
+	 */
+	public static SortedMap<String, Number> getMetrics() {
+		SortedMap<String, Number> ret = new TreeMap<>();
+
+		for (Map.Entry<String, RangerLatencyHistogram.Snapshot> entry : getSnapshots().entrySet()) {
+			String                          name     = entry.getKey();
+			RangerLatencyHistogram.Snapshot snapshot = entry.getValue();
+
+			ret.put(name + METRIC_COUNT, snapshot.getCount());
+			ret.put(name + METRIC_MEAN_US, toMicros(snapshot.getMeanNanos()));
+			ret.put(name + METRIC_MIN_US, toMicros(snapshot.getMinNanos()));
+			ret.put(name + METRIC_MAX_US, toMicros(snapshot.getMaxNanos()));
+			ret.put(name + METRIC_P50_US, toMicros(snapshot.getPercentileNanos(50)));
+			ret.put(name + METRIC_P90_US, toMicros(snapshot.getPercentileNanos(90)));
+			ret.put(name + METRIC_P99_US, toMicros(snapshot.getPercentileNanos(99)));
+			ret.put(name + METRIC_P999_US, toMicros(snapshot.getPercentileNanos(99.9)));
+		}
+
+		return ret;
+	}
+
+	public static RangerMetricsSource getMetricsSource() {
+		return SOURCE;
+	}
+
+	public static void clear() {
+		histograms.clear();
+	}
+
+	private static double toMicros(double nanos) {
+		return nanos / 1000d;
+	}
+}
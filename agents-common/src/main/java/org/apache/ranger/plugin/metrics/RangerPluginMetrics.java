@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.metrics;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+import org.apache.ranger.audit.provider.AuditHandler;
+import org.apache.ranger.audit.provider.AuditProviderFactory;
+import org.apache.ranger.audit.provider.MultiDestAuditProvider;
+import org.apache.ranger.audit.queue.AuditFileSpool;
+import org.apache.ranger.audit.queue.AuditQueue;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+
+/**
+ * Metrics of a plugin instance: counters updated on the request path, and gauges read only when the metrics are
+ * reported. Created by RangerBasePlugin when ranger.plugin.<serviceType>.metrics.enabled is true, and published -
+ * along with the latency histograms of {@link RangerPerfMetrics} - by the reporters configured for the plugin.
+ *
+ * Recording a request is a few LongAdder increments; gauges (policy staleness, audit queue depth, ...) cost nothing
+ * until a reporter asks for them.
+ */
+public class RangerPluginMetrics implements RangerMetricsSource {
+	public static final String ACCESS_REQUESTS           = "access.requests";
+	public static final String ACCESS_ALLOWED            = "access.allowed";
+	public static final String ACCESS_DENIED             = "access.denied";
+	public static final String EVALUATED_POLICIES_TOTAL  = "access.evaluatedPolicies.total";
+	public static final String EVALUATED_POLICIES_MEAN   = "access.evaluatedPolicies.mean";
+	public static final String EVALUATED_POLICIES_MAX    = "access.evaluatedPolicies.max";
+	public static final String POLICY_VERSION            = "policy.version";
+	public static final String POLICY_STALENESS_MS       = "policy.stalenessMs";
+	public static final String AUDIT_QUEUE_PREFIX        = "audit.queue.";
+	public static final String AUDIT_QUEUE_SIZE          = ".size";
+	public static final String AUDIT_SPOOL_PENDING_FILES = ".spool.pendingFiles";
+
+	private static final LongBinaryOperator MAX = new LongBinaryOperator() {
+		@Override
+		public long applyAsLong(long left, long right) {
+			return Math.max(left, right);
+		}
+	};
+
+	/**
+	 * A value that is read when metrics are reported
+	 */
+	public interface Gauge {
+		Number getValue();
+	}
+
+	private final LongAdder                    accessRequests         = new LongAdder();
+	private final LongAdder                    accessAllowed          = new LongAdder();
+	private final LongAdder                    accessDenied           = new LongAdder();
+	private final LongAdder                    evaluatedPoliciesTotal = new LongAdder();
+	private final LongAccumulator              evaluatedPoliciesMax   = new LongAccumulator(MAX, 0L);
+	private final ConcurrentMap<String, Gauge> gauges                 = new ConcurrentHashMap<>();
+
+	public void recordAccessResult(RangerAccessResult result) {
+		if (result != null) {
+			long evaluatedPolicies = result.getEvaluatedPoliciesCount();
+
+			accessRequests.increment();
+
+			if (result.getIsAllowed()) {
+				accessAllowed.increment();
+			} else {
+				accessDenied.increment();
+			}
+
+			evaluatedPoliciesTotal.add(evaluatedPolicies);
+			evaluatedPoliciesMax.accumulate(evaluatedPolicies);
+		}
+	}
+
+	public void recordAccessResults(Collection<RangerAccessResult> results) {
+		if (results != null) {
+			for (RangerAccessResult result : results) {
+				recordAccessResult(result);
+			}
+		}
+	}
+
+	public void registerGauge(String name, Gauge gauge) {
+		gauges.put(name, gauge);
+	}
+
+	public void unregisterGauge(String name) {
+		gauges.remove(name);
+	}
+
+	@Override
+	public SortedMap<String, Number> getMetrics() {
+		SortedMap<String, Number> ret = RangerPerfMetrics.getMetrics();
+
+		long requests       = accessRequests.sum();
+		long totalEvaluated = evaluatedPoliciesTotal.sum();
+
+		ret.put(ACCESS_REQUESTS, requests);
+		ret.put(ACCESS_ALLOWED, accessAllowed.sum());
+		ret.put(ACCESS_DENIED, accessDenied.sum());
+		ret.put(EVALUATED_POLICIES_TOTAL, totalEvaluated);
+		ret.put(EVALUATED_POLICIES_MEAN, requests > 0 ? (double) totalEvaluated / requests : 0d);
+		ret.put(EVALUATED_POLICIES_MAX, evaluatedPoliciesMax.get());
+
+		for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+			Number value = entry.getValue().getValue();
+
+			if (value != null) {
+				ret.put(entry.getKey(), value);
+			}
+		}
+
+		addAuditQueueMetrics(AuditProviderFactory.getAuditProvider(), ret);
+
+		return ret;
+	}
+
+	/*
+	 * walks the chain of audit handlers - async/summary/batch queues, multi-destination providers - and reports the
+	 * depth of each queue and of its file spool, by the path of the queue (for example: async.multi_dest.batch.solr)
+	 */
+	static void addAuditQueueMetrics(AuditHandler handler, Map<String, Number> metrics) {
+		if (handler instanceof AuditQueue) {
+			AuditQueue     queue       = (AuditQueue) handler;
+			AuditFileSpool fileSpooler = queue.getFileSpooler();
+			String         prefix      = AUDIT_QUEUE_PREFIX + queue.getFinalPath();
+
+			metrics.put(prefix + AUDIT_QUEUE_SIZE, queue.getQueueSize());
+
+			if (fileSpooler != null) {
+				metrics.put(prefix + AUDIT_SPOOL_PENDING_FILES, fileSpooler.getPendingFileCount());
+			}
+
+			addAuditQueueMetrics(queue.getConsumer(), metrics);
+		} else if (handler instanceof MultiDestAuditProvider) {
+			for (AuditHandler provider : ((MultiDestAuditProvider) handler).getAuditProviders()) {
+				addAuditQueueMetrics(provider, metrics);
+			}
+		}
+	}
+}
@@ -67,6 +67,86 @@ public class RangerPolicyValidator extends RangerValidator {
 		}
 	}
 
+	/**
+	 * Validates a batch of policies to be created or updated together: each policy is validated as by
+	 * validate(RangerPolicy, Action, boolean), and policies in the batch are checked for conflicting names
+	 * and resources among themselves. Failures of all policies are reported together.
+	 */
+	public void validate(List<RangerPolicy> policies, Action action, boolean isAdmin) throws Exception {
+		if(LOG.isDebugEnabled()) {
+			LOG.debug(String.format("==> RangerPolicyValidator.validate(policyCount=%d, %s, %s)", policies == null ? 0 : policies.size(), action, isAdmin));
+		}
+
+		List<ValidationFailureDetails> failures = new ArrayList<>();
+		boolean valid = isValid(policies, action, isAdmin, failures);
+		String message = "";
+		try {
+			if (!valid) {
+				message = serializeFailures(failures);
+				throw new Exception(message);
+			}
+		} finally {
+			if(LOG.isDebugEnabled()) {
+				LOG.debug(String.format("<== RangerPolicyValidator.validate(policyCount=%d, %s, %s): %s, reason[%s]", policies == null ? 0 : policies.size(), action, isAdmin, valid, message));
+			}
+		}
+	}
+
+	boolean isValid(List<RangerPolicy> policies, Action action, boolean isAdmin, List<ValidationFailureDetails> failures) {
+		boolean valid = true;
+
+		if (CollectionUtils.isEmpty(policies)) {
+			return valid;
+		}
+
+		// service-name => policy-name/resource-signature => policy, for conflicts within the batch
+		Map<String, Map<String, RangerPolicy>> policiesByName      = new HashMap<>();
+		Map<String, Map<String, RangerPolicy>> policiesBySignature = new HashMap<>();
+
+		for (RangerPolicy policy : policies) {
+			valid = isValid(policy, action, isAdmin, failures) && valid;
+
+			if (policy == null || StringUtils.isBlank(policy.getService())) {
+				continue;
+			}
+
+			String serviceName = policy.getService();
+
+			if (StringUtils.isNotBlank(policy.getName())) {
+				RangerPolicy other = putIfAbsent(policiesByName, serviceName, policy.getName(), policy);
+
+				if (other != null) {
+					ValidationErrorCode error = ValidationErrorCode.POLICY_VALIDATION_ERR_POLICY_NAME_CONFLICT_IN_BATCH;
+					failures.add(new ValidationFailureDetailsBuilder()
+						.field("policy name")
+						.isSemanticallyIncorrect()
+						.becauseOf(error.getMessage(policy.getName(), serviceName))
+						.errorCode(error.getErrorCode())
+						.build());
+					valid = false;
+				}
+			}
+
+			if (Boolean.TRUE.equals(policy.getIsEnabled())) {
+				String       signature = _factory.createPolicyResourceSignature(policy).getSignature();
+				RangerPolicy other     = putIfAbsent(policiesBySignature, serviceName, signature, policy);
+
+				if (other != null) {
+					ValidationErrorCode error = ValidationErrorCode.POLICY_VALIDATION_ERR_DUPLICATE_POLICY_RESOURCE_IN_BATCH;
+					failures.add(new ValidationFailureDetailsBuilder()
+						.field("resources")
+						.isSemanticallyIncorrect()
+						.becauseOf(error.getMessage(other.getName(), serviceName))
+						.errorCode(error.getErrorCode())
+						.build());
+					valid = false;
+				}
+			}
+		}
+
+		return valid;
+	}
+
 	@Override
 	boolean isValid(Long id, Action action, List<ValidationFailureDetails> failures) {
 		if(LOG.isDebugEnabled()) {
@@ -920,4 +1000,22 @@ public class RangerPolicyValidator extends RangerValidator {
 		}
 		return valid;
 	}
+
+	private static RangerPolicy putIfAbsent(Map<String, Map<String, RangerPolicy>> index, String serviceName, String key, RangerPolicy policy) {
+		Map<String, RangerPolicy> servicePolicies = index.get(serviceName);
+
+		if (servicePolicies == null) {
+			servicePolicies = new HashMap<>();
+
+			index.put(serviceName, servicePolicies);
+		}
+
+		RangerPolicy ret = servicePolicies.get(key);
+
+		if (ret == null) {
+			servicePolicies.put(key, policy);
+		}
+
+		return ret;
+	}
 }
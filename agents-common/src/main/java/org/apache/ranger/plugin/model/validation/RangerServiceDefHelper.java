@@ -44,6 +44,11 @@ import com.google.common.collect.Lists;
 import org.apache.ranger.plugin.resourcematcher.RangerAbstractResourceMatcher;
 import org.apache.ranger.plugin.resourcematcher.RangerPathResourceMatcher;
 
+/**
+ * Thread-safety: a helper, and the cached delegate it wraps, is immutable once constructed and can be shared by
+ * threads that build policy evaluators in parallel. The delegate cache is a ConcurrentHashMap.
+ * patchServiceDefWithDefaultValues() updates the service-def and must not run concurrently with its readers.
+ */
 public class RangerServiceDefHelper {
 	private static final Log LOG = LogFactory.getLog(RangerServiceDefHelper.class);
 	
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.plugin.contextenricher.RangerContextEnricher;
+import org.apache.ranger.plugin.util.RangerPerfTracer;
+
+/**
+ * Runs context enrichers of a policy engine on requests.
+ *
+ * Enrichers that don't declare the context keys they produce are run in preProcess(). Others are run only when a
+ * condition evaluator, or the engine, is about to read one of their keys; each such enricher is run at most once for a
+ * request context. The tag enricher is run only when the tag-policy repository has policies of the type being
+ * evaluated, as tags are read just before such policies are looked up.
+ *
+ * Deferring enrichers can be turned off with policyengine.option.disable.lazy.context.enrichment=true, for plugins
+ * whose audit handlers, data-mask/row-filter expressions or callers read enriched keys that no condition reads: with
+ * deferral, such keys are not set. Deferral also keeps its bookkeeping in the request context, under CONTEXT_ENRICHMENT_STATE.
+ */
+public class RangerContextEnricherPipeline {
+	private static final Log LOG = LogFactory.getLog(RangerContextEnricherPipeline.class);
+
+	private static final Log PERF_CONTEXTENRICHER_REQUEST_LOG = RangerPerfTracer.getPerfLogger("contextenricher.request");
+
+	private static final String KEY_CONTEXT_ENRICHMENT_STATE = "CONTEXT_ENRICHMENT_STATE";
+
+	private final List<RangerContextEnricher> eagerEnrichers;
+	private final List<RangerContextEnricher> lazyEnrichers;
+	private final List<Set<String>>           lazyEnricherKeys;
+
+	public RangerContextEnricherPipeline(List<RangerContextEnricher> enrichers, boolean enableLazyEnrichment) {
+		List<RangerContextEnricher> eager   = new ArrayList<>();
+		List<RangerContextEnricher> lazy    = new ArrayList<>();
+		List<Set<String>>           lazyKeys = new ArrayList<>();
+
+		if (enrichers != null) {
+			for (RangerContextEnricher enricher : enrichers) {
+				Set<String> keys = enableLazyEnrichment ? enricher.getProducedContextKeys() : null;
+
+				if (keys == null) {
+					eager.add(enricher);
+				} else {
+					lazy.add(enricher);
+					lazyKeys.add(keys);
+				}
+			}
+		}
+
+		this.eagerEnrichers   = eager;
+		this.lazyEnrichers    = lazy;
+		this.lazyEnricherKeys = lazyKeys;
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("RangerContextEnricherPipeline(): eagerEnricherCount=" + eager.size() + ", lazyEnricherCount=" + lazy.size());
+		}
+	}
+
+	public int getLazyEnricherCount() {
+		return lazyEnrichers.size();
+	}
+
+	/*
+	 * Runs enrichers whose output is not known upfront; other enrichers are made available to ensureContextKeys()
+	 */
+	public void preProcess(RangerAccessRequest request) {
+		for (RangerContextEnricher enricher : eagerEnrichers) {
+			enrich(enricher, request);
+		}
+
+		if (!lazyEnrichers.isEmpty()) {
+			setState(request.getContext(), new EnrichmentState(this, request.getContext(), new BitSet(lazyEnrichers.size())));
+		}
+	}
+
+	/**
+	 * Runs the enrichers, deferred by preProcess(), that produce any of the given keys and have not yet run for the request context.
+	 * @param request
+	 * @param contextKeys keys a condition evaluator reads; null if the evaluator may read any key
+	 */
+	public static void ensureContextKeys(RangerAccessRequest request, Set<String> contextKeys) {
+		Map<String, Object> context = request != null ? request.getContext() : null;
+		Object              val     = context != null ? context.get(KEY_CONTEXT_ENRICHMENT_STATE) : null;
+
+		if (val instanceof EnrichmentState && (contextKeys == null || !contextKeys.isEmpty())) {
+			EnrichmentState state = (EnrichmentState) val;
+
+			if (state.context != context) { // context copied from the one enrichment state was created for
+				state = new EnrichmentState(state.pipeline, context, (BitSet) state.enriched.clone());
+
+				setState(context, state);
+			}
+
+			state.pipeline.ensureContextKeys(request, contextKeys, state.enriched);
+		}
+	}
+
+	private void ensureContextKeys(RangerAccessRequest request, Set<String> contextKeys, BitSet enriched) {
+		for (int i = 0; i < lazyEnrichers.size(); i++) {
+			if (!enriched.get(i) && (contextKeys == null || !Collections.disjoint(contextKeys, lazyEnricherKeys.get(i)))) {
+				enriched.set(i);
+
+				enrich(lazyEnrichers.get(i), request);
+			}
+		}
+	}
+
+	private void enrich(RangerContextEnricher enricher, RangerAccessRequest request) {
+		RangerPerfTracer perf = null;
+
+		if(RangerPerfTracer.isPerfTraceEnabled(PERF_CONTEXTENRICHER_REQUEST_LOG)) {
+			perf = RangerPerfTracer.getPerfTracer(PERF_CONTEXTENRICHER_REQUEST_LOG, "RangerContextEnricher.enrich(requestHashCode=" + Integer.toHexString(System.identityHashCode(request)) + ", enricherName=" + enricher.getName() + ")");
+		}
+
+		enricher.enrich(request);
+
+		RangerPerfTracer.log(perf);
+	}
+
+	private static void setState(Map<String, Object> context, EnrichmentState state) {
+		try {
+			context.put(KEY_CONTEXT_ENRICHMENT_STATE, state);
+		} catch (UnsupportedOperationException excp) {
+			// read-only context; deferred enrichers won't be run for this request
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("RangerContextEnricherPipeline: read-only request context. Deferred enrichers will not be run");
+			}
+		}
+	}
+
+	private static class EnrichmentState {
+		final RangerContextEnricherPipeline pipeline;
+		final Map<String, Object>           context;
+		final BitSet                        enriched;
+
+		EnrichmentState(RangerContextEnricherPipeline pipeline, Map<String, Object> context, BitSet enriched) {
+			this.pipeline = pipeline;
+			this.context  = context;
+			this.enriched = enriched;
+		}
+
+		@Override
+		public String toString() {
+			return "EnrichmentState={enriched=" + enriched + "}";
+		}
+	}
+}
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerDataMaskPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemDataMaskInfo;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemRowFilterInfo;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerRowFilterPolicyItem;
+
+/*
+ * Shrinks the plugin-side copy of policies, which is only read by the policy engine:
+ *  - duplicate strings (users, groups, access-types, resource names/values, conditions) are replaced by a single instance
+ *  - fields never read by the policy engine (description, createdBy, createTime, resourceSignature, ..) are dropped
+ *  - lists are trimmed to their size
+ * Policies are updated in place, as the model setters copy the given collections. Must not be used on policies
+ * shared with ranger-admin, which needs the dropped fields. Not thread-safe; a compactor is used by one thread.
+ */
+class RangerPolicyCompactor {
+	// approximate size of a String instance and its char[] header, with compressed oops
+	private static final int STRING_OVERHEAD_BYTES = 40;
+	private static final int DATE_BYTES            = 24;
+
+	private final Map<String, String> strings = new HashMap<>();
+
+	private long policyCount;
+	private long bytesSaved;
+
+	long getPolicyCount() {
+		return policyCount;
+	}
+
+	/*
+	 * Estimated heap released by the compacted policies: duplicate strings and the dropped fields.
+	 * Capacity released by trimming lists is not included.
+	 */
+	long getBytesSaved() {
+		return bytesSaved;
+	}
+
+	void compact(RangerPolicy policy) {
+		if (policy == null) {
+			return;
+		}
+
+		bytesSaved += sizeOf(policy.getDescription()) + sizeOf(policy.getResourceSignature()) + sizeOf(policy.getGuid())
+				    + sizeOf(policy.getCreatedBy()) + sizeOf(policy.getUpdatedBy());
+
+		if (policy.getCreateTime() != null) {
+			bytesSaved += DATE_BYTES;
+		}
+
+		if (policy.getUpdateTime() != null) {
+			bytesSaved += DATE_BYTES;
+		}
+
+		policy.setDescription(null);
+		policy.setResourceSignature(null);
+		policy.setGuid(null);
+		policy.setCreatedBy(null);
+		policy.setUpdatedBy(null);
+		policy.setCreateTime(null);
+		policy.setUpdateTime(null);
+
+		policy.setService(intern(policy.getService()));
+		policy.setServiceType(intern(policy.getServiceType()));
+
+		compactResources(policy);
+
+		compactPolicyItems(policy.getPolicyItems());
+		compactPolicyItems(policy.getDenyPolicyItems());
+		compactPolicyItems(policy.getAllowExceptions());
+		compactPolicyItems(policy.getDenyExceptions());
+		compactPolicyItems(policy.getDataMaskPolicyItems());
+		compactPolicyItems(policy.getRowFilterPolicyItems());
+
+		policyCount++;
+	}
+
+	private void compactResources(RangerPolicy policy) {
+		Map<String, RangerPolicyResource> resources = policy.getResources();
+
+		if (resources == null || resources.isEmpty()) {
+			return;
+		}
+
+		Map<String, RangerPolicyResource> compacted = new HashMap<>(resources.size());
+
+		for (Map.Entry<String, RangerPolicyResource> e : resources.entrySet()) {
+			RangerPolicyResource resource = e.getValue();
+
+			if (resource != null) {
+				compactStrings(resource.getValues());
+			}
+
+			compacted.put(intern(e.getKey()), resource);
+		}
+
+		policy.setResources(compacted);
+	}
+
+	private void compactPolicyItems(List<? extends RangerPolicyItem> policyItems) {
+		if (policyItems == null) {
+			return;
+		}
+
+		for (RangerPolicyItem policyItem : policyItems) {
+			if (policyItem == null) {
+				continue;
+			}
+
+			compactStrings(policyItem.getUsers());
+			compactStrings(policyItem.getGroups());
+
+			if (policyItem.getAccesses() != null) {
+				for (RangerPolicyItemAccess access : policyItem.getAccesses()) {
+					if (access != null) {
+						access.setType(intern(access.getType()));
+					}
+				}
+
+				trim(policyItem.getAccesses());
+			}
+
+			if (policyItem.getConditions() != null) {
+				for (RangerPolicyItemCondition condition : policyItem.getConditions()) {
+					if (condition != null) {
+						condition.setType(intern(condition.getType()));
+
+						compactStrings(condition.getValues());
+					}
+				}
+
+				trim(policyItem.getConditions());
+			}
+
+			if (policyItem instanceof RangerDataMaskPolicyItem) {
+				RangerPolicyItemDataMaskInfo dataMaskInfo = ((RangerDataMaskPolicyItem) policyItem).getDataMaskInfo();
+
+				if (dataMaskInfo != null) {
+					dataMaskInfo.setDataMaskType(intern(dataMaskInfo.getDataMaskType()));
+					dataMaskInfo.setConditionExpr(intern(dataMaskInfo.getConditionExpr()));
+					dataMaskInfo.setValueExpr(intern(dataMaskInfo.getValueExpr()));
+				}
+			} else if (policyItem instanceof RangerRowFilterPolicyItem) {
+				RangerPolicyItemRowFilterInfo rowFilterInfo = ((RangerRowFilterPolicyItem) policyItem).getRowFilterInfo();
+
+				if (rowFilterInfo != null) {
+					rowFilterInfo.setFilterExpr(intern(rowFilterInfo.getFilterExpr()));
+				}
+			}
+		}
+
+		trim(policyItems);
+	}
+
+	private void compactStrings(List<String> values) {
+		if (values == null) {
+			return;
+		}
+
+		for (ListIterator<String> iter = values.listIterator(); iter.hasNext(); ) {
+			String value = iter.next();
+			String interned = intern(value);
+
+			if (interned != value) {
+				iter.set(interned);
+			}
+		}
+
+		trim(values);
+	}
+
+	private String intern(String value) {
+		if (value == null) {
+			return null;
+		}
+
+		String ret = strings.get(value);
+
+		if (ret == null) {
+			strings.put(value, value);
+
+			ret = value;
+		} else if (ret != value) {
+			bytesSaved += sizeOf(value);
+		}
+
+		return ret;
+	}
+
+	private static void trim(List<?> list) {
+		if (list instanceof ArrayList) {
+			((ArrayList<?>) list).trimToSize();
+		}
+	}
+
+	private static long sizeOf(String value) {
+		return value == null ? 0 : (STRING_OVERHEAD_BYTES + 2L * value.length());
+	}
+}
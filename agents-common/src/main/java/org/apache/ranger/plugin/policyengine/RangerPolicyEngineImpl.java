@@ -20,13 +20,13 @@
 package org.apache.ranger.plugin.policyengine;
 
 import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
 import org.apache.ranger.plugin.contextenricher.RangerContextEnricher;
 import org.apache.ranger.plugin.contextenricher.RangerTagForEval;
+import org.apache.ranger.plugin.metrics.RangerPerfMetrics;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerServiceDef;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
@@ -39,6 +39,7 @@ import org.apache.ranger.plugin.util.ServicePolicies;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -50,19 +51,23 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 	private static final Log PERF_POLICYENGINE_INIT_LOG = RangerPerfTracer.getPerfLogger("policyengine.init");
 	private static final Log PERF_POLICYENGINE_REQUEST_LOG = RangerPerfTracer.getPerfLogger("policyengine.request");
 	private static final Log PERF_POLICYENGINE_AUDIT_LOG = RangerPerfTracer.getPerfLogger("policyengine.audit");
-	private static final Log PERF_CONTEXTENRICHER_REQUEST_LOG = RangerPerfTracer.getPerfLogger("contextenricher.request");
 	private static final Log PERF_POLICYENGINE_REBALANCE_LOG = RangerPerfTracer.getPerfLogger("policyengine.rebalance");
 	private static final Log PERF_POLICYENGINE_USAGE_LOG = RangerPerfTracer.getPerfLogger("policyengine.usage");
 
 	private static final int MAX_POLICIES_FOR_CACHE_TYPE_EVALUATOR = 100;
 
+	private static final Set<String> TAG_CONTEXT_KEYS = Collections.singleton(RangerAccessRequestUtil.KEY_CONTEXT_TAGS);
+
 	private final RangerPolicyRepository policyRepository;
 	private final RangerPolicyRepository tagPolicyRepository;
 	
 	private List<RangerContextEnricher> allContextEnrichers;
+	private RangerContextEnricherPipeline contextEnricherPipeline;
 
 	private final Map<Long, RangerPolicyEvaluator> policyEvaluatorsMap;
 
+	private final RangerPolicyEvaluatorProfiler evaluatorProfiler;
+
 	private boolean  useForwardedIPAddress;
 	private String[] trustedProxyAddresses;
 
@@ -107,6 +112,8 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 
 		policyRepository = new RangerPolicyRepository(appId, servicePolicies, options);
 
+		evaluatorProfiler = options.evaluatorSampleInterval > 0 ? new RangerPolicyEvaluatorProfiler(options.evaluatorSampleInterval) : null;
+
 		ServicePolicies.TagPolicies tagPolicies = servicePolicies.getTagPolicies();
 
 		if (!options.disableTagPolicyEvaluation
@@ -143,6 +150,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		}
 
 		this.allContextEnrichers = tmpList;
+		this.contextEnricherPipeline = new RangerContextEnricherPipeline(tmpList, !options.disableLazyContextEnrichment);
 
 		policyEvaluatorsMap = createPolicyEvaluatorsMap();
 
@@ -216,26 +224,17 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 
 		RangerAccessRequestUtil.setCurrentUserInContext(request.getContext(), request.getUser());
 
-		List<RangerContextEnricher> enrichers = allContextEnrichers;
-
-		if(!CollectionUtils.isEmpty(enrichers)) {
-
-			for(RangerContextEnricher enricher : enrichers) {
-
-				RangerPerfTracer perf = null;
+		RangerContextEnricherPipeline pipeline = contextEnricherPipeline;
 
-				if(RangerPerfTracer.isPerfTraceEnabled(PERF_CONTEXTENRICHER_REQUEST_LOG)) {
-					perf = RangerPerfTracer.getPerfTracer(PERF_CONTEXTENRICHER_REQUEST_LOG, "RangerContextEnricher.enrich(requestHashCode=" + Integer.toHexString(System.identityHashCode(request)) + ", enricherName=" + enricher.getName() + ")");
-				}
-
-				enricher.enrich(request);
+		if (pipeline != null) {
+			long startNanos = RangerPerfMetrics.startTimer();
 
-				RangerPerfTracer.log(perf);
-			}
+			// enrichers that declare their output are run later, only if a condition reads it
+			pipeline.preProcess(request);
 
+			RangerPerfMetrics.stopTimer(RangerPerfMetrics.POLICY_ENGINE_ENRICHMENT, startNanos);
 		}
 
-
 		if(LOG.isDebugEnabled()) {
 			LOG.debug("<== RangerPolicyEngineImpl.preProcess(" + request + ")");
 		}
@@ -263,7 +262,8 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("==> RangerPolicyEngineImpl.evaluatePolicies(" + request + ", policyType=" + policyType + ")");
 		}
-		RangerPerfTracer perf = null;
+		RangerPerfTracer perf       = null;
+		long             startNanos = RangerPerfMetrics.startTimer();
 
 		if(RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_REQUEST_LOG)) {
 			String requestHashCode = Integer.toHexString(System.identityHashCode(request)) + "_" + Integer.toString(policyType);
@@ -273,9 +273,12 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 
 		RangerAccessResult ret = evaluatePoliciesNoAudit(request, policyType);
 
-		updatePolicyUsageCounts(request, ret);
+		updatePolicyUsage(request, ret);
+
+		RangerPerfMetrics.stopTimer(RangerPerfMetrics.POLICY_ENGINE_REQUEST, startNanos);
 
 		if (resultProcessor != null) {
+			long auditStartNanos = RangerPerfMetrics.startTimer();
 
 			RangerPerfTracer perfAuditTracer = null;
 			if(RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_AUDIT_LOG)) {
@@ -285,6 +288,8 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 
 			resultProcessor.processResult(ret);
 
+			RangerPerfMetrics.stopTimer(RangerPerfMetrics.POLICY_ENGINE_AUDIT, auditStartNanos);
+
 			RangerPerfTracer.log(perfAuditTracer);
 		}
 
@@ -370,6 +375,11 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		}
 
 		this.allContextEnrichers = null;
+		this.contextEnricherPipeline = null;
+
+		if (evaluatorProfiler != null) {
+			evaluatorProfiler.clear();
+		}
 
 		RangerPerfTracer.log(perf);
 
@@ -388,23 +398,14 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		if(RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_REBALANCE_LOG)) {
 			perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_REBALANCE_LOG, "RangerPolicyEngine.reorderEvaluators()");
 		}
-		if (MapUtils.isNotEmpty(policyEvaluatorsMap)) {
-			for (Map.Entry<Long, RangerPolicyEvaluator> entry : policyEvaluatorsMap.entrySet()) {
-				entry.getValue().setUsageCountImmutable();
-			}
-		}
+
+		Comparator<RangerPolicyEvaluator> comparator = evaluatorProfiler != null ? evaluatorProfiler.createComparator() : RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR;
 
 		if (tagPolicyRepository != null) {
-			tagPolicyRepository.reorderPolicyEvaluators();
+			tagPolicyRepository.reorderPolicyEvaluators(comparator);
 		}
 		if (policyRepository != null) {
-			policyRepository.reorderPolicyEvaluators();
-		}
-
-		if (MapUtils.isNotEmpty(policyEvaluatorsMap)) {
-			for (Map.Entry<Long, RangerPolicyEvaluator> entry : policyEvaluatorsMap.entrySet()) {
-				entry.getValue().resetUsageCount();
-			}
+			policyRepository.reorderPolicyEvaluators(comparator);
 		}
 
 		RangerPerfTracer.log(perf);
@@ -558,7 +559,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		preProcess(request);
 
 		if (hasTagPolicies()) {
-			Set<RangerTagForEval> tags = RangerAccessRequestUtil.getRequestTagsFromContext(request.getContext());
+			Set<RangerTagForEval> tags = getRequestTags(request);
 
 			if (CollectionUtils.isNotEmpty(tags)) {
 				for (RangerTagForEval tag : tags) {
@@ -611,7 +612,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 
 		if (CollectionUtils.isNotEmpty(tagPolicyEvaluators)) {
 
-			Set<RangerTagForEval> tags = RangerAccessRequestUtil.getRequestTagsFromContext(request.getContext());
+			Set<RangerTagForEval> tags = getRequestTags(request);
 
 			if(CollectionUtils.isNotEmpty(tags)) {
 				for (RangerTagForEval tag : tags) {
@@ -700,16 +701,24 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 
 			if (evaluateResourcePolicies) {
 
-				boolean findAuditByResource = !ret.getIsAuditedDetermined();
-				boolean foundInCache        = findAuditByResource && policyRepository.setAuditEnabledFromCache(request, ret);
-
 				if(isAllowedByTags) {
 					ret.setIsAccessDetermined(false); // discard allowed result by tag-policies, to evaluate resource policies for possible deny
 				}
 
 				List<RangerPolicyEvaluator> evaluators = policyRepository.getLikelyMatchPolicyEvaluators(request.getResource(), policyType);
 
+				RangerPolicyEvaluatorProfiler.ThreadSamples samples = evaluatorProfiler != null ? evaluatorProfiler.startSample() : null;
+
+				// once access is determined, only policies having audit enabled can change the result
+				RangerPolicyRepository.AuditFlagEnum auditFlag = policyRepository.getAuditFlag(policyType);
+
 				for (RangerPolicyEvaluator evaluator : evaluators) {
+					if (auditFlag == RangerPolicyRepository.AuditFlagEnum.CONDITIONAL && ret.getIsAccessDetermined() && !evaluator.isAuditEnabled()) {
+						continue;
+					}
+
+					boolean wasAccessDetermined = ret.getIsAccessDetermined();
+					long    startNanos          = samples != null ? System.nanoTime() : 0L;
 
 					ret.incrementEvaluatedPoliciesCount();
 					evaluator.evaluate(request, ret);
@@ -718,19 +727,18 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 						ret.setIsAccessDetermined(true);
 					}
 
-					if (ret.getIsAuditedDetermined() && ret.getIsAccessDetermined()) {
-						break;            // Break out of policy-evaluation loop
+					if (samples != null) {
+						samples.record(evaluator, System.nanoTime() - startNanos, !wasAccessDetermined && ret.getIsAccessDetermined());
 					}
 
+					if (ret.getIsAccessDetermined() && (ret.getIsAuditedDetermined() || auditFlag == RangerPolicyRepository.AuditFlagEnum.NEVER)) {
+						break;            // Break out of policy-evaluation loop
+					}
 				}
 
 				if(ret.getIsAllowed()) {
 					ret.setIsAccessDetermined(true);
 				}
-
-				if (findAuditByResource && !foundInCache) {
-					policyRepository.storeAuditEnabledInCache(request, ret);
-				}
 			}
 		}
 
@@ -746,7 +754,8 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 			LOG.debug("==> RangerPolicyEngineImpl.evaluateTagPolicies(" + request + ", policyType =" + policyType + ", " + result + ")");
 		}
 
-		Set<RangerTagForEval> tags = RangerAccessRequestUtil.getRequestTagsFromContext(request.getContext());
+		// when the tag enricher is deferred by preProcess(), it is run only if a tag policy of this type may match
+		Set<RangerTagForEval> tags = CollectionUtils.isEmpty(tagPolicyRepository.getPolicyEvaluators(policyType)) ? null : getRequestTags(request);
 
 		List<PolicyEvaluatorForTag> policyEvaluators = tagPolicyRepository.getLikelyMatchPolicyEvaluators(tags, policyType);
 
@@ -842,6 +851,12 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		}
 	}
 
+	private Set<RangerTagForEval> getRequestTags(RangerAccessRequest request) {
+		RangerContextEnricherPipeline.ensureContextKeys(request, TAG_CONTEXT_KEYS);
+
+		return RangerAccessRequestUtil.getRequestTagsFromContext(request.getContext());
+	}
+
 	private boolean hasTagPolicies() {
 		return tagPolicyRepository != null && CollectionUtils.isNotEmpty(tagPolicyRepository.getPolicies());
 	}
@@ -877,34 +892,16 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		return  Collections.unmodifiableMap(tmpPolicyEvaluatorMap);
 	}
 
-	private void updatePolicyUsageCounts(RangerAccessRequest accessRequest, RangerAccessResult accessResult) {
-
-		boolean auditCountUpdated = false;
+	private void updatePolicyUsage(RangerAccessRequest accessRequest, RangerAccessResult accessResult) {
 
 		if (accessResult.getIsAccessDetermined()) {
 			RangerPolicyEvaluator accessPolicy = getPolicyEvaluator(accessResult.getPolicyId());
 
-			if (accessPolicy != null) {
-
-				if (accessPolicy.getPolicy().getIsAuditEnabled()) {
-					updateUsageCount(accessPolicy, 2);
-					accessResult.setAuditPolicyId(accessResult.getPolicyId());
-
-					auditCountUpdated = true;
-				} else {
-					updateUsageCount(accessPolicy, 1);
-				}
-
+			if (accessPolicy != null && accessPolicy.getPolicy().getIsAuditEnabled()) {
+				accessResult.setAuditPolicyId(accessResult.getPolicyId());
 			}
 		}
 
-		if (!auditCountUpdated && accessResult.getIsAuditedDetermined()) {
-			long auditPolicyId = accessResult.getAuditPolicyId();
-			RangerPolicyEvaluator auditPolicy = auditPolicyId == -1 ? null : getPolicyEvaluator(auditPolicyId);
-
-			updateUsageCount(auditPolicy, 1);
-		}
-
 		if(RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_USAGE_LOG)) {
 			RangerAccessRequestImpl rangerAccessRequest = (RangerAccessRequestImpl) accessRequest;
 			RangerPerfTracer perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_USAGE_LOG,
@@ -915,10 +912,4 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 			RangerPerfTracer.logAlways(perf);
 		}
 	}
-
-	private void updateUsageCount(RangerPolicyEvaluator evaluator, int number) {
-		if (evaluator != null) {
-			evaluator.incrementUsageCount(number);
-		}
-	}
 }
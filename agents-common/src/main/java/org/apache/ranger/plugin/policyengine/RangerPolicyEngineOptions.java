@@ -32,6 +32,11 @@ public class RangerPolicyEngineOptions {
 	public boolean cacheAuditResults = true;
 	public boolean evaluateDelegateAdminOnly = false;
 	public boolean enableTagEnricherWithLocalRefresher = false;
+	public boolean disableParallelInit = false;
+	public int     parallelInitThreadCount = 0; // 0: one thread per available processor
+	public boolean compactPolicies = false;
+	public boolean disableLazyContextEnrichment = false; // see RangerContextEnricherPipeline
+	public int     evaluatorSampleInterval = 0; // 0: no sampling, evaluators are ordered by evalOrder alone
 
 	private RangerServiceDefHelper serviceDefHelper;
 
@@ -48,6 +53,11 @@ public class RangerPolicyEngineOptions {
 		}
 		evaluateDelegateAdminOnly = false;
 		enableTagEnricherWithLocalRefresher = false;
+		disableParallelInit = conf.getBoolean(propertyPrefix + ".policyengine.option.disable.parallel.init", false);
+		parallelInitThreadCount = conf.getInt(propertyPrefix + ".policyengine.option.parallel.init.threads", 0);
+		compactPolicies = conf.getBoolean(propertyPrefix + ".policyengine.option.compact.policies", true);
+		disableLazyContextEnrichment = conf.getBoolean(propertyPrefix + ".policyengine.option.disable.lazy.context.enrichment", false);
+		evaluatorSampleInterval = conf.getInt(propertyPrefix + ".policyengine.option.evaluator.sample.interval", 100);
 	}
 
 	public void configureDefaultRangerAdmin(Configuration conf, String propertyPrefix) {
@@ -59,6 +69,7 @@ public class RangerPolicyEngineOptions {
 		cacheAuditResults = false;
 		evaluateDelegateAdminOnly = false;
 		enableTagEnricherWithLocalRefresher = false;
+		compactPolicies = false;
 	}
 
 	public void configureDelegateAdmin(Configuration conf, String propertyPrefix) {
@@ -70,6 +81,7 @@ public class RangerPolicyEngineOptions {
 		cacheAuditResults = false;
 		evaluateDelegateAdminOnly = true;
 		enableTagEnricherWithLocalRefresher = false;
+		compactPolicies = false;
 
 	}
 
@@ -82,6 +94,7 @@ public class RangerPolicyEngineOptions {
 		cacheAuditResults = false;
 		evaluateDelegateAdminOnly = false;
 		enableTagEnricherWithLocalRefresher = true;
+		compactPolicies = false;
 	}
 
 	public RangerServiceDefHelper getServiceDefHelper() {
@@ -108,7 +121,12 @@ public class RangerPolicyEngineOptions {
 					&& this.disableTrieLookupPrefilter == that.disableTrieLookupPrefilter
 					&& this.cacheAuditResults == that.cacheAuditResults
 					&& this.evaluateDelegateAdminOnly == that.evaluateDelegateAdminOnly
-					&& this.enableTagEnricherWithLocalRefresher == that.enableTagEnricherWithLocalRefresher;
+					&& this.enableTagEnricherWithLocalRefresher == that.enableTagEnricherWithLocalRefresher
+					&& this.disableParallelInit == that.disableParallelInit
+					&& this.parallelInitThreadCount == that.parallelInitThreadCount
+					&& this.compactPolicies == that.compactPolicies
+					&& this.disableLazyContextEnrichment == that.disableLazyContextEnrichment
+					&& this.evaluatorSampleInterval == that.evaluatorSampleInterval;
 		}
 		return ret;
 	}
@@ -130,6 +148,15 @@ public class RangerPolicyEngineOptions {
 		ret *= 2;
 		ret += enableTagEnricherWithLocalRefresher ? 1 : 0;
 		ret *= 2;
+		ret += disableParallelInit ? 1 : 0;
+		ret *= 2;
+		ret += parallelInitThreadCount;
+		ret *= 2;
+		ret += compactPolicies ? 1 : 0;
+		ret *= 2;
+		ret += disableLazyContextEnrichment ? 1 : 0;
+		ret *= 2;
+		ret += evaluatorSampleInterval;
 		return ret;
 	}
 
@@ -141,6 +168,11 @@ public class RangerPolicyEngineOptions {
 				", disableContextEnrichers: " + disableContextEnrichers +
 				", disableCustomConditions: " + disableContextEnrichers +
 				", disableTrieLookupPrefilter: " + disableTrieLookupPrefilter +
+				", disableParallelInit: " + disableParallelInit +
+				", parallelInitThreadCount: " + parallelInitThreadCount +
+				", compactPolicies: " + compactPolicies +
+				", disableLazyContextEnrichment: " + disableLazyContextEnrichment +
+				", evaluatorSampleInterval: " + evaluatorSampleInterval +
 				" }";
 
 	}
@@ -23,7 +23,6 @@ import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
 import org.apache.ranger.plugin.contextenricher.RangerContextEnricher;
 import org.apache.ranger.plugin.contextenricher.RangerTagEnricher;
 import org.apache.ranger.plugin.contextenricher.RangerTagForEval;
@@ -43,35 +42,37 @@ import org.apache.ranger.plugin.util.ServicePolicies;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 class RangerPolicyRepository {
     private static final Log LOG = LogFactory.getLog(RangerPolicyRepository.class);
 
     private static final Log PERF_CONTEXTENRICHER_INIT_LOG = RangerPerfTracer.getPerfLogger("contextenricher.init");
+    private static final Log PERF_POLICYENGINE_INIT_LOG = RangerPerfTracer.getPerfLogger("policyengine.init");
+
+    // below this many policies, building evaluators and tries in parallel costs more than it saves
+    private static final int MIN_POLICY_COUNT_FOR_PARALLEL_INIT = 100;
+    private static final int MAX_PARALLEL_INIT_THREADS          = 16;
 
     enum AuditModeEnum {
         AUDIT_ALL, AUDIT_NONE, AUDIT_DEFAULT
     }
 
-    static private final class AuditInfo {
-        final boolean isAudited;
-        final long    auditPolicyId;
-
-        AuditInfo(boolean isAudited, long auditPolicyId) {
-            this.isAudited = isAudited;
-            this.auditPolicyId = auditPolicyId;
-        }
-        long getAuditPolicyId() {
-            return this.auditPolicyId;
-        }
-        boolean getIsAudited() {
-            return isAudited;
-        }
+    // whether the policies of an evaluator list have audit enabled: computed once, when the list is built
+    enum AuditFlagEnum {
+        ALWAYS, NEVER, CONDITIONAL
     }
 
     private final String                      serviceName;
@@ -84,7 +85,11 @@ class RangerPolicyRepository {
     private List<RangerPolicyEvaluator>       dataMaskPolicyEvaluators;
     private List<RangerPolicyEvaluator>       rowFilterPolicyEvaluators;
     private final AuditModeEnum               auditModeEnum;
-    private final Map<String, AuditInfo>      accessAuditCache;
+    private long                              compactedPolicyCount;
+    private long                              compactedPolicyBytes;
+    private AuditFlagEnum                     policyEvaluatorsAuditFlag;
+    private AuditFlagEnum                     dataMaskPolicyEvaluatorsAuditFlag;
+    private AuditFlagEnum                     rowFilterPolicyEvaluatorsAuditFlag;
 
     private final String                      componentServiceName;
     private final RangerServiceDef            componentServiceDef;
@@ -117,21 +122,6 @@ class RangerPolicyRepository {
             auditModeEnum = AuditModeEnum.AUDIT_DEFAULT;
         }
 
-        if (auditModeEnum == AuditModeEnum.AUDIT_DEFAULT) {
-            String propertyName = "ranger.plugin." + serviceName + ".policyengine.auditcachesize";
-
-            if (options.cacheAuditResults) {
-                final int RANGER_POLICYENGINE_AUDITRESULT_CACHE_SIZE = 64 * 1024;
-
-                int auditResultCacheSize = RangerConfiguration.getInstance().getInt(propertyName, RANGER_POLICYENGINE_AUDITRESULT_CACHE_SIZE);
-                accessAuditCache = Collections.synchronizedMap(new CacheMap<String, AuditInfo>(auditResultCacheSize));
-            } else {
-                accessAuditCache = null;
-            }
-        } else {
-            this.accessAuditCache = null;
-        }
-
         if(LOG.isDebugEnabled()) {
             LOG.debug("RangerPolicyRepository : building policy-repository for service[" + serviceName
                     + "] with auditMode[" + auditModeEnum + "]");
@@ -144,9 +134,9 @@ class RangerPolicyRepository {
             dataMaskResourceTrie  = null;
             rowFilterResourceTrie = null;
         } else {
-            policyResourceTrie    = createResourceTrieMap(policyEvaluators);
-            dataMaskResourceTrie  = createResourceTrieMap(dataMaskPolicyEvaluators);
-            rowFilterResourceTrie = createResourceTrieMap(rowFilterPolicyEvaluators);
+            policyResourceTrie    = createResourceTrieMap(policyEvaluators, options);
+            dataMaskResourceTrie  = createResourceTrieMap(dataMaskPolicyEvaluators, options);
+            rowFilterResourceTrie = createResourceTrieMap(rowFilterPolicyEvaluators, options);
         }
     }
 
@@ -175,8 +165,6 @@ class RangerPolicyRepository {
             auditModeEnum = AuditModeEnum.AUDIT_DEFAULT;
         }
 
-        this.accessAuditCache = null;
-
         if(LOG.isDebugEnabled()) {
             LOG.debug("RangerPolicyRepository : building tag-policy-repository for tag service[" + serviceName
                     + "] with auditMode[" + auditModeEnum +"]");
@@ -189,9 +177,9 @@ class RangerPolicyRepository {
             dataMaskResourceTrie  = null;
             rowFilterResourceTrie = null;
         } else {
-            policyResourceTrie    = createResourceTrieMap(policyEvaluators);
-            dataMaskResourceTrie  = createResourceTrieMap(dataMaskPolicyEvaluators);
-            rowFilterResourceTrie = createResourceTrieMap(rowFilterPolicyEvaluators);
+            policyResourceTrie    = createResourceTrieMap(policyEvaluators, options);
+            dataMaskResourceTrie  = createResourceTrieMap(dataMaskPolicyEvaluators, options);
+            rowFilterResourceTrie = createResourceTrieMap(rowFilterPolicyEvaluators, options);
         }
     }
 
@@ -204,22 +192,19 @@ class RangerPolicyRepository {
         return sb.toString();
     }
 
-    void reorderPolicyEvaluators() {
+    void reorderPolicyEvaluators(Comparator<RangerPolicyEvaluator> comparator) {
         if (LOG.isDebugEnabled()) {
             LOG.debug("==> reorderEvaluators()");
         }
 
         if(policyResourceTrie == null) {
-            policyEvaluators = getReorderedPolicyEvaluators(policyEvaluators);
-        }
-
-        if(dataMaskResourceTrie == null) {
-            dataMaskPolicyEvaluators = getReorderedPolicyEvaluators(dataMaskPolicyEvaluators);
+            policyEvaluators = getReorderedPolicyEvaluators(policyEvaluators, comparator);
+        } else {
+            reorderEvaluators(policyResourceTrie, comparator);
         }
 
-        if(rowFilterResourceTrie == null) {
-            rowFilterPolicyEvaluators = getReorderedPolicyEvaluators(rowFilterPolicyEvaluators);
-        }
+        // data-mask and row-filter evaluators are not reordered: the first matching policy decides the mask/filter
+        // to apply, so they must stay in evalOrder
 
         if (LOG.isDebugEnabled()) {
             LOG.debug("<== reorderEvaluators()");
@@ -242,36 +227,16 @@ class RangerPolicyRepository {
 
     AuditModeEnum getAuditModeEnum() { return auditModeEnum; }
 
-    boolean setAuditEnabledFromCache(RangerAccessRequest request, RangerAccessResult result) {
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("==> RangerPolicyRepository.setAuditEnabledFromCache()");
-        }
-
-        final AuditInfo auditInfo = accessAuditCache != null ? accessAuditCache.get(request.getResource().getAsString()) : null;
-
-        if (auditInfo != null) {
-            result.setIsAudited(auditInfo.getIsAudited());
-            result.setAuditPolicyId(auditInfo.getAuditPolicyId());
-        }
-
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("<== RangerPolicyRepository.setAuditEnabledFromCache():" + (auditInfo != null));
-        }
-
-        return auditInfo != null;
-    }
-
-    void storeAuditEnabledInCache(RangerAccessRequest request, RangerAccessResult result) {
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("==> RangerPolicyRepository.storeAuditEnabledInCache()");
-        }
-
-        if (accessAuditCache != null && result.getIsAuditedDetermined()) {
-            accessAuditCache.put(request.getResource().getAsString(), new AuditInfo(result.getIsAudited(), result.getAuditPolicyId()));
-        }
-
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("<== RangerPolicyRepository.storeAuditEnabledInCache()");
+    AuditFlagEnum getAuditFlag(int policyType) {
+        switch(policyType) {
+            case RangerPolicy.POLICY_TYPE_ACCESS:
+                return policyEvaluatorsAuditFlag;
+            case RangerPolicy.POLICY_TYPE_DATAMASK:
+                return dataMaskPolicyEvaluatorsAuditFlag;
+            case RangerPolicy.POLICY_TYPE_ROWFILTER:
+                return rowFilterPolicyEvaluatorsAuditFlag;
+            default:
+                return AuditFlagEnum.CONDITIONAL;
         }
     }
 
@@ -289,6 +254,19 @@ class RangerPolicyRepository {
         return rowFilterPolicyEvaluators;
     }
 
+    List<RangerPolicyEvaluator> getPolicyEvaluators(int policyType) {
+        switch (policyType) {
+            case RangerPolicy.POLICY_TYPE_ACCESS:
+                return getPolicyEvaluators();
+            case RangerPolicy.POLICY_TYPE_DATAMASK:
+                return getDataMaskPolicyEvaluators();
+            case RangerPolicy.POLICY_TYPE_ROWFILTER:
+                return getRowFilterPolicyEvaluators();
+            default:
+                return null;
+        }
+    }
+
     List<PolicyEvaluatorForTag> getLikelyMatchPolicyEvaluators(Set<RangerTagForEval> tags, int policyType) {
         List<PolicyEvaluatorForTag> ret = Collections.EMPTY_LIST;
 
@@ -635,6 +613,28 @@ class RangerPolicyRepository {
         return ret;
     }
 
+    private static AuditFlagEnum getAuditFlag(List<RangerPolicyEvaluator> evaluators) {
+        int auditEnabledCount = 0;
+
+        for (RangerPolicyEvaluator evaluator : evaluators) {
+            if (evaluator.isAuditEnabled()) {
+                auditEnabledCount++;
+            }
+        }
+
+        final AuditFlagEnum ret;
+
+        if (auditEnabledCount == evaluators.size()) {
+            ret = AuditFlagEnum.ALWAYS;
+        } else if (auditEnabledCount == 0) {
+            ret = AuditFlagEnum.NEVER;
+        } else {
+            ret = AuditFlagEnum.CONDITIONAL;
+        }
+
+        return ret;
+    }
+
     private void init(RangerPolicyEngineOptions options) {
         RangerServiceDefHelper serviceDefHelper = new RangerServiceDefHelper(serviceDef, false);
         options.setServiceDefHelper(serviceDefHelper);
@@ -643,12 +643,23 @@ class RangerPolicyRepository {
         List<RangerPolicyEvaluator> dataMaskPolicyEvaluators  = new ArrayList<>();
         List<RangerPolicyEvaluator> rowFilterPolicyEvaluators = new ArrayList<>();
 
+        List<RangerPolicy> policiesToBuild = new ArrayList<>(policies.size());
+
         for (RangerPolicy policy : policies) {
-            if (skipBuildingPolicyEvaluator(policy, options)) {
-                continue;
+            if (!skipBuildingPolicyEvaluator(policy, options)) {
+                policiesToBuild.add(policy);
             }
+        }
+
+        if (options.compactPolicies) {
+            compactPolicies(policiesToBuild);
+        }
+
+        List<RangerPolicyEvaluator> evaluators = buildPolicyEvaluators(policiesToBuild, options);
 
-            RangerPolicyEvaluator evaluator = buildPolicyEvaluator(policy, serviceDef, options);
+        for (int i = 0; i < policiesToBuild.size(); i++) {
+            RangerPolicy          policy    = policiesToBuild.get(i);
+            RangerPolicyEvaluator evaluator = evaluators.get(i);
 
             if (evaluator != null) {
                 if(policy.getPolicyType() == null || policy.getPolicyType() == RangerPolicy.POLICY_TYPE_ACCESS) {
@@ -672,6 +683,10 @@ class RangerPolicyRepository {
         Collections.sort(rowFilterPolicyEvaluators, comparator);
         this.rowFilterPolicyEvaluators = Collections.unmodifiableList(rowFilterPolicyEvaluators);
 
+        this.policyEvaluatorsAuditFlag          = getAuditFlag(this.policyEvaluators);
+        this.dataMaskPolicyEvaluatorsAuditFlag  = getAuditFlag(this.dataMaskPolicyEvaluators);
+        this.rowFilterPolicyEvaluatorsAuditFlag = getAuditFlag(this.rowFilterPolicyEvaluators);
+
         List<RangerContextEnricher> contextEnrichers = new ArrayList<RangerContextEnricher>();
         if (CollectionUtils.isNotEmpty(this.policyEvaluators) || CollectionUtils.isNotEmpty(this.dataMaskPolicyEvaluators)
                 || CollectionUtils.isNotEmpty(this.rowFilterPolicyEvaluators)) {
@@ -770,6 +785,45 @@ class RangerPolicyRepository {
         return ret;
     }
 
+    /*
+     * Compacts policies before evaluators are built from them, so that the matchers and tries built by the
+     * evaluators refer to the shared strings as well.
+     */
+    private void compactPolicies(List<RangerPolicy> policies) {
+        RangerPolicyCompactor compactor = new RangerPolicyCompactor();
+
+        for (RangerPolicy policy : policies) {
+            compactor.compact(policy);
+        }
+
+        compactedPolicyCount = compactor.getPolicyCount();
+        compactedPolicyBytes = compactor.getBytesSaved();
+
+        if (PERF_POLICYENGINE_INIT_LOG.isDebugEnabled()) {
+            PERF_POLICYENGINE_INIT_LOG.debug("RangerPolicyRepository(serviceName=" + serviceName + "): compacted " + compactedPolicyCount + " policies, saved approximately " + compactedPolicyBytes + " bytes");
+        }
+    }
+
+    /*
+     * Evaluators are built independently of each other: RangerPolicyEvaluator.init() only reads serviceDef and
+     * options (including the immutable RangerServiceDefHelper) and updates its own policy. Hence they can be built
+     * in parallel; the returned list is in the same order as the given policies, so the result is deterministic.
+     */
+    private List<RangerPolicyEvaluator> buildPolicyEvaluators(List<RangerPolicy> policies, final RangerPolicyEngineOptions options) {
+        List<Callable<RangerPolicyEvaluator>> tasks = new ArrayList<>(policies.size());
+
+        for (final RangerPolicy policy : policies) {
+            tasks.add(new Callable<RangerPolicyEvaluator>() {
+                @Override
+                public RangerPolicyEvaluator call() {
+                    return buildPolicyEvaluator(policy, serviceDef, options);
+                }
+            });
+        }
+
+        return invokeAll(tasks, getParallelInitThreadCount(policies.size(), options));
+    }
+
     private RangerPolicyEvaluator buildPolicyEvaluator(RangerPolicy policy, RangerServiceDef serviceDef, RangerPolicyEngineOptions options) {
         if(LOG.isDebugEnabled()) {
             LOG.debug("==> RangerPolicyRepository.buildPolicyEvaluator(" + policy + "," + serviceDef + ", " + options + ")");
@@ -854,12 +908,12 @@ class RangerPolicyRepository {
         }
     }
 
-    private List<RangerPolicyEvaluator> getReorderedPolicyEvaluators(List<RangerPolicyEvaluator> evaluators) {
+    private List<RangerPolicyEvaluator> getReorderedPolicyEvaluators(List<RangerPolicyEvaluator> evaluators, Comparator<RangerPolicyEvaluator> comparator) {
         List<RangerPolicyEvaluator> ret = evaluators;
 
         if (CollectionUtils.isNotEmpty(evaluators)) {
             ret = new ArrayList<>(evaluators);
-            Collections.sort(ret, new RangerPolicyEvaluator.PolicyEvalOrderComparator());
+            Collections.sort(ret, comparator);
 
             ret = Collections.unmodifiableList(ret);
         }
@@ -867,14 +921,36 @@ class RangerPolicyRepository {
         return ret;
     }
 
-    private Map<String, RangerResourceTrie> createResourceTrieMap(List<RangerPolicyEvaluator> evaluators) {
+    @SuppressWarnings("unchecked")
+    private void reorderEvaluators(Map<String, RangerResourceTrie> resourceTrie, Comparator<RangerPolicyEvaluator> comparator) {
+        for (RangerResourceTrie trie : resourceTrie.values()) {
+            trie.reorderEvaluators(comparator);
+        }
+    }
+
+    private Map<String, RangerResourceTrie> createResourceTrieMap(final List<RangerPolicyEvaluator> evaluators, RangerPolicyEngineOptions options) {
         final Map<String, RangerResourceTrie> ret;
 
         if (CollectionUtils.isNotEmpty(evaluators) && serviceDef != null && CollectionUtils.isNotEmpty(serviceDef.getResources())) {
+            List<RangerServiceDef.RangerResourceDef> resourceDefs = serviceDef.getResources();
+            List<Callable<RangerResourceTrie>>       tasks        = new ArrayList<>(resourceDefs.size());
+
+            // tries of different resource-levels share nothing but the (read-only) evaluators
+            for (final RangerServiceDef.RangerResourceDef resourceDef : resourceDefs) {
+                tasks.add(new Callable<RangerResourceTrie>() {
+                    @Override
+                    public RangerResourceTrie call() {
+                        return new RangerResourceTrie(resourceDef, evaluators, RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR);
+                    }
+                });
+            }
+
+            List<RangerResourceTrie> tries = invokeAll(tasks, getParallelInitThreadCount(evaluators.size(), options));
+
             ret = new HashMap<>();
 
-            for (RangerServiceDef.RangerResourceDef resourceDef : serviceDef.getResources()) {
-                ret.put(resourceDef.getName(), new RangerResourceTrie(resourceDef, evaluators, RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR));
+            for (int i = 0; i < resourceDefs.size(); i++) {
+                ret.put(resourceDefs.get(i).getName(), tries.get(i));
             }
         } else {
             ret = null;
@@ -883,6 +959,85 @@ class RangerPolicyRepository {
         return ret;
     }
 
+    /*
+     * Returns the number of threads to build evaluators/tries with; 1 to build them in the calling thread
+     */
+    private static int getParallelInitThreadCount(int itemCount, RangerPolicyEngineOptions options) {
+        final int ret;
+
+        if (options.disableParallelInit || itemCount < MIN_POLICY_COUNT_FOR_PARALLEL_INIT) {
+            ret = 1;
+        } else if (options.parallelInitThreadCount > 0) {
+            ret = Math.min(options.parallelInitThreadCount, MAX_PARALLEL_INIT_THREADS);
+        } else {
+            ret = Math.min(Runtime.getRuntime().availableProcessors(), MAX_PARALLEL_INIT_THREADS);
+        }
+
+        return ret;
+    }
+
+    /*
+     * Tasks are run in a pool created for this call, rather than in ForkJoinPool.commonPool(): the common pool is
+     * shared with the rest of the host process, and its threads don't have the context classloader of the plugin,
+     * which evaluators like RangerScriptConditionEvaluator need (ScriptEngineManager). Results are in task order.
+     */
+    static <T> List<T> invokeAll(List<Callable<T>> tasks, int threadCount) {
+        List<T> ret = new ArrayList<>(tasks.size());
+
+        ExecutorService executor = null;
+
+        try {
+            if (threadCount > 1 && tasks.size() > 1) {
+                final ClassLoader   contextClassLoader = Thread.currentThread().getContextClassLoader();
+                final AtomicInteger threadNum          = new AtomicInteger();
+
+                executor = Executors.newFixedThreadPool(Math.min(threadCount, tasks.size()), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "RangerPolicyRepository-init-" + threadNum.incrementAndGet());
+
+                        t.setDaemon(true);
+                        t.setContextClassLoader(contextClassLoader);
+
+                        return t;
+                    }
+                });
+
+                for (Future<T> future : executor.invokeAll(tasks)) {
+                    ret.add(future.get());
+                }
+            } else {
+                for (Callable<T> task : tasks) {
+                    ret.add(task.call());
+                }
+            }
+        } catch (ExecutionException excp) {
+            Throwable cause = excp.getCause();
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new RuntimeException(cause);
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+
+            throw new RuntimeException("interrupted while building policy-repository", excp);
+        } catch (RuntimeException excp) {
+            throw excp;
+        } catch (Exception excp) {
+            throw new RuntimeException(excp);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+
+        return ret;
+    }
+
     private StringBuilder toString(StringBuilder sb) {
 
         sb.append("RangerPolicyRepository={");
@@ -890,6 +1045,8 @@ class RangerPolicyRepository {
         sb.append("serviceName={").append(serviceName).append("} ");
         sb.append("serviceDef={").append(serviceDef).append("} ");
         sb.append("appId={").append(appId).append("} ");
+        sb.append("compactedPolicyCount={").append(compactedPolicyCount).append("} ");
+        sb.append("compactedPolicyBytes={").append(compactedPolicyBytes).append("} ");
 
         sb.append("policyEvaluators={");
         if (policyEvaluators != null) {
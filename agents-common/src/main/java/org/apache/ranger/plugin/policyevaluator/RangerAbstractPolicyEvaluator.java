@@ -39,8 +39,6 @@ public abstract class RangerAbstractPolicyEvaluator implements RangerPolicyEvalu
 	private RangerServiceDef serviceDef;
 	private Integer          leafResourceLevel;
 	private int              evalOrder;
-	protected long           usageCount;
-	protected boolean        usageCountMutable = true;
 
 
 	@Override
@@ -95,11 +93,6 @@ public abstract class RangerAbstractPolicyEvaluator implements RangerPolicyEvalu
 		return policy != null && CollectionUtils.isNotEmpty(policy.getDenyPolicyItems());
 	}
 
-	@Override
-	public long getUsageCount() {
-		return usageCount;
-	}
-
 	@Override
 	public int getEvalOrder() {
 		return evalOrder;
@@ -113,22 +106,6 @@ public abstract class RangerAbstractPolicyEvaluator implements RangerPolicyEvalu
 		this.evalOrder = evalOrder;
 	}
 
-	@Override
-	public void incrementUsageCount(int number) {
-		if (usageCountMutable) usageCount += number;
-	}
-
-	@Override
-	public void setUsageCountImmutable() {
-		this.usageCountMutable = false;
-	}
-
-	@Override
-	public void resetUsageCount() {
-		this.usageCount = 0;
-		this.usageCountMutable = true;
-	}
-
 	@Override
 	public String toString( ) {
 		StringBuilder sb = new StringBuilder();
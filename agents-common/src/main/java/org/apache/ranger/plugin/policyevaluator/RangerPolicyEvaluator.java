@@ -43,6 +43,10 @@ public interface RangerPolicyEvaluator extends RangerPolicyResourceEvaluator {
 	String EVALUATOR_TYPE_OPTIMIZED = "optimized";
 	String EVALUATOR_TYPE_CACHED    = "cached";
 
+	/*
+	 * May be called concurrently for different policies of the same service: implementations must treat serviceDef
+	 * and options as read-only, and update only the given policy.
+	 */
 	void init(RangerPolicy policy, RangerServiceDef serviceDef, RangerPolicyEngineOptions options);
 
 	RangerPolicy getPolicy();
@@ -55,14 +59,6 @@ public interface RangerPolicyEvaluator extends RangerPolicyResourceEvaluator {
 
 	int getEvalOrder();
 
-	long getUsageCount();
-
-	void incrementUsageCount(int number);
-
-	void setUsageCountImmutable();
-
-	void resetUsageCount();
-
 	int getCustomConditionsCount();
 
 	boolean isAuditEnabled();
@@ -91,11 +87,7 @@ public interface RangerPolicyEvaluator extends RangerPolicyResourceEvaluator {
 			} else if (!me.hasDeny() && other.hasDeny()) {
 				result = 1;
 			} else {
-				result = Long.compare(other.getUsageCount(), me.getUsageCount());
-
-				if (result == 0) {
-					result = Integer.compare(me.getEvalOrder(), other.getEvalOrder());
-				}
+				result = Integer.compare(me.getEvalOrder(), other.getEvalOrder());
 			}
 
 			return result;
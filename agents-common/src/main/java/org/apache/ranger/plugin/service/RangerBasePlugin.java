@@ -22,6 +22,7 @@ package org.apache.ranger.plugin.service;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
@@ -32,6 +33,10 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.admin.client.RangerAdminClient;
 import org.apache.ranger.admin.client.RangerAdminRESTClient;
 import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
+import org.apache.ranger.plugin.metrics.RangerMetricsReporter;
+import org.apache.ranger.plugin.metrics.RangerMetricsReporterFactory;
+import org.apache.ranger.plugin.metrics.RangerPerfMetrics;
+import org.apache.ranger.plugin.metrics.RangerPluginMetrics;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerServiceDef;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
@@ -65,6 +70,11 @@ public class RangerBasePlugin {
 	private boolean                   useForwardedIPAddress;
 	private String[]                  trustedProxyAddresses;
 	private Timer                     policyEngineRefreshTimer;
+	private RangerPluginMetrics       pluginMetrics;
+	private List<RangerMetricsReporter> metricsReporters;
+	private final String              accessMetricName;
+	private final String              dataMaskMetricName;
+	private final String              rowFilterMetricName;
 
 	Map<String, LogHistory> logHistoryList = new Hashtable<String, RangerBasePlugin.LogHistory>();
 	int logInterval = 30000; // 30 seconds
@@ -73,6 +83,10 @@ public class RangerBasePlugin {
 	public RangerBasePlugin(String serviceType, String appId) {
 		this.serviceType = serviceType;
 		this.appId       = appId;
+
+		this.accessMetricName    = RangerPerfMetrics.PLUGIN_PREFIX + serviceType + ".isAccessAllowed";
+		this.dataMaskMetricName  = RangerPerfMetrics.PLUGIN_PREFIX + serviceType + ".evalDataMaskPolicies";
+		this.rowFilterMetricName = RangerPerfMetrics.PLUGIN_PREFIX + serviceType + ".evalRowFilterPolicies";
 	}
 
 	public String getServiceType() {
@@ -141,6 +155,13 @@ public class RangerBasePlugin {
 
 		policyEngineOptions.configureForPlugin(configuration, propertyPrefix);
 
+		if (configuration.getBoolean(propertyPrefix + ".metrics.enabled", false)) {
+			RangerPerfMetrics.setEnabled(true);
+
+			pluginMetrics    = createPluginMetrics();
+			metricsReporters = RangerMetricsReporterFactory.startReporters("RangerPlugin-" + serviceType + "-" + appId, pluginMetrics, configuration, propertyPrefix + ".metrics");
+		}
+
 		LOG.info(policyEngineOptions);
 
 		RangerAdminClient admin = createAdminClient(serviceName, appId, propertyPrefix);
@@ -158,20 +179,20 @@ public class RangerBasePlugin {
 			LOG.debug(propertyPrefix + ".policy.policyReorderInterval:" + policyReorderIntervalMs);
 		}
 
-		if (policyEngineOptions.disableTrieLookupPrefilter && policyReorderIntervalMs > 0) {
+		if (policyEngineOptions.evaluatorSampleInterval > 0 && policyReorderIntervalMs > 0) {
 			policyEngineRefreshTimer = new Timer("PolicyEngineRefreshTimer", true);
 			try {
 				policyEngineRefreshTimer.schedule(new PolicyEngineRefresher(this), policyReorderIntervalMs, policyReorderIntervalMs);
 				if (LOG.isDebugEnabled()) {
-					LOG.debug("Scheduled PolicyEngineRefresher to reorder policies based on number of evaluations in and every " + policyReorderIntervalMs + " milliseconds");
+					LOG.debug("Scheduled PolicyEngineRefresher to reorder policies based on sampled evaluations every " + policyReorderIntervalMs + " milliseconds");
 				}
 			} catch (IllegalStateException exception) {
 				LOG.error("Error scheduling policyEngineRefresher:", exception);
-				LOG.error("*** PolicyEngine will NOT be reorderd based on number of evaluations every " + policyReorderIntervalMs + " milliseconds ***");
+				LOG.error("*** PolicyEngine will NOT be reordered based on sampled evaluations every " + policyReorderIntervalMs + " milliseconds ***");
 				policyEngineRefreshTimer = null;
 			}
 		} else {
-			LOG.info("Policies will NOT be reordered based on number of evaluations");
+			LOG.info("Policies will NOT be reordered based on sampled evaluations");
 		}
 	}
 
@@ -210,10 +231,14 @@ public class RangerBasePlugin {
 
 		Timer policyEngineRefreshTimer = this.policyEngineRefreshTimer;
 
+		List<RangerMetricsReporter> metricsReporters = this.metricsReporters;
+
 		this.serviceName  = null;
 		this.policyEngine = null;
 		this.refresher    = null;
 		this.policyEngineRefreshTimer = null;
+		this.metricsReporters = null;
+		this.pluginMetrics    = null;
 
 		if (refresher != null) {
 			refresher.stopRefresher();
@@ -227,6 +252,7 @@ public class RangerBasePlugin {
 			policyEngine.cleanup();
 		}
 
+		RangerMetricsReporterFactory.stopReporters(metricsReporters);
 	}
 
 	public void setResultProcessor(RangerAccessResultProcessor resultProcessor) {
@@ -237,6 +263,13 @@ public class RangerBasePlugin {
 		return this.resultProcessor;
 	}
 
+	/*
+	 * null unless metrics are enabled for the plugin
+	 */
+	public RangerPluginMetrics getPluginMetrics() {
+		return pluginMetrics;
+	}
+
 	public RangerAccessResult isAccessAllowed(RangerAccessRequest request) {
 		return isAccessAllowed(request, resultProcessor);
 	}
@@ -246,51 +279,79 @@ public class RangerBasePlugin {
 	}
 
 	public RangerAccessResult isAccessAllowed(RangerAccessRequest request, RangerAccessResultProcessor resultProcessor) {
+		RangerAccessResult ret          = null;
 		RangerPolicyEngine policyEngine = this.policyEngine;
 
 		if(policyEngine != null) {
+			long startNanos = RangerPerfMetrics.startTimer();
+
 			policyEngine.preProcess(request);
 
-			return policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, resultProcessor);
+			ret = policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, resultProcessor);
+
+			RangerPerfMetrics.stopTimer(accessMetricName, startNanos);
+
+			RangerPluginMetrics pluginMetrics = this.pluginMetrics;
+
+			if (pluginMetrics != null) {
+				pluginMetrics.recordAccessResult(ret);
+			}
 		}
 
-		return null;
+		return ret;
 	}
 
 	public Collection<RangerAccessResult> isAccessAllowed(Collection<RangerAccessRequest> requests, RangerAccessResultProcessor resultProcessor) {
-		RangerPolicyEngine policyEngine = this.policyEngine;
+		Collection<RangerAccessResult> ret          = null;
+		RangerPolicyEngine             policyEngine = this.policyEngine;
 
 		if(policyEngine != null) {
 			policyEngine.preProcess(requests);
 
-			return policyEngine.evaluatePolicies(requests, RangerPolicy.POLICY_TYPE_ACCESS, resultProcessor);
+			ret = policyEngine.evaluatePolicies(requests, RangerPolicy.POLICY_TYPE_ACCESS, resultProcessor);
+
+			RangerPluginMetrics pluginMetrics = this.pluginMetrics;
+
+			if (pluginMetrics != null) {
+				pluginMetrics.recordAccessResults(ret);
+			}
 		}
 
-		return null;
+		return ret;
 	}
 
 	public RangerAccessResult evalDataMaskPolicies(RangerAccessRequest request, RangerAccessResultProcessor resultProcessor) {
+		RangerAccessResult ret          = null;
 		RangerPolicyEngine policyEngine = this.policyEngine;
 
 		if(policyEngine != null) {
+			long startNanos = RangerPerfMetrics.startTimer();
+
 			policyEngine.preProcess(request);
 
-			return policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_DATAMASK, resultProcessor);
+			ret = policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_DATAMASK, resultProcessor);
+
+			RangerPerfMetrics.stopTimer(dataMaskMetricName, startNanos);
 		}
 
-		return null;
+		return ret;
 	}
 
 	public RangerAccessResult evalRowFilterPolicies(RangerAccessRequest request, RangerAccessResultProcessor resultProcessor) {
+		RangerAccessResult ret          = null;
 		RangerPolicyEngine policyEngine = this.policyEngine;
 
 		if(policyEngine != null) {
+			long startNanos = RangerPerfMetrics.startTimer();
+
 			policyEngine.preProcess(request);
 
-			return policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ROWFILTER, resultProcessor);
+			ret = policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ROWFILTER, resultProcessor);
+
+			RangerPerfMetrics.stopTimer(rowFilterMetricName, startNanos);
 		}
 
-		return null;
+		return ret;
 	}
 
 	public RangerResourceAccessInfo getResourceAccessInfo(RangerAccessRequest request) {
@@ -427,6 +488,32 @@ public class RangerBasePlugin {
 		}
 	}
 
+	private RangerPluginMetrics createPluginMetrics() {
+		RangerPluginMetrics ret = new RangerPluginMetrics();
+
+		ret.registerGauge(RangerPluginMetrics.POLICY_VERSION, new RangerPluginMetrics.Gauge() {
+			@Override
+			public Number getValue() {
+				RangerPolicyEngine policyEngine = RangerBasePlugin.this.policyEngine;
+
+				return policyEngine != null ? policyEngine.getPolicyVersion() : null;
+			}
+		});
+
+		ret.registerGauge(RangerPluginMetrics.POLICY_STALENESS_MS, new RangerPluginMetrics.Gauge() {
+			@Override
+			public Number getValue() {
+				PolicyRefresher refresher          = RangerBasePlugin.this.refresher;
+				long            lastActivationTime = refresher != null ? refresher.getLastActivationTimeInMillis() : 0L;
+
+				// time since the policies in use were activated
+				return lastActivationTime > 0 ? System.currentTimeMillis() - lastActivationTime : null;
+			}
+		});
+
+		return ret;
+	}
+
 	public RangerServiceDef getDefaultServiceDef() {
 		RangerServiceDef ret = null;
 
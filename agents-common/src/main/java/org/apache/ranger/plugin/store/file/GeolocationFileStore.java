@@ -22,14 +22,21 @@ package org.apache.ranger.plugin.store.file;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.plugin.geo.GeolocationIndex;
 import org.apache.ranger.plugin.geo.GeolocationMetadata;
 import org.apache.ranger.plugin.store.GeolocationStore;
 import org.apache.ranger.plugin.geo.RangerGeolocationDatabase;
 import org.apache.ranger.plugin.geo.RangerGeolocationData;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
@@ -47,6 +54,10 @@ public class GeolocationFileStore implements GeolocationStore {
 	public static final String PROP_GEOLOCATION_FILE_LOCATION = "FilePath";
 	public static final String PROP_GEOLOCATION_FILE_REINIT = "ForceRead";
 	public static final String PROP_GEOLOCATION_IP_IN_DOT_FORMAT = "IPInDotFormat";
+	public static final String PROP_GEOLOCATION_INDEX_FILE_LOCATION = "IndexFilePath";
+	public static final String PROP_GEOLOCATION_USE_INDEX_FILE = "UseIndexFile";
+
+	public static final String GeoIndexFileSuffix = ".idx";
 
 	private static Map<String, RangerGeolocationDatabase> geolocationDBMap = new HashMap<>();
 
@@ -54,6 +65,8 @@ public class GeolocationFileStore implements GeolocationStore {
 
 	private boolean isMetalineProcessed;
 	private boolean useDotFormat;
+	private boolean useIndexFile;
+	private String  indexFilePath;
 
 	@Override
 	public void init(final Map<String, String> context) {
@@ -70,11 +83,20 @@ public class GeolocationFileStore implements GeolocationStore {
 		String ipInDotFormat = context.get(PROP_GEOLOCATION_IP_IN_DOT_FORMAT);
 		useDotFormat = ipInDotFormat == null || Boolean.parseBoolean(ipInDotFormat);
 
+		String useIndex = context.get(PROP_GEOLOCATION_USE_INDEX_FILE);
+		useIndexFile = useIndex == null || Boolean.parseBoolean(useIndex);
+
+		indexFilePath = context.get(PROP_GEOLOCATION_INDEX_FILE_LOCATION);
+
+		if (StringUtils.isBlank(indexFilePath)) {
+			indexFilePath = filePathToGeolocationFile + GeoIndexFileSuffix;
+		}
 
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("GeolocationFileStore.init() - Geolocation file location=" + filePathToGeolocationFile);
 			LOG.debug("GeolocationFileStore.init() - Reinitialize flag =" + reinitialize);
 			LOG.debug("GeolocationFileStore.init() - UseDotFormat flag =" + useDotFormat);
+			LOG.debug("GeolocationFileStore.init() - UseIndexFile flag =" + useIndexFile + ", index file location=" + indexFilePath);
 		}
 
 		RangerGeolocationDatabase database = geolocationDBMap.get(filePathToGeolocationFile);
@@ -161,6 +183,27 @@ public class GeolocationFileStore implements GeolocationStore {
 	}
 
 	RangerGeolocationDatabase build(String dataFileName) {
+		RangerGeolocationDatabase database = null;
+
+		File dataFile  = new File(dataFileName);
+		File indexFile = useIndexFile && dataFile.isFile() && indexFilePath != null ? new File(indexFilePath) : null;
+
+		if (indexFile != null && indexFile.isFile()) {
+			database = readIndex(indexFile, dataFile);
+		}
+
+		if (database == null) {
+			database = parse(dataFileName);
+
+			if (database != null && indexFile != null) {
+				writeIndex(database, indexFile, dataFile);
+			}
+		}
+
+		return database;
+	}
+
+	RangerGeolocationDatabase parse(String dataFileName) {
 
 		RangerGeolocationDatabase database = null;
 
@@ -174,19 +217,25 @@ public class GeolocationFileStore implements GeolocationStore {
 
 			database  = new RangerGeolocationDatabase();
 
+			GeolocationIndex.Builder indexBuilder = new GeolocationIndex.Builder();
+
 			String line;
 			int lineNumber = 0;
 			isMetalineProcessed = false;
 
 			while(( line = bufferedReader.readLine()) != null) {
 				lineNumber++;
-				if (!processLine(lineNumber, line, database)) {
+				if (!processLine(lineNumber, line, database, indexBuilder)) {
 					LOG.error("RangerGeolocationDatabaseBuilder.build() - Invalid geo-specification - " + lineNumber + ":" + line);
 					database = null;
 					break;
 				}
 			}
 
+			if (database != null) {
+				database.setData(indexBuilder.build());
+			}
+
 			bufferedReader.close();
 			bufferedReader = null;
 		}
@@ -213,43 +262,118 @@ public class GeolocationFileStore implements GeolocationStore {
 			LOG.debug("RangerGeolocationDatabaseBuilder.build() - Time taken for reading file = " + (end - start) + " milliseconds");
 		}
 
-		if (database != null) {
-			database.optimize();
+		return database;
+	}
+
+	private RangerGeolocationDatabase readIndex(File indexFile, File dataFile) {
+		RangerGeolocationDatabase ret = null;
+
+		long start = System.currentTimeMillis();
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+			ret = RangerGeolocationDatabase.readFrom(in, dataFile.length(), dataFile.lastModified());
+		} catch (IOException excp) {
+			LOG.warn("GeolocationFileStore.readIndex() - failed to read index file '" + indexFile + "'. Will rebuild from '" + dataFile + "'", excp);
 		}
 
-		return database;
+		if (ret != null) {
+			LOG.info("GeolocationFileStore: read location data from index file '" + indexFile + "' in " + (System.currentTimeMillis() - start) + " milliseconds");
+		} else {
+			LOG.info("GeolocationFileStore: index file '" + indexFile + "' is not current for '" + dataFile + "'. Will rebuild");
+		}
+
+		return ret;
+	}
+
+	private void writeIndex(RangerGeolocationDatabase database, File indexFile, File dataFile) {
+		// write to a temporary file and rename, so that a concurrent reader never sees a partially written index
+		File tmpFile = new File(indexFile.getPath() + ".tmp");
+
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+				database.writeTo(out, dataFile.length(), dataFile.lastModified());
+			}
+
+			if (!tmpFile.renameTo(indexFile)) {
+				throw new IOException("failed to rename " + tmpFile + " to " + indexFile);
+			}
+
+			LOG.info("GeolocationFileStore: wrote index file '" + indexFile + "'");
+		} catch (IOException excp) {
+			LOG.warn("GeolocationFileStore.writeIndex() - failed to write index file '" + indexFile + "'. Location data will be read from '" + dataFile + "' on next load", excp);
+
+			if (tmpFile.exists() && !tmpFile.delete()) {
+				LOG.warn("GeolocationFileStore.writeIndex() - failed to delete " + tmpFile);
+			}
+		}
 	}
 
-	private boolean processLine(int lineNumber, String line, RangerGeolocationDatabase database) {
+	private boolean processLine(int lineNumber, String line, RangerGeolocationDatabase database, GeolocationIndex.Builder indexBuilder) {
 
 		boolean ret = true;
 
 		line = line.trim();
 
 		if (!line.startsWith(GeoLineCommentIdentifier)) {
-			String fields[] = StringUtils.split(line, GeoFieldsSeparator);
-			if (fields != null) {
-				if (!isMetalineProcessed) {
-					GeolocationMetadata metadata = GeolocationMetadata.create(fields, lineNumber);
-					if (metadata != null) {
-						database.setMetadata(metadata);
-						isMetalineProcessed = true;
-					} else {
-						LOG.error("GeolocationFileStore.processLine() - Invalid metadata specification " + lineNumber + ":" + line);
-						ret = false;
-					}
+			if (!isMetalineProcessed) {
+				String fields[] = StringUtils.split(line, GeoFieldsSeparator);
+				GeolocationMetadata metadata = fields != null ? GeolocationMetadata.create(fields, lineNumber) : null;
+				if (metadata != null) {
+					database.setMetadata(metadata);
+					isMetalineProcessed = true;
 				} else {
-					RangerGeolocationData data = RangerGeolocationData.create(fields, lineNumber, useDotFormat);
-					if (data != null) {
-						database.getData().insert(data);
-					} else {
-						LOG.error("GeolocationFileStore.processLine() - Invalid data specification " + lineNumber + ":" + line);
-					}
+					LOG.error("GeolocationFileStore.processLine() - Invalid metadata specification " + lineNumber + ":" + line);
+					ret = false;
 				}
-			} else {
-				LOG.error("GeolocationFileStore.processLine() - Invalid line, skipping.." + lineNumber + ":" + line);
+			} else if (!processDataLine(line, indexBuilder)) {
+				LOG.error("GeolocationFileStore.processLine() - Invalid data specification " + lineNumber + ":" + line);
+			}
+		}
+		return ret;
+	}
+
+	/*
+	 * Adds range {from, to, location} in the line to the index; the addresses are parsed in place, without splitting the line
+	 */
+	private boolean processDataLine(String line, GeolocationIndex.Builder indexBuilder) {
+		int fromEnd = line.indexOf(GeoFieldsSeparator);
+		int toEnd   = fromEnd != -1 ? line.indexOf(GeoFieldsSeparator, fromEnd + 1) : -1;
+
+		if (toEnd == -1) {
+			return false;
+		}
+
+		long fromIPAddress = parseAddress(line.substring(0, fromEnd).trim());
+		long toIPAddress   = parseAddress(line.substring(fromEnd + 1, toEnd).trim());
+
+		if (fromIPAddress == -1 || toIPAddress == -1 || toIPAddress < fromIPAddress) {
+			return false;
+		}
+
+		String[] locationData = StringUtils.split(line.substring(toEnd + 1), GeoFieldsSeparator);
+
+		if (locationData == null || locationData.length == 0) {
+			return false;
+		}
+
+		indexBuilder.add(fromIPAddress, toIPAddress, locationData);
+
+		return true;
+	}
+
+	private long parseAddress(String address) {
+		long ret = -1;
+
+		if (useDotFormat) {
+			ret = RangerGeolocationData.parseIPv4Address(address);
+		} else if (StringUtils.isNumeric(address) && address.length() > 0 && address.length() <= 10) {
+			ret = Long.parseLong(address);
+
+			if (ret > 0xFFFFFFFFL) {
+				ret = -1;
 			}
 		}
+
 		return ret;
 	}
 
@@ -27,9 +27,10 @@ import com.google.common.collect.ImmutableMap;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class PerfDataRecorder {
@@ -37,7 +38,7 @@ public class PerfDataRecorder {
 	private static final Log PERF = RangerPerfTracer.getPerfLogger(PerfDataRecorder.class);
 
 	private static volatile PerfDataRecorder instance;
-	private Map<String, PerfStatistic> perfStatistics = new HashMap<>();
+	private final ConcurrentMap<String, PerfStatistic> perfStatistics = new ConcurrentHashMap<>();
 
 	public static void initialize(List<String> names) {
 		if (instance == null) {
@@ -105,13 +106,12 @@ public class PerfDataRecorder {
 		PerfStatistic perfStatistic = perfStatistics.get(tag);
 
 		if (perfStatistic == null) {
-			synchronized (PerfDataRecorder.class) {
-				perfStatistic = perfStatistics.get(tag);
+			PerfStatistic newPerfStatistic = new PerfStatistic();
 
-				if(perfStatistic == null) {
-					perfStatistic = new PerfStatistic();
-					perfStatistics.put(tag, perfStatistic);
-				}
+			perfStatistic = perfStatistics.putIfAbsent(tag, newPerfStatistic);
+
+			if (perfStatistic == null) {
+				perfStatistic = newPerfStatistic;
 			}
 		}
 
@@ -30,6 +30,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.admin.client.RangerAdminClient;
 import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
+import org.apache.ranger.plugin.metrics.RangerPerfMetrics;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
 
 import com.google.gson.Gson;
@@ -52,7 +53,7 @@ public class PolicyRefresher extends Thread {
 
 	private long 	pollingIntervalMs   = 30 * 1000;
 	private long 	lastKnownVersion    = -1L;
-	private long	lastActivationTimeInMillis;
+	private volatile long lastActivationTimeInMillis; // read by plugin metrics, from another thread
 	private boolean policiesSetInPlugin;
 	private boolean serviceDefSetInPlugin;
 
@@ -188,7 +189,8 @@ public class PolicyRefresher extends Thread {
 			LOG.debug("==> PolicyRefresher(serviceName=" + serviceName + ").loadPolicy()");
 		}
 
-		RangerPerfTracer perf = null;
+		RangerPerfTracer perf       = null;
+		long             startNanos = RangerPerfMetrics.startTimer();
 
 		if(RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_INIT_LOG)) {
 			perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_INIT_LOG, "PolicyRefresher.loadPolicy(serviceName=" + serviceName + ")");
@@ -220,6 +222,10 @@ public class PolicyRefresher extends Thread {
 
 			if (svcPolicies != null) {
 				plugIn.setPolicies(svcPolicies);
+
+				// only refreshes that applied new policies: polls that found no change would dilute the numbers
+				RangerPerfMetrics.stopTimer(RangerPerfMetrics.POLICY_REFRESH, startNanos);
+
 				policiesSetInPlugin = true;
 				setLastActivationTimeInMillis(System.currentTimeMillis());
 				lastKnownVersion = svcPolicies.getPolicyVersion();
@@ -37,6 +37,7 @@ public class RangerAccessRequestUtil {
 	public static final String KEY_CONTEXT_TAG_OBJECT          = "TAG_OBJECT";
 	public static final String KEY_CONTEXT_RESOURCE            = "RESOURCE";
 	public static final String KEY_CONTEXT_REQUESTED_RESOURCES = "REQUESTED_RESOURCES";
+	public static final String KEY_CONTEXT_CLIENT_IP_ADDRESS   = "CLIENT_IP_ADDRESS";
 	public static final String KEY_TOKEN_NAMESPACE = "token:";
 	public static final String KEY_USER = "USER";
 
@@ -111,6 +112,39 @@ public class RangerAccessRequestUtil {
 		return ret;
 	}
 
+	/*
+	 * Caches the parsed client IP address in the request context, so that IP conditions in multiple policies parse the address once
+	 */
+	public static void setParsedClientIPAddressInContext(Map<String, Object> context, String clientIPAddress, byte[] parsedAddress) {
+		if (context == null || clientIPAddress == null) {
+			return;
+		}
+
+		try {
+			context.put(KEY_CONTEXT_CLIENT_IP_ADDRESS, new ParsedIPAddress(clientIPAddress, parsedAddress));
+		} catch (UnsupportedOperationException excp) {
+			// read-only context; the address will be parsed again
+		}
+	}
+
+	/*
+	 * Returns null if the given address was not parsed earlier; an empty array if the address could not be parsed
+	 */
+	public static byte[] getParsedClientIPAddressFromContext(Map<String, Object> context, String clientIPAddress) {
+		byte[] ret = null;
+		Object val = context != null ? context.get(KEY_CONTEXT_CLIENT_IP_ADDRESS) : null;
+
+		if (val instanceof ParsedIPAddress) {
+			ParsedIPAddress parsedIPAddress = (ParsedIPAddress) val;
+
+			if (parsedIPAddress.address.equals(clientIPAddress)) {
+				ret = parsedIPAddress.parsedAddress;
+			}
+		}
+
+		return ret;
+	}
+
 	public static Map<String, Object> copyContext(Map<String, Object> context) {
 		final Map<String, Object> ret;
 
@@ -145,4 +179,14 @@ public class RangerAccessRequestUtil {
 		String tokenNameWithNamespace = KEY_TOKEN_NAMESPACE + tokenName;
 		return MapUtils.isNotEmpty(context) ? context.get(tokenNameWithNamespace) : null;
 	}
+
+	private static class ParsedIPAddress {
+		final String address;
+		final byte[] parsedAddress;
+
+		ParsedIPAddress(String address, byte[] parsedAddress) {
+			this.address       = address;
+			this.parsedAddress = parsedAddress != null ? parsedAddress : new byte[0];
+		}
+	}
 }
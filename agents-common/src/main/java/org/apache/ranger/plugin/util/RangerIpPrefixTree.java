@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+/**
+ * Binary radix tree of IPv4 and IPv6 address prefixes, like 10.1.0.0/16 or 2001:db8::/32.
+ *
+ * contains() walks at most 32 (IPv4) or 128 (IPv6) levels, independent of the number of prefixes added. A prefix
+ * covered by a shorter prefix already in the tree is not stored.
+ */
+public class RangerIpPrefixTree {
+	public static final int IPV4_ADDRESS_LENGTH = 4;
+	public static final int IPV6_ADDRESS_LENGTH = 16;
+
+	private final Node ipv4Root = new Node();
+	private final Node ipv6Root = new Node();
+	private       int  prefixCount;
+
+	/*
+	 * Adds prefix of given length of an address returned by parseAddress()
+	 */
+	public void add(byte[] address, int prefixLength) {
+		if (address == null || prefixLength < 0 || prefixLength > address.length * 8) {
+			throw new IllegalArgumentException("invalid prefix: address-length=" + (address == null ? 0 : address.length) + ", prefix-length=" + prefixLength);
+		}
+
+		Node node = getRoot(address);
+
+		if (node == null) {
+			throw new IllegalArgumentException("invalid address-length=" + address.length);
+		}
+
+		for (int i = 0; i < prefixLength; i++) {
+			if (node.isPrefixEnd) { // already covered by a shorter prefix
+				return;
+			}
+
+			int bit = getBit(address, i);
+
+			if (node.children[bit] == null) {
+				node.children[bit] = new Node();
+			}
+
+			node = node.children[bit];
+		}
+
+		if (!node.isPrefixEnd) {
+			node.isPrefixEnd = true;
+			node.children[0] = null; // longer prefixes are covered by this one
+			node.children[1] = null;
+
+			prefixCount++;
+		}
+	}
+
+	/*
+	 * Returns true if the given address, returned by parseAddress(), starts with one of the prefixes in the tree
+	 */
+	public boolean contains(byte[] address) {
+		Node node = address != null ? getRoot(address) : null;
+
+		for (int i = 0, bitCount = node != null ? address.length * 8 : 0; node != null && i < bitCount; i++) {
+			if (node.isPrefixEnd) {
+				return true;
+			}
+
+			node = node.children[getBit(address, i)];
+		}
+
+		return node != null && node.isPrefixEnd;
+	}
+
+	public boolean isEmpty() {
+		return prefixCount == 0;
+	}
+
+	public int getPrefixCount() {
+		return prefixCount;
+	}
+
+	/**
+	 * Parses an IPv4 address in dotted-decimal notation, or an IPv6 address in hex notation, without the name-service
+	 * lookup done by InetAddress.getByName().
+	 * @param address
+	 * @return 4 bytes for an IPv4 address, 16 bytes for an IPv6 address; null if the string is not an IP address
+	 */
+	public static byte[] parseAddress(String address) {
+		byte[] ret = null;
+
+		if (address != null && !address.isEmpty()) {
+			if (address.indexOf(':') == -1) {
+				ret = parseIPv4Address(address, 0, address.length());
+			} else {
+				if (address.charAt(0) == '[' && address.charAt(address.length() - 1) == ']') {
+					address = address.substring(1, address.length() - 1);
+				}
+
+				int zoneIdx = address.indexOf('%');
+
+				ret = parseIPv6Address(address, zoneIdx != -1 ? zoneIdx : address.length());
+			}
+		}
+
+		return ret;
+	}
+
+	private static byte[] parseIPv4Address(String address, int startIdx, int endIdx) {
+		byte[] ret          = new byte[IPV4_ADDRESS_LENGTH];
+		int    octetCount   = 0;
+		int    octet        = -1;
+		int    octetDigits  = 0;
+
+		for (int i = startIdx; i <= endIdx; i++) {
+			char c = i < endIdx ? address.charAt(i) : '.';
+
+			if (c >= '0' && c <= '9') {
+				if (octetDigits == 1 && octet == 0) { // leading zero, like in 010.1.1.1, is not accepted
+					return null;
+				}
+
+				octet = (octet == -1 ? 0 : octet * 10) + (c - '0');
+
+				octetDigits++;
+
+				if (octet > 255) {
+					return null;
+				}
+			} else if (c == '.' && octet != -1 && octetCount < IPV4_ADDRESS_LENGTH) {
+				ret[octetCount++] = (byte) octet;
+
+				octet       = -1;
+				octetDigits = 0;
+			} else {
+				return null;
+			}
+		}
+
+		return octetCount == IPV4_ADDRESS_LENGTH ? ret : null;
+	}
+
+	private static byte[] parseIPv6Address(String address, int endIdx) {
+		byte[] ret           = new byte[IPV6_ADDRESS_LENGTH];
+		int    byteCount     = 0;
+		int    compressedIdx = -1; // byte position of "::"
+		int    i             = 0;
+
+		if (address.startsWith("::")) {
+			compressedIdx = 0;
+			i             = 2;
+		}
+
+		while (i < endIdx) {
+			int groupEnd = address.indexOf(':', i);
+
+			if (groupEnd == -1 || groupEnd > endIdx) {
+				groupEnd = endIdx;
+			}
+
+			if (groupEnd == i) {
+				return null;
+			}
+
+			if (address.indexOf('.', i) != -1 && address.indexOf('.', i) < groupEnd) { // trailing IPv4 address, like ::ffff:10.1.1.1
+				byte[] ipv4 = groupEnd == endIdx && byteCount + IPV4_ADDRESS_LENGTH <= IPV6_ADDRESS_LENGTH ? parseIPv4Address(address, i, endIdx) : null;
+
+				if (ipv4 == null) {
+					return null;
+				}
+
+				System.arraycopy(ipv4, 0, ret, byteCount, IPV4_ADDRESS_LENGTH);
+
+				byteCount += IPV4_ADDRESS_LENGTH;
+				i          = endIdx;
+
+				break;
+			}
+
+			if (groupEnd - i > 4 || byteCount + 2 > IPV6_ADDRESS_LENGTH) {
+				return null;
+			}
+
+			int group = 0;
+
+			for (int j = i; j < groupEnd; j++) {
+				int digit = Character.digit(address.charAt(j), 16);
+
+				if (digit == -1) {
+					return null;
+				}
+
+				group = (group << 4) | digit;
+			}
+
+			ret[byteCount++] = (byte) (group >> 8);
+			ret[byteCount++] = (byte) group;
+
+			i = groupEnd + 1;
+
+			if (groupEnd < endIdx && i < endIdx && address.charAt(i) == ':') { // "::"
+				if (compressedIdx != -1) {
+					return null;
+				}
+
+				compressedIdx = byteCount;
+				i++;
+			} else if (groupEnd < endIdx && i >= endIdx) { // trailing single ':'
+				return null;
+			}
+		}
+
+		if (compressedIdx != -1) {
+			int zeroCount = IPV6_ADDRESS_LENGTH - byteCount;
+
+			if (zeroCount < 2) { // "::" must stand for at least one group
+				return null;
+			}
+
+			System.arraycopy(ret, compressedIdx, ret, compressedIdx + zeroCount, byteCount - compressedIdx);
+
+			for (int j = compressedIdx; j < compressedIdx + zeroCount; j++) {
+				ret[j] = 0;
+			}
+		} else if (byteCount != IPV6_ADDRESS_LENGTH) {
+			return null;
+		}
+
+		return ret;
+	}
+
+	private Node getRoot(byte[] address) {
+		switch (address.length) {
+			case IPV4_ADDRESS_LENGTH:
+				return ipv4Root;
+			case IPV6_ADDRESS_LENGTH:
+				return ipv6Root;
+			default:
+				return null;
+		}
+	}
+
+	private static int getBit(byte[] address, int bitIdx) {
+		return (address[bitIdx >> 3] >> (7 - (bitIdx & 7))) & 1;
+	}
+
+	private static class Node {
+		final Node[] children = new Node[2];
+		boolean      isPrefixEnd;
+	}
+}
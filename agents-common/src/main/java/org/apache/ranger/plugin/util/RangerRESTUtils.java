@@ -49,6 +49,7 @@ public class RangerRESTUtils {
 	public static final String SERVICE_NAME_PARAM = "serviceName";
 	public static final String LAST_KNOWN_TAG_VERSION_PARAM = "lastKnownVersion";
 	public static final String PATTERN_PARAM = "pattern";
+	public static final String REST_PARAM_SUPPORTS_TAG_DELTAS = "supportsTagDeltas";
 
 	public static final String REST_URL_LOOKUP_TAG_NAMES = "/service/tags/lookup";
 
@@ -30,11 +30,15 @@ import org.apache.ranger.plugin.resourcematcher.RangerAbstractResourceMatcher;
 import org.apache.ranger.plugin.resourcematcher.RangerResourceMatcher;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
     private static final Log LOG = LogFactory.getLog(RangerResourceTrie.class);
@@ -42,6 +46,7 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
     private static final String DEFAULT_WILDCARD_CHARS = "*?";
 
     private final String   resourceName;
+    private final Integer  resourceLevel;
     private final boolean  optIgnoreCase;
     private final boolean  optWildcard;
     private final String   wildcardChars;
@@ -73,38 +78,14 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
         }
 
         this.resourceName  = resourceDef.getName();
+        this.resourceLevel = resourceDef.getLevel();
         this.optIgnoreCase = RangerAbstractResourceMatcher.getOptionIgnoreCase(matcherOptions);
         this.optWildcard   = RangerAbstractResourceMatcher.getOptionWildCard(matcherOptions);
         this.wildcardChars = optWildcard ? DEFAULT_WILDCARD_CHARS + tokenReplaceSpecialChars : "" + tokenReplaceSpecialChars;
         this.root          = new TrieNode(Character.valueOf((char)0));
 
         for(T evaluator : evaluators) {
-            Map<String, RangerPolicyResource> policyResources = evaluator.getPolicyResource();
-            RangerPolicyResource              policyResource  = policyResources != null ? policyResources.get(resourceName) : null;
-
-            if(policyResource == null) {
-                if(evaluator.getLeafResourceLevel() != null && resourceDef.getLevel() != null && evaluator.getLeafResourceLevel() < resourceDef.getLevel()) {
-                    root.addWildcardEvaluator(evaluator);
-                }
-
-                continue;
-            }
-
-            if(policyResource.getIsExcludes()) {
-                root.addWildcardEvaluator(evaluator);
-            } else {
-                RangerResourceMatcher resourceMatcher = evaluator.getResourceMatcher(resourceName);
-
-                if(resourceMatcher != null && (resourceMatcher.isMatchAny())) {
-                    root.addWildcardEvaluator(evaluator);
-                } else {
-                    if(CollectionUtils.isNotEmpty(policyResource.getValues())) {
-                        for (String resource : policyResource.getValues()) {
-                            insert(resource, policyResource.getIsRecursive(), evaluator);
-                        }
-                    }
-                }
-            }
+            add(root, evaluator);
         }
 
         root.postSetup(null, comparator);
@@ -116,10 +97,52 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
         }
     }
 
+    private RangerResourceTrie(RangerResourceTrie<T> other, TrieNode root) {
+        this.resourceName  = other.resourceName;
+        this.resourceLevel = other.resourceLevel;
+        this.optIgnoreCase = other.optIgnoreCase;
+        this.optWildcard   = other.optWildcard;
+        this.wildcardChars = other.wildcardChars;
+        this.root          = root;
+    }
+
     public String getResourceName() {
         return resourceName;
     }
 
+    /*
+     * Returns a trie in which removedEvaluators are dropped and addedEvaluators are inserted. Only the nodes in the
+     * paths of these evaluators, and the nodes under a node whose wildcard-evaluators changed, are copied; all other
+     * nodes are shared with this trie. This trie is not modified, so lookups in progress continue undisturbed.
+     * Evaluator lists of the copied nodes are not sorted.
+     */
+    public RangerResourceTrie<T> copyWithChanges(Collection<T> removedEvaluators, Collection<T> addedEvaluators) {
+        if(LOG.isDebugEnabled()) {
+            LOG.debug("==> RangerResourceTrie.copyWithChanges(" + resourceName + ", removedCount=" + removedEvaluators.size() + ", addedCount=" + addedEvaluators.size() + ")");
+        }
+
+        TrieNode addedRoot   = new TrieNode(Character.valueOf((char)0));
+        TrieNode removedRoot = new TrieNode(Character.valueOf((char)0));
+
+        for(T evaluator : addedEvaluators) {
+            add(addedRoot, evaluator);
+        }
+
+        for(T evaluator : removedEvaluators) {
+            add(removedRoot, evaluator);
+        }
+
+        TrieNode newRoot = root.copyWithChanges(addedRoot, removedRoot, new HashSet<>(removedEvaluators), null, null);
+
+        RangerResourceTrie<T> ret = new RangerResourceTrie<>(this, newRoot != null ? newRoot : new TrieNode(Character.valueOf((char)0)));
+
+        if(LOG.isDebugEnabled()) {
+            LOG.debug("<== RangerResourceTrie.copyWithChanges(" + resourceName + "): " + ret);
+        }
+
+        return ret;
+    }
+
     public List<T> getEvaluatorsForResource(String resource) {
         if(LOG.isDebugEnabled()) {
             LOG.debug("==> RangerResourceTrie.getEvaluatorsForResource(" + resource + ")");
@@ -156,6 +179,23 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
         return ret;
     }
 
+    /*
+     * Re-sorts the evaluators list of every node by the given comparator. Each list is sorted into a copy, which then
+     * replaces the list in the node, so lookups in progress continue with the list they got; lists shared between
+     * nodes stay shared. To be called by one thread at a time.
+     */
+    public void reorderEvaluators(Comparator<T> comparator) {
+        if(LOG.isDebugEnabled()) {
+            LOG.debug("==> RangerResourceTrie.reorderEvaluators(" + resourceName + ")");
+        }
+
+        root.reorderEvaluators(comparator, new IdentityHashMap<List<T>, List<T>>());
+
+        if(LOG.isDebugEnabled()) {
+            LOG.debug("<== RangerResourceTrie.reorderEvaluators(" + resourceName + ")");
+        }
+    }
+
     public TrieData getTrieData() {
         TrieData ret = new TrieData();
 
@@ -177,7 +217,36 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
         return Character.valueOf(ch);
     }
 
-    private void insert(String resource, boolean isRecursive, T evaluator) {
+    private void add(TrieNode root, T evaluator) {
+        Map<String, RangerPolicyResource> policyResources = evaluator.getPolicyResource();
+        RangerPolicyResource              policyResource  = policyResources != null ? policyResources.get(resourceName) : null;
+
+        if(policyResource == null) {
+            if(evaluator.getLeafResourceLevel() != null && resourceLevel != null && evaluator.getLeafResourceLevel() < resourceLevel) {
+                root.addWildcardEvaluator(evaluator);
+            }
+
+            return;
+        }
+
+        if(policyResource.getIsExcludes()) {
+            root.addWildcardEvaluator(evaluator);
+        } else {
+            RangerResourceMatcher resourceMatcher = evaluator.getResourceMatcher(resourceName);
+
+            if(resourceMatcher != null && (resourceMatcher.isMatchAny())) {
+                root.addWildcardEvaluator(evaluator);
+            } else {
+                if(CollectionUtils.isNotEmpty(policyResource.getValues())) {
+                    for (String resource : policyResource.getValues()) {
+                        insert(root, resource, policyResource.getIsRecursive(), evaluator);
+                    }
+                }
+            }
+        }
+    }
+
+    private void insert(TrieNode root, String resource, boolean isRecursive, T evaluator) {
         TrieNode curr       = root;
         boolean  isWildcard = false;
 
@@ -239,8 +308,8 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
 class TrieNode<T extends RangerPolicyResourceEvaluator> {
     private final Character          c;
     private Map<Character, TrieNode> children;
-    private List<T>                  evaluators;
-    private List<T>                  wildcardEvaluators;
+    private volatile List<T>         evaluators;         // volatile: replaced by reorderEvaluators() while in use
+    private volatile List<T>         wildcardEvaluators;
     private boolean   isSharingParentWildcardEvaluators;
 
     TrieNode(Character c) {
@@ -399,6 +468,205 @@ class TrieNode<T extends RangerPolicyResourceEvaluator> {
         }
     }
 
+    void reorderEvaluators(Comparator<T> comparator, Map<List<T>, List<T>> reorderedLists) {
+        wildcardEvaluators = getReorderedList(wildcardEvaluators, comparator, reorderedLists);
+        evaluators         = getReorderedList(evaluators, comparator, reorderedLists);
+
+        if(children != null) {
+            for(Map.Entry<Character, TrieNode> entry : children.entrySet()) {
+                TrieNode child = entry.getValue();
+
+                child.reorderEvaluators(comparator, reorderedLists);
+            }
+        }
+    }
+
+    private List<T> getReorderedList(List<T> list, Comparator<T> comparator, Map<List<T>, List<T>> reorderedLists) {
+        List<T> ret = list;
+
+        if(list != null && list.size() > 1) {
+            ret = reorderedLists.get(list);
+
+            if(ret == null) {
+                ret = new ArrayList<>(list);
+
+                Collections.sort(ret, comparator);
+
+                reorderedLists.put(list, ret);
+            }
+        }
+
+        return ret;
+    }
+
+    /*
+     * Returns a copy of this node after applying the changes, or this node itself when neither it nor its descendants
+     * are affected; null if the copy would have no evaluators of its own and no children. 'added' and 'removed' are the
+     * nodes at the same position in tries built from the added and the removed evaluators (null if there is none).
+     * oldParentWildcardEvaluators/newParentWildcardEvaluators are the wildcard-evaluators of the parent before and
+     * after the changes; the same list when the parent's wildcard-evaluators did not change.
+     */
+    TrieNode copyWithChanges(TrieNode<T> added, TrieNode<T> removed, Set<T> removedEvaluators, List<T> oldParentWildcardEvaluators, List<T> newParentWildcardEvaluators) {
+        final boolean isParentWildcardChanged = oldParentWildcardEvaluators != newParentWildcardEvaluators;
+
+        if(added == null && removed == null && !isParentWildcardChanged) {
+            return this;
+        }
+
+        final List<T> currWildcardEvaluators = isSharingParentWildcardEvaluators ? null : wildcardEvaluators;
+        final List<T> currEvaluators         = evaluators == wildcardEvaluators ? null : evaluators;
+        final List<T> addedWildcards         = added == null ? null : added.wildcardEvaluators;
+        final List<T> addedEvaluators        = added == null ? null : added.evaluators;
+
+        final List<T> newWildcardEvaluators;
+        final boolean isWildcardChanged;
+
+        if(!isParentWildcardChanged && !isChanged(currWildcardEvaluators, removedEvaluators, addedWildcards)) {
+            newWildcardEvaluators = wildcardEvaluators;
+            isWildcardChanged     = false;
+        } else {
+            newWildcardEvaluators = merge(getOwnEvaluators(currWildcardEvaluators, oldParentWildcardEvaluators, removedEvaluators, addedWildcards), newParentWildcardEvaluators);
+            isWildcardChanged     = true;
+        }
+
+        final List<T> newEvaluators;
+
+        if(!isWildcardChanged && !isChanged(currEvaluators, removedEvaluators, addedEvaluators)) {
+            newEvaluators = evaluators;
+        } else {
+            newEvaluators = merge(getOwnEvaluators(currEvaluators, wildcardEvaluators, removedEvaluators, addedEvaluators), newWildcardEvaluators);
+        }
+
+        Set<Character> childChars = new HashSet<>();
+
+        if(isWildcardChanged && children != null) {
+            childChars.addAll(children.keySet());
+        }
+
+        if(added != null && added.children != null) {
+            childChars.addAll(added.children.keySet());
+        }
+
+        if(removed != null && removed.children != null) {
+            childChars.addAll(removed.children.keySet());
+        }
+
+        Map<Character, TrieNode> newChildren = children == null ? null : new HashMap<>(children);
+
+        for(Character ch : childChars) {
+            TrieNode child        = newChildren == null ? null : newChildren.get(ch);
+            TrieNode addedChild   = added == null ? null : added.getChild(ch);
+            TrieNode removedChild = removed == null ? null : removed.getChild(ch);
+
+            if(child == null) {
+                if(addedChild == null) {
+                    continue;
+                }
+
+                child = new TrieNode(ch);
+
+                child.postSetup(wildcardEvaluators, null); // an empty node, sharing the wildcard-evaluators of this node
+            }
+
+            TrieNode newChild = child.copyWithChanges(addedChild, removedChild, removedEvaluators, wildcardEvaluators, newWildcardEvaluators);
+
+            if(newChild == null) {
+                if(newChildren != null) {
+                    newChildren.remove(ch);
+                }
+            } else {
+                if(newChildren == null) {
+                    newChildren = new HashMap<>();
+                }
+
+                newChildren.put(ch, newChild);
+            }
+        }
+
+        final TrieNode ret;
+
+        if((newChildren == null || newChildren.isEmpty()) && newWildcardEvaluators == newParentWildcardEvaluators && newEvaluators == newWildcardEvaluators) {
+            ret = null;
+        } else {
+            ret = new TrieNode(c);
+
+            ret.children                          = (newChildren == null || newChildren.isEmpty()) ? null : newChildren;
+            ret.wildcardEvaluators                = newWildcardEvaluators;
+            ret.evaluators                        = newEvaluators;
+            ret.isSharingParentWildcardEvaluators = newWildcardEvaluators == newParentWildcardEvaluators;
+        }
+
+        return ret;
+    }
+
+    /*
+     * evaluators of this node, other than the inherited ones and the removed ones, followed by the added ones
+     */
+    private List<T> getOwnEvaluators(List<T> list, List<T> inherited, Set<T> removedEvaluators, List<T> addedEvaluators) {
+        List<T> ret = new ArrayList<>();
+
+        if(list != null) {
+            Set<T> inheritedSet = inherited == null ? Collections.<T>emptySet() : new HashSet<>(inherited);
+
+            for(T evaluator : list) {
+                if(!inheritedSet.contains(evaluator) && !removedEvaluators.contains(evaluator)) {
+                    ret.add(evaluator);
+                }
+            }
+        }
+
+        if(addedEvaluators != null) {
+            for(T evaluator : addedEvaluators) {
+                if(!ret.contains(evaluator)) {
+                    ret.add(evaluator);
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private boolean isChanged(List<T> list, Set<T> removedEvaluators, List<T> addedEvaluators) {
+        boolean ret = CollectionUtils.isNotEmpty(addedEvaluators);
+
+        if(!ret && list != null) {
+            for(T evaluator : list) {
+                if(removedEvaluators.contains(evaluator)) {
+                    ret = true;
+
+                    break;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    /*
+     * same as done in postSetup(): a node without evaluators of its own shares the list of its parent
+     */
+    private List<T> merge(List<T> ownEvaluators, List<T> parentEvaluators) {
+        final List<T> ret;
+
+        if(ownEvaluators.isEmpty()) {
+            ret = parentEvaluators;
+        } else {
+            ret = new ArrayList<>(ownEvaluators);
+
+            if(parentEvaluators != null) {
+                Set<T> ownSet = new HashSet<>(ownEvaluators);
+
+                for(T evaluator : parentEvaluators) {
+                    if(!ownSet.contains(evaluator)) {
+                        ret.add(evaluator);
+                    }
+                }
+            }
+        }
+
+        return ret;
+    }
+
     public void toString(String prefix, StringBuilder sb) {
         String nodeValue = prefix;
 
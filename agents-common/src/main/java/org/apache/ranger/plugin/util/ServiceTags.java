@@ -58,6 +58,7 @@ public class ServiceTags implements java.io.Serializable {
 	private Map<Long, RangerTag>        tags;
 	private List<RangerServiceResource> serviceResources;
 	private Map<Long, List<Long>>       resourceToTagIds;
+	private Boolean                     isDelta = Boolean.FALSE;
 
 	public ServiceTags() {
 		this(OP_ADD_OR_UPDATE, null, 0L, null, null, null, null, null);
@@ -162,6 +163,19 @@ public class ServiceTags implements java.io.Serializable {
 		this.resourceToTagIds = resourceToTagIds == null ? new HashMap<Long, List<Long>>() : resourceToTagIds;
 	}
 
+	/*
+	 * A delta has only the resources and tags changed since the version the plugin requested with:
+	 *  - a resource without resourceElements was deleted; else its tag-ids are in resourceToTagIds
+	 *  - a tag without type was deleted
+	 */
+	public Boolean getIsDelta() {
+		return isDelta;
+	}
+
+	public void setIsDelta(Boolean isDelta) {
+		this.isDelta = isDelta == null ? Boolean.FALSE : isDelta;
+	}
+
 	@Override
 	public String toString( ) {
 		StringBuilder sb = new StringBuilder();
@@ -176,7 +190,8 @@ public class ServiceTags implements java.io.Serializable {
 				.append("op=").append(op).append(", ")
 				.append("serviceName=").append(serviceName).append(", ")
 				.append("tagVersion=").append(tagVersion).append(", ")
-				.append("tagUpdateTime={").append(tagUpdateTime).append("}")
+				.append("tagUpdateTime={").append(tagUpdateTime).append("}, ")
+				.append("isDelta=").append(isDelta)
 				.append("}");
 
 		return sb;
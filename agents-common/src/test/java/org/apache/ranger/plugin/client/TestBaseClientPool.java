@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.client;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestBaseClientPool {
+	private static final Map<String, String> CONFIGS     = Collections.singletonMap("username", "lookup");
+	private static final Map<String, String> NEW_CONFIGS = Collections.singletonMap("username", "lookup2");
+
+	private final BaseClientPool.ClientFactory<BaseClient> clientFactory = new BaseClientPool.ClientFactory<BaseClient>() {
+		@Override
+		public BaseClient createClient(String serviceName, Map<String, String> configs) {
+			return Mockito.mock(BaseClient.class);
+		}
+	};
+
+	@Test
+	public void testReuseOfReleasedClient() throws Exception {
+		BaseClientPool<BaseClient> pool = new BaseClientPool<BaseClient>("test", clientFactory, 1, 60 * 1000L);
+
+		BaseClient client1 = pool.borrowClient("svc1", CONFIGS);
+		BaseClient client2 = pool.borrowClient("svc1", CONFIGS);
+
+		Assert.assertNotSame(client1, client2);
+
+		pool.releaseClient("svc1", CONFIGS, client1);
+		pool.releaseClient("svc1", CONFIGS, client2); // exceeds max idle clients, hence closed
+
+		Assert.assertEquals(1, pool.getIdleClientCount("svc1"));
+		Mockito.verify(client1, Mockito.never()).close();
+		Mockito.verify(client2).close();
+
+		Assert.assertSame(client1, pool.borrowClient("svc1", CONFIGS));
+		Assert.assertEquals(0, pool.getIdleClientCount("svc1"));
+
+		// client of another service is not reused
+		pool.releaseClient("svc1", CONFIGS, client1);
+
+		Assert.assertNotSame(client1, pool.borrowClient("svc2", CONFIGS));
+
+		// client created with earlier configs is closed
+		BaseClient client3 = pool.borrowClient("svc1", NEW_CONFIGS);
+
+		Assert.assertNotSame(client1, client3);
+		Mockito.verify(client1).close();
+	}
+
+	@Test
+	public void testIdleClientEviction() throws Exception {
+		BaseClientPool<BaseClient> pool = new BaseClientPool<BaseClient>("test", clientFactory, 4, 60 * 1000L);
+
+		BaseClient client = pool.borrowClient("svc1", CONFIGS);
+
+		pool.releaseClient("svc1", CONFIGS, client);
+
+		pool.evictIdleClients(System.currentTimeMillis());
+
+		Assert.assertEquals(1, pool.getIdleClientCount("svc1"));
+
+		pool.evictIdleClients(System.currentTimeMillis() + 60 * 1000L);
+
+		Assert.assertEquals(0, pool.getIdleClientCount("svc1"));
+		Mockito.verify(client).close();
+	}
+}
@@ -24,10 +24,14 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerIpPrefixTree;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -221,6 +225,69 @@ public class RangerIpMatcherTest {
 		Assert.assertFalse(ipMatcher.isMatched(createRequest("10.20.33.10")));
 	}
 	
+	@Test
+	public void test_cidr() {
+		RangerIpMatcher ipMatcher = createMatcher(new String[]{"10.1.0.0/16", "192.168.1.128/25", "2001:db8::/32", "200.1.2.3"} );
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("10.1.0.1")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("10.1.255.255")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("10.2.0.1")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("192.168.1.200")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("192.168.1.127")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("2001:db8::1")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("2001:DB8:0:0:1:2:3:4")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("2001:db9::1")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("200.1.2.3")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("200.1.2.4")));
+
+		// wildcards and CIDR blocks can be mixed; ipv6 wildcard matches compressed notation as well
+		ipMatcher = createMatcher(new String[]{"10.*", "a0:b0:*", "0.0.0.0/0"} );
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("10.20.30.40")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("a0:b0::1")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("1.2.3.4")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("a0:b1::1")));
+	}
+
+	@Test
+	public void test_parsedAddressCachedInContext() {
+		RangerIpMatcher     ipMatcher = createMatcher(new String[]{"10.1.0.0/16"} );
+		RangerAccessRequest request   = mock(RangerAccessRequest.class);
+		Map<String, Object> context   = new HashMap<>();
+
+		when(request.getClientIPAddress()).thenReturn("10.1.2.3");
+		when(request.getContext()).thenReturn(context);
+
+		Assert.assertTrue(ipMatcher.isMatched(request));
+		Assert.assertArrayEquals(new byte[] { 10, 1, 2, 3 }, RangerAccessRequestUtil.getParsedClientIPAddressFromContext(context, "10.1.2.3"));
+		Assert.assertNull(RangerAccessRequestUtil.getParsedClientIPAddressFromContext(context, "10.1.2.4"));
+
+		// another ip condition uses the cached address
+		RangerAccessRequestUtil.setParsedClientIPAddressInContext(context, "10.1.2.3", new byte[] { 10, 2, 2, 3 });
+		Assert.assertFalse(ipMatcher.isMatched(request));
+	}
+
+	@Test
+	public void test_parseAddress() {
+		Assert.assertArrayEquals(new byte[] { (byte) 200, 1, 0, (byte) 255 }, RangerIpPrefixTree.parseAddress("200.1.0.255"));
+		Assert.assertNull(RangerIpPrefixTree.parseAddress("1.2.3"));
+		Assert.assertNull(RangerIpPrefixTree.parseAddress("1.2.3.256"));
+		Assert.assertNull(RangerIpPrefixTree.parseAddress("01.2.3.4"));
+		Assert.assertNull(RangerIpPrefixTree.parseAddress("1.2.3.boo"));
+		Assert.assertNull(RangerIpPrefixTree.parseAddress("localhost"));
+
+		byte[] loopback = new byte[16];
+		loopback[15] = 1;
+		Assert.assertArrayEquals(loopback, RangerIpPrefixTree.parseAddress("::1"));
+		Assert.assertArrayEquals(loopback, RangerIpPrefixTree.parseAddress("0:0:0:0:0:0:0:1"));
+		Assert.assertArrayEquals(loopback, RangerIpPrefixTree.parseAddress("[::1]"));
+		Assert.assertArrayEquals(new byte[16], RangerIpPrefixTree.parseAddress("::"));
+		Assert.assertArrayEquals(new byte[] { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, (byte) 0xff, (byte) 0xff, 10, 1, 1, 1 }, RangerIpPrefixTree.parseAddress("::ffff:10.1.1.1"));
+		Assert.assertNull(RangerIpPrefixTree.parseAddress("1::2::3"));
+		Assert.assertNull(RangerIpPrefixTree.parseAddress("99:a9:b9:c9:d9:e9"));
+		Assert.assertNull(RangerIpPrefixTree.parseAddress("1:2:3:4:5:6:7:8:9"));
+		Assert.assertNull(RangerIpPrefixTree.parseAddress("12345::1"));
+		Assert.assertNull(RangerIpPrefixTree.parseAddress("1:"));
+	}
+
 	RangerIpMatcher createMatcher(String[] ipArray) {
 		RangerIpMatcher matcher = new RangerIpMatcher();
 
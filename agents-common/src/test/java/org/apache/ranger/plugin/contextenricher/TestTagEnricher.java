@@ -26,6 +26,7 @@ import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
 import org.apache.ranger.plugin.contextenricher.TestTagEnricher.TagEnricherTestCase.TestData;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
 import org.apache.ranger.plugin.model.RangerServiceDef;
 import org.apache.ranger.plugin.model.RangerServiceResource;
 import org.apache.ranger.plugin.model.RangerTag;
@@ -41,12 +42,16 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class TestTagEnricher {
@@ -71,6 +76,96 @@ public class TestTagEnricher {
         runTestsFromResourceFiles(hiveTestResourceFiles);
     }
 
+    @Test
+    public void testTagEnricherDelta_hive() {
+        InputStream         inStream = this.getClass().getResourceAsStream("/contextenricher/test_tagenricher_hive.json");
+        TagEnricherTestCase testCase = gsonBuilder.fromJson(new InputStreamReader(inStream), TagEnricherTestCase.class);
+
+        ServiceTags serviceTags = new ServiceTags();
+        serviceTags.setServiceName(testCase.serviceName);
+        serviceTags.setTagVersion(1L);
+        serviceTags.setTags(testCase.tags);
+        serviceTags.setServiceResources(testCase.serviceResources);
+        serviceTags.setResourceToTagIds(testCase.resourceToTagIds);
+
+        RangerTagEnricher tagEnricher = new RangerTagEnricher();
+
+        tagEnricher.setServiceName(testCase.serviceName);
+        tagEnricher.setServiceDef(testCase.serviceDef);
+        tagEnricher.setServiceTags(serviceTags);
+
+        assertEquals(Arrays.asList("EXPIRES_ON", "EXPIRES_ON", "FINANCE", "PII"), getTagTypes(tagEnricher, "finance", null));
+
+        // delete resource 2 and tag 3 (FINANCE), add resource 7 tagged with tag 5 (PCI)
+        RangerServiceResource deletedResource = new RangerServiceResource();
+        deletedResource.setId(2L);
+
+        Map<String, RangerPolicyResource> resourceElements = new HashMap<>();
+        resourceElements.put("database", new RangerPolicyResource("hr"));
+        resourceElements.put("table", new RangerPolicyResource("payroll"));
+
+        RangerServiceResource addedResource = new RangerServiceResource(testCase.serviceName, resourceElements);
+        addedResource.setId(7L);
+
+        RangerTag deletedTag = new RangerTag();
+        deletedTag.setId(3L);
+
+        ServiceTags delta = new ServiceTags();
+        delta.setServiceName(testCase.serviceName);
+        delta.setTagVersion(2L);
+        delta.setIsDelta(Boolean.TRUE);
+        delta.setServiceResources(Arrays.asList(deletedResource, addedResource));
+        delta.setResourceToTagIds(Collections.singletonMap(7L, Collections.singletonList(5L)));
+        delta.getTags().put(3L, deletedTag);
+        delta.getTags().put(5L, testCase.tags.get(5L));
+
+        ServiceTags merged = tagEnricher.applyServiceTagsDelta(delta);
+
+        assertNotNull(merged);
+        assertEquals(Long.valueOf(2L), tagEnricher.getServiceTagsVersion());
+        assertEquals(6, merged.getServiceResources().size());
+        assertEquals(4, merged.getTags().size());
+        assertEquals(1, serviceTags.getResourceToTagIds().get(2L).size()); // applied on a copy
+
+        assertEquals(Arrays.asList("EXPIRES_ON", "EXPIRES_ON", "PII"), getTagTypes(tagEnricher, "finance", null));
+        assertEquals(Collections.singletonList("PCI"), getTagTypes(tagEnricher, "hr", "payroll"));
+
+        // a delta can't be applied when no tags are present
+        RangerTagEnricher emptyTagEnricher = new RangerTagEnricher();
+
+        emptyTagEnricher.setServiceName(testCase.serviceName);
+        emptyTagEnricher.setServiceDef(testCase.serviceDef);
+
+        assertNull(emptyTagEnricher.applyServiceTagsDelta(delta));
+    }
+
+    private List<String> getTagTypes(RangerTagEnricher tagEnricher, String database, String table) {
+        RangerAccessResourceImpl resource = new RangerAccessResourceImpl();
+
+        resource.setValue("database", database);
+
+        if (table != null) {
+            resource.setValue("table", table);
+        }
+
+        RangerAccessRequestImpl request = new RangerAccessRequestImpl(resource, "", "testUser", null);
+
+        tagEnricher.enrich(request);
+
+        List<String>          ret  = new ArrayList<>();
+        Set<RangerTagForEval> tags = RangerAccessRequestUtil.getRequestTagsFromContext(request.getContext());
+
+        if (tags != null) {
+            for (RangerTagForEval tag : tags) {
+                ret.add(tag.getType());
+            }
+        }
+
+        Collections.sort(ret);
+
+        return ret;
+    }
+
     private void runTestsFromResourceFiles(String[] resourceNames) {
         for(String resourceName : resourceNames) {
             InputStream       inStream = this.getClass().getResourceAsStream(resourceName);
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.geo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestGeolocationIndex {
+	private static final String[] US = new String[] { "US", "United States" };
+	private static final String[] CA = new String[] { "CA", "Canada" };
+
+	@Test
+	public void testFind() {
+		GeolocationIndex index = getIndex();
+
+		Assert.assertEquals(3, index.size());
+		Assert.assertEquals(2, index.getLocationCount()); // same location data is stored once
+
+		Assert.assertArrayEquals(CA, index.getLocationData(index.find(RangerGeolocationData.parseIPv4Address("20.0.100.85"))));
+		Assert.assertArrayEquals(US, index.getLocationData(index.find(RangerGeolocationData.parseIPv4Address("20.0.100.100"))));
+		Assert.assertArrayEquals(US, index.getLocationData(index.find(RangerGeolocationData.parseIPv4Address("200.1.1.1"))));
+		Assert.assertEquals(-1, index.find(RangerGeolocationData.parseIPv4Address("20.0.100.90")));
+		Assert.assertEquals(-1, index.find(RangerGeolocationData.parseIPv4Address("1.1.1.1")));
+		Assert.assertEquals(-1, index.find(RangerGeolocationData.parseIPv4Address("255.255.255.255")));
+	}
+
+	@Test
+	public void testParseIPv4Address() {
+		Assert.assertEquals(0xC8010101L, RangerGeolocationData.parseIPv4Address("200.1.1.1"));
+		Assert.assertEquals(0xC8010101L, RangerGeolocationData.ipAddressToLong("200.1.1.1"));
+		Assert.assertEquals(-1, RangerGeolocationData.parseIPv4Address("256.1.1.1"));
+		Assert.assertEquals(-1, RangerGeolocationData.parseIPv4Address("1.1.1"));
+		Assert.assertEquals(-1, RangerGeolocationData.parseIPv4Address("1..1.1"));
+		Assert.assertEquals(-1, RangerGeolocationData.parseIPv4Address("localhost"));
+		Assert.assertEquals(-1, RangerGeolocationData.parseIPv4Address("::1"));
+	}
+
+	@Test
+	public void testWriteAndRead() throws Exception {
+		RangerGeolocationDatabase database = new RangerGeolocationDatabase();
+
+		database.setMetadata(new GeolocationMetadata(new String[] { "COUNTRY_CODE", "COUNTRY_NAME" }));
+		database.setData(getIndex());
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		database.writeTo(new DataOutputStream(bytes), 100L, 200L);
+
+		Assert.assertNull(RangerGeolocationDatabase.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 101L, 200L));
+
+		RangerGeolocationDatabase copy = RangerGeolocationDatabase.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 100L, 200L);
+
+		Assert.assertNotNull(copy);
+		Assert.assertEquals(3, copy.getData().size());
+		Assert.assertEquals("Canada", copy.getValue(copy.find("20.0.100.80"), "COUNTRY_NAME"));
+		Assert.assertEquals("US", copy.getValue(copy.find("200.255.0.1"), "COUNTRY_CODE"));
+		Assert.assertNull(copy.find("20.0.100.90"));
+	}
+
+	private GeolocationIndex getIndex() {
+		// ranges not sorted by start address
+		return new GeolocationIndex.Builder().add(RangerGeolocationData.parseIPv4Address("20.0.100.100"), RangerGeolocationData.parseIPv4Address("20.0.100.109"), US)
+		                                     .add(RangerGeolocationData.parseIPv4Address("200.0.0.0"), RangerGeolocationData.parseIPv4Address("200.255.255.255"), US.clone())
+		                                     .add(RangerGeolocationData.parseIPv4Address("20.0.100.80"), RangerGeolocationData.parseIPv4Address("20.0.100.89"), CA)
+		                                     .build();
+	}
+}
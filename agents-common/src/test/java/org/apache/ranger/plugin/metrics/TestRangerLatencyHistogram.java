@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.After;
+import org.junit.Test;
+
+public class TestRangerLatencyHistogram {
+
+	@After
+	public void tearDown() {
+		RangerPerfMetrics.setEnabled(false);
+		RangerPerfMetrics.clear();
+	}
+
+	@Test
+	public void testBucketBounds() {
+		long previousUpperBound = -1;
+
+		for (int i = 0; i < RangerLatencyHistogram.BUCKET_COUNT; i++) {
+			long lowerBound = RangerLatencyHistogram.bucketLowerBound(i);
+			long upperBound = RangerLatencyHistogram.bucketUpperBound(i);
+
+			assertEquals("bucket " + i + " must start where bucket " + (i - 1) + " ends", previousUpperBound + 1, lowerBound);
+			assertEquals(i, RangerLatencyHistogram.bucketIndex(lowerBound));
+			assertEquals(i, RangerLatencyHistogram.bucketIndex(upperBound));
+
+			// a bucket spans at most 1/SUB_BUCKET_COUNT of its values
+			assertTrue(upperBound - lowerBound <= lowerBound / RangerLatencyHistogram.SUB_BUCKET_COUNT);
+
+			previousUpperBound = upperBound;
+		}
+
+		assertEquals(Long.MAX_VALUE, previousUpperBound);
+	}
+
+	@Test
+	public void testPercentiles() {
+		RangerLatencyHistogram histogram = new RangerLatencyHistogram("test");
+
+		for (long value = 1; value <= 10000; value++) {
+			histogram.recordNanos(value * 1000);
+		}
+
+		RangerLatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+
+		assertEquals(10000, snapshot.getCount());
+		assertEquals(1000, snapshot.getMinNanos());
+		assertEquals(10000 * 1000, snapshot.getMaxNanos());
+		assertEquals(5000500d, snapshot.getMeanNanos(), 0.1d);
+
+		assertWithin(5000 * 1000, snapshot.getPercentileNanos(50));
+		assertWithin(9900 * 1000, snapshot.getPercentileNanos(99));
+		assertWithin(9990 * 1000, snapshot.getPercentileNanos(99.9));
+		assertEquals(snapshot.getMaxNanos(), snapshot.getPercentileNanos(100));
+		assertEquals(snapshot.getMinNanos(), snapshot.getPercentileNanos(0));
+
+		histogram.reset();
+
+		snapshot = histogram.getSnapshot();
+
+		assertEquals(0, snapshot.getCount());
+		assertEquals(0, snapshot.getMaxNanos());
+		assertEquals(0, snapshot.getPercentileNanos(99));
+	}
+
+	@Test
+	public void testConcurrentRecording() throws Exception {
+		final RangerLatencyHistogram histogram    = new RangerLatencyHistogram("test");
+		final int                    threadCount  = 8;
+		final int                    recordCount  = 100000;
+		Thread[]                     threads      = new Thread[threadCount];
+
+		for (int i = 0; i < threadCount; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < recordCount; j++) {
+						histogram.recordNanos(j);
+					}
+				}
+			};
+
+			threads[i].start();
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals((long) threadCount * recordCount, histogram.getSnapshot().getCount());
+		assertEquals(recordCount - 1, histogram.getSnapshot().getMaxNanos());
+	}
+
+	@Test
+	public void testTimerDisabled() {
+		long startNanos = RangerPerfMetrics.startTimer();
+
+		RangerPerfMetrics.stopTimer(RangerPerfMetrics.POLICY_ENGINE_REQUEST, startNanos);
+
+		assertEquals(0, startNanos);
+		assertTrue(RangerPerfMetrics.getSnapshots().isEmpty());
+	}
+
+	@Test
+	public void testTimerEnabled() {
+		RangerPerfMetrics.setEnabled(true);
+
+		for (int i = 0; i < 10; i++) {
+			RangerPerfMetrics.stopTimer(RangerPerfMetrics.POLICY_ENGINE_REQUEST, RangerPerfMetrics.startTimer());
+		}
+
+		SortedMap<String, Number> metrics = RangerPerfMetrics.getMetrics();
+
+		assertEquals(10L, metrics.get(RangerPerfMetrics.POLICY_ENGINE_REQUEST + RangerPerfMetrics.METRIC_COUNT));
+		assertNotNull(metrics.get(RangerPerfMetrics.POLICY_ENGINE_REQUEST + RangerPerfMetrics.METRIC_P99_US));
+		assertFalse(metrics.containsKey(RangerPerfMetrics.POLICY_ENGINE_AUDIT + RangerPerfMetrics.METRIC_COUNT));
+	}
+
+	@Test
+	public void testReporters() throws Exception {
+		final SortedMap<String, Number> metrics = new TreeMap<>();
+		File                            file    = File.createTempFile("ranger-metrics", ".json");
+		Configuration                   config  = new Configuration(false);
+
+		metrics.put("test.count", 42L);
+		metrics.put("test.p99_us", 12.5d);
+
+		config.set("test.metrics" + RangerMetricsReporterFactory.PROP_REPORTERS, "jmx, json");
+		config.set("test.metrics" + RangerJsonFileMetricsReporter.PROP_FILE, file.getPath());
+
+		RangerMetricsSource source = new RangerMetricsSource() {
+			@Override
+			public SortedMap<String, Number> getMetrics() {
+				return Collections.unmodifiableSortedMap(metrics);
+			}
+		};
+
+		List<RangerMetricsReporter> reporters = RangerMetricsReporterFactory.startReporters("test", source, config, "test.metrics");
+
+		assertEquals(2, reporters.size());
+
+		MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+		ObjectName  objectName  = ((RangerJmxMetricsReporter) reporters.get(0)).getObjectName();
+
+		assertEquals(42L, mbeanServer.getAttribute(objectName, "test.count"));
+		assertEquals(12.5d, mbeanServer.getAttribute(objectName, "test.p99_us"));
+
+		RangerMetricsReporterFactory.stopReporters(reporters);
+
+		assertFalse(mbeanServer.isRegistered(objectName));
+
+		String json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+
+		assertTrue(json, json.contains("\"test.count\": 42"));
+
+		file.delete();
+	}
+
+	private static void assertWithin(long expected, long actual) {
+		assertTrue("expected " + expected + ", got " + actual, Math.abs(expected - actual) <= expected / RangerLatencyHistogram.SUB_BUCKET_COUNT);
+	}
+}
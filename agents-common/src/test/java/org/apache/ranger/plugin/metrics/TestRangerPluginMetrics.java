@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.audit.provider.DummyAuditProvider;
+import org.apache.ranger.audit.provider.MultiDestAuditProvider;
+import org.apache.ranger.audit.queue.AuditAsyncQueue;
+import org.apache.ranger.audit.queue.AuditBatchQueue;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.junit.Test;
+
+public class TestRangerPluginMetrics {
+
+	@Test
+	public void testAccessResults() {
+		RangerPluginMetrics pluginMetrics = new RangerPluginMetrics();
+
+		pluginMetrics.recordAccessResult(createResult(true, 3));
+		pluginMetrics.recordAccessResult(createResult(false, 7));
+		pluginMetrics.recordAccessResult(null);
+
+		SortedMap<String, Number> metrics = pluginMetrics.getMetrics();
+
+		assertEquals(2L, metrics.get(RangerPluginMetrics.ACCESS_REQUESTS));
+		assertEquals(1L, metrics.get(RangerPluginMetrics.ACCESS_ALLOWED));
+		assertEquals(1L, metrics.get(RangerPluginMetrics.ACCESS_DENIED));
+		assertEquals(10L, metrics.get(RangerPluginMetrics.EVALUATED_POLICIES_TOTAL));
+		assertEquals(5d, metrics.get(RangerPluginMetrics.EVALUATED_POLICIES_MEAN));
+		assertEquals(7L, metrics.get(RangerPluginMetrics.EVALUATED_POLICIES_MAX));
+	}
+
+	@Test
+	public void testGauges() {
+		RangerPluginMetrics pluginMetrics = new RangerPluginMetrics();
+
+		pluginMetrics.registerGauge(RangerPluginMetrics.POLICY_VERSION, new RangerPluginMetrics.Gauge() {
+			@Override
+			public Number getValue() {
+				return 42L;
+			}
+		});
+
+		pluginMetrics.registerGauge(RangerPluginMetrics.POLICY_STALENESS_MS, new RangerPluginMetrics.Gauge() {
+			@Override
+			public Number getValue() {
+				return null; // not known yet: left out
+			}
+		});
+
+		SortedMap<String, Number> metrics = pluginMetrics.getMetrics();
+
+		assertEquals(42L, metrics.get(RangerPluginMetrics.POLICY_VERSION));
+		assertFalse(metrics.containsKey(RangerPluginMetrics.POLICY_STALENESS_MS));
+
+		pluginMetrics.unregisterGauge(RangerPluginMetrics.POLICY_VERSION);
+
+		assertFalse(pluginMetrics.getMetrics().containsKey(RangerPluginMetrics.POLICY_VERSION));
+	}
+
+	@Test
+	public void testAuditQueueDepth() {
+		MultiDestAuditProvider multiDest  = new MultiDestAuditProvider();
+		AuditBatchQueue        batchQueue = new AuditBatchQueue(new DummyAuditProvider());
+		AuditAsyncQueue        asyncQueue = new AuditAsyncQueue(multiDest);
+
+		batchQueue.setName("batch");
+		multiDest.addAuditProvider(batchQueue);
+
+		// consumer thread not started: events stay in the queue
+		asyncQueue.log(new AuthzAuditEvent());
+		asyncQueue.log(new AuthzAuditEvent());
+
+		Map<String, Number> metrics = new HashMap<>();
+
+		RangerPluginMetrics.addAuditQueueMetrics(asyncQueue, metrics);
+
+		assertEquals(2, metrics.get(RangerPluginMetrics.AUDIT_QUEUE_PREFIX + asyncQueue.getFinalPath() + RangerPluginMetrics.AUDIT_QUEUE_SIZE));
+		assertEquals(0, metrics.get(RangerPluginMetrics.AUDIT_QUEUE_PREFIX + batchQueue.getFinalPath() + RangerPluginMetrics.AUDIT_QUEUE_SIZE));
+	}
+
+	private static RangerAccessResult createResult(boolean isAllowed, int evaluatedPolicies) {
+		RangerAccessResult ret = new RangerAccessResult(RangerPolicy.POLICY_TYPE_ACCESS, "svc", null, null);
+
+		ret.setIsAllowed(isAllowed);
+
+		for (int i = 0; i < evaluatedPolicies; i++) {
+			ret.incrementEvaluatedPoliciesCount();
+		}
+
+		return ret;
+	}
+}
@@ -31,6 +31,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.ranger.plugin.errors.ValidationErrorCode;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
@@ -823,6 +824,61 @@ public class TestRangerPolicyValidator {
 	}
 	
 	
+	@Test
+	public final void test_isValid_batch() throws Exception {
+		RangerService service = mock(RangerService.class);
+		when(service.getType()).thenReturn("service-type");
+		when(_store.getServiceByName("service-name")).thenReturn(service);
+		_serviceDef = _utils.createServiceDefWithAccessTypes(accessTypes, "service-type");
+		when(_store.getServiceDefByName("service-type")).thenReturn(_serviceDef);
+
+		RangerPolicy policy1 = createPolicy("policy-1", true, "signature-1");
+		RangerPolicy policy2 = createPolicy("policy-2", true, "signature-2");
+		RangerPolicy policy3 = createPolicy("policy-3", false, "signature-1"); // disabled, resources can match another policy
+
+		_validator.isValid(Arrays.asList(policy1, policy2, policy3), Action.CREATE, true, _failures);
+		Assert.assertEquals(0, countFailures(ValidationErrorCode.POLICY_VALIDATION_ERR_POLICY_NAME_CONFLICT_IN_BATCH));
+		Assert.assertEquals(0, countFailures(ValidationErrorCode.POLICY_VALIDATION_ERR_DUPLICATE_POLICY_RESOURCE_IN_BATCH));
+
+		RangerPolicy policy4 = createPolicy("policy-1", true, "signature-4");
+		RangerPolicy policy5 = createPolicy("policy-5", true, "signature-2");
+
+		_failures.clear();
+		Assert.assertFalse(_validator.isValid(Arrays.asList(policy1, policy2, policy3, policy4, policy5), Action.CREATE, true, _failures));
+		Assert.assertEquals(1, countFailures(ValidationErrorCode.POLICY_VALIDATION_ERR_POLICY_NAME_CONFLICT_IN_BATCH));
+		Assert.assertEquals(1, countFailures(ValidationErrorCode.POLICY_VALIDATION_ERR_DUPLICATE_POLICY_RESOURCE_IN_BATCH));
+
+		try {
+			_validator.validate(Arrays.asList(policy1, policy4), Action.CREATE, true);
+			Assert.fail("batch with duplicate policy names should fail validation");
+		} catch (Exception excp) {
+			Assert.assertTrue(excp.getMessage(), excp.getMessage().contains("policy-1"));
+		}
+	}
+
+	private RangerPolicy createPolicy(String name, boolean isEnabled, String signature) {
+		RangerPolicy policy = new RangerPolicy();
+		policy.setService("service-name");
+		policy.setName(name);
+		policy.setIsEnabled(isEnabled);
+
+		RangerPolicyResourceSignature policySignature = mock(RangerPolicyResourceSignature.class);
+		when(policySignature.getSignature()).thenReturn(signature);
+		when(_factory.createPolicyResourceSignature(policy)).thenReturn(policySignature);
+
+		return policy;
+	}
+
+	private int countFailures(ValidationErrorCode errorCode) {
+		int ret = 0;
+		for (ValidationFailureDetails failure : _failures) {
+			if (failure._errorCode == errorCode.getErrorCode()) {
+				ret++;
+			}
+		}
+		return ret;
+	}
+
 	private ValidationTestUtils _utils = new ValidationTestUtils();
 	private List<ValidationFailureDetails> _failures = new ArrayList<ValidationFailureDetails>();
 	private ServiceStore _store;
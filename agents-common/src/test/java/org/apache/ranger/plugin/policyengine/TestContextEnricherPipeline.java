@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ranger.plugin.contextenricher.RangerAbstractContextEnricher;
+import org.apache.ranger.plugin.contextenricher.RangerContextEnricher;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerContextEnricherDef;
+import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestContextEnricherPipeline {
+
+	@Test
+	public void testLazyEnrichment() {
+		CountingEnricher               eager    = new CountingEnricher("EAGER", null);
+		CountingEnricher               country  = new CountingEnricher("COUNTRY", Collections.singleton("COUNTRY"));
+		CountingEnricher               project  = new CountingEnricher("PROJECT", Collections.singleton("PROJECT"));
+		RangerContextEnricherPipeline  pipeline = new RangerContextEnricherPipeline(Arrays.<RangerContextEnricher>asList(eager, country, project), true);
+		RangerAccessRequestImpl        request  = new RangerAccessRequestImpl();
+
+		pipeline.preProcess(request);
+
+		Assert.assertEquals(2, pipeline.getLazyEnricherCount());
+		Assert.assertEquals(1, eager.count);
+		Assert.assertEquals("EAGER", request.getContext().get("EAGER"));
+		Assert.assertNull(request.getContext().get("COUNTRY"));
+
+		// conditions that read no enriched key don't trigger enrichment
+		RangerContextEnricherPipeline.ensureContextKeys(request, Collections.<String>emptySet());
+		Assert.assertEquals(0, country.count + project.count);
+
+		RangerContextEnricherPipeline.ensureContextKeys(request, new HashSet<>(Arrays.asList("COUNTRY", "OTHER")));
+		RangerContextEnricherPipeline.ensureContextKeys(request, Collections.singleton("COUNTRY"));
+		Assert.assertEquals(1, country.count);
+		Assert.assertEquals(0, project.count);
+		Assert.assertEquals("COUNTRY", request.getContext().get("COUNTRY"));
+
+		// a copied context, like the one of a tag-request, keeps the earlier enrichment and records its own
+		RangerAccessRequestImpl copy = new RangerAccessRequestImpl();
+		copy.setContext(new HashMap<>(request.getContext()));
+
+		RangerContextEnricherPipeline.ensureContextKeys(copy, null);
+		Assert.assertEquals(1, country.count);
+		Assert.assertEquals(1, project.count);
+		Assert.assertEquals("PROJECT", copy.getContext().get("PROJECT"));
+		Assert.assertNull(request.getContext().get("PROJECT"));
+
+		RangerContextEnricherPipeline.ensureContextKeys(request, Collections.singleton("PROJECT"));
+		Assert.assertEquals(2, project.count);
+		Assert.assertEquals("PROJECT", request.getContext().get("PROJECT"));
+	}
+
+	@Test
+	public void testLazyEnrichmentDisabled() {
+		CountingEnricher              country  = new CountingEnricher("COUNTRY", Collections.singleton("COUNTRY"));
+		RangerContextEnricherPipeline pipeline = new RangerContextEnricherPipeline(Collections.<RangerContextEnricher>singletonList(country), false);
+		RangerAccessRequestImpl       request  = new RangerAccessRequestImpl();
+
+		pipeline.preProcess(request);
+
+		// every enricher runs in preProcess() and the context holds only their keys
+		Assert.assertEquals(0, pipeline.getLazyEnricherCount());
+		Assert.assertEquals(1, country.count);
+		Assert.assertEquals(Collections.<String, Object>singletonMap("COUNTRY", "COUNTRY"), request.getContext());
+	}
+
+	@Test
+	public void testTagEnricherRunsOnlyForTypesWithTagPolicies() throws Exception {
+		RangerServiceDef tagServiceDef = EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef("tag");
+		RangerPolicy     tagPolicy     = new RangerPolicy();
+		RangerPolicyItem policyItem    = new RangerPolicyItem();
+
+		tagServiceDef.setContextEnrichers(Collections.singletonList(new RangerContextEnricherDef(1L, "TagEnricher", TagCountingEnricher.class.getName(), null)));
+
+		policyItem.setUsers(Collections.singletonList("user1"));
+		policyItem.setAccesses(Collections.singletonList(new RangerPolicyItemAccess("hive:select")));
+
+		tagPolicy.setId(1L);
+		tagPolicy.setName("PII");
+		tagPolicy.setService("tagdev");
+		tagPolicy.setResources(Collections.singletonMap("tag", new RangerPolicyResource("PII")));
+		tagPolicy.setPolicyItems(Collections.singletonList(policyItem));
+
+		ServicePolicies             servicePolicies = new ServicePolicies();
+		ServicePolicies.TagPolicies tagPolicies     = new ServicePolicies.TagPolicies();
+
+		tagPolicies.setServiceName("tagdev");
+		tagPolicies.setServiceDef(tagServiceDef);
+		tagPolicies.setPolicies(Collections.singletonList(tagPolicy));
+
+		servicePolicies.setServiceName("hivedev");
+		servicePolicies.setServiceDef(EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef("hive"));
+		servicePolicies.setPolicies(new ArrayList<RangerPolicy>());
+		servicePolicies.setTagPolicies(tagPolicies);
+
+		RangerPolicyEngine       policyEngine = new RangerPolicyEngineImpl("test", servicePolicies, new RangerPolicyEngineOptions());
+		RangerAccessResourceImpl resource     = new RangerAccessResourceImpl();
+
+		resource.setValue("database", "db1");
+
+		RangerAccessRequestImpl request = new RangerAccessRequestImpl(resource, "select", "user1", null);
+
+		TagCountingEnricher.count.set(0);
+
+		policyEngine.preProcess(request);
+		policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_DATAMASK, null);
+
+		// no data-mask tag policies: tags are not looked up
+		Assert.assertEquals(0, TagCountingEnricher.count.get());
+
+		policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null);
+		policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null);
+
+		Assert.assertEquals(1, TagCountingEnricher.count.get());
+	}
+
+	public static class TagCountingEnricher extends RangerAbstractContextEnricher {
+		static final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Set<String> getProducedContextKeys() {
+			return Collections.singleton(RangerAccessRequestUtil.KEY_CONTEXT_TAGS);
+		}
+
+		@Override
+		public void enrich(RangerAccessRequest request) {
+			count.incrementAndGet();
+		}
+	}
+
+	private static class CountingEnricher extends RangerAbstractContextEnricher {
+		final String      key;
+		final Set<String> producedKeys;
+		int               count;
+
+		CountingEnricher(String key, Set<String> producedKeys) {
+			this.key          = key;
+			this.producedKeys = producedKeys;
+		}
+
+		@Override
+		public Set<String> getProducedContextKeys() {
+			return producedKeys;
+		}
+
+		@Override
+		public void enrich(RangerAccessRequest request) {
+			count++;
+
+			request.getContext().put(key, key);
+		}
+	}
+}
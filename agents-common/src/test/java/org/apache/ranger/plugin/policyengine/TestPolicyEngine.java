@@ -190,6 +190,13 @@ public class TestPolicyEngine {
 		runTestsFromResourceFiles(hdfsTestResourceFiles);
 	}
 
+	@Test
+	public void testPolicyEngine_hdfs_audit() {
+		String[] hdfsTestResourceFiles = { "/policyengine/test_policyengine_hdfs_audit.json" };
+
+		runTestsFromResourceFiles(hdfsTestResourceFiles);
+	}
+
 	@Test
 	public void testPolicyEngine_hdfsForTag() {
 		String[] hdfsTestResourceFiles = { "/policyengine/test_policyengine_tag_hdfs.json" };
@@ -440,6 +447,10 @@ public class TestPolicyEngine {
 				assertEquals("isAllowed mismatched! - " + test.name, expected.getIsAllowed(), result.getIsAllowed());
 				assertEquals("isAudited mismatched! - " + test.name, expected.getIsAudited(), result.getIsAudited());
 				assertEquals("policyId mismatched! - " + test.name, expected.getPolicyId(), result.getPolicyId());
+
+				if (expected.getEvaluatedPoliciesCount() > 0) {
+					assertEquals("evaluatedPoliciesCount mismatched! - " + test.name, expected.getEvaluatedPoliciesCount(), result.getEvaluatedPoliciesCount());
+				}
 			}
 
 			if(test.dataMaskResult != null) {
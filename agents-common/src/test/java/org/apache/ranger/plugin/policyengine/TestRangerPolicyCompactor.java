@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestRangerPolicyCompactor {
+
+	@Test
+	public void testCompact() {
+		RangerPolicy policy1 = getPolicy(1L, "finance");
+		RangerPolicy policy2 = getPolicy(2L, "finance");
+
+		RangerPolicyCompactor compactor = new RangerPolicyCompactor();
+
+		compactor.compact(policy1);
+		compactor.compact(policy2);
+
+		assertEquals(2, compactor.getPolicyCount());
+		assertTrue(compactor.getBytesSaved() > 0);
+
+		assertNull(policy2.getDescription());
+		assertNull(policy2.getCreatedBy());
+		assertNull(policy2.getCreateTime());
+		assertNull(policy2.getResourceSignature());
+
+		RangerPolicyItem item1 = policy1.getPolicyItems().get(0);
+		RangerPolicyItem item2 = policy2.getPolicyItems().get(0);
+
+		assertEquals(item1.getGroups(), item2.getGroups());
+		assertSame(item1.getGroups().get(0), item2.getGroups().get(0));
+		assertSame(item1.getAccesses().get(0).getType(), item2.getAccesses().get(0).getType());
+		assertSame(policy1.getResources().get("database").getValues().get(0), policy2.getResources().get("database").getValues().get(0));
+
+		// values the policy engine reads are unchanged
+		assertEquals(Collections.singletonList("finance"), policy2.getResources().get("database").getValues());
+		assertEquals(Arrays.asList("user1"), item2.getUsers());
+		assertEquals("policy-2", policy2.getName());
+		assertEquals(Long.valueOf(2L), policy2.getId());
+	}
+
+	private RangerPolicy getPolicy(Long id, String database) {
+		RangerPolicy ret = new RangerPolicy();
+
+		ret.setId(id);
+		ret.setName("policy-" + id);
+		ret.setService(new String("hivedev"));
+		ret.setDescription("policy for " + database);
+		ret.setResourceSignature("signature-" + id);
+		ret.setCreatedBy("admin");
+		ret.setCreateTime(new Date());
+		ret.setResources(Collections.singletonMap(new String("database"), new RangerPolicyResource(new String(database))));
+
+		RangerPolicyItem item = new RangerPolicyItem();
+
+		item.setUsers(Collections.singletonList(new String("user1")));
+		item.setGroups(Collections.singletonList(new String("analysts")));
+		item.setAccesses(Collections.singletonList(new RangerPolicyItemAccess(new String("select"))));
+
+		ret.setPolicyItems(Collections.singletonList(item));
+
+		return ret;
+	}
+}
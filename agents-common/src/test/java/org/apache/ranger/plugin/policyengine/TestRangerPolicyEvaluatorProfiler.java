@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TestRangerPolicyEvaluatorProfiler {
+
+	@Test
+	public void testSampleInterval() {
+		RangerPolicyEvaluatorProfiler profiler = new RangerPolicyEvaluatorProfiler(3);
+
+		assertNull(profiler.startSample());
+		assertNull(profiler.startSample());
+		assertNotNull(profiler.startSample());
+		assertNull(profiler.startSample());
+	}
+
+	@Test
+	public void testNoSamplesKeepsEvalOrder() {
+		RangerPolicyEvaluator allow1 = getEvaluator(1, false);
+		RangerPolicyEvaluator allow2 = getEvaluator(2, false);
+		RangerPolicyEvaluator deny3  = getEvaluator(3, true);
+
+		List<RangerPolicyEvaluator> evaluators = sort(Arrays.asList(allow2, deny3, allow1), new RangerPolicyEvaluatorProfiler(1).createComparator());
+
+		assertEquals(Arrays.asList(deny3, allow1, allow2), evaluators);
+	}
+
+	@Test
+	public void testCheapDecidingEvaluatorIsPromoted() {
+		RangerPolicyEvaluatorProfiler profiler = new RangerPolicyEvaluatorProfiler(1);
+
+		RangerPolicyEvaluator deny1  = getEvaluator(1, true);
+		RangerPolicyEvaluator deny2  = getEvaluator(2, true);
+		RangerPolicyEvaluator allow3 = getEvaluator(3, false);
+		RangerPolicyEvaluator allow4 = getEvaluator(4, false);
+		RangerPolicyEvaluator allow5 = getEvaluator(5, false);
+
+		for (int i = 0; i < 100; i++) {
+			RangerPolicyEvaluatorProfiler.ThreadSamples samples = profiler.startSample();
+
+			samples.record(deny1, 1000, false);
+			samples.record(deny2, 100, i % 2 == 0);
+			samples.record(allow3, 5000, false);
+			samples.record(allow4, 100, true);
+		}
+
+		List<RangerPolicyEvaluator> evaluators = sort(Arrays.asList(allow3, allow4, allow5, deny1, deny2), profiler.createComparator());
+
+		// evaluators with deny stay ahead of the rest; unsampled allow5 lands between the cheap and the costly evaluator
+		assertEquals(Arrays.asList(deny2, deny1, allow4, allow5, allow3), evaluators);
+
+		// older samples fade: once allow3 starts deciding cheaply, it overtakes allow4 after a few merges
+		for (int merge = 0; merge < 5; merge++) {
+			for (int i = 0; i < 100; i++) {
+				RangerPolicyEvaluatorProfiler.ThreadSamples samples = profiler.startSample();
+
+				samples.record(allow3, 50, true);
+				samples.record(allow4, 100, false);
+			}
+
+			profiler.createComparator();
+		}
+
+		evaluators = sort(Arrays.asList(allow3, allow4, allow5, deny1, deny2), profiler.createComparator());
+
+		assertEquals(Arrays.asList(deny2, deny1, allow3, allow5, allow4), evaluators);
+	}
+
+	@Test
+	public void testClear() {
+		RangerPolicyEvaluatorProfiler profiler = new RangerPolicyEvaluatorProfiler(1);
+
+		RangerPolicyEvaluator allow1 = getEvaluator(1, false);
+		RangerPolicyEvaluator allow2 = getEvaluator(2, false);
+
+		profiler.startSample().record(allow2, 10, true);
+		profiler.startSample().record(allow1, 10000, false);
+
+		profiler.clear();
+
+		assertEquals(Arrays.asList(allow1, allow2), sort(Arrays.asList(allow2, allow1), profiler.createComparator()));
+	}
+
+	@Test
+	public void testSamplesOfExitedThreadsAreDropped() throws Exception {
+		final RangerPolicyEvaluatorProfiler profiler = new RangerPolicyEvaluatorProfiler(1);
+
+		RangerPolicyEvaluator allow1 = getEvaluator(1, false);
+		final RangerPolicyEvaluator allow2 = getEvaluator(2, false);
+
+		profiler.startSample().record(allow1, 10000, false);
+
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				profiler.startSample().record(allow2, 10, true);
+			}
+		});
+
+		thread.start();
+		thread.join();
+
+		assertEquals(2, profiler.getSampledThreadCount());
+
+		// samples of the exited thread are still merged, before being dropped
+		assertEquals(Arrays.asList(allow2, allow1), sort(Arrays.asList(allow1, allow2), profiler.createComparator()));
+		assertEquals(1, profiler.getSampledThreadCount());
+	}
+
+	private List<RangerPolicyEvaluator> sort(List<RangerPolicyEvaluator> evaluators, Comparator<RangerPolicyEvaluator> comparator) {
+		List<RangerPolicyEvaluator> ret = new ArrayList<>(evaluators);
+
+		Collections.sort(ret, comparator);
+
+		return ret;
+	}
+
+	private RangerPolicyEvaluator getEvaluator(int evalOrder, boolean hasDeny) {
+		RangerPolicyEvaluator ret = mock(RangerPolicyEvaluator.class);
+
+		when(ret.getEvalOrder()).thenReturn(evalOrder);
+		when(ret.hasDeny()).thenReturn(hasDeny);
+		when(ret.toString()).thenReturn("evaluator-" + evalOrder);
+
+		return ret;
+	}
+}
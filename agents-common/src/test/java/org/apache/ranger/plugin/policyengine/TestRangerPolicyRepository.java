@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class TestRangerPolicyRepository {
+
+	@Test
+	public void testParallelInitKeepsEvaluatorOrder() throws Exception {
+		ServicePolicies servicePolicies = createServicePolicies(500);
+
+		RangerPolicyRepository serialRepository   = new RangerPolicyRepository("test", servicePolicies, getOptions(true));
+		RangerPolicyRepository parallelRepository = new RangerPolicyRepository("test", servicePolicies, getOptions(false));
+
+		assertEquals(getPolicyIds(serialRepository.getPolicyEvaluators()), getPolicyIds(parallelRepository.getPolicyEvaluators()));
+
+		for (String path : new String[] { "/", "/dir7", "/dir7/file", "/dir42/sub/file", "/tmp/file" }) {
+			RangerAccessResourceImpl resource = new RangerAccessResourceImpl();
+
+			resource.setServiceDef(servicePolicies.getServiceDef());
+			resource.setValue("path", path);
+
+			List<RangerPolicyEvaluator> serialEvaluators   = serialRepository.getLikelyMatchPolicyEvaluators(resource, RangerPolicy.POLICY_TYPE_ACCESS);
+			List<RangerPolicyEvaluator> parallelEvaluators = parallelRepository.getLikelyMatchPolicyEvaluators(resource, RangerPolicy.POLICY_TYPE_ACCESS);
+
+			assertEquals(path, getPolicyIds(serialEvaluators), getPolicyIds(parallelEvaluators));
+		}
+	}
+
+	@Test
+	public void testParallelInitUsesContextClassLoader() throws Exception {
+		ClassLoader prevClassLoader = Thread.currentThread().getContextClassLoader();
+		ClassLoader pluginClassLoader = new URLClassLoader(new URL[0], prevClassLoader);
+
+		List<Callable<ClassLoader>> tasks = new ArrayList<>();
+
+		for (int i = 0; i < 20; i++) {
+			tasks.add(new Callable<ClassLoader>() {
+				@Override
+				public ClassLoader call() {
+					return Thread.currentThread().getContextClassLoader();
+				}
+			});
+		}
+
+		List<ClassLoader> classLoaders;
+
+		Thread.currentThread().setContextClassLoader(pluginClassLoader);
+
+		try {
+			classLoaders = RangerPolicyRepository.invokeAll(tasks, 4);
+		} finally {
+			Thread.currentThread().setContextClassLoader(prevClassLoader);
+		}
+
+		assertEquals(tasks.size(), classLoaders.size());
+
+		for (ClassLoader classLoader : classLoaders) {
+			assertSame(pluginClassLoader, classLoader);
+		}
+	}
+
+	private static RangerPolicyEngineOptions getOptions(boolean disableParallelInit) {
+		RangerPolicyEngineOptions ret = new RangerPolicyEngineOptions();
+
+		ret.disableParallelInit     = disableParallelInit;
+		ret.parallelInitThreadCount = 4; // so that evaluators are built in parallel even on a single processor host
+		ret.compactPolicies         = false;
+
+		return ret;
+	}
+
+	private static ServicePolicies createServicePolicies(int policyCount) throws Exception {
+		RangerServiceDef   serviceDef = EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef("hdfs");
+		List<RangerPolicy> policies   = new ArrayList<>();
+
+		for (long i = 1; i <= policyCount; i++) {
+			RangerPolicy     policy     = new RangerPolicy();
+			RangerPolicyItem policyItem = new RangerPolicyItem();
+			String           path       = i % 5 == 0 ? "/dir" + (i % 50) + "/*" : "/dir" + (i % 50);
+
+			policy.setId(i);
+			policy.setName("policy-" + i);
+			policy.setService("hdfsdev");
+			policy.setIsAuditEnabled(i % 3 != 0);
+			policy.setResources(Collections.singletonMap("path", new RangerPolicyResource(path, false, i % 2 == 0)));
+
+			policyItem.setUsers(Collections.singletonList("user" + (i % 7)));
+			policyItem.setAccesses(Collections.singletonList(new RangerPolicyItemAccess("read")));
+
+			if (i % 4 == 0) {
+				policy.setDenyPolicyItems(Collections.singletonList(policyItem));
+			} else {
+				policy.setPolicyItems(Collections.singletonList(policyItem));
+			}
+
+			policies.add(policy);
+		}
+
+		ServicePolicies ret = new ServicePolicies();
+
+		ret.setServiceName("hdfsdev");
+		ret.setServiceDef(serviceDef);
+		ret.setPolicies(policies);
+		ret.setPolicyVersion(1L);
+
+		return ret;
+	}
+
+	private static List<Long> getPolicyIds(List<RangerPolicyEvaluator> evaluators) {
+		List<Long> ret = new ArrayList<>();
+
+		if (evaluators != null) {
+			for (RangerPolicyEvaluator evaluator : evaluators) {
+				ret.add(evaluator.getPolicy().getId());
+			}
+		}
+
+		return ret;
+	}
+}
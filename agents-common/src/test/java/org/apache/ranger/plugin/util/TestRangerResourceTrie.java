@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerResourceDef;
+import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceEvaluator;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TestRangerResourceTrie {
+	private static final List<String> RESOURCES = Arrays.asList("", "/", "/a", "/ab", "/abc", "/abd", "/b", "/b/c", "/bcd", "/xyz", "/abcdef");
+
+	private final RangerResourceDef resourceDef = getResourceDef();
+
+	@Test
+	public void testCopyWithChanges() {
+		List<RangerPolicyResourceEvaluator> evaluators = new ArrayList<>();
+
+		evaluators.add(getEvaluator(1, "/ab", false));
+		evaluators.add(getEvaluator(2, "/a*", false));
+		evaluators.add(getEvaluator(3, "/b", true));
+		evaluators.add(getEvaluator(4, null, false)); // for a parent resource: added to root as wildcard
+		evaluators.add(getEvaluator(5, "/abc", false));
+
+		RangerResourceTrie<RangerPolicyResourceEvaluator> trie = new RangerResourceTrie<>(resourceDef, evaluators);
+
+		Map<String, List<Long>> before = lookup(trie);
+
+		RangerPolicyResourceEvaluator removed1 = evaluators.remove(1);
+		RangerPolicyResourceEvaluator removed2 = evaluators.remove(2);
+		RangerPolicyResourceEvaluator added1   = getEvaluator(6, "/abc", false);
+		RangerPolicyResourceEvaluator added2   = getEvaluator(7, "/xy*", false);
+
+		evaluators.add(added1);
+		evaluators.add(added2);
+
+		RangerResourceTrie<RangerPolicyResourceEvaluator> copy = trie.copyWithChanges(Arrays.asList(removed1, removed2), Arrays.asList(added1, added2));
+
+		assertEquals(lookup(new RangerResourceTrie<>(resourceDef, evaluators)), lookup(copy));
+		assertEquals(before, lookup(trie));
+		assertEquals(Arrays.asList(1L), sortedIds(copy.getEvaluatorsForResource("/ab")));
+		assertEquals(Arrays.asList(5L, 6L), sortedIds(copy.getEvaluatorsForResource("/abc")));
+		assertEquals(Arrays.asList(7L), sortedIds(copy.getEvaluatorsForResource("/xyz")));
+	}
+
+	@Test
+	public void testRandomChangesMatchRebuild() {
+		Random                              random     = new Random(20171001L);
+		List<RangerPolicyResourceEvaluator> evaluators = new ArrayList<>();
+		long                                nextId     = 1;
+
+		for (int i = 0; i < 30; i++) {
+			evaluators.add(getRandomEvaluator(nextId++, random));
+		}
+
+		RangerResourceTrie<RangerPolicyResourceEvaluator> trie = new RangerResourceTrie<>(resourceDef, evaluators);
+
+		for (int round = 0; round < 50; round++) {
+			List<RangerPolicyResourceEvaluator> removed = new ArrayList<>();
+			List<RangerPolicyResourceEvaluator> added   = new ArrayList<>();
+
+			for (int i = random.nextInt(4); i > 0 && !evaluators.isEmpty(); i--) {
+				removed.add(evaluators.remove(random.nextInt(evaluators.size())));
+			}
+
+			for (int i = random.nextInt(4); i > 0; i--) {
+				added.add(getRandomEvaluator(nextId++, random));
+			}
+
+			evaluators.addAll(added);
+
+			trie = trie.copyWithChanges(removed, added);
+
+			assertEquals("round " + round, lookup(new RangerResourceTrie<>(resourceDef, evaluators)), lookup(trie));
+		}
+	}
+
+	private Map<String, List<Long>> lookup(RangerResourceTrie<RangerPolicyResourceEvaluator> trie) {
+		Map<String, List<Long>> ret = new HashMap<>();
+
+		for (String resource : RESOURCES) {
+			ret.put(resource, sortedIds(trie.getEvaluatorsForResource(resource)));
+		}
+
+		return ret;
+	}
+
+	private List<Long> sortedIds(List<RangerPolicyResourceEvaluator> evaluators) {
+		List<Long> ret = new ArrayList<>();
+
+		if (evaluators != null) {
+			for (RangerPolicyResourceEvaluator evaluator : evaluators) {
+				ret.add(evaluator.getId());
+			}
+		}
+
+		Collections.sort(ret);
+
+		return ret;
+	}
+
+	private RangerPolicyResourceEvaluator getRandomEvaluator(long id, Random random) {
+		int    idx  = random.nextInt(RESOURCES.size() + 1);
+		String path = idx == RESOURCES.size() ? null : RESOURCES.get(idx);
+
+		if (path != null && random.nextInt(3) == 0) {
+			path += "*";
+		}
+
+		return getEvaluator(id, path, path != null && random.nextBoolean());
+	}
+
+	private RangerPolicyResourceEvaluator getEvaluator(long id, String path, boolean isRecursive) {
+		RangerPolicyResourceEvaluator ret = mock(RangerPolicyResourceEvaluator.class);
+
+		when(ret.getId()).thenReturn(id);
+
+		if (path != null) {
+			when(ret.getPolicyResource()).thenReturn(Collections.singletonMap("path", new RangerPolicyResource(path, false, isRecursive)));
+			when(ret.getLeafResourceLevel()).thenReturn(2);
+		} else {
+			when(ret.getPolicyResource()).thenReturn(Collections.<String, RangerPolicyResource>emptyMap());
+			when(ret.getLeafResourceLevel()).thenReturn(1);
+		}
+
+		when(ret.toString()).thenReturn("evaluator-" + id);
+
+		return ret;
+	}
+
+	private static RangerResourceDef getResourceDef() {
+		RangerResourceDef ret = new RangerResourceDef();
+
+		ret.setName("path");
+		ret.setLevel(2);
+		ret.setMatcherOptions(Collections.singletonMap("wildCard", "true"));
+
+		return ret;
+	}
+}
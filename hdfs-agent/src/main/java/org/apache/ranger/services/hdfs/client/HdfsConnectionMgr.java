@@ -19,93 +19,59 @@
 
 package org.apache.ranger.services.hdfs.client;
 
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.Logger;
+import org.apache.ranger.plugin.client.BaseClientPool;
 import org.apache.ranger.plugin.util.TimedEventUtil;
 
 
 public class HdfsConnectionMgr {
 
-	protected ConcurrentMap<String, HdfsClient> 	hdfsConnectionCache = null;
-	protected ConcurrentMap<String, Boolean> 		repoConnectStatusMap = null;
-
 	private static final Logger LOG = Logger.getLogger(HdfsConnectionMgr.class);
-	
-	public HdfsConnectionMgr(){
-		hdfsConnectionCache  = new ConcurrentHashMap<String, HdfsClient>();
-		repoConnectStatusMap = new ConcurrentHashMap<String, Boolean>();
-	}
-	
-	
+
+	// shared by all lookups, so that a client is reused across autocomplete requests
+	private static final BaseClientPool<HdfsClient> hdfsClientPool = new BaseClientPool<HdfsClient>("HdfsClientPool", new BaseClientPool.ClientFactory<HdfsClient>() {
+		@Override
+		public HdfsClient createClient(final String serviceName, final Map<String, String> configs) throws Exception {
+			final Callable<HdfsClient> connectHDFS = new Callable<HdfsClient>() {
+				@Override
+				public HdfsClient call() throws Exception {
+					return new HdfsClient(serviceName, configs);
+				}
+			};
+
+			return TimedEventUtil.timedTask(connectHDFS, configs == null ? 10 : 5, TimeUnit.SECONDS);
+		}
+	});
+
+	/*
+	 * Returned client must be given back with releaseHadoopConnection() or closeHadoopConnection()
+	 */
 	public HdfsClient getHadoopConnection(final String serviceName, final String serviceType, final Map<String,String> configs) throws Exception{
 		HdfsClient hdfsClient = null;
 		if (serviceType != null) {
-			// get it from the cache
-				hdfsClient = hdfsConnectionCache.get(serviceName);
-				if (hdfsClient == null) {
-					if(configs == null) {
-						final Callable<HdfsClient> connectHDFS = new Callable<HdfsClient>() {
-							@Override
-							public HdfsClient call() throws Exception {
-								return new HdfsClient(serviceName, configs);
-							}
-						};
-						
-						try {
-							hdfsClient = TimedEventUtil.timedTask(connectHDFS, 10, TimeUnit.SECONDS);
-						} catch(Exception e){
-							LOG.error("Error establishing connection for HDFS repository : "
-									+ serviceName, e);
-							throw e;
-						}
-						
-					} else {
-												
-						final Callable<HdfsClient> connectHDFS = new Callable<HdfsClient>() {
-							@Override
-							public HdfsClient call() throws Exception {
-								return new HdfsClient(serviceName, configs);
-							}
-						};
-						
-						try {
-							hdfsClient = TimedEventUtil.timedTask(connectHDFS, 5, TimeUnit.SECONDS);
-						} catch(Exception e){
-							LOG.error("Error establishing connection for HDFS repository : "
-									+ serviceName + " using configuration : " + configs, e);
-							throw e;
-						}
-					}	
-					HdfsClient oldClient = hdfsConnectionCache.putIfAbsent(serviceName, hdfsClient);
-					if (oldClient != null) {
-						// in the meantime someone else has put a valid client into the cache, let's use that instead.
-						hdfsClient = oldClient;
-					}
-					repoConnectStatusMap.put(serviceName, true);
- 				} else {
- 					List<String> testConnect = null;
-					try {
-						testConnect = hdfsClient.listFiles("/", "*",null);
-					} catch ( Exception e) {
-						LOG.error("Error establishing connection for HDFS repository : "
-							+ serviceName + " using configuration : " + configs, e);
-						throw e;
-					}
-					if(testConnect == null){
-						hdfsConnectionCache.put(serviceName, hdfsClient);
-						hdfsClient = getHadoopConnection(serviceName,serviceType,configs);
-					}
-				}
+			try {
+				hdfsClient = hdfsClientPool.borrowClient(serviceName, configs);
+			} catch(Exception e){
+				LOG.error("Error establishing connection for HDFS repository : "
+						+ serviceName + " using configuration : " + configs, e);
+				throw e;
+			}
 		} else {
 			LOG.error("Service not found with name " + serviceName, new Throwable());
 		}
 
 		return hdfsClient;
 	}
+
+	public void releaseHadoopConnection(String serviceName, Map<String,String> configs, HdfsClient hdfsClient) {
+		hdfsClientPool.releaseClient(serviceName, configs, hdfsClient);
+	}
+
+	public void closeHadoopConnection(HdfsClient hdfsClient) {
+		hdfsClientPool.invalidateClient(hdfsClient);
+	}
 }
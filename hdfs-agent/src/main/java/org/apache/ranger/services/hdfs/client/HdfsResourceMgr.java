@@ -76,7 +76,8 @@ public class HdfsResourceMgr {
 				}
 				
 				String wildCardToMatch;
-				final HdfsClient hdfsClient = new HdfsConnectionMgr().getHadoopConnection(serviceName, serviceType, configs);
+				final HdfsConnectionMgr hdfsConnectionMgr = new HdfsConnectionMgr();
+				final HdfsClient        hdfsClient        = hdfsConnectionMgr.getHadoopConnection(serviceName, serviceType, configs);
 				if (hdfsClient != null) {
 					Integer lastIndex = userInput.lastIndexOf("/");
 					if (lastIndex < 0) {
@@ -105,9 +106,18 @@ public class HdfsResourceMgr {
 						}
 
 					};
-					if ( callableObj != null) {
-						synchronized(hdfsClient) {
-							resultList = TimedEventUtil.timedTask(callableObj, 5,TimeUnit.SECONDS);
+					boolean isClientReusable = false;
+
+					try {
+						resultList = TimedEventUtil.timedTask(callableObj, 5,TimeUnit.SECONDS);
+
+						isClientReusable = true;
+					} finally {
+						// a client that failed, or could still be running a timed-out call, is not returned to the pool
+						if (isClientReusable) {
+							hdfsConnectionMgr.releaseHadoopConnection(serviceName, configs, hdfsClient);
+						} else {
+							hdfsConnectionMgr.closeHadoopConnection(hdfsClient);
 						}
 					}
 					if(LOG.isDebugEnabled()) {
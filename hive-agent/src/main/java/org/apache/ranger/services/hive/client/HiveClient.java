@@ -524,6 +524,7 @@ public class HiveClient extends BaseClient implements Closeable {
 	}
 	
 	
+	@Override
 	public void close() {
 		Subject.doAs(getLoginSubject(), new PrivilegedAction<Void>(){
 			public Void run() {
@@ -21,85 +21,61 @@ package org.apache.ranger.services.hive.client;
 
 import java.util.Map;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.Logger;
+import org.apache.ranger.plugin.client.BaseClientPool;
 import org.apache.ranger.plugin.util.TimedEventUtil;
 
 
 public class HiveConnectionMgr {
 
 	private static final Logger LOG = Logger.getLogger(HiveConnectionMgr.class);
-	
-	protected ConcurrentMap<String, HiveClient> 	hiveConnectionCache;
-	protected ConcurrentMap<String, Boolean> 		repoConnectStatusMap;
 
+	// shared by all lookups, so that a connection is reused across autocomplete requests
+	private static final BaseClientPool<HiveClient> hiveClientPool = new BaseClientPool<HiveClient>("HiveClientPool", new BaseClientPool.ClientFactory<HiveClient>() {
+		@Override
+		public HiveClient createClient(final String serviceName, final Map<String, String> configs) throws Exception {
+			final Callable<HiveClient> connectHive = new Callable<HiveClient>() {
+				@Override
+				public HiveClient call() throws Exception {
+					return new HiveClient(serviceName, configs);
+				}
+			};
 
-	 public	HiveConnectionMgr() {
-		 hiveConnectionCache = new ConcurrentHashMap<String, HiveClient>();
-		 repoConnectStatusMap = new ConcurrentHashMap<String, Boolean>();
-	 }
-	
-
-	 public HiveClient getHiveConnection(final String serviceName, final String serviceType, final Map<String,String> configs) {
-			HiveClient hiveClient  = null;
-			
-			if (serviceType != null) {
-				// get it from the cache
-				hiveClient = hiveConnectionCache.get(serviceName);
-				if (hiveClient == null) {
-					if (configs != null) {
-					
-						final Callable<HiveClient> connectHive = new Callable<HiveClient>() {
-							@Override
-							public HiveClient call() throws Exception {
-								return new HiveClient(serviceName, configs);
-							}
-						};
-						try {
-							hiveClient = TimedEventUtil.timedTask(connectHive, 5, TimeUnit.SECONDS);
-						} catch(Exception e){
-							LOG.error("Error connecting hive repository : "+
-									serviceName +" using config : "+ configs, e);
-						}
+			return TimedEventUtil.timedTask(connectHive, 5, TimeUnit.SECONDS);
+		}
+	});
 
-						HiveClient oldClient = null;
-						if (hiveClient != null) {
-							oldClient = hiveConnectionCache.putIfAbsent(serviceName, hiveClient);
-						} else {
-							oldClient = hiveConnectionCache.get(serviceName);
-						}
+	/*
+	 * Returned client must be given back with releaseHiveConnection() or closeHiveConnection()
+	 */
+	public HiveClient getHiveConnection(final String serviceName, final String serviceType, final Map<String,String> configs) {
+		HiveClient hiveClient = null;
 
-						if (oldClient != null) {
-							// in the meantime someone else has put a valid client into the cache, let's use that instead.
-							if (hiveClient != null) {
-								hiveClient.close();
-							}
-							hiveClient = oldClient;
-						}
-						repoConnectStatusMap.put(serviceName, true);
-					} else {
-						LOG.error("Connection Config not defined for asset :"
-								+ serviceName, new Throwable());
-					}
-				} else {
-					try {
-						hiveClient.getDatabaseList("*",null);
-					} catch(Exception e) {
-						hiveConnectionCache.remove(serviceName);
-						/*
-						 * There is a possibility that some other thread is also using this connection that we are going to close but
-						 * presumably the connection is bad which is why we are closing it, so damage should not be much.
-						 */
-						hiveClient.close();
-						hiveClient = getHiveConnection(serviceName,serviceType,configs);
-					}
+		if (serviceType != null) {
+			if (configs != null) {
+				try {
+					hiveClient = hiveClientPool.borrowClient(serviceName, configs);
+				} catch(Exception e){
+					LOG.error("Error connecting hive repository : "+
+							serviceName +" using config : "+ configs, e);
 				}
 			} else {
-				LOG.error("Asset not found with name "+serviceName, new Throwable());
+				LOG.error("Connection Config not defined for asset :"
+						+ serviceName, new Throwable());
 			}
-			return hiveClient;
+		} else {
+			LOG.error("Asset not found with name "+serviceName, new Throwable());
 		}
+		return hiveClient;
+	}
+
+	public void releaseHiveConnection(String serviceName, Map<String,String> configs, HiveClient hiveClient) {
+		hiveClientPool.releaseClient(serviceName, configs, hiveClient);
+	}
+
+	public void closeHiveConnection(HiveClient hiveClient) {
+		hiveClientPool.invalidateClient(hiveClient);
+	}
 }
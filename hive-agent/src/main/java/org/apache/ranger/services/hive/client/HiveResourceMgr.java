@@ -105,7 +105,8 @@ public class HiveResourceMgr {
 																				  + tableList + " columnList: " + columnList );
 				}
 				
-				final HiveClient hiveClient = new HiveConnectionMgr().getHiveConnection(serviceName, serviceType, configs);
+				final HiveConnectionMgr hiveConnectionMgr = new HiveConnectionMgr();
+				final HiveClient        hiveClient        = hiveConnectionMgr.getHiveConnection(serviceName, serviceType, configs);
 				
 				Callable<List<String>> callableObj = null;
 				final String finalDbName;
@@ -162,13 +163,24 @@ public class HiveResourceMgr {
 									}
 								};
 							}
-					if (callableObj != null) {
-						synchronized (hiveClient) {
+					boolean isClientReusable = false;
+
+					try {
+						if (callableObj != null) {
 							resultList = TimedEventUtil.timedTask(callableObj, 5,
 									TimeUnit.SECONDS);
+						} else {
+							LOG.error("Could not initiate at timedTask");
+						}
+
+						isClientReusable = true;
+					} finally {
+						// a client that failed, or could still be running a timed-out call, is not returned to the pool
+						if (isClientReusable) {
+							hiveConnectionMgr.releaseHiveConnection(serviceName, configs, hiveClient);
+						} else {
+							hiveConnectionMgr.closeHiveConnection(hiveClient);
 						}
-					} else {
-						LOG.error("Could not initiate at timedTask");
 					}
 				 }
 			  } catch (Exception e) {
@@ -0,0 +1,48 @@
+#!/bin/bash
+# Licensed to the Apache Software Foundation (ASF) under one or more
+# contributor license agreements.  See the NOTICE file distributed with
+# this work for additional information regarding copyright ownership.
+# The ASF licenses this file to You under the Apache License, Version 2.0
+# (the "License"); you may not use this file except in compliance with
+# the License.  You may obtain a copy of the License at
+#
+#     http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+
+# Runs the benchmarks with 1, 4 and 16 threads, with the gc profiler, and writes results to
+# baselines/<benchmark-regex>-t<threads>.json. Additional arguments are passed to JMH, for example:
+#   ./scripts/run-benchmarks.sh RangerResourceTrieBenchmark -p policyCount=10000
+
+cdir=$(cd "$(dirname "$0")/.."; pwd)
+jar="${cdir}/target/benchmarks.jar"
+
+if [ "${JAVA_HOME}" != "" ]
+then
+	export JAVA_HOME
+	PATH="${JAVA_HOME}/bin:${PATH}"
+	export PATH
+fi
+
+if [ ! -f "${jar}" ]
+then
+	echo "${jar} not found; build it with: mvn -pl ranger-benchmarks -am package -DskipTests"
+	exit 1
+fi
+
+benchmarks=${1:-.*}
+shift
+
+threads=${BENCHMARK_THREADS:-"1 4 16"}
+name=$(echo "${benchmarks}" | tr -c 'A-Za-z0-9_\n' '_')
+
+mkdir -p "${cdir}/baselines"
+
+for t in ${threads}
+do
+	java -jar "${jar}" "${benchmarks}" -t ${t} -prof gc -rf json -rff "${cdir}/baselines/${name}-t${t}.json" "$@"
+done
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerResourceDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.policyengine.perftest.v2.RangerPolicyFactory;
+import org.apache.ranger.policyengine.perftest.v2.RangerWorkloadConfig;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parameters and set-up shared by the policy benchmarks. Thread count is not a parameter here: it is given to JMH
+ * with -t, as done by scripts/run-benchmarks.sh.
+ *
+ * Policies, tags and requests are generated by {@link RangerPolicyFactory} from a {@link RangerWorkloadConfig} with a
+ * fixed seed, so that every run of a benchmark - and every fork of it - works on the same data. wildcardRatio is the
+ * fraction of policies whose resources are wildcards (recursive path prefixes for hdfs); the rest name exact resources.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public abstract class AbstractPolicyBenchmark {
+	public static final int  REQUEST_COUNT = 4096;
+	public static final long WORKLOAD_SEED = 20171001L;
+
+	@Param({ "100", "1000", "10000" })
+	public int policyCount;
+
+	@Param({ "0.0", "0.1", "0.5" })
+	public double wildcardRatio;
+
+	protected RangerWorkloadConfig createWorkloadConfig(String serviceType) {
+		return createWorkloadConfig(serviceType, policyCount, wildcardRatio);
+	}
+
+	public static RangerWorkloadConfig createWorkloadConfig(String serviceType, int policyCount, double wildcardRatio) {
+		RangerWorkloadConfig ret = new RangerWorkloadConfig(serviceType, policyCount, wildcardRatio);
+
+		ret.setSeed(WORKLOAD_SEED);
+
+		return ret;
+	}
+
+	protected static RangerResourceDef getResourceDef(RangerServiceDef serviceDef, String resourceName) {
+		RangerResourceDef ret = null;
+
+		for (RangerResourceDef resourceDef : serviceDef.getResources()) {
+			if (resourceName.equals(resourceDef.getName())) {
+				ret = resourceDef;
+
+				break;
+			}
+		}
+
+		return ret;
+	}
+
+	protected static RangerPolicyEngineOptions createPolicyEngineOptions() {
+		RangerPolicyEngineOptions ret = new RangerPolicyEngineOptions();
+
+		ret.evaluatorType              = RangerPolicyEvaluator.EVALUATOR_TYPE_OPTIMIZED;
+		ret.cacheAuditResults          = false;
+		ret.disableTrieLookupPrefilter = false;
+		ret.disableContextEnrichers    = true;
+
+		return ret;
+	}
+
+	protected static RangerAccessRequest[] toArray(List<RangerAccessRequest> requests) {
+		return requests.toArray(new RangerAccessRequest[requests.size()]);
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.audit.provider.MiscUtil;
+import org.apache.ranger.policyengine.perftest.v2.RangerPolicyFactory;
+import org.apache.ranger.policyengine.perftest.v2.RangerWorkloadConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialization of audit events, to JSON as done by the audit destinations and with toString() as done by the
+ * log4j audit provider. Policy count and wildcard ratio don't change an audit event, hence are not parameters of
+ * this suite.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class AuthzAuditEventBenchmark {
+	@Param({ RangerWorkloadConfig.SERVICE_TYPE_HIVE, RangerWorkloadConfig.SERVICE_TYPE_HDFS })
+	public String serviceType;
+
+	private AuthzAuditEvent[] events;
+
+	@Setup
+	public void setup() throws Exception {
+		RangerWorkloadConfig  config = AbstractPolicyBenchmark.createWorkloadConfig(serviceType, 0, 0);
+		List<AuthzAuditEvent> list   = RangerPolicyFactory.createAuditEvents(config, AbstractPolicyBenchmark.REQUEST_COUNT);
+
+		events = list.toArray(new AuthzAuditEvent[list.size()]);
+	}
+
+	@Benchmark
+	public String toJson(RequestCursor cursor) {
+		return MiscUtil.stringify(events[cursor.next(events.length)]);
+	}
+
+	@Benchmark
+	public String toString(RequestCursor cursor) {
+		return events[cursor.next(events.length)].toString();
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineImpl;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.policyengine.perftest.v2.RangerPolicyFactory;
+import org.apache.ranger.policyengine.perftest.v2.RangerWorkloadConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Construction of the policy engine from downloaded policies, as done by the plugin on every policy change
+ */
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RangerPolicyEngineInitBenchmark extends AbstractPolicyBenchmark {
+	@Param({ RangerWorkloadConfig.SERVICE_TYPE_HIVE, RangerWorkloadConfig.SERVICE_TYPE_HDFS })
+	public String serviceType;
+
+	private ServicePolicies           servicePolicies;
+	private RangerPolicyEngineOptions options;
+
+	@Setup
+	public void setup() throws Exception {
+		servicePolicies = RangerPolicyFactory.createServicePolicies(createWorkloadConfig(serviceType));
+		options         = createPolicyEngineOptions();
+	}
+
+	@Benchmark
+	public RangerPolicyEngine createPolicyEngine() {
+		RangerPolicyEngine ret = new RangerPolicyEngineImpl("ranger-benchmarks", servicePolicies, options);
+
+		ret.cleanup();
+
+		return ret;
+	}
+}
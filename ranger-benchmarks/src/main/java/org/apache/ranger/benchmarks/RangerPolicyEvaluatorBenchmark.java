@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.benchmarks;
+
+import java.util.List;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.policyevaluator.RangerOptimizedPolicyEvaluator;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.policyengine.perftest.v2.RangerPolicyFactory;
+import org.apache.ranger.policyengine.perftest.v2.RangerWorkloadConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * RangerDefaultPolicyEvaluator.evaluate(), through the optimized evaluator used by the policy engine. Each operation
+ * evaluates one request with one policy; most pairs don't match, as in the policy engine after trie lookup.
+ */
+public class RangerPolicyEvaluatorBenchmark extends AbstractPolicyBenchmark {
+	@Param({ RangerWorkloadConfig.SERVICE_TYPE_HIVE, RangerWorkloadConfig.SERVICE_TYPE_HDFS })
+	public String serviceType;
+
+	private String                  serviceName;
+	private RangerServiceDef        serviceDef;
+	private RangerPolicyEvaluator[] evaluators;
+	private RangerAccessRequest[]   requests;
+
+	@Setup
+	public void setup() throws Exception {
+		RangerPolicyEngineOptions options         = createPolicyEngineOptions();
+		RangerWorkloadConfig      config          = createWorkloadConfig(serviceType);
+		ServicePolicies           servicePolicies = RangerPolicyFactory.createServicePolicies(config);
+		List<RangerPolicy>        policies        = servicePolicies.getPolicies();
+
+		serviceName = config.getServiceName();
+		serviceDef  = servicePolicies.getServiceDef();
+
+		evaluators = new RangerPolicyEvaluator[policies.size()];
+
+		for (int i = 0; i < evaluators.length; i++) {
+			evaluators[i] = new RangerOptimizedPolicyEvaluator();
+
+			evaluators[i].init(policies.get(i), serviceDef, options);
+		}
+
+		requests = toArray(RangerPolicyFactory.createAccessRequests(config, REQUEST_COUNT));
+	}
+
+	@Benchmark
+	public RangerAccessResult evaluate(RequestCursor cursor) {
+		int                 idx     = cursor.next(requests.length * evaluators.length);
+		RangerAccessRequest request = requests[idx / evaluators.length];
+		RangerAccessResult  result  = new RangerAccessResult(RangerPolicy.POLICY_TYPE_ACCESS, serviceName, serviceDef, request);
+
+		evaluators[idx % evaluators.length].evaluate(request, result);
+
+		return result;
+	}
+}
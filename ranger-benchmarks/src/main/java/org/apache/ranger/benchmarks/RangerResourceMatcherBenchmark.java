@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.benchmarks;
+
+import java.util.List;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerResourceDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.resourcematcher.RangerDefaultResourceMatcher;
+import org.apache.ranger.plugin.resourcematcher.RangerPathResourceMatcher;
+import org.apache.ranger.plugin.resourcematcher.RangerResourceMatcher;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.policyengine.perftest.v2.RangerPolicyFactory;
+import org.apache.ranger.policyengine.perftest.v2.RangerWorkloadConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Matching of a resource value by the matchers of policy resources: the wildcard matcher on hive table names and the
+ * path matcher on hdfs paths. Each operation matches one value against one policy resource.
+ */
+public class RangerResourceMatcherBenchmark extends AbstractPolicyBenchmark {
+	public static final String MATCHER_WILDCARD = "wildcard";
+	public static final String MATCHER_PATH     = "path";
+
+	@Param({ MATCHER_WILDCARD, MATCHER_PATH })
+	public String matcher;
+
+	private RangerResourceMatcher[] matchers;
+	private String[]                values;
+
+	@Setup
+	public void setup() throws Exception {
+		boolean              isPath          = MATCHER_PATH.equals(matcher);
+		RangerWorkloadConfig config          = createWorkloadConfig(isPath ? RangerWorkloadConfig.SERVICE_TYPE_HDFS : RangerWorkloadConfig.SERVICE_TYPE_HIVE);
+		ServicePolicies      servicePolicies = RangerPolicyFactory.createServicePolicies(config);
+		String               resourceName    = isPath ? "path" : "table";
+		RangerResourceDef    resourceDef     = getResourceDef(servicePolicies.getServiceDef(), resourceName);
+		List<RangerPolicy>   policies        = servicePolicies.getPolicies();
+
+		matchers = new RangerResourceMatcher[policies.size()];
+
+		for (int i = 0; i < matchers.length; i++) {
+			RangerResourceMatcher resourceMatcher = isPath ? new RangerPathResourceMatcher() : new RangerDefaultResourceMatcher();
+
+			resourceMatcher.setResourceDef(resourceDef);
+			resourceMatcher.setPolicyResource(policies.get(i).getResources().get(resourceName));
+			resourceMatcher.init();
+
+			matchers[i] = resourceMatcher;
+		}
+
+		List<RangerAccessRequest> requests = RangerPolicyFactory.createAccessRequests(config, REQUEST_COUNT);
+
+		values = new String[requests.size()];
+
+		for (int i = 0; i < values.length; i++) {
+			values[i] = requests.get(i).getResource().getValue(resourceName);
+		}
+	}
+
+	@Benchmark
+	public boolean isMatch(RequestCursor cursor) {
+		int idx = cursor.next(values.length * matchers.length);
+
+		return matchers[idx % matchers.length].isMatch(values[idx / matchers.length], null);
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerResourceDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.policyevaluator.RangerOptimizedPolicyEvaluator;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.util.RangerResourceTrie;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.policyengine.perftest.v2.RangerPolicyFactory;
+import org.apache.ranger.policyengine.perftest.v2.RangerWorkloadConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Lookup of policy evaluators in the trie of a resource: hive table names, with wildcards, and hdfs paths, with
+ * recursive prefixes.
+ */
+public class RangerResourceTrieBenchmark extends AbstractPolicyBenchmark {
+	@Param({ RangerWorkloadConfig.SERVICE_TYPE_HIVE, RangerWorkloadConfig.SERVICE_TYPE_HDFS })
+	public String serviceType;
+
+	private RangerResourceTrie<RangerPolicyEvaluator> trie;
+	private String[]                                  values;
+
+	@Setup
+	public void setup() throws Exception {
+		RangerWorkloadConfig      config          = createWorkloadConfig(serviceType);
+		ServicePolicies           servicePolicies = RangerPolicyFactory.createServicePolicies(config);
+		RangerPolicyEngineOptions options         = createPolicyEngineOptions();
+		String                    resourceName    = RangerWorkloadConfig.SERVICE_TYPE_HIVE.equals(serviceType) ? "table" : "path";
+		RangerResourceDef         resourceDef     = getResourceDef(servicePolicies.getServiceDef(), resourceName);
+
+		List<RangerPolicyEvaluator> evaluators = new ArrayList<>();
+
+		for (RangerPolicy policy : servicePolicies.getPolicies()) {
+			RangerPolicyEvaluator evaluator = new RangerOptimizedPolicyEvaluator();
+
+			evaluator.init(policy, servicePolicies.getServiceDef(), options);
+
+			evaluators.add(evaluator);
+		}
+
+		trie = new RangerResourceTrie<>(resourceDef, evaluators, RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR);
+
+		List<RangerAccessRequest> requests = RangerPolicyFactory.createAccessRequests(config, REQUEST_COUNT);
+
+		values = new String[requests.size()];
+
+		for (int i = 0; i < values.length; i++) {
+			values[i] = requests.get(i).getResource().getValue(resourceName);
+		}
+	}
+
+	@Benchmark
+	public List<RangerPolicyEvaluator> getEvaluatorsForResource(RequestCursor cursor) {
+		return trie.getEvaluatorsForResource(values[cursor.next(values.length)]);
+	}
+}
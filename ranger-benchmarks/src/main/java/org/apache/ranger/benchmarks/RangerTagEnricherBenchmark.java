@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.benchmarks;
+
+import java.util.Set;
+
+import org.apache.ranger.plugin.contextenricher.RangerTagEnricher;
+import org.apache.ranger.plugin.contextenricher.RangerTagForEval;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.policyengine.perftest.v2.RangerPolicyFactory;
+import org.apache.ranger.policyengine.perftest.v2.RangerWorkloadConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * RangerTagEnricher.enrich() on hive resources. policyCount is used as the number of tagged resources, and
+ * wildcardRatio does not apply to tagged resources - it only changes the generated requests.
+ */
+public class RangerTagEnricherBenchmark extends AbstractPolicyBenchmark {
+	@Param({ "10", "100" })
+	public int tagTypeCount;
+
+	private RangerTagEnricher     tagEnricher;
+	private RangerAccessRequest[] requests;
+
+	@Setup
+	public void setup() throws Exception {
+		RangerWorkloadConfig config = createWorkloadConfig(RangerWorkloadConfig.SERVICE_TYPE_HIVE);
+
+		config.setTaggedResourceCount(policyCount);
+		config.setTagCount(tagTypeCount);
+
+		tagEnricher = new RangerTagEnricher();
+
+		tagEnricher.setServiceName(config.getServiceName());
+		tagEnricher.setServiceDef(RangerPolicyFactory.createServicePolicies(config).getServiceDef());
+		tagEnricher.setServiceTags(RangerPolicyFactory.createServiceTags(config));
+
+		requests = toArray(RangerPolicyFactory.createAccessRequests(config, REQUEST_COUNT));
+	}
+
+	@Benchmark
+	public Set<RangerTagForEval> enrich(RequestCursor cursor) {
+		RangerAccessRequest     template = requests[cursor.next(requests.length)];
+		RangerAccessRequestImpl request  = new RangerAccessRequestImpl(template.getResource(), template.getAccessType(), template.getUser(), template.getUserGroups());
+
+		// enrich() updates the request context, hence a new request for each call
+		tagEnricher.enrich(request);
+
+		return RangerAccessRequestUtil.getRequestTagsFromContext(request.getContext());
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.plugin.policyengine;
+
+import java.util.List;
+
+import org.apache.ranger.benchmarks.AbstractPolicyBenchmark;
+import org.apache.ranger.benchmarks.RequestCursor;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.policyengine.perftest.v2.RangerPolicyFactory;
+import org.apache.ranger.policyengine.perftest.v2.RangerWorkloadConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * RangerPolicyRepository.getLikelyMatchPolicyEvaluators(), i.e. lookup in the tries of all resources of the service
+ * and intersection of the results. In this package as the repository and the method are package-private.
+ */
+public class RangerPolicyRepositoryBenchmark extends AbstractPolicyBenchmark {
+	@Param({ RangerWorkloadConfig.SERVICE_TYPE_HIVE, RangerWorkloadConfig.SERVICE_TYPE_HDFS })
+	public String serviceType;
+
+	private RangerPolicyRepository repository;
+	private RangerAccessResource[] resources;
+
+	@Setup
+	public void setup() throws Exception {
+		RangerWorkloadConfig config = createWorkloadConfig(serviceType);
+
+		repository = new RangerPolicyRepository("ranger-benchmarks", RangerPolicyFactory.createServicePolicies(config), createPolicyEngineOptions());
+
+		List<RangerAccessRequest> requests = RangerPolicyFactory.createAccessRequests(config, REQUEST_COUNT);
+
+		resources = new RangerAccessResource[requests.size()];
+
+		for (int i = 0; i < resources.length; i++) {
+			resources[i] = requests.get(i).getResource();
+		}
+	}
+
+	@Benchmark
+	public List<RangerPolicyEvaluator> getLikelyMatchPolicyEvaluators(RequestCursor cursor) {
+		return repository.getLikelyMatchPolicyEvaluators(resources[cursor.next(resources.length)]);
+	}
+}
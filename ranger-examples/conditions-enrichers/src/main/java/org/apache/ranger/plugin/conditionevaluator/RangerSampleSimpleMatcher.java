@@ -28,7 +28,9 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 /**
  * This is a sample implementation of a condition Evaluator.  It works in conjunction with the sample context enricher
@@ -112,6 +114,11 @@ public class RangerSampleSimpleMatcher extends RangerAbstractConditionEvaluator
 		}
 	}
 
+	@Override
+	public Set<String> getRequiredContextKeys() {
+		return _contextName != null ? Collections.singleton(_contextName) : Collections.<String>emptySet();
+	}
+
 	@Override
 	public boolean isMatched(RangerAccessRequest request) {
 		
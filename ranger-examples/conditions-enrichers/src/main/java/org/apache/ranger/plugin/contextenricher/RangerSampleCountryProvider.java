@@ -19,8 +19,10 @@
 
 package org.apache.ranger.plugin.contextenricher;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
@@ -79,6 +81,11 @@ public class RangerSampleCountryProvider extends RangerAbstractContextEnricher {
 		}
 	}
 
+	@Override
+	public Set<String> getProducedContextKeys() {
+		return Collections.singleton(contextName);
+	}
+
 	@Override
 	public void enrich(RangerAccessRequest request) {
 		if(LOG.isDebugEnabled()) {
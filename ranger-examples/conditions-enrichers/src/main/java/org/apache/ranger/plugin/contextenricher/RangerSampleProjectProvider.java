@@ -24,8 +24,10 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 /**
  * This is a sample implementation of a Context Enricher.  It works in conjunction with a sample Condition Evaluator
@@ -77,6 +79,11 @@ public class RangerSampleProjectProvider extends RangerAbstractContextEnricher {
 		}
 	}
 
+	@Override
+	public Set<String> getProducedContextKeys() {
+		return Collections.singleton(contextName);
+	}
+
 	@Override
 	public void enrich(RangerAccessRequest request) {
 		if(LOG.isDebugEnabled()) {
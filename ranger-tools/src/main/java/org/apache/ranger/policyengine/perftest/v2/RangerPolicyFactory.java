@@ -25,11 +25,13 @@ import java.io.File;
 import java.lang.reflect.Type;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 
+import org.apache.ranger.audit.model.AuthzAuditEvent;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
@@ -41,6 +43,7 @@ import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
 import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
 import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
 import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServiceTags;
 import org.apache.ranger.policyengine.RangerAccessRequestDeserializer;
 import org.apache.ranger.policyengine.RangerResourceDeserializer;
 
@@ -59,6 +62,9 @@ import com.google.gson.reflect.TypeToken;
 
 /**
  * Factory for creating and wiring the object graph of {@link ServicePolicies} and {@link RangerAccessRequest}.
+ *
+ * Besides the small hive workload built from templates, generates workloads of the shape given by a
+ * {@link RangerWorkloadConfig} - for hdfs, hive, hbase and kafka services - reproducibly from the seed in the config.
  */
 public class RangerPolicyFactory {
 
@@ -89,6 +95,95 @@ public class RangerPolicyFactory {
 		return servicePolicies;
 	}
 
+	/**
+	 * Returns {@link ServicePolicies service policies} generated for the given workload config, including tag
+	 * policies when the config asks for them.
+	 * @param config
+	 * @return
+	 */
+	public static ServicePolicies createServicePolicies(RangerWorkloadConfig config) {
+		ServicePolicies ret = new RangerWorkloadGenerator(config, RangerWorkloadGenerator.SALT_POLICIES).createServicePolicies();
+
+		if (config.getTagPolicyCount() > 0) {
+			ret.setTagPolicies(new RangerWorkloadGenerator(config, RangerWorkloadGenerator.SALT_TAG_POLICIES).createTagPolicies());
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Returns {@link ServiceTags service tags} generated for the given workload config: config.getTaggedResourceCount()
+	 * distinct resources - fewer if the config doesn't have as many - each with one or two of config.getTagCount() tags.
+	 * @param config
+	 * @return
+	 */
+	public static ServiceTags createServiceTags(RangerWorkloadConfig config) {
+		return new RangerWorkloadGenerator(config, RangerWorkloadGenerator.SALT_TAGS).createServiceTags();
+	}
+
+	/**
+	 * Generates and returns a list of {@link RangerAccessRequest requests} for the given workload config
+	 * @param config
+	 * @param numberOfRequests the number of requests to generate.
+	 * @return
+	 */
+	public static List<RangerAccessRequest> createAccessRequests(RangerWorkloadConfig config, int numberOfRequests) {
+		List<RangerAccessRequest>     ret      = Lists.newArrayListWithCapacity(numberOfRequests);
+		Iterator<RangerAccessRequest> requests = createAccessRequestStream(config);
+
+		for (int i = 0; i < numberOfRequests; i++) {
+			ret.add(requests.next());
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Returns an endless stream of {@link RangerAccessRequest requests} for the given workload config; the first n
+	 * requests of the stream are the ones returned by createAccessRequests(config, n).
+	 * @param config
+	 * @return
+	 */
+	public static Iterator<RangerAccessRequest> createAccessRequestStream(RangerWorkloadConfig config) {
+		final RangerWorkloadGenerator generator = new RangerWorkloadGenerator(config, RangerWorkloadGenerator.SALT_REQUESTS);
+
+		return new Iterator<RangerAccessRequest>() {
+			@Override
+			public boolean hasNext() {
+				return true;
+			}
+
+			@Override
+			public RangerAccessRequest next() {
+				return generator.createAccessRequest();
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("remove");
+			}
+		};
+	}
+
+	/**
+	 * Returns {@link AuthzAuditEvent audit events} for the first numberOfEvents requests of the given workload config,
+	 * as the plugin would log them; the events name policies with ids 0 to 999.
+	 * @param config
+	 * @param numberOfEvents
+	 * @return
+	 */
+	public static List<AuthzAuditEvent> createAuditEvents(RangerWorkloadConfig config, int numberOfEvents) {
+		List<AuthzAuditEvent>     ret       = Lists.newArrayListWithCapacity(numberOfEvents);
+		List<RangerAccessRequest> requests  = createAccessRequests(config, numberOfEvents);
+		RangerWorkloadGenerator   generator = new RangerWorkloadGenerator(config, RangerWorkloadGenerator.SALT_AUDIT_EVENTS);
+
+		for (int i = 0; i < numberOfEvents; i++) {
+			ret.add(generator.createAuditEvent(requests.get(i), i % 1000));
+		}
+
+		return ret;
+	}
+
 	private static void mutate(ServicePolicies servicePolicies, int numberOfPolicies) {
 		servicePolicies.getPolicies().clear(); // reset
 		servicePolicies.setPolicies(createPolicies(numberOfPolicies));
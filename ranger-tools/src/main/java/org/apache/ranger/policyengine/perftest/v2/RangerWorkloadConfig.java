@@ -0,0 +1,276 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.policyengine.perftest.v2;
+
+import java.util.Properties;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Shape of a workload generated by {@link RangerPolicyFactory}: service-type, number of policies and tags, mix of
+ * wildcards, and popularity of users and resources. Generation is seeded by {@link #getSeed()}, so the same config
+ * always generates the same policies, tags and requests.
+ *
+ * Popularity of users, resource values and tags follows a Zipf distribution with the given exponent; 0 makes it
+ * uniform.
+ */
+public class RangerWorkloadConfig {
+	public static final String PROP_PREFIX = "ranger.perftest.workload.";
+
+	public static final String SERVICE_TYPE_HDFS  = "hdfs";
+	public static final String SERVICE_TYPE_HIVE  = "hive";
+	public static final String SERVICE_TYPE_HBASE = "hbase";
+	public static final String SERVICE_TYPE_KAFKA = "kafka";
+
+	private String serviceType          = SERVICE_TYPE_HIVE;
+	private String serviceName          = null;
+	private long   seed                 = 1L;
+	private int    policyCount          = 1000;
+	private double wildcardRatio        = 0.1;
+	private double denyRatio            = 0.05;
+	private int    userCount            = 1000;
+	private int    groupCount           = 100;
+	private double userZipfExponent     = 1.0;
+	private int    resourceFanout       = 100;
+	private double resourceZipfExponent = 1.0;
+	private int    pathDepth            = 8;
+	private int    tagCount             = 100;
+	private double tagZipfExponent      = 1.0;
+	private int    taggedResourceCount  = 0;
+	private int    tagPolicyCount       = 0;
+	private String serviceTagsFileName  = null;
+
+	public RangerWorkloadConfig() {
+	}
+
+	public RangerWorkloadConfig(String serviceType, int policyCount, double wildcardRatio) {
+		this.serviceType   = serviceType;
+		this.policyCount   = policyCount;
+		this.wildcardRatio = wildcardRatio;
+	}
+
+	/*
+	 * Reads the config from properties named ranger.perftest.workload.<property>, for example
+	 * ranger.perftest.workload.policyCount=100000; properties not given keep their default value.
+	 */
+	public static RangerWorkloadConfig fromProperties(Properties props) {
+		RangerWorkloadConfig ret = new RangerWorkloadConfig();
+
+		ret.serviceType          = getString(props, "serviceType", ret.serviceType);
+		ret.serviceName          = getString(props, "serviceName", ret.serviceName);
+		ret.seed                 = Long.parseLong(getString(props, "seed", Long.toString(ret.seed)));
+		ret.policyCount          = getInt(props, "policyCount", ret.policyCount);
+		ret.wildcardRatio        = getDouble(props, "wildcardRatio", ret.wildcardRatio);
+		ret.denyRatio            = getDouble(props, "denyRatio", ret.denyRatio);
+		ret.userCount            = getInt(props, "userCount", ret.userCount);
+		ret.groupCount           = getInt(props, "groupCount", ret.groupCount);
+		ret.userZipfExponent     = getDouble(props, "userZipfExponent", ret.userZipfExponent);
+		ret.resourceFanout       = getInt(props, "resourceFanout", ret.resourceFanout);
+		ret.resourceZipfExponent = getDouble(props, "resourceZipfExponent", ret.resourceZipfExponent);
+		ret.pathDepth            = getInt(props, "pathDepth", ret.pathDepth);
+		ret.tagCount             = getInt(props, "tagCount", ret.tagCount);
+		ret.tagZipfExponent      = getDouble(props, "tagZipfExponent", ret.tagZipfExponent);
+		ret.taggedResourceCount  = getInt(props, "taggedResourceCount", ret.taggedResourceCount);
+		ret.tagPolicyCount       = getInt(props, "tagPolicyCount", ret.tagPolicyCount);
+		ret.serviceTagsFileName  = getString(props, "serviceTagsFileName", ret.serviceTagsFileName);
+
+		return ret;
+	}
+
+	public String getServiceType() {
+		return serviceType;
+	}
+
+	public void setServiceType(String serviceType) {
+		this.serviceType = serviceType;
+	}
+
+	public String getServiceName() {
+		return serviceName != null ? serviceName : ("cl1_" + serviceType);
+	}
+
+	public void setServiceName(String serviceName) {
+		this.serviceName = serviceName;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	public int getPolicyCount() {
+		return policyCount;
+	}
+
+	public void setPolicyCount(int policyCount) {
+		this.policyCount = policyCount;
+	}
+
+	/*
+	 * Fraction of policies with wildcard resources (recursive paths for hdfs); the others name exact resources
+	 */
+	public double getWildcardRatio() {
+		return wildcardRatio;
+	}
+
+	public void setWildcardRatio(double wildcardRatio) {
+		this.wildcardRatio = wildcardRatio;
+	}
+
+	/*
+	 * Fraction of policies having a deny policy-item in addition to allow policy-items
+	 */
+	public double getDenyRatio() {
+		return denyRatio;
+	}
+
+	public void setDenyRatio(double denyRatio) {
+		this.denyRatio = denyRatio;
+	}
+
+	public int getUserCount() {
+		return userCount;
+	}
+
+	public void setUserCount(int userCount) {
+		this.userCount = userCount;
+	}
+
+	public int getGroupCount() {
+		return groupCount;
+	}
+
+	public void setGroupCount(int groupCount) {
+		this.groupCount = groupCount;
+	}
+
+	public double getUserZipfExponent() {
+		return userZipfExponent;
+	}
+
+	public void setUserZipfExponent(double userZipfExponent) {
+		this.userZipfExponent = userZipfExponent;
+	}
+
+	/*
+	 * Number of distinct values at each level of the resource hierarchy, e.g. tables in a database or directories in
+	 * a directory
+	 */
+	public int getResourceFanout() {
+		return resourceFanout;
+	}
+
+	public void setResourceFanout(int resourceFanout) {
+		this.resourceFanout = resourceFanout;
+	}
+
+	public double getResourceZipfExponent() {
+		return resourceZipfExponent;
+	}
+
+	public void setResourceZipfExponent(double resourceZipfExponent) {
+		this.resourceZipfExponent = resourceZipfExponent;
+	}
+
+	/*
+	 * Maximum depth of hdfs paths in requests; policies are on paths up to this depth
+	 */
+	public int getPathDepth() {
+		return pathDepth;
+	}
+
+	public void setPathDepth(int pathDepth) {
+		this.pathDepth = pathDepth;
+	}
+
+	/*
+	 * Number of distinct tags, i.e. tag types
+	 */
+	public int getTagCount() {
+		return tagCount;
+	}
+
+	public void setTagCount(int tagCount) {
+		this.tagCount = tagCount;
+	}
+
+	public double getTagZipfExponent() {
+		return tagZipfExponent;
+	}
+
+	public void setTagZipfExponent(double tagZipfExponent) {
+		this.tagZipfExponent = tagZipfExponent;
+	}
+
+	public int getTaggedResourceCount() {
+		return taggedResourceCount;
+	}
+
+	public void setTaggedResourceCount(int taggedResourceCount) {
+		this.taggedResourceCount = taggedResourceCount;
+	}
+
+	public int getTagPolicyCount() {
+		return tagPolicyCount;
+	}
+
+	public void setTagPolicyCount(int tagPolicyCount) {
+		this.tagPolicyCount = tagPolicyCount;
+	}
+
+	/*
+	 * File, or resource, the tag enricher of generated tag policies reads service-tags from; when not set, generated
+	 * tag policies have no tag enricher
+	 */
+	public String getServiceTagsFileName() {
+		return serviceTagsFileName;
+	}
+
+	public void setServiceTagsFileName(String serviceTagsFileName) {
+		this.serviceTagsFileName = serviceTagsFileName;
+	}
+
+	@Override
+	public String toString() {
+		return "RangerWorkloadConfig={serviceType=" + serviceType + ", serviceName=" + getServiceName() + ", seed=" + seed
+				+ ", policyCount=" + policyCount + ", wildcardRatio=" + wildcardRatio + ", denyRatio=" + denyRatio
+				+ ", userCount=" + userCount + ", groupCount=" + groupCount + ", userZipfExponent=" + userZipfExponent
+				+ ", resourceFanout=" + resourceFanout + ", resourceZipfExponent=" + resourceZipfExponent + ", pathDepth=" + pathDepth
+				+ ", tagCount=" + tagCount + ", tagZipfExponent=" + tagZipfExponent + ", taggedResourceCount=" + taggedResourceCount
+				+ ", tagPolicyCount=" + tagPolicyCount + ", serviceTagsFileName=" + serviceTagsFileName + "}";
+	}
+
+	private static String getString(Properties props, String name, String defaultValue) {
+		String ret = props.getProperty(PROP_PREFIX + name);
+
+		return StringUtils.isBlank(ret) ? defaultValue : ret.trim();
+	}
+
+	private static int getInt(Properties props, String name, int defaultValue) {
+		return Integer.parseInt(getString(props, name, Integer.toString(defaultValue)));
+	}
+
+	private static double getDouble(Properties props, String name, double defaultValue) {
+		return Double.parseDouble(getString(props, name, Double.toString(defaultValue)));
+	}
+}
@@ -0,0 +1,453 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.policyengine.perftest.v2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerAccessTypeDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerContextEnricherDef;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.apache.ranger.plugin.model.RangerTagDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServiceTags;
+
+import com.google.common.base.Throwables;
+
+/**
+ * Generates the policies, tags and requests of a workload. Each generator draws from its own random sequence, seeded
+ * by the config seed and a salt, so that policies, tags and requests are each reproducible independently of what else
+ * was generated before.
+ */
+class RangerWorkloadGenerator {
+	static final long SALT_POLICIES     = 1;
+	static final long SALT_TAG_POLICIES = 2;
+	static final long SALT_TAGS         = 3;
+	static final long SALT_REQUESTS     = 4;
+	static final long SALT_AUDIT_EVENTS = 5;
+
+	static final String TAG_SERVICE_NAME = "tagdev";
+	static final Date   WORKLOAD_TIME    = new Date(1483228800000L); // 2017-01-01, a fixed time keeps output reproducible
+
+	private static final String RESOURCE_PATH = "path";
+
+	private static final Map<String, String[]> RESOURCE_HIERARCHIES = new HashMap<>();
+	private static final Map<String, String[]> REQUEST_ACCESS_TYPES = new HashMap<>();
+
+	static {
+		RESOURCE_HIERARCHIES.put(RangerWorkloadConfig.SERVICE_TYPE_HDFS, new String[] { RESOURCE_PATH });
+		RESOURCE_HIERARCHIES.put(RangerWorkloadConfig.SERVICE_TYPE_HIVE, new String[] { "database", "table", "column" });
+		RESOURCE_HIERARCHIES.put(RangerWorkloadConfig.SERVICE_TYPE_HBASE, new String[] { "table", "column-family", "column" });
+		RESOURCE_HIERARCHIES.put(RangerWorkloadConfig.SERVICE_TYPE_KAFKA, new String[] { "topic" });
+
+		REQUEST_ACCESS_TYPES.put(RangerWorkloadConfig.SERVICE_TYPE_HDFS, new String[] { "read", "write", "execute" });
+		REQUEST_ACCESS_TYPES.put(RangerWorkloadConfig.SERVICE_TYPE_HIVE, new String[] { "select", "update", "create", "drop", "alter", "index", "lock" });
+		REQUEST_ACCESS_TYPES.put(RangerWorkloadConfig.SERVICE_TYPE_HBASE, new String[] { "read", "write", "create", "admin" });
+		REQUEST_ACCESS_TYPES.put(RangerWorkloadConfig.SERVICE_TYPE_KAFKA, new String[] { "publish", "consume", "configure", "describe", "create", "delete" });
+	}
+
+	private final RangerWorkloadConfig config;
+	private final RangerServiceDef     serviceDef;
+	private final String[]             resourceNames;
+	private final String[]             accessTypes;
+	private final boolean              isPathService;
+	private final Random               random;
+	private final ZipfDistribution     users;
+	private final ZipfDistribution     resourceValues;
+	private final ZipfDistribution     tags;
+
+	RangerWorkloadGenerator(RangerWorkloadConfig config, long salt) {
+		this.resourceNames = RESOURCE_HIERARCHIES.get(config.getServiceType());
+		this.accessTypes   = REQUEST_ACCESS_TYPES.get(config.getServiceType());
+
+		if (resourceNames == null) {
+			throw new IllegalArgumentException(config.getServiceType() + ": unsupported service-type; supported service-types: " + RESOURCE_HIERARCHIES.keySet());
+		}
+
+		this.config         = config;
+		this.serviceDef     = getServiceDef(config.getServiceType());
+		this.isPathService  = RangerWorkloadConfig.SERVICE_TYPE_HDFS.equals(config.getServiceType());
+		this.random         = new Random(config.getSeed() * 31 + salt);
+		this.users          = new ZipfDistribution(config.getUserCount(), config.getUserZipfExponent());
+		this.resourceValues = new ZipfDistribution(config.getResourceFanout(), config.getResourceZipfExponent());
+		this.tags           = new ZipfDistribution(Math.max(config.getTagCount(), 1), config.getTagZipfExponent());
+	}
+
+	RangerServiceDef getServiceDef() {
+		return serviceDef;
+	}
+
+	ServicePolicies createServicePolicies() {
+		ServicePolicies ret = new ServicePolicies();
+
+		ret.setServiceName(config.getServiceName());
+		ret.setServiceDef(serviceDef);
+		ret.setPolicyVersion(1L);
+		ret.setPolicyUpdateTime(WORKLOAD_TIME);
+		ret.setPolicies(createPolicies());
+
+		return ret;
+	}
+
+	List<RangerPolicy> createPolicies() {
+		List<RangerPolicy> ret = new ArrayList<>(config.getPolicyCount());
+
+		for (int i = 0; i < config.getPolicyCount(); i++) {
+			RangerPolicy policy = createPolicy((long) i + 1, config.getServiceName());
+
+			policy.setResources(createPolicyResources(random.nextDouble() < config.getWildcardRatio()));
+
+			addPolicyItems(policy, "");
+
+			ret.add(policy);
+		}
+
+		return ret;
+	}
+
+	ServicePolicies.TagPolicies createTagPolicies() {
+		ServicePolicies.TagPolicies ret        = new ServicePolicies.TagPolicies();
+		List<RangerPolicy>          policies   = new ArrayList<>(config.getTagPolicyCount());
+		String                      typePrefix = config.getServiceType() + ":";
+
+		for (int i = 0; i < config.getTagPolicyCount(); i++) {
+			RangerPolicy policy = createPolicy((long) config.getPolicyCount() + i + 1, TAG_SERVICE_NAME);
+
+			policy.getResources().put("tag", new RangerPolicyResource(getTagType(tags.sample(random))));
+
+			addPolicyItems(policy, typePrefix);
+
+			policies.add(policy);
+		}
+
+		ret.setServiceName(TAG_SERVICE_NAME);
+		ret.setPolicyVersion(1L);
+		ret.setPolicyUpdateTime(WORKLOAD_TIME);
+		ret.setPolicies(policies);
+		ret.setServiceDef(createTagServiceDef(typePrefix));
+
+		return ret;
+	}
+
+	/*
+	 * Tags resources at all but the leaf level of the hierarchy - for example hive tables, hdfs directories - so that
+	 * the tags apply to the resources under them too
+	 */
+	ServiceTags createServiceTags() {
+		ServiceTags                 ret              = new ServiceTags();
+		Map<Long, RangerTagDef>     tagDefs          = new HashMap<>();
+		Map<Long, RangerTag>        tagMap           = new HashMap<>();
+		List<RangerServiceResource> serviceResources = new ArrayList<>(config.getTaggedResourceCount());
+		Map<Long, List<Long>>       resourceToTagIds = new HashMap<>();
+		Set<String>                 resourceKeys     = new HashSet<>();
+		int                         levels           = Math.max(resourceNames.length - 1, 1);
+		long                        maxAttempts      = 10L * config.getTaggedResourceCount();
+
+		for (int i = 0; i < config.getTagCount(); i++) {
+			Long         id     = (long) i + 1;
+			RangerTagDef tagDef = new RangerTagDef(getTagType(i));
+			RangerTag    tag    = new RangerTag(getTagType(i), Collections.singletonMap("level", Integer.toString(i % 5)));
+
+			tagDef.setId(id);
+			tag.setId(id);
+
+			tagDefs.put(id, tagDef);
+			tagMap.put(id, tag);
+		}
+
+		for (long attempt = 0; serviceResources.size() < config.getTaggedResourceCount() && attempt < maxAttempts; attempt++) {
+			Map<String, String> values = isPathService ? Collections.singletonMap(RESOURCE_PATH, createPath(1 + random.nextInt(config.getPathDepth()))) : createResourceValues(levels);
+
+			if (!resourceKeys.add(values.toString())) {
+				continue;
+			}
+
+			Map<String, RangerPolicyResource> resourceElements = new HashMap<>();
+
+			for (Map.Entry<String, String> entry : values.entrySet()) {
+				resourceElements.put(entry.getKey(), new RangerPolicyResource(entry.getValue()));
+			}
+
+			RangerServiceResource serviceResource = new RangerServiceResource(config.getServiceName(), resourceElements);
+			List<Long>            tagIds          = new ArrayList<>(2);
+
+			serviceResource.setId((long) serviceResources.size() + 1);
+
+			if (config.getTagCount() > 0) {
+				tagIds.add((long) tags.sample(random) + 1);
+
+				if (random.nextDouble() < 0.3) {
+					Long tagId = (long) tags.sample(random) + 1;
+
+					if (!tagIds.contains(tagId)) {
+						tagIds.add(tagId);
+					}
+				}
+			}
+
+			serviceResources.add(serviceResource);
+			resourceToTagIds.put(serviceResource.getId(), tagIds);
+		}
+
+		ret.setServiceName(config.getServiceName());
+		ret.setTagVersion(1L);
+		ret.setTagUpdateTime(WORKLOAD_TIME);
+		ret.setTagDefinitions(tagDefs);
+		ret.setTags(tagMap);
+		ret.setServiceResources(serviceResources);
+		ret.setResourceToTagIds(resourceToTagIds);
+
+		return ret;
+	}
+
+	RangerAccessRequest createAccessRequest() {
+		Map<String, String> values;
+
+		if (isPathService) {
+			values = Collections.singletonMap(RESOURCE_PATH, createPath(1 + random.nextInt(config.getPathDepth())) + "/file_" + resourceValues.sample(random));
+		} else {
+			values = createResourceValues(resourceNames.length);
+		}
+
+		RangerAccessResourceImpl resource = new RangerAccessResourceImpl(values);
+
+		resource.setServiceDef(serviceDef);
+
+		int                     user = users.sample(random);
+		RangerAccessRequestImpl ret  = new RangerAccessRequestImpl(resource, accessTypes[random.nextInt(accessTypes.length)], getUser(user), Collections.singleton(getGroup(user)));
+
+		ret.setAccessTime(WORKLOAD_TIME);
+		ret.setClientIPAddress("10.0." + (user / 256 % 256) + "." + (user % 256));
+		ret.setClusterName("cl1");
+
+		return ret;
+	}
+
+	AuthzAuditEvent createAuditEvent(RangerAccessRequest request, long policyId) {
+		AuthzAuditEvent ret = new AuthzAuditEvent();
+
+		ret.setRepositoryType(serviceDef.getId() != null ? serviceDef.getId().intValue() : 0);
+		ret.setRepositoryName(config.getServiceName());
+		ret.setUser(request.getUser());
+		ret.setEventTime(request.getAccessTime());
+		ret.setAccessType(request.getAccessType());
+		ret.setResourcePath(request.getResource().getAsString());
+		ret.setResourceType(request.getResource().getLeafName());
+		ret.setAction(request.getAccessType());
+		ret.setAccessResult((short) (random.nextBoolean() ? 1 : 0));
+		ret.setAgentId(config.getServiceType());
+		ret.setPolicyId(policyId);
+		ret.setResultReason(request.getResource().getAsString());
+		ret.setAclEnforcer("ranger-acl");
+		ret.setClientIP(request.getClientIPAddress());
+		ret.setAgentHostname("host-" + random.nextInt(100) + ".example.com");
+		ret.setEventId(new UUID(random.nextLong(), random.nextLong()).toString());
+		ret.setSeqNum(0);
+		ret.setEventCount(1);
+		ret.setEventDurationMS(0);
+		ret.setTags(Collections.singleton("TAG_" + random.nextInt(10)));
+		ret.setClusterName(request.getClusterName());
+
+		return ret;
+	}
+
+	private RangerPolicy createPolicy(Long id, String serviceName) {
+		RangerPolicy ret = new RangerPolicy();
+
+		ret.setId(id);
+		ret.setName(String.format("generated policyname #%s", id));
+		ret.setService(serviceName);
+		ret.setIsEnabled(Boolean.TRUE);
+		ret.setIsAuditEnabled(Boolean.TRUE);
+
+		return ret;
+	}
+
+	private void addPolicyItems(RangerPolicy policy, String accessTypePrefix) {
+		int itemCount = 1 + random.nextInt(3);
+
+		for (int i = 0; i < itemCount; i++) {
+			policy.getPolicyItems().add(createPolicyItem(accessTypePrefix));
+		}
+
+		if (random.nextDouble() < config.getDenyRatio()) {
+			policy.getDenyPolicyItems().add(createPolicyItem(accessTypePrefix));
+		}
+	}
+
+	private RangerPolicyItem createPolicyItem(String accessTypePrefix) {
+		RangerPolicyItem ret        = new RangerPolicyItem();
+		int              userCount  = 1 + random.nextInt(4);
+		int              groupCount = random.nextInt(3);
+
+		for (int i = 0; i < userCount; i++) {
+			String user = getUser(users.sample(random));
+
+			if (!ret.getUsers().contains(user)) {
+				ret.getUsers().add(user);
+			}
+		}
+
+		for (int i = 0; i < groupCount; i++) {
+			String group = getGroup(random.nextInt(config.getGroupCount()));
+
+			if (!ret.getGroups().contains(group)) {
+				ret.getGroups().add(group);
+			}
+		}
+
+		for (String accessType : accessTypes) {
+			if (random.nextBoolean()) {
+				ret.getAccesses().add(new RangerPolicyItemAccess(accessTypePrefix + accessType, Boolean.TRUE));
+			}
+		}
+
+		if (ret.getAccesses().isEmpty()) {
+			ret.getAccesses().add(new RangerPolicyItemAccess(accessTypePrefix + accessTypes[random.nextInt(accessTypes.length)], Boolean.TRUE));
+		}
+
+		return ret;
+	}
+
+	private Map<String, RangerPolicyResource> createPolicyResources(boolean isWildcard) {
+		Map<String, RangerPolicyResource> ret = new HashMap<>();
+
+		if (isPathService) {
+			if (isWildcard) {
+				String path = createPath(1 + random.nextInt(Math.max(config.getPathDepth() / 2, 1)));
+
+				ret.put(RESOURCE_PATH, new RangerPolicyResource(random.nextBoolean() ? (path + "*") : path, Boolean.FALSE, Boolean.TRUE));
+			} else {
+				ret.put(RESOURCE_PATH, new RangerPolicyResource(createPath(1 + random.nextInt(config.getPathDepth())), Boolean.FALSE, Boolean.FALSE));
+			}
+		} else {
+			// a wildcard policy has exact values above a random level, a prefix at that level and '*' below it
+			int wildcardLevel = isWildcard ? random.nextInt(resourceNames.length) : resourceNames.length;
+
+			for (int i = 0; i < resourceNames.length; i++) {
+				final String value;
+
+				if (i < wildcardLevel) {
+					value = getResourceValue(resourceNames[i], resourceValues.sample(random));
+				} else if (i == wildcardLevel) {
+					value = resourceNames[i] + "_" + (1 + random.nextInt(9)) + "*";
+				} else {
+					value = "*";
+				}
+
+				ret.put(resourceNames[i], new RangerPolicyResource(value));
+			}
+		}
+
+		return ret;
+	}
+
+	private Map<String, String> createResourceValues(int levels) {
+		Map<String, String> ret = new HashMap<>();
+
+		for (int i = 0; i < levels; i++) {
+			ret.put(resourceNames[i], getResourceValue(resourceNames[i], resourceValues.sample(random)));
+		}
+
+		return ret;
+	}
+
+	private String createPath(int depth) {
+		StringBuilder sb = new StringBuilder();
+
+		for (int i = 0; i < depth; i++) {
+			sb.append("/dir").append(i).append('_').append(resourceValues.sample(random));
+		}
+
+		return sb.toString();
+	}
+
+	private RangerServiceDef createTagServiceDef(String typePrefix) {
+		RangerServiceDef          ret         = getServiceDef(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_TAG_NAME);
+		List<RangerAccessTypeDef> accessTypes = new ArrayList<>();
+
+		for (RangerAccessTypeDef accessTypeDef : serviceDef.getAccessTypes()) {
+			RangerAccessTypeDef tagAccessTypeDef = new RangerAccessTypeDef(accessTypeDef);
+
+			tagAccessTypeDef.setName(typePrefix + accessTypeDef.getName());
+
+			accessTypes.add(tagAccessTypeDef);
+		}
+
+		ret.setAccessTypes(accessTypes);
+
+		if (config.getServiceTagsFileName() != null) {
+			Map<String, String> enricherOptions = new HashMap<>();
+
+			enricherOptions.put("tagRetrieverClassName", "org.apache.ranger.plugin.contextenricher.RangerFileBasedTagRetriever");
+			enricherOptions.put("tagRefresherPollingInterval", "60000");
+			enricherOptions.put("serviceTagsFileName", config.getServiceTagsFileName());
+
+			ret.setContextEnrichers(Collections.singletonList(new RangerContextEnricherDef(1L, "TagEnricher", "org.apache.ranger.plugin.contextenricher.RangerTagEnricher", enricherOptions)));
+		} else {
+			ret.setContextEnrichers(new ArrayList<RangerContextEnricherDef>());
+		}
+
+		return ret;
+	}
+
+	private static String getResourceValue(String resourceName, int rank) {
+		return resourceName + "_" + rank;
+	}
+
+	private static String getUser(int rank) {
+		return "user_" + rank;
+	}
+
+	private String getGroup(int userRank) {
+		return "group_" + (userRank % config.getGroupCount());
+	}
+
+	private static String getTagType(int rank) {
+		return "TAG_" + rank;
+	}
+
+	private static RangerServiceDef getServiceDef(String serviceType) {
+		try {
+			return EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef(serviceType);
+		} catch (Exception e) {
+			throw Throwables.propagate(e);
+		}
+	}
+}
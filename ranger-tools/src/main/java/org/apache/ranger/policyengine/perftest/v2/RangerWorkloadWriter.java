@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.policyengine.perftest.v2;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServiceTags;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Writes a generated workload to files in the format read by the perf-tester (ranger-perftester.sh):
+ *   <serviceName>_servicepolicies.json - service-policies, given with -s
+ *   <serviceName>_servicetags.json     - service-tags, read by the tag enricher of the tag policies
+ *   <serviceName>_requests.json        - requests, given with -r
+ *
+ * Usage: RangerWorkloadWriter -c <workload-properties-file> -o <output-dir> -n <number-of-requests>
+ */
+public class RangerWorkloadWriter {
+	static final Log LOG = LogFactory.getLog(RangerWorkloadWriter.class);
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	public static void main(String[] args) {
+		Options options = new Options();
+
+		options.addOption("h", "help", false, "show help.");
+		options.addOption("c", "config", true, "Workload properties file name");
+		options.addOption("o", "output-dir", true, "Directory to write workload files to");
+		options.addOption("n", "requests", true, "Number of requests to generate");
+
+		try {
+			CommandLine commandLine = new DefaultParser().parse(options, args);
+
+			if (commandLine.hasOption("h") || !commandLine.hasOption("o")) {
+				new HelpFormatter().printHelp("RangerWorkloadWriter", options);
+
+				return;
+			}
+
+			Properties props = new Properties();
+
+			if (commandLine.hasOption("c")) {
+				try (InputStream in = new FileInputStream(commandLine.getOptionValue("c"))) {
+					props.load(in);
+				}
+			}
+
+			RangerWorkloadConfig config       = RangerWorkloadConfig.fromProperties(props);
+			int                  requestCount = Integer.parseInt(commandLine.getOptionValue("n", "10000"));
+
+			write(config, new File(commandLine.getOptionValue("o")), requestCount);
+		} catch (Exception excp) {
+			LOG.error("Error generating workload", excp);
+
+			System.exit(1);
+		}
+	}
+
+	public static void write(RangerWorkloadConfig config, File outputDir, int requestCount) throws IOException {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerWorkloadWriter.write(" + config + ", " + outputDir + ", " + requestCount + ")");
+		}
+
+		if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+			throw new IOException(outputDir + ": failed to create directory");
+		}
+
+		Gson gson       = new GsonBuilder().setDateFormat("yyyyMMdd-HH:mm:ss.SSS-Z").setPrettyPrinting().create();
+		File tagsFile   = new File(outputDir, config.getServiceName() + "_servicetags.json");
+		File policyFile = new File(outputDir, config.getServiceName() + "_servicepolicies.json");
+		File reqFile    = new File(outputDir, config.getServiceName() + "_requests.json");
+
+		if (config.getTaggedResourceCount() > 0) {
+			ServiceTags serviceTags = RangerPolicyFactory.createServiceTags(config);
+
+			try (Writer writer = new OutputStreamWriter(new FileOutputStream(tagsFile), UTF8)) {
+				gson.toJson(serviceTags, writer);
+			}
+
+			if (config.getServiceTagsFileName() == null) {
+				config.setServiceTagsFileName(tagsFile.getAbsolutePath());
+			}
+
+			LOG.info("Wrote " + serviceTags.getServiceResources().size() + " tagged resources to " + tagsFile);
+		}
+
+		ServicePolicies servicePolicies = RangerPolicyFactory.createServicePolicies(config);
+
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(policyFile), UTF8)) {
+			gson.toJson(servicePolicies, writer);
+		}
+
+		LOG.info("Wrote " + servicePolicies.getPolicies().size() + " policies to " + policyFile);
+
+		// requests are streamed, as a large number of them might not fit in memory
+		try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(new FileOutputStream(reqFile), UTF8))) {
+			Iterator<RangerAccessRequest> requests = RangerPolicyFactory.createAccessRequestStream(config);
+
+			writer.setIndent(" ");
+			writer.beginArray();
+
+			for (int i = 0; i < requestCount; i++) {
+				gson.toJson(toJson(requests.next()), writer);
+			}
+
+			writer.endArray();
+		}
+
+		LOG.info("Wrote " + requestCount + " requests to " + reqFile);
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerWorkloadWriter.write(" + config + ", " + outputDir + ", " + requestCount + ")");
+		}
+	}
+
+	/*
+	 * Only the fields of the request that the perf-tester reads; serializing RangerAccessRequestImpl as is would
+	 * include the service-def in every request
+	 */
+	private static JsonObject toJson(RangerAccessRequest request) {
+		JsonObject ret      = new JsonObject();
+		JsonObject req      = new JsonObject();
+		JsonObject resource = new JsonObject();
+		JsonObject elements = new JsonObject();
+		JsonArray  groups   = new JsonArray();
+
+		for (Map.Entry<String, String> entry : request.getResource().getAsMap().entrySet()) {
+			elements.addProperty(entry.getKey(), entry.getValue());
+		}
+
+		for (String group : request.getUserGroups()) {
+			groups.add(new JsonPrimitive(group));
+		}
+
+		resource.add("elements", elements);
+
+		req.add("resource", resource);
+		req.addProperty("accessType", request.getAccessType());
+		req.addProperty("user", request.getUser());
+		req.add("userGroups", groups);
+		req.addProperty("clientIPAddress", request.getClientIPAddress());
+		req.addProperty("clusterName", request.getClusterName());
+
+		ret.addProperty("name", "'" + request.getAccessType() + " " + request.getResource().getAsString() + "' for " + request.getUser());
+		ret.add("request", req);
+
+		return ret;
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.policyengine.perftest.v2;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Zipf distribution over the ranks 0..n-1: rank k is drawn with probability proportional to 1/(k+1)^exponent. An
+ * exponent of 0 gives the uniform distribution; around 1 gives the popularity skew of users and resources seen in
+ * production, where a few are accessed much more often than the rest.
+ */
+public class ZipfDistribution {
+	private final int      n;
+	private final double[] cdf;
+
+	public ZipfDistribution(int n, double exponent) {
+		if (n <= 0) {
+			throw new IllegalArgumentException("n must be positive: " + n);
+		}
+
+		if (exponent < 0) {
+			throw new IllegalArgumentException("exponent must not be negative: " + exponent);
+		}
+
+		this.n   = n;
+		this.cdf = exponent == 0 ? null : computeCdf(n, exponent);
+	}
+
+	public int getN() {
+		return n;
+	}
+
+	public int sample(Random random) {
+		if (cdf == null) {
+			return random.nextInt(n);
+		}
+
+		int idx = Arrays.binarySearch(cdf, random.nextDouble());
+
+		if (idx < 0) {
+			idx = -idx - 1;
+		}
+
+		return Math.min(idx, n - 1);
+	}
+
+	private static double[] computeCdf(int n, double exponent) {
+		double[] ret = new double[n];
+		double   sum = 0;
+
+		for (int i = 0; i < n; i++) {
+			sum += 1.0 / Math.pow(i + 1, exponent);
+
+			ret[i] = sum;
+		}
+
+		for (int i = 0; i < n; i++) {
+			ret[i] /= sum;
+		}
+
+		return ret;
+	}
+}
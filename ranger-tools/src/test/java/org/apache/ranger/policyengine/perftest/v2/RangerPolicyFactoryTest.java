@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.policyengine.perftest.v2;
+
+import java.io.File;
+import java.util.List;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServiceTags;
+import org.apache.ranger.policyengine.PerfTestEngine;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+public class RangerPolicyFactoryTest {
+	private static final String[] SERVICE_TYPES = { RangerWorkloadConfig.SERVICE_TYPE_HDFS, RangerWorkloadConfig.SERVICE_TYPE_HIVE,
+	                                                RangerWorkloadConfig.SERVICE_TYPE_HBASE, RangerWorkloadConfig.SERVICE_TYPE_KAFKA };
+
+	private final Gson gson = new GsonBuilder().setDateFormat("yyyyMMdd-HH:mm:ss.SSS-Z").create();
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	@Test
+	public void testWorkloadIsReproducible() {
+		for (String serviceType : SERVICE_TYPES) {
+			RangerWorkloadConfig config = createConfig(serviceType);
+
+			ServicePolicies policies = RangerPolicyFactory.createServicePolicies(config);
+			ServiceTags     tags     = RangerPolicyFactory.createServiceTags(config);
+
+			Assert.assertEquals(serviceType, config.getPolicyCount(), policies.getPolicies().size());
+			Assert.assertEquals(serviceType, config.getTagPolicyCount(), policies.getTagPolicies().getPolicies().size());
+			Assert.assertEquals(serviceType, config.getTaggedResourceCount(), tags.getServiceResources().size());
+
+			Assert.assertEquals(serviceType, gson.toJson(policies), gson.toJson(RangerPolicyFactory.createServicePolicies(config)));
+			Assert.assertEquals(serviceType, gson.toJson(tags), gson.toJson(RangerPolicyFactory.createServiceTags(config)));
+			Assert.assertEquals(serviceType, toJson(RangerPolicyFactory.createAccessRequests(config, 100)), toJson(RangerPolicyFactory.createAccessRequests(config, 100)));
+			Assert.assertEquals(serviceType, gson.toJson(RangerPolicyFactory.createAuditEvents(config, 100)), gson.toJson(RangerPolicyFactory.createAuditEvents(config, 100)));
+
+			config.setSeed(config.getSeed() + 1);
+
+			Assert.assertNotEquals(serviceType, gson.toJson(policies), gson.toJson(RangerPolicyFactory.createServicePolicies(config)));
+		}
+	}
+
+	@Test
+	public void testWildcardRatio() {
+		RangerWorkloadConfig config = createConfig(RangerWorkloadConfig.SERVICE_TYPE_HIVE);
+
+		config.setWildcardRatio(0);
+
+		for (RangerPolicy policy : RangerPolicyFactory.createServicePolicies(config).getPolicies()) {
+			Assert.assertFalse(policy.getResources().get("column").getValues().get(0).contains("*"));
+		}
+
+		config.setWildcardRatio(1);
+
+		for (RangerPolicy policy : RangerPolicyFactory.createServicePolicies(config).getPolicies()) {
+			Assert.assertTrue(policy.getResources().get("column").getValues().get(0).contains("*"));
+		}
+	}
+
+	@Test
+	public void testWrittenWorkloadRunsInPerfTestEngine() throws Exception {
+		for (String serviceType : SERVICE_TYPES) {
+			RangerWorkloadConfig config    = createConfig(serviceType);
+			File                 outputDir = tempFolder.newFolder(serviceType);
+
+			RangerWorkloadWriter.write(config, outputDir, 10);
+
+			File policyFile = new File(outputDir, config.getServiceName() + "_servicepolicies.json");
+
+			Assert.assertTrue(new File(outputDir, config.getServiceName() + "_servicetags.json").isFile());
+			Assert.assertTrue(new File(outputDir, config.getServiceName() + "_requests.json").isFile());
+
+			PerfTestEngine engine = new PerfTestEngine(policyFile.toURI().toURL(), RangerPolicyFactory.createPolicyEngineOption(), true);
+
+			Assert.assertTrue(serviceType, engine.init());
+
+			int allowedCount = 0;
+
+			for (RangerAccessRequest request : RangerPolicyFactory.createAccessRequests(config, 1000)) {
+				RangerAccessResult result = engine.execute(request);
+
+				Assert.assertNotNull(result);
+
+				if (result.getIsAllowed()) {
+					allowedCount++;
+				}
+			}
+
+			Assert.assertTrue(serviceType + ": allowedCount=" + allowedCount, allowedCount > 0);
+
+			engine.cleanup();
+		}
+	}
+
+	private RangerWorkloadConfig createConfig(String serviceType) {
+		RangerWorkloadConfig ret = new RangerWorkloadConfig(serviceType, 200, 0.2);
+
+		ret.setUserCount(20);
+		ret.setResourceFanout(10);
+		ret.setPathDepth(4);
+		ret.setTagCount(10);
+		ret.setTaggedResourceCount(8);
+		ret.setTagPolicyCount(10);
+
+		return ret;
+	}
+
+	private String toJson(List<RangerAccessRequest> requests) {
+		StringBuilder sb = new StringBuilder();
+
+		for (RangerAccessRequest request : requests) {
+			sb.append(request.getUser()).append(' ').append(request.getAccessType()).append(' ').append(request.getResource().getAsString()).append('\n');
+		}
+
+		return sb.toString();
+	}
+}
@@ -60,6 +60,7 @@ import org.apache.ranger.plugin.model.RangerBaseModelObject;
 import org.apache.ranger.plugin.model.RangerService;
 import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
 import org.apache.ranger.service.AbstractBaseResourceService;
+import org.apache.ranger.service.RangerTrxLogWriter;
 import org.apache.ranger.view.VXDataObject;
 import org.apache.ranger.view.VXPortalUser;
 import org.apache.ranger.view.VXResource;
@@ -88,6 +89,9 @@ public class RangerBizUtil {
 
 	@Autowired
 	GUIDUtil guidUtil;
+
+	@Autowired
+	RangerTrxLogWriter trxLogWriter;
 	
 	Set<Class<?>> groupEditableClasses;
 	private Class<?>[] groupEditableClassesList = {};
@@ -1319,11 +1323,14 @@ public class RangerBizUtil {
 
 		UserSessionBase usb = ContextUtil.getCurrentUserSession();
 		Long authSessionId = null;
+		Long userId = null;
 		if (usb != null) {
 			authSessionId = ContextUtil.getCurrentUserSession().getSessionId();
+			userId = usb.getUserId();
 		}
 		if(guidUtil != null){
 		Long trxId = guidUtil.genLong();
+		List<XXTrxLog> trxLogs = new ArrayList<XXTrxLog>(trxLogList.size());
 		for (XXTrxLog xTrxLog : trxLogList) {
 			if (xTrxLog != null) {
 				if ("Password".equalsIgnoreCase(StringUtil.trim(xTrxLog.getAttributeName()))) {
@@ -1346,9 +1353,18 @@ public class RangerBizUtil {
 				}
 				xTrxLog.setSessionType("Spring Authenticated Session");
 				xTrxLog.setRequestId(trxId.toString());
-				daoManager.getXXTrxLog().create(xTrxLog);
+				if (userId != null) { // the rows may be written by another thread, outside of this user's session
+					xTrxLog.setAddedByUserId(userId);
+					xTrxLog.setUpdatedByUserId(userId);
+				}
+				trxLogs.add(xTrxLog);
 			}
 		}
+		if (trxLogWriter != null && trxLogWriter.isAsyncEnabled()) {
+			trxLogWriter.write(trxLogs);
+		} else {
+			daoManager.getXXTrxLog().batchCreate(trxLogs);
+		}
 		}
 	}
 
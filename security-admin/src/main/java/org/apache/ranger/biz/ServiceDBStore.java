@@ -20,6 +20,7 @@
 package org.apache.ranger.biz;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -33,10 +34,12 @@ import java.util.Map;
 import java.util.Set;
 import java.util.Map.Entry;
 import java.util.StringTokenizer;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.UnknownHostException;
 import java.text.SimpleDateFormat;
 
@@ -66,6 +69,8 @@ import org.apache.ranger.common.JSONUtil;
 import org.apache.ranger.common.PropertiesUtil;
 import org.apache.ranger.common.RESTErrorUtil;
 import org.apache.ranger.common.RangerFactory;
+import org.apache.ranger.common.RangerPolicySearchIndex;
+import org.apache.ranger.common.RangerPolicyValidationIndex;
 import org.apache.ranger.common.RangerServicePoliciesCache;
 import org.apache.ranger.common.RangerVersionInfo;
 import org.apache.ranger.common.StringUtil;
@@ -174,18 +179,22 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.transaction.support.TransactionTemplate;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.Font;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.codehaus.jettison.json.JSONException;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 
 @Component
 public class ServiceDBStore extends AbstractServiceStore {
@@ -195,6 +204,11 @@ public class ServiceDBStore extends AbstractServiceStore {
 	//private static final String POLICY_ALLOW_INCLUDE = "Policy Allow:Include";
 	private static final String POLICY_DENY_EXCLUDE = "Policy Deny:Exclude";
 	private static final String POLICY_DENY_INCLUDE = "Policy Deny:Include";
+	private static final String CSV_LINE_SEPARATOR = "\n";
+	private static final int EXPORT_EXCEL_ROW_WINDOW = 100;
+
+	// services whose policy-version update is pending, during a bulk policy update in the thread
+	private static final ThreadLocal<Map<Long, PendingVersionUpdate>> pendingPolicyVersionUpdates = new ThreadLocal<Map<Long, PendingVersionUpdate>>();
 	
 	private static String LOCAL_HOSTNAME = "unknown";
 	private static final String HOSTNAME = "Host name";
@@ -1709,6 +1723,13 @@ public class ServiceDBStore extends AbstractServiceStore {
 
 	@Override
 	public List<RangerPolicy> getPoliciesByResourceSignature(String serviceName, String policySignature, Boolean isPolicyEnabled) throws Exception {
+		if (Boolean.TRUE.equals(isPolicyEnabled)) {
+			RangerPolicyValidationIndex validationIndex = getPolicyValidationIndex(serviceName);
+
+			if (validationIndex != null) {
+				return getPoliciesByIds(validationIndex.getEnabledPolicyIdsBySignature(policySignature));
+			}
+		}
 
 		List<XXPolicy> xxPolicies = daoMgr.getXXPolicy().findByResourceSignatureByPolicyStatus(serviceName, policySignature, isPolicyEnabled);
 		List<RangerPolicy> policies = new ArrayList<RangerPolicy>(xxPolicies.size());
@@ -1872,7 +1893,7 @@ public class ServiceDBStore extends AbstractServiceStore {
 		createNewPolicyItemsForPolicy(policy, xCreatedPolicy, denyExceptions, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DENY_EXCEPTIONS);
 		createNewDataMaskPolicyItemsForPolicy(policy, xCreatedPolicy, dataMaskItems, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DATAMASK);
 		createNewRowFilterPolicyItemsForPolicy(policy, xCreatedPolicy, rowFilterItems, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ROWFILTER);
-		handlePolicyUpdate(service, true);
+		handlePolicyUpdate(service, true, policy.getId(), policy);
 		RangerPolicy createdPolicy = policyService.getPopulatedViewObject(xCreatedPolicy);
 		dataHistService.createObjectDataHistory(createdPolicy, RangerDataHistService.ACTION_CREATE);
 
@@ -1990,7 +2011,7 @@ public class ServiceDBStore extends AbstractServiceStore {
 		createNewDataMaskPolicyItemsForPolicy(policy, newUpdPolicy, dataMaskPolicyItems, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DATAMASK);
 		createNewRowFilterPolicyItemsForPolicy(policy, newUpdPolicy, rowFilterItems, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ROWFILTER);
 
-		handlePolicyUpdate(service, isTagVersionUpdateNeeded);
+		handlePolicyUpdate(service, isTagVersionUpdateNeeded, policy.getId(), policy);
 		RangerPolicy updPolicy = policyService.getPopulatedViewObject(newUpdPolicy);
 		dataHistService.createObjectDataHistory(updPolicy, RangerDataHistService.ACTION_UPDATE);
 		
@@ -2034,7 +2055,7 @@ public class ServiceDBStore extends AbstractServiceStore {
 		deleteExistingPolicyResources(policy);
 		
 		policyService.delete(policy);
-		handlePolicyUpdate(service, true);
+		handlePolicyUpdate(service, true, policy.getId(), null);
 		
 		dataHistService.createObjectDataHistory(policy, RangerDataHistService.ACTION_DELETE);
 		
@@ -2066,7 +2087,7 @@ public class ServiceDBStore extends AbstractServiceStore {
 		deleteExistingPolicyItemsNative(policy);
 		deleteExistingPolicyResourcesNative(policy);
 		daoMgr.getXXPolicy().deletePolicyIDReference("id",policy.getId());
-		handlePolicyUpdate(service, true);
+		handlePolicyUpdate(service, true, policy.getId(), null);
 		dataHistService.createObjectDataHistory(policy, RangerDataHistService.ACTION_DELETE);
 		bizUtil.createTrxLog(trxLogList);
 	}
@@ -2081,8 +2102,11 @@ public class ServiceDBStore extends AbstractServiceStore {
 		if(LOG.isDebugEnabled()) {
 			LOG.debug("==> ServiceDBStore.getPolicies()");
 		}
-		RangerPolicyList policyList = searchRangerPolicies(filter);
-		List<RangerPolicy> ret = policyList.getPolicies();
+		List<RangerPolicy> ret = getPoliciesByNameFromIndex(filter);
+		if (ret == null) {
+			RangerPolicyList policyList = searchRangerPolicies(filter);
+			ret = policyList.getPolicies();
+		}
 		if(LOG.isDebugEnabled()) {
 			LOG.debug("<== ServiceDBStore.getPolicies()");
 		}
@@ -2094,7 +2118,7 @@ public class ServiceDBStore extends AbstractServiceStore {
 			LOG.debug("==> ServiceDBStore.getPoliciesInExcel()");
 		}
 		String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
-		String excelFileName = "Ranger_Policies_"+timeStamp+".xls";
+		String excelFileName = "Ranger_Policies_"+timeStamp+".xlsx";
 		writeExcel(policies, excelFileName, response);
 	}
 
@@ -2108,9 +2132,13 @@ public class ServiceDBStore extends AbstractServiceStore {
 		try {
 			String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
 			CSVFileName = "Ranger_Policies_" + timeStamp + ".csv";
+			response.setContentType("text/csv");
+			response.setHeader("Content-Disposition", "attachment; filename=" + CSVFileName);
+			response.setStatus(HttpServletResponse.SC_OK);
 			out = response.getOutputStream();
-			StringBuilder sb = writeCSV(policies, CSVFileName, response);
-			IOUtils.write(sb.toString(), out, "UTF-8");
+			Writer writer = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"));
+			writeCSV(policies, writer);
+			writer.flush();
 		} catch (Exception e) {
 			LOG.error("Error while generating report file " + CSVFileName, e);
 			e.printStackTrace();
@@ -2254,7 +2282,19 @@ public class ServiceDBStore extends AbstractServiceStore {
 				LOG.debug("Using" + (useLegacyResourceSearch ? " old " : " new ") + "way of filtering service-policies");
 			}
 
-			ret = new ArrayList<RangerPolicy>(policies);
+			RangerPolicySearchIndex searchIndex = RangerServicePoliciesCache.getInstance().getPolicySearchIndex(service.getName(), servicePolicies);
+			BitSet                  candidates  = searchIndex != null ? searchIndex.getCandidates(filter) : null;
+
+			if (candidates != null) {
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("search-index narrowed " + policies.size() + " policies to " + candidates.cardinality() + " candidates");
+				}
+
+				ret = searchIndex.getPolicies(candidates);
+			} else {
+				ret = new ArrayList<RangerPolicy>(policies);
+			}
+
 			predicateUtil.applyFilter(ret, filter);
 
 			if (!useLegacyResourceSearch && CollectionUtils.isNotEmpty(ret)) {
@@ -2733,8 +2773,170 @@ public class ServiceDBStore extends AbstractServiceStore {
 		return validConfigs;
 	}
 
+	/*
+	 * Updates policy-version of the service after the given policy was created, updated or deleted (policy == null).
+	 * A cached validation index of the service is moved to the new policy-version once the transaction commits, so
+	 * that the next validation doesn't have to rebuild it
+	 */
+	private void handlePolicyUpdate(RangerService service, boolean isTagVersionUpdateNeeded, final Long policyId, final RangerPolicy policy) throws Exception {
+		final RangerPolicyValidationIndex validationIndex = pendingPolicyVersionUpdates.get() == null && service != null ? RangerServicePoliciesCache.getInstance().getPolicyValidationIndex(service.getName()) : null;
+		final XXServiceVersionInfo        versionInfo     = validationIndex != null ? daoMgr.getXXServiceVersionInfo().findByServiceId(service.getId()) : null;
+		final Long                        policyVersion    = versionInfo != null ? versionInfo.getPolicyVersion() : null;
+		final Date                        policyUpdateTime = versionInfo != null ? versionInfo.getPolicyUpdateTime() : null;
+
+		handlePolicyUpdate(service, isTagVersionUpdateNeeded);
+
+		if (versionInfo != null) {
+			XXServiceVersionInfo newVersionInfo = daoMgr.getXXServiceVersionInfo().findByServiceId(service.getId());
+
+			if (newVersionInfo != null) {
+				final Long newPolicyVersion    = newVersionInfo.getPolicyVersion();
+				final Date newPolicyUpdateTime = newVersionInfo.getPolicyUpdateTime();
+
+				if (TransactionSynchronizationManager.isSynchronizationActive()) {
+					TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+						@Override
+						public void afterCommit() {
+							validationIndex.update(policyVersion, policyUpdateTime, newPolicyVersion, newPolicyUpdateTime, policyId, policy);
+						}
+					});
+				} else {
+					validationIndex.update(policyVersion, policyUpdateTime, newPolicyVersion, newPolicyUpdateTime, policyId, policy);
+				}
+			}
+		}
+	}
+
 	private void handlePolicyUpdate(RangerService service, boolean isTagVersionUpdateNeeded) throws Exception {
-		updatePolicyVersion(service, isTagVersionUpdateNeeded);
+		Map<Long, PendingVersionUpdate> pendingUpdates = pendingPolicyVersionUpdates.get();
+
+		if (pendingUpdates != null && service != null && service.getId() != null) {
+			PendingVersionUpdate pendingUpdate = pendingUpdates.get(service.getId());
+
+			if (pendingUpdate == null) {
+				pendingUpdates.put(service.getId(), new PendingVersionUpdate(service, isTagVersionUpdateNeeded));
+			} else {
+				pendingUpdate.isTagVersionUpdateNeeded = pendingUpdate.isTagVersionUpdateNeeded || isTagVersionUpdateNeeded;
+			}
+		} else {
+			updatePolicyVersion(service, isTagVersionUpdateNeeded);
+		}
+	}
+
+	/**
+	 * Starts a bulk policy update in the current thread, like an import of many policies: until
+	 * endBulkPolicyUpdate() is called, policy-version of the services of created/updated/deleted
+	 * policies is not updated after each change, but once at the end.
+	 */
+	public void beginBulkPolicyUpdate() {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> ServiceDBStore.beginBulkPolicyUpdate()");
+		}
+
+		if (pendingPolicyVersionUpdates.get() != null) {
+			LOG.warn("beginBulkPolicyUpdate(): bulk policy update already in progress in this thread");
+		} else {
+			pendingPolicyVersionUpdates.set(new LinkedHashMap<Long, PendingVersionUpdate>());
+		}
+	}
+
+	/**
+	 * Ends the bulk policy update started by beginBulkPolicyUpdate(). When updateVersions is true, the
+	 * policy-version of each updated service is incremented once; it should be false when the changes
+	 * are being rolled back.
+	 */
+	public void endBulkPolicyUpdate(boolean updateVersions) throws Exception {
+		Map<Long, PendingVersionUpdate> pendingUpdates = pendingPolicyVersionUpdates.get();
+
+		pendingPolicyVersionUpdates.remove();
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> ServiceDBStore.endBulkPolicyUpdate(updateVersions=" + updateVersions + "): services=" + (pendingUpdates != null ? pendingUpdates.keySet() : null));
+		}
+
+		if (updateVersions && pendingUpdates != null) {
+			for (PendingVersionUpdate pendingUpdate : pendingUpdates.values()) {
+				updatePolicyVersion(pendingUpdate.service, pendingUpdate.isTagVersionUpdateNeeded);
+			}
+		}
+	}
+
+	/*
+	 * Lookup of policies by service-name and policy-name, as done by policy validation, using the validation index;
+	 * returns null if the filter has other parameters or if the index can't be used
+	 */
+	private List<RangerPolicy> getPoliciesByNameFromIndex(SearchFilter filter) throws Exception {
+		List<RangerPolicy> ret = null;
+
+		if (filter != null && filter.getParams() != null && filter.getParams().size() == 2) {
+			String serviceName = filter.getParam(SearchFilter.SERVICE_NAME);
+			String policyName  = filter.getParam(SearchFilter.POLICY_NAME);
+
+			if (StringUtils.isNotEmpty(serviceName) && StringUtils.isNotEmpty(policyName)) {
+				RangerPolicyValidationIndex validationIndex = getPolicyValidationIndex(serviceName);
+
+				if (validationIndex != null) {
+					ret = getPoliciesByIds(validationIndex.getPolicyIdsByName(policyName));
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	/*
+	 * Returns the validation index for the current policy-version of the service, building it if necessary. The
+	 * index is not used during a bulk policy update, as the policy-version is not updated after each change then.
+	 */
+	private RangerPolicyValidationIndex getPolicyValidationIndex(String serviceName) {
+		RangerServicePoliciesCache  cache = RangerServicePoliciesCache.getInstance();
+		RangerPolicyValidationIndex ret   = null;
+
+		if (!cache.isPolicyValidationIndexEnabled() || pendingPolicyVersionUpdates.get() != null || StringUtils.isEmpty(serviceName)) {
+			return ret;
+		}
+
+		XXServiceVersionInfo serviceVersionInfo = daoMgr.getXXServiceVersionInfo().findByServiceName(serviceName);
+
+		if (serviceVersionInfo != null) {
+			Long serviceId        = serviceVersionInfo.getServiceId();
+			Long policyVersion    = serviceVersionInfo.getPolicyVersion();
+			Date policyUpdateTime = serviceVersionInfo.getPolicyUpdateTime();
+
+			ret = cache.getPolicyValidationIndex(serviceName);
+
+			if (ret == null || !ret.isCurrent(serviceId, policyVersion, policyUpdateTime)) {
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Building policy validation index for service=" + serviceName + ", policyVersion=" + policyVersion);
+				}
+
+				ret = new RangerPolicyValidationIndex(serviceId, policyVersion, policyUpdateTime);
+
+				for (Object[] row : daoMgr.getXXPolicy().findNameAndSignatureByServiceId(serviceId)) {
+					ret.addPolicy((Long) row[0], (String) row[1], (String) row[2], Boolean.TRUE.equals(row[3]));
+				}
+
+				cache.setPolicyValidationIndex(serviceName, ret);
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("ServiceDBStore.getPolicyValidationIndex(" + serviceName + "): " + ret);
+		}
+
+		return ret;
+	}
+
+	private List<RangerPolicy> getPoliciesByIds(List<Long> policyIds) {
+		List<RangerPolicy> ret = new ArrayList<RangerPolicy>(policyIds.size());
+
+		if (!policyIds.isEmpty()) {
+			for (XXPolicy xxPolicy : daoMgr.getXXPolicy().findByIds(policyIds)) {
+				ret.add(policyService.getPopulatedViewObject(xxPolicy));
+			}
+		}
+
+		return ret;
 	}
 
 	private void updatePolicyVersion(RangerService service, boolean isTagVersionUpdateNeeded) throws Exception {
@@ -3277,16 +3479,19 @@ public class ServiceDBStore extends AbstractServiceStore {
 
 	private void writeExcel(List<RangerPolicy> policies, String excelFileName, HttpServletResponse response)
 			throws IOException {
-		Workbook workbook = null;
+		SXSSFWorkbook workbook = null;
 		OutputStream outStream = null;
 		try {
-			workbook = new HSSFWorkbook();
+			// streaming workbook: only the last EXPORT_EXCEL_ROW_WINDOW rows are kept in memory, earlier rows are flushed to a temporary file
+			workbook = new SXSSFWorkbook(EXPORT_EXCEL_ROW_WINDOW);
 			Sheet sheet = workbook.createSheet();
 			createHeaderRow(sheet);
 			int rowCount = 0;
+			ExportServiceTypeLookup serviceTypeLookup = new ExportServiceTypeLookup();
 			if (!CollectionUtils.isEmpty(policies)) {
 				for (RangerPolicy policy : policies) {
-					long serviceType = daoMgr.getXXService().findByName(policy.getService()).getType();
+					Long serviceType = serviceTypeLookup.getServiceTypeId(policy.getService());
+					String serviceTypeName = serviceTypeLookup.getServiceTypeName(policy.getService());
 					List<RangerPolicyItem> policyItems = policy.getPolicyItems();
 					List<RangerRowFilterPolicyItem> rowFilterPolicyItems = policy.getRowFilterPolicyItems();
 					List<RangerDataMaskPolicyItem> dataMaskPolicyItems = policy.getDataMaskPolicyItems();
@@ -3297,59 +3502,55 @@ public class ServiceDBStore extends AbstractServiceStore {
 					if (CollectionUtils.isNotEmpty(policyItems)) {
 						for (RangerPolicyItem policyItem : policyItems) {
 							Row row = sheet.createRow(++rowCount);
-							writeBookForPolicyItems(policy, policyItem, null, null, row, null);
+							writeBookForPolicyItems(policy, policyItem, null, null, row, null, serviceTypeName);
 						}
 					} else if (CollectionUtils.isNotEmpty(dataMaskPolicyItems)) {
 						for (RangerDataMaskPolicyItem dataMaskPolicyItem : dataMaskPolicyItems) {
 							Row row = sheet.createRow(++rowCount);
-							writeBookForPolicyItems(policy, null, dataMaskPolicyItem, null, row, null);
+							writeBookForPolicyItems(policy, null, dataMaskPolicyItem, null, row, null, serviceTypeName);
 						}
 					} else if (CollectionUtils.isNotEmpty(rowFilterPolicyItems)) {
 						for (RangerRowFilterPolicyItem rowFilterPolicyItem : rowFilterPolicyItems) {
 							Row row = sheet.createRow(++rowCount);
-							writeBookForPolicyItems(policy, null, null, rowFilterPolicyItem, row, null);
+							writeBookForPolicyItems(policy, null, null, rowFilterPolicyItem, row, null, serviceTypeName);
 						}
-					} else if (serviceType == 100) {
+					} else if (serviceType != null && serviceType.longValue() == 100L) {
 						if (CollectionUtils.isEmpty(policyItems)) {
 							Row row = sheet.createRow(++rowCount);
 							RangerPolicyItem policyItem = new RangerPolicyItem();
-							writeBookForPolicyItems(policy, policyItem, null, null, row, null);
+							writeBookForPolicyItems(policy, policyItem, null, null, row, null, serviceTypeName);
 						}
 					} else if (CollectionUtils.isEmpty(policyItems)) {
 						Row row = sheet.createRow(++rowCount);
 						RangerPolicyItem policyItem = new RangerPolicyItem();
-						writeBookForPolicyItems(policy, policyItem, null, null, row, null);
+						writeBookForPolicyItems(policy, policyItem, null, null, row, null, serviceTypeName);
 					}
 					if (CollectionUtils.isNotEmpty(allowExceptions)) {
 						for (RangerPolicyItem policyItem : allowExceptions) {
 							Row row = sheet.createRow(++rowCount);
-							writeBookForPolicyItems(policy, policyItem, null, null, row, POLICY_ALLOW_EXCLUDE);
+							writeBookForPolicyItems(policy, policyItem, null, null, row, POLICY_ALLOW_EXCLUDE, serviceTypeName);
 						}
 					}
 					if (CollectionUtils.isNotEmpty(denyExceptions)) {
 						for (RangerPolicyItem policyItem : denyExceptions) {
 							Row row = sheet.createRow(++rowCount);
-							writeBookForPolicyItems(policy, policyItem, null, null, row, POLICY_DENY_EXCLUDE);
+							writeBookForPolicyItems(policy, policyItem, null, null, row, POLICY_DENY_EXCLUDE, serviceTypeName);
 						}
 					}
 					if (CollectionUtils.isNotEmpty(denyPolicyItems)) {
 						for (RangerPolicyItem policyItem : denyPolicyItems) {
 							Row row = sheet.createRow(++rowCount);
-							writeBookForPolicyItems(policy, policyItem, null, null, row, POLICY_DENY_INCLUDE);
+							writeBookForPolicyItems(policy, policyItem, null, null, row, POLICY_DENY_INCLUDE, serviceTypeName);
 						}
 					}	
 				}
 			}
-			ByteArrayOutputStream outByteStream = new ByteArrayOutputStream();
-			workbook.write(outByteStream);
-			byte[] outArray = outByteStream.toByteArray();
-			response.setContentType("application/ms-excel");
-			response.setContentLength(outArray.length);
+			response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
 			response.setHeader("Expires:", "0");
 			response.setHeader("Content-Disposition", "attachment; filename=" + excelFileName);
 			response.setStatus(HttpServletResponse.SC_OK);
 			outStream = response.getOutputStream();
-			outStream.write(outArray);
+			workbook.write(outStream);
 			outStream.flush();
 		} catch (IOException ex) {
 			LOG.error("Failed to create report file " + excelFileName, ex);
@@ -3360,19 +3561,17 @@ public class ServiceDBStore extends AbstractServiceStore {
 				outStream.close();
 			}
 			if (workbook != null) {
+				workbook.dispose();
 				workbook.close();
 			}
 		}
 	}
 
-	private StringBuilder writeCSV(List<RangerPolicy> policies, String cSVFileName, HttpServletResponse response) {
-		response.setContentType("text/csv");
-		final String COMMA_DELIMITER = "|";
-		final String LINE_SEPARATOR = "\n";
+	private void writeCSV(List<RangerPolicy> policies, Writer writer) throws IOException {
 		final String FILE_HEADER = "ID|Name|Resources|Groups|Users|Accesses|Service Type|Status";
-		StringBuilder csvBuffer = new StringBuilder();
-		csvBuffer.append(FILE_HEADER);
-		csvBuffer.append(LINE_SEPARATOR);
+		ExportServiceTypeLookup serviceTypeLookup = new ExportServiceTypeLookup();
+		writer.write(FILE_HEADER);
+		writer.write(CSV_LINE_SEPARATOR);
 		for (RangerPolicy policy : policies) {
 			String policyStatus = "";
 			String policyName = "";
@@ -3397,15 +3596,8 @@ public class ServiceDBStore extends AbstractServiceStore {
 			} else {
 				policyStatus = "Disabled";
 			}
-			XXService xxservice = daoMgr.getXXService().findByName(policy.getService());
-
-			if (xxservice != null) {
-				serviceTypeId = xxservice.getType();
-				XXServiceDef xxservDef = daoMgr.getXXServiceDef().getById(serviceTypeId);
-				if (xxservDef != null) {
-					ServiceType = xxservDef.getName();
-				}
-			}
+			serviceTypeId = serviceTypeLookup.getServiceTypeId(policy.getService());
+			ServiceType = serviceTypeLookup.getServiceTypeName(policy.getService());
 			int policyType = policy.getPolicyType();
 			List<RangerPolicyItem> policyItems = new ArrayList<RangerPolicyItem>();
 			List<RangerPolicyItem> policyItems0 = new ArrayList<RangerPolicyItem>();
@@ -3484,43 +3676,11 @@ public class ServiceDBStore extends AbstractServiceStore {
 							userNames=userNames.substring(0,userNames.lastIndexOf("#"));
 						}
 
-						csvBuffer.append(policyId);
-						csvBuffer.append(COMMA_DELIMITER);
-						csvBuffer.append(policyName);
-						csvBuffer.append(COMMA_DELIMITER);
-						csvBuffer.append(resourceKeyVal);
-						csvBuffer.append(COMMA_DELIMITER);
-						csvBuffer.append(groupNames);
-						csvBuffer.append(COMMA_DELIMITER);
-						csvBuffer.append(userNames);
-						csvBuffer.append(COMMA_DELIMITER);
-						csvBuffer.append(accessType);
-						csvBuffer.append(COMMA_DELIMITER);
-						csvBuffer.append(ServiceType);
-						csvBuffer.append(COMMA_DELIMITER);
-						csvBuffer.append(policyStatus);
-						csvBuffer.append(COMMA_DELIMITER);
-						csvBuffer.append(LINE_SEPARATOR);
+						writeCSVRow(writer, policyId, policyName, resourceKeyVal, groupNames, userNames, accessType, ServiceType, policyStatus);
 
 					}
 				} else {
-					csvBuffer.append(policyId);
-					csvBuffer.append(COMMA_DELIMITER);
-					csvBuffer.append(policyName);
-					csvBuffer.append(COMMA_DELIMITER);
-					csvBuffer.append(resourceKeyVal);
-					csvBuffer.append(COMMA_DELIMITER);
-					csvBuffer.append(groupNames);
-					csvBuffer.append(COMMA_DELIMITER);
-					csvBuffer.append(userNames);
-					csvBuffer.append(COMMA_DELIMITER);
-					csvBuffer.append(accessType);
-					csvBuffer.append(COMMA_DELIMITER);
-					csvBuffer.append(ServiceType);
-					csvBuffer.append(COMMA_DELIMITER);
-					csvBuffer.append(policyStatus);
-					csvBuffer.append(COMMA_DELIMITER);
-					csvBuffer.append(LINE_SEPARATOR);
+					writeCSVRow(writer, policyId, policyName, resourceKeyVal, groupNames, userNames, accessType, ServiceType, policyStatus);
 				}
 			} else {
 				Map<String, RangerPolicyResource> resources = policy.getResources();
@@ -3570,48 +3730,36 @@ public class ServiceDBStore extends AbstractServiceStore {
 							}
 							userNames = userNames.substring(0, userNames.lastIndexOf("#"));
 						}
-						csvBuffer.append(policyId);
-						csvBuffer.append(COMMA_DELIMITER);
-						csvBuffer.append(policyName);
-						csvBuffer.append(COMMA_DELIMITER);
-						csvBuffer.append(resourceKeyVal);
-						csvBuffer.append(COMMA_DELIMITER);
-						csvBuffer.append(groupNames);
-						csvBuffer.append(COMMA_DELIMITER);
-						csvBuffer.append(userNames);
-						csvBuffer.append(COMMA_DELIMITER);
-						csvBuffer.append(accessType);
-						csvBuffer.append(COMMA_DELIMITER);
-						csvBuffer.append(ServiceType);
-						csvBuffer.append(COMMA_DELIMITER);
-						csvBuffer.append(policyStatus);
-						csvBuffer.append(COMMA_DELIMITER);
-						csvBuffer.append(LINE_SEPARATOR);
+						writeCSVRow(writer, policyId, policyName, resourceKeyVal, groupNames, userNames, accessType, ServiceType, policyStatus);
 					}
 				} else {
-					csvBuffer.append(policyId);
-					csvBuffer.append(COMMA_DELIMITER);
-					csvBuffer.append(policyName);
-					csvBuffer.append(COMMA_DELIMITER);
-					csvBuffer.append(resourceKeyVal);
-					csvBuffer.append(COMMA_DELIMITER);
-					csvBuffer.append(groupNames);
-					csvBuffer.append(COMMA_DELIMITER);
-					csvBuffer.append(userNames);
-					csvBuffer.append(COMMA_DELIMITER);
-					csvBuffer.append(accessType);
-					csvBuffer.append(COMMA_DELIMITER);
-					csvBuffer.append(ServiceType);
-					csvBuffer.append(COMMA_DELIMITER);
-					csvBuffer.append(policyStatus);
-					csvBuffer.append(COMMA_DELIMITER);
-					csvBuffer.append(LINE_SEPARATOR);
-				}
-			}
-		}
-		response.setHeader("Content-Disposition", "attachment; filename=" + cSVFileName);
-		response.setStatus(HttpServletResponse.SC_OK);
-		return csvBuffer;
+					writeCSVRow(writer, policyId, policyName, resourceKeyVal, groupNames, userNames, accessType, ServiceType, policyStatus);
+				}
+			}
+		}
+	}
+
+	private void writeCSVRow(Writer writer, Long policyId, String policyName, String resources, String groupNames, String userNames,
+			String accessType, String serviceType, String policyStatus) throws IOException {
+		final String COMMA_DELIMITER = "|";
+
+		writer.append(String.valueOf(policyId));
+		writer.append(COMMA_DELIMITER);
+		writer.append(policyName);
+		writer.append(COMMA_DELIMITER);
+		writer.append(resources);
+		writer.append(COMMA_DELIMITER);
+		writer.append(groupNames);
+		writer.append(COMMA_DELIMITER);
+		writer.append(userNames);
+		writer.append(COMMA_DELIMITER);
+		writer.append(accessType);
+		writer.append(COMMA_DELIMITER);
+		writer.append(serviceType);
+		writer.append(COMMA_DELIMITER);
+		writer.append(policyStatus);
+		writer.append(COMMA_DELIMITER);
+		writer.append(CSV_LINE_SEPARATOR);
 	}
 	
 	public void putMetaDataInfo(RangerExportPolicyList rangerExportPolicyList){
@@ -3634,13 +3782,31 @@ public class ServiceDBStore extends AbstractServiceStore {
 		ServletOutputStream out = null;
 		RangerExportPolicyList rangerExportPolicyList = new RangerExportPolicyList();
 		putMetaDataInfo(rangerExportPolicyList);
-		rangerExportPolicyList.setPolicies(policies);
+		rangerExportPolicyList.setPolicies(new ArrayList<RangerPolicy>());
 		Gson gson = new GsonBuilder().setPrettyPrinting().create();
-		String json = gson.toJson(rangerExportPolicyList, RangerExportPolicyList.class);
+		// serialize everything other than the policies up-front, to write the document in the same layout as before
+		JsonObject exportHeader = gson.toJsonTree(rangerExportPolicyList, RangerExportPolicyList.class).getAsJsonObject();
 		try {
 			out = response.getOutputStream();
 			response.setStatus(HttpServletResponse.SC_OK);
-			IOUtils.write(json, out, "UTF-8");
+			JsonWriter jsonWriter = new JsonWriter(new BufferedWriter(new OutputStreamWriter(out, "UTF-8")));
+			jsonWriter.setIndent("  ");
+			jsonWriter.beginObject();
+			for (Map.Entry<String, JsonElement> entry : exportHeader.entrySet()) {
+				jsonWriter.name(entry.getKey());
+				if ("policies".equals(entry.getKey())) {
+					// policies are written one at a time, instead of serializing the whole document to a string
+					jsonWriter.beginArray();
+					for (RangerPolicy policy : policies) {
+						gson.toJson(policy, RangerPolicy.class, jsonWriter);
+					}
+					jsonWriter.endArray();
+				} else {
+					gson.toJson(entry.getValue(), jsonWriter);
+				}
+			}
+			jsonWriter.endObject();
+			jsonWriter.flush();
 		} catch (Exception e) {
 			LOG.error("Error while exporting json file " + jsonFileName, e);
 		} finally {
@@ -3653,7 +3819,59 @@ public class ServiceDBStore extends AbstractServiceStore {
 			}
 		}
 	}
-	
+
+	private static class PendingVersionUpdate {
+		final RangerService service;
+		boolean             isTagVersionUpdateNeeded;
+
+		PendingVersionUpdate(RangerService service, boolean isTagVersionUpdateNeeded) {
+			this.service                  = service;
+			this.isTagVersionUpdateNeeded = isTagVersionUpdateNeeded;
+		}
+	}
+
+	/*
+	 * Service-type lookups for policy export; cached for the duration of an export, as exports have many policies per service
+	 */
+	private class ExportServiceTypeLookup {
+		private final Map<String, XXService> services        = new HashMap<String, XXService>();
+		private final Map<Long, String>      serviceDefNames = new HashMap<Long, String>();
+
+		Long getServiceTypeId(String serviceName) {
+			XXService xxService = getService(serviceName);
+
+			return xxService != null ? xxService.getType() : null;
+		}
+
+		String getServiceTypeName(String serviceName) {
+			Long serviceTypeId = getServiceTypeId(serviceName);
+
+			if (serviceTypeId == null) {
+				return "";
+			}
+
+			String ret = serviceDefNames.get(serviceTypeId);
+
+			if (ret == null) {
+				XXServiceDef xxServiceDef = daoMgr.getXXServiceDef().getById(serviceTypeId);
+
+				ret = xxServiceDef != null ? xxServiceDef.getName() : "";
+
+				serviceDefNames.put(serviceTypeId, ret);
+			}
+
+			return ret;
+		}
+
+		private XXService getService(String serviceName) {
+			if (!services.containsKey(serviceName)) {
+				services.put(serviceName, daoMgr.getXXService().findByName(serviceName));
+			}
+
+			return services.get(serviceName);
+		}
+	}
+
 	public Map<String, String> getServiceMap(InputStream serviceMapStream)
 			throws IOException {
 		if (LOG.isDebugEnabled()) {
@@ -3715,7 +3933,7 @@ public class ServiceDBStore extends AbstractServiceStore {
 	}
 
 	private void writeBookForPolicyItems(RangerPolicy policy, RangerPolicyItem policyItem,
-			RangerDataMaskPolicyItem dataMaskPolicyItem, RangerRowFilterPolicyItem rowFilterPolicyItem, Row row, String policyConditonType) {
+			RangerDataMaskPolicyItem dataMaskPolicyItem, RangerRowFilterPolicyItem rowFilterPolicyItem, Row row, String policyConditonType, String serviceTypeName) {
 		if (LOG.isDebugEnabled()) {
 			// To avoid PMD violation
 			LOG.debug("policyConditonType:[" + policyConditonType + "]");
@@ -3785,16 +4003,7 @@ public class ServiceDBStore extends AbstractServiceStore {
 			cell = row.createCell(5);
 			cell.setCellValue(accessType.trim());
 			cell = row.createCell(6);
-			XXService xxservice = daoMgr.getXXService().findByName(policy.getService());
-			String ServiceType = "";
-			if (xxservice != null) {
-				Long ServiceId = xxservice.getType();
-				XXServiceDef xxservDef = daoMgr.getXXServiceDef().getById(ServiceId);
-				if (xxservDef != null) {
-					ServiceType = xxservDef.getName();
-				}
-			}
-			cell.setCellValue(ServiceType);
+			cell.setCellValue(serviceTypeName);
 			cell = row.createCell(7);
 
 		}
@@ -35,6 +35,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.security.SecureClientLogin;
 import org.apache.ranger.common.PropertiesUtil;
+import org.apache.ranger.common.ResourceLookupCache;
 import org.apache.ranger.common.TimedExecutor;
 import org.apache.ranger.plugin.client.HadoopConfigHolder;
 import org.apache.ranger.plugin.client.HadoopException;
@@ -78,6 +79,9 @@ public class ServiceMgr {
 	@Autowired
 	TimedExecutor timedExecutor;
 
+	@Autowired
+	ResourceLookupCache lookupCache;
+
 	public List<String> lookupResource(String serviceName, ResourceLookupContext context, ServiceStore svcStore) throws Exception {
 		List<String> 	  ret = null;
 		
@@ -120,9 +124,15 @@ public class ServiceMgr {
 			if (StringUtils.equals(svc.getServiceDef().getName(), EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_TAG_NAME)) {
 				ret = svc.lookupResource(context);
 			} else {
-				LookupCallable callable = new LookupCallable(svc, context);
-				long time = getTimeoutValueForLookupInMilliSeconds(svc);
-				ret = timedExecutor.timedTask(callable, time, TimeUnit.MILLISECONDS);
+				ret = lookupCache.get(serviceName, context);
+
+				if (ret == null) {
+					LookupCallable callable = new LookupCallable(svc, context);
+					long time = getTimeoutValueForLookupInMilliSeconds(svc);
+					ret = timedExecutor.timedTask(callable, time, TimeUnit.MILLISECONDS);
+
+					lookupCache.put(serviceName, context, ret);
+				}
 			}
 		}
 
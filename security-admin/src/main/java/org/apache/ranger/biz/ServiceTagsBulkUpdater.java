@@ -0,0 +1,742 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.biz;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.collections.MapUtils;
+import org.apache.commons.lang.ObjectUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.common.ContextUtil;
+import org.apache.ranger.common.DateUtil;
+import org.apache.ranger.common.GUIDUtil;
+import org.apache.ranger.common.MessageEnums;
+import org.apache.ranger.common.RESTErrorUtil;
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.entity.XXResourceDef;
+import org.apache.ranger.entity.XXService;
+import org.apache.ranger.entity.XXServiceResource;
+import org.apache.ranger.entity.XXServiceResourceElement;
+import org.apache.ranger.entity.XXServiceResourceElementValue;
+import org.apache.ranger.entity.XXTag;
+import org.apache.ranger.entity.XXTagAttribute;
+import org.apache.ranger.entity.XXTagDef;
+import org.apache.ranger.entity.XXTagResourceMap;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.apache.ranger.plugin.store.RangerServiceResourceSignature;
+import org.apache.ranger.plugin.util.ServiceTags;
+import org.apache.ranger.service.RangerAuditFields;
+
+/*
+ * Adds/updates a chunk of service-resources and their tags, uploaded by tag-sync, with a few bulk queries:
+ *  - existing resources are found with IN queries on guids and resource-signatures
+ *  - existing tags, their attributes and tag-resource-maps are found with IN queries on ids/guids
+ *  - the changes are computed in memory, and applied with one flush per entity type, instead of one per object; as ids
+ *    are generated on insert (IDENTITY on MySQL), inserts are still sent one statement at a time
+ * Tag-version of the affected services is not updated here; ids of services and tags whose consumers need a new
+ * tag-version are collected, for the caller to update tag-version once per upload. Matching of incoming tags with
+ * existing tags is same as earlier done one resource at a time by ServiceTagsProcessor.
+ */
+class ServiceTagsBulkUpdater {
+	private static final Log LOG = LogFactory.getLog(ServiceTagsBulkUpdater.class);
+
+	private final RangerDaoManager  daoManager;
+	private final GUIDUtil          guidUtil;
+	private final RangerAuditFields rangerAuditFields;
+	private final RESTErrorUtil     errorUtil;
+	private final Set<Long>         updatedServiceIds;
+	private final Set<Long>         updatedTagIds;
+
+	private final Map<String, XXService>     services     = new HashMap<String, XXService>();
+	private final Map<String, XXResourceDef> resourceDefs = new HashMap<String, XXResourceDef>();
+	private final Map<String, Long>          tagDefIds    = new HashMap<String, Long>();
+	private final Map<Long, String>          tagDefNames  = new HashMap<Long, String>();
+
+	private final Map<Long, TagInfo>   tagsById   = new HashMap<Long, TagInfo>();
+	private final Map<String, TagInfo> tagsByGuid = new HashMap<String, TagInfo>();
+
+	private final List<TagInfo>           tagsToCreate            = new ArrayList<TagInfo>();
+	private final List<TagInfo>           tagsToUpdateAttributes  = new ArrayList<TagInfo>();
+	private final List<TagInfo>           tagsToDelete            = new ArrayList<TagInfo>();
+	private final List<TagInfo>           tagResourceMapTags      = new ArrayList<TagInfo>();
+	private final List<XXServiceResource> tagResourceMapResources = new ArrayList<XXServiceResource>();
+	private final List<XXTagResourceMap>  tagResourceMapsToDelete = new ArrayList<XXTagResourceMap>();
+
+	ServiceTagsBulkUpdater(RangerDaoManager daoManager, GUIDUtil guidUtil, RangerAuditFields rangerAuditFields, RESTErrorUtil errorUtil, Set<Long> updatedServiceIds, Set<Long> updatedTagIds) {
+		this.daoManager        = daoManager;
+		this.guidUtil          = guidUtil;
+		this.rangerAuditFields = rangerAuditFields;
+		this.errorUtil         = errorUtil;
+		this.updatedServiceIds = updatedServiceIds;
+		this.updatedTagIds     = updatedTagIds;
+	}
+
+	void addOrUpdate(ServiceTags serviceTags, List<RangerServiceResource> resources) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> ServiceTagsBulkUpdater.addOrUpdate(resourceCount=" + resources.size() + ")");
+		}
+
+		Map<Long, XXServiceResource> resourcesInStore = addOrUpdateResources(resources);
+
+		if (MapUtils.isNotEmpty(serviceTags.getResourceToTagIds())) {
+			addOrUpdateTags(serviceTags, resources, resourcesInStore);
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== ServiceTagsBulkUpdater.addOrUpdate(resourceCount=" + resources.size() + "): createdTags=" + tagsToCreate.size() + ", updatedTags=" + tagsToUpdateAttributes.size()
+					  + ", createdTagResourceMaps=" + tagResourceMapTags.size() + ", deletedTagResourceMaps=" + tagResourceMapsToDelete.size());
+		}
+	}
+
+	// returns service-resources in store, keyed by the id of the resource in the upload
+	private Map<Long, XXServiceResource> addOrUpdateResources(List<RangerServiceResource> resources) {
+		Map<Long, XXServiceResource>   ret            = new HashMap<Long, XXServiceResource>();
+		Map<String, XXServiceResource> existingByGuid = new HashMap<String, XXServiceResource>();
+		Map<String, XXServiceResource> existingBySig  = new HashMap<String, XXServiceResource>();
+		Set<String>                    guids          = new HashSet<String>();
+		Map<Long, Set<String>>         signatures     = new HashMap<Long, Set<String>>();
+
+		for (RangerServiceResource resource : resources) {
+			if (StringUtils.isNotEmpty(resource.getGuid())) {
+				guids.add(resource.getGuid());
+			}
+
+			if (MapUtils.isNotEmpty(resource.getResourceElements())) {
+				resource.setResourceSignature(new RangerServiceResourceSignature(resource).getSignature());
+			}
+		}
+
+		for (XXServiceResource xResource : daoManager.getXXServiceResource().findByGuids(guids)) {
+			existingByGuid.put(xResource.getGuid(), xResource);
+		}
+
+		for (RangerServiceResource resource : resources) {
+			XXService xService = getService(resource.getServiceName());
+
+			if (xService != null && MapUtils.isNotEmpty(resource.getResourceElements()) && !existingByGuid.containsKey(resource.getGuid())) {
+				Set<String> serviceSignatures = signatures.get(xService.getId());
+
+				if (serviceSignatures == null) {
+					serviceSignatures = new HashSet<String>();
+
+					signatures.put(xService.getId(), serviceSignatures);
+				}
+
+				serviceSignatures.add(resource.getResourceSignature());
+			}
+		}
+
+		for (Map.Entry<Long, Set<String>> entry : signatures.entrySet()) {
+			for (XXServiceResource xResource : daoManager.getXXServiceResource().findByServiceAndResourceSignatures(entry.getKey(), entry.getValue())) {
+				existingBySig.put(getSignatureKey(xResource.getServiceId(), xResource.getResourceSignature()), xResource);
+			}
+		}
+
+		List<XXServiceResource>     resourcesToCreate  = new ArrayList<XXServiceResource>();
+		List<RangerServiceResource> createdFrom        = new ArrayList<RangerServiceResource>();
+		List<XXServiceResource>     resourcesToReplace = new ArrayList<XXServiceResource>();
+		List<RangerServiceResource> replacedFrom       = new ArrayList<RangerServiceResource>();
+
+		for (RangerServiceResource resource : resources) {
+			XXService         xService = getService(resource.getServiceName());
+			XXServiceResource existing = StringUtils.isNotEmpty(resource.getGuid()) ? existingByGuid.get(resource.getGuid()) : null;
+
+			if (existing == null && xService != null && MapUtils.isNotEmpty(resource.getResourceElements())) {
+				existing = existingBySig.get(getSignatureKey(xService.getId(), resource.getResourceSignature()));
+			}
+
+			XXServiceResource resourceInStore;
+
+			if (existing == null) {
+				if (xService == null) {
+					throw errorUtil.createRESTException("No Service found with name: " + resource.getServiceName(), MessageEnums.ERROR_CREATING_OBJECT);
+				}
+
+				if (StringUtils.isEmpty(resource.getResourceSignature())) {
+					resource.setResourceSignature(new RangerServiceResourceSignature(resource).getSignature());
+				}
+
+				resourceInStore = new XXServiceResource();
+
+				resourceInStore.setGuid(StringUtils.isEmpty(resource.getGuid()) ? guidUtil.genGUID() : resource.getGuid());
+				resourceInStore.setVersion(resource.getVersion());
+				resourceInStore.setIsEnabled(resource.getIsEnabled());
+				resourceInStore.setResourceSignature(resource.getResourceSignature());
+				resourceInStore.setServiceId(xService.getId());
+
+				rangerAuditFields.populateAuditFieldsForCreate(resourceInStore);
+
+				resourcesToCreate.add(resourceInStore);
+				createdFrom.add(resource);
+
+				// later occurrences of the same resource in this upload should find this one
+				existingByGuid.put(resourceInStore.getGuid(), resourceInStore);
+				existingBySig.put(getSignatureKey(xService.getId(), resourceInStore.getResourceSignature()), resourceInStore);
+			} else if (existing.getId() == null || xService == null || MapUtils.isEmpty(resource.getResourceElements())) {
+				resourceInStore = existing;
+			} else {
+				resourceInStore = existing;
+
+				boolean isSignatureChanged = !StringUtils.equals(existing.getResourceSignature(), resource.getResourceSignature());
+
+				if (isSignatureChanged || !ObjectUtils.equals(existing.getIsEnabled(), resource.getIsEnabled()) || !existing.getServiceId().equals(xService.getId())) {
+					existing.setResourceSignature(resource.getResourceSignature());
+					existing.setIsEnabled(resource.getIsEnabled());
+					existing.setServiceId(xService.getId());
+					existing.setUpdateTime(DateUtil.getUTCDate());
+					existing.setUpdatedByUserId(ContextUtil.getCurrentUserId());
+				}
+
+				if (isSignatureChanged) {
+					resourcesToReplace.add(existing);
+					replacedFrom.add(resource);
+
+					updatedServiceIds.add(existing.getServiceId());
+				}
+			}
+
+			ret.put(resource.getId(), resourceInStore);
+		}
+
+		deleteResourceElements(resourcesToReplace);
+
+		daoManager.getXXServiceResource().batchCreate(resourcesToCreate);
+
+		resourcesToCreate.addAll(resourcesToReplace);
+		createdFrom.addAll(replacedFrom);
+
+		createResourceElements(resourcesToCreate, createdFrom);
+
+		return ret;
+	}
+
+	private void addOrUpdateTags(ServiceTags serviceTags, List<RangerServiceResource> resources, Map<Long, XXServiceResource> resourcesInStore) {
+		Map<Long, List<Long>> resourceToTagIds = serviceTags.getResourceToTagIds();
+		Map<Long, RangerTag>  incomingTags     = serviceTags.getTags() != null ? serviceTags.getTags() : new HashMap<Long, RangerTag>();
+		Set<Long>             resourceIds      = new HashSet<Long>();
+		Set<String>           tagGuids         = new HashSet<String>();
+
+		for (RangerServiceResource resource : resources) {
+			List<Long>        tagIds          = resourceToTagIds.get(resource.getId());
+			XXServiceResource resourceInStore = resourcesInStore.get(resource.getId());
+
+			if (tagIds == null || resourceInStore == null) {
+				continue;
+			}
+
+			resourceIds.add(resourceInStore.getId());
+
+			for (Long tagId : tagIds) {
+				RangerTag incomingTag = incomingTags.get(tagId);
+
+				if (incomingTag != null && StringUtils.isNotEmpty(incomingTag.getGuid())) {
+					tagGuids.add(incomingTag.getGuid());
+				}
+			}
+		}
+
+		Map<Long, List<XXTagResourceMap>> existingTagResourceMaps = new HashMap<Long, List<XXTagResourceMap>>();
+		Set<Long>                         existingTagIds          = new HashSet<Long>();
+
+		for (XXTagResourceMap xTagResourceMap : daoManager.getXXTagResourceMap().findByResourceIds(resourceIds)) {
+			List<XXTagResourceMap> tagResourceMaps = existingTagResourceMaps.get(xTagResourceMap.getResourceId());
+
+			if (tagResourceMaps == null) {
+				tagResourceMaps = new ArrayList<XXTagResourceMap>();
+
+				existingTagResourceMaps.put(xTagResourceMap.getResourceId(), tagResourceMaps);
+			}
+
+			tagResourceMaps.add(xTagResourceMap);
+			existingTagIds.add(xTagResourceMap.getTagId());
+		}
+
+		loadTags(existingTagIds, tagGuids);
+
+		Set<TagInfo> retainedTags = new HashSet<TagInfo>();
+
+		for (RangerServiceResource resource : resources) {
+			List<Long>        tagIds          = resourceToTagIds.get(resource.getId());
+			XXServiceResource resourceInStore = resourcesInStore.get(resource.getId());
+
+			if (tagIds == null) {
+				continue;
+			}
+
+			if (resourceInStore == null) {
+				LOG.error("Resource (id=" + resource.getId() + ") not found. Skipping tags update");
+
+				continue;
+			}
+
+			List<XXTagResourceMap> tagResourceMaps = existingTagResourceMaps.get(resourceInStore.getId());
+			List<TagInfo>          associatedTags  = new ArrayList<TagInfo>();
+			List<TagInfo>          tagsToRetain    = new ArrayList<TagInfo>();
+
+			if (tagResourceMaps != null) {
+				for (XXTagResourceMap xTagResourceMap : tagResourceMaps) {
+					TagInfo associatedTag = tagsById.get(xTagResourceMap.getTagId());
+
+					if (associatedTag != null) {
+						associatedTags.add(associatedTag);
+					}
+				}
+			}
+
+			for (Long tagId : tagIds) {
+				RangerTag incomingTag = incomingTags.get(tagId);
+
+				if (incomingTag == null) {
+					LOG.error("Tag (id=" + tagId + ") not found. Skipping addition of this tag for resource (id=" + resource.getId() + ")");
+
+					continue;
+				}
+
+				TagInfo matchingTag = findMatchingTag(incomingTag, associatedTags);
+
+				if (matchingTag == null || isResourcePrivateTag(incomingTag) != matchingTag.isResourcePrivate()) {
+					// create new tag from incoming tag and associate it with service-resource
+					TagInfo newTag = createTag(incomingTag);
+
+					addTagResourceMap(newTag, resourceInStore);
+
+					associatedTags.add(newTag);
+					tagsToRetain.add(newTag);
+				} else if (isResourcePrivateTag(incomingTag)) {
+					// Keep this tag, but update it with attribute-values from incoming tag
+					tagsToRetain.add(matchingTag);
+
+					if (StringUtils.equals(incomingTag.getGuid(), matchingTag.xTag.getGuid())) {
+						// matching tag was found because of Guid match
+						updateTag(matchingTag, incomingTag);
+					}
+				} else { // shared model
+					// Keep this tag, but update it with attribute-values from incoming tag
+					tagsToRetain.add(matchingTag);
+
+					updateTag(matchingTag, incomingTag);
+
+					// associate with service-resource if not already associated
+					if (!associatedTags.contains(matchingTag)) {
+						addTagResourceMap(matchingTag, resourceInStore);
+
+						associatedTags.add(matchingTag);
+					}
+				}
+			}
+
+			retainedTags.addAll(tagsToRetain);
+
+			if (tagResourceMaps != null) {
+				for (XXTagResourceMap xTagResourceMap : tagResourceMaps) {
+					TagInfo associatedTag = tagsById.get(xTagResourceMap.getTagId());
+
+					if (associatedTag != null && !tagsToRetain.contains(associatedTag)) {
+						tagResourceMapsToDelete.add(xTagResourceMap);
+
+						updatedServiceIds.add(resourceInStore.getServiceId());
+
+						if (associatedTag.isResourcePrivate() && !tagsToDelete.contains(associatedTag)) {
+							tagsToDelete.add(associatedTag);
+						}
+					}
+				}
+			}
+		}
+
+		tagsToDelete.removeAll(retainedTags);
+
+		applyTagChanges();
+	}
+
+	private void loadTags(Set<Long> tagIds, Set<String> tagGuids) {
+		List<XXTag> xTags = new ArrayList<XXTag>();
+
+		xTags.addAll(daoManager.getXXTag().findByIds(tagIds));
+		xTags.addAll(daoManager.getXXTag().findByGuids(tagGuids));
+
+		for (XXTag xTag : xTags) {
+			TagInfo tag = tagsById.get(xTag.getId());
+
+			if (tag == null) {
+				tag = new TagInfo(xTag, getTagDefName(xTag.getType()));
+
+				tagsById.put(xTag.getId(), tag);
+			}
+
+			// findByGuids() is ordered by id; the first tag of a guid is used, as by findByGuid()
+			if (StringUtils.isNotEmpty(xTag.getGuid()) && !tagsByGuid.containsKey(xTag.getGuid())) {
+				tagsByGuid.put(xTag.getGuid(), tag);
+			}
+		}
+
+		for (XXTagAttribute xTagAttribute : daoManager.getXXTagAttribute().findByTagIds(tagsById.keySet())) {
+			TagInfo tag = tagsById.get(xTagAttribute.getTagId());
+
+			tag.xAttributes.add(xTagAttribute);
+			tag.attributes.put(xTagAttribute.getName(), xTagAttribute.getValue());
+		}
+	}
+
+	private TagInfo findMatchingTag(RangerTag incomingTag, List<TagInfo> associatedTags) {
+		TagInfo ret = null;
+
+		if (StringUtils.isNotEmpty(incomingTag.getGuid())) {
+			ret = tagsByGuid.get(incomingTag.getGuid());
+		}
+
+		if (ret == null && isResourcePrivateTag(incomingTag)) {
+			Map<String, String> incomingTagAttributes = incomingTag.getAttributes() != null ? incomingTag.getAttributes() : new HashMap<String, String>();
+
+			for (TagInfo associatedTag : associatedTags) {
+				if (StringUtils.equals(incomingTag.getType(), associatedTag.type) && incomingTagAttributes.equals(associatedTag.attributes)) {
+					ret = associatedTag;
+
+					break;
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	private TagInfo createTag(RangerTag incomingTag) {
+		XXTag xTag = new XXTag();
+
+		xTag.setGuid(StringUtils.isEmpty(incomingTag.getGuid()) ? guidUtil.genGUID() : incomingTag.getGuid());
+		xTag.setType(getTagDefId(incomingTag.getType()));
+		xTag.setOwner(incomingTag.getOwner());
+
+		rangerAuditFields.populateAuditFieldsForCreate(xTag);
+
+		TagInfo ret = new TagInfo(xTag, incomingTag.getType());
+
+		if (incomingTag.getAttributes() != null) {
+			ret.attributes.putAll(incomingTag.getAttributes());
+		}
+
+		if (!tagsByGuid.containsKey(xTag.getGuid())) {
+			tagsByGuid.put(xTag.getGuid(), ret);
+		}
+
+		tagsToCreate.add(ret);
+
+		return ret;
+	}
+
+	private void updateTag(TagInfo tag, RangerTag incomingTag) {
+		Map<String, String> incomingTagAttributes = incomingTag.getAttributes() != null ? incomingTag.getAttributes() : new HashMap<String, String>();
+
+		if (StringUtils.equals(tag.type, incomingTag.getType()) && ObjectUtils.equals(tag.xTag.getOwner(), incomingTag.getOwner()) && tag.attributes.equals(incomingTagAttributes)) {
+			return;
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Updating tag(guid=" + tag.xTag.getGuid() + ", type=" + incomingTag.getType() + ")");
+		}
+
+		if (!StringUtils.equals(tag.type, incomingTag.getType())) {
+			tag.xTag.setType(getTagDefId(incomingTag.getType()));
+			tag.type = incomingTag.getType();
+		}
+
+		tag.xTag.setOwner(incomingTag.getOwner());
+		tag.attributes.clear();
+		tag.attributes.putAll(incomingTagAttributes);
+
+		// attributes of tags yet to be created are created from tag.attributes
+		if (tag.xTag.getId() != null) {
+			tag.xTag.setUpdateTime(DateUtil.getUTCDate());
+			tag.xTag.setUpdatedByUserId(ContextUtil.getCurrentUserId());
+
+			if (!tagsToUpdateAttributes.contains(tag)) {
+				tagsToUpdateAttributes.add(tag);
+			}
+
+			updatedTagIds.add(tag.xTag.getId());
+		}
+	}
+
+	private void addTagResourceMap(TagInfo tag, XXServiceResource resource) {
+		tagResourceMapTags.add(tag);
+		tagResourceMapResources.add(resource);
+
+		updatedServiceIds.add(resource.getServiceId());
+	}
+
+	/*
+	 * Deletes are applied before inserts, and child rows before their parents, with one flush for each
+	 */
+	private void applyTagChanges() {
+		List<XXTagAttribute> attributesToDelete = new ArrayList<XXTagAttribute>();
+		List<XXTag>          xTagsToDelete      = new ArrayList<XXTag>();
+		List<XXTag>          xTagsToCreate      = new ArrayList<XXTag>();
+		List<XXTagAttribute> attributesToCreate = new ArrayList<XXTagAttribute>();
+
+		for (TagInfo tag : tagsToUpdateAttributes) {
+			attributesToDelete.addAll(tag.xAttributes);
+		}
+
+		for (TagInfo tag : tagsToDelete) {
+			if (!tagsToUpdateAttributes.contains(tag)) {
+				attributesToDelete.addAll(tag.xAttributes);
+			}
+
+			xTagsToDelete.add(tag.xTag);
+		}
+
+		for (TagInfo tag : tagsToCreate) {
+			xTagsToCreate.add(tag.xTag);
+		}
+
+		daoManager.getXXTagResourceMap().batchRemove(tagResourceMapsToDelete);
+		daoManager.getXXTagAttribute().batchRemove(attributesToDelete);
+		daoManager.getXXTag().batchRemove(xTagsToDelete);
+		daoManager.getXXTag().batchCreate(xTagsToCreate);
+
+		for (TagInfo tag : tagsToCreate) {
+			addTagAttributes(tag, attributesToCreate);
+		}
+
+		for (TagInfo tag : tagsToUpdateAttributes) {
+			if (!tagsToDelete.contains(tag)) {
+				addTagAttributes(tag, attributesToCreate);
+			}
+		}
+
+		daoManager.getXXTagAttribute().batchCreate(attributesToCreate);
+
+		List<XXTagResourceMap> tagResourceMapsToCreate = new ArrayList<XXTagResourceMap>(tagResourceMapTags.size());
+
+		for (int i = 0; i < tagResourceMapTags.size(); i++) {
+			XXTagResourceMap xTagResourceMap = new XXTagResourceMap();
+
+			xTagResourceMap.setGuid(guidUtil.genGUID());
+			xTagResourceMap.setTagId(tagResourceMapTags.get(i).xTag.getId());
+			xTagResourceMap.setResourceId(tagResourceMapResources.get(i).getId());
+
+			rangerAuditFields.populateAuditFieldsForCreate(xTagResourceMap);
+
+			tagResourceMapsToCreate.add(xTagResourceMap);
+		}
+
+		daoManager.getXXTagResourceMap().batchCreate(tagResourceMapsToCreate);
+	}
+
+	private void addTagAttributes(TagInfo tag, List<XXTagAttribute> attributesToCreate) {
+		for (Map.Entry<String, String> attr : tag.attributes.entrySet()) {
+			XXTagAttribute xTagAttribute = new XXTagAttribute();
+
+			xTagAttribute.setTagId(tag.xTag.getId());
+			xTagAttribute.setName(attr.getKey());
+			xTagAttribute.setValue(attr.getValue());
+
+			rangerAuditFields.populateAuditFieldsForCreate(xTagAttribute);
+
+			attributesToCreate.add(xTagAttribute);
+		}
+	}
+
+	private void deleteResourceElements(List<XXServiceResource> resources) {
+		if (resources.isEmpty()) {
+			return;
+		}
+
+		List<Long> resourceIds = new ArrayList<Long>(resources.size());
+
+		for (XXServiceResource resource : resources) {
+			resourceIds.add(resource.getId());
+		}
+
+		List<XXServiceResourceElement> elements   = daoManager.getXXServiceResourceElement().findByResourceIds(resourceIds);
+		List<Long>                     elementIds = new ArrayList<Long>(elements.size());
+
+		for (XXServiceResourceElement element : elements) {
+			elementIds.add(element.getId());
+		}
+
+		daoManager.getXXServiceResourceElementValue().batchRemove(daoManager.getXXServiceResourceElementValue().findByResElementIds(elementIds));
+		daoManager.getXXServiceResourceElement().batchRemove(elements);
+	}
+
+	private void createResourceElements(List<XXServiceResource> resources, List<RangerServiceResource> serviceResources) {
+		List<XXServiceResourceElement> elements      = new ArrayList<XXServiceResourceElement>();
+		List<List<String>>             elementValues = new ArrayList<List<String>>();
+
+		for (int i = 0; i < resources.size(); i++) {
+			RangerServiceResource serviceResource = serviceResources.get(i);
+
+			if (MapUtils.isEmpty(serviceResource.getResourceElements())) {
+				continue;
+			}
+
+			XXService xService = getService(serviceResource.getServiceName());
+
+			for (Map.Entry<String, RangerPolicyResource> resElement : serviceResource.getResourceElements().entrySet()) {
+				XXResourceDef xResDef = getResourceDef(xService.getType(), resElement.getKey());
+
+				if (xResDef == null) {
+					LOG.error("ServiceTagsBulkUpdater.createResourceElements: ResourceType is not valid [" + resElement.getKey() + "]");
+
+					throw errorUtil.createRESTException("Resource Type is not valid [" + resElement.getKey() + "]", MessageEnums.DATA_NOT_FOUND);
+				}
+
+				RangerPolicyResource     policyRes       = resElement.getValue();
+				XXServiceResourceElement resourceElement = new XXServiceResourceElement();
+
+				resourceElement.setIsExcludes(policyRes.getIsExcludes());
+				resourceElement.setIsRecursive(policyRes.getIsRecursive());
+				resourceElement.setResDefId(xResDef.getId());
+				resourceElement.setResourceId(resources.get(i).getId());
+
+				rangerAuditFields.populateAuditFieldsForCreate(resourceElement);
+
+				elements.add(resourceElement);
+				elementValues.add(policyRes.getValues());
+			}
+		}
+
+		daoManager.getXXServiceResourceElement().batchCreate(elements);
+
+		List<XXServiceResourceElementValue> values = new ArrayList<XXServiceResourceElementValue>();
+
+		for (int i = 0; i < elements.size(); i++) {
+			int sortOrder = 1;
+
+			for (String resVal : elementValues.get(i)) {
+				XXServiceResourceElementValue resourceElementValue = new XXServiceResourceElementValue();
+
+				resourceElementValue.setResElementId(elements.get(i).getId());
+				resourceElementValue.setValue(resVal);
+				resourceElementValue.setSortOrder(sortOrder);
+
+				rangerAuditFields.populateAuditFieldsForCreate(resourceElementValue);
+
+				values.add(resourceElementValue);
+				sortOrder++;
+			}
+		}
+
+		daoManager.getXXServiceResourceElementValue().batchCreate(values);
+	}
+
+	private XXService getService(String serviceName) {
+		if (StringUtils.isEmpty(serviceName)) {
+			return null;
+		}
+
+		XXService ret = services.get(serviceName);
+
+		if (ret == null && !services.containsKey(serviceName)) {
+			ret = daoManager.getXXService().findByName(serviceName);
+
+			services.put(serviceName, ret);
+		}
+
+		return ret;
+	}
+
+	private XXResourceDef getResourceDef(Long serviceDefId, String resourceName) {
+		String        key = serviceDefId + "/" + resourceName;
+		XXResourceDef ret = resourceDefs.get(key);
+
+		if (ret == null && !resourceDefs.containsKey(key)) {
+			ret = daoManager.getXXResourceDef().findByNameAndServiceDefId(resourceName, serviceDefId);
+
+			resourceDefs.put(key, ret);
+		}
+
+		return ret;
+	}
+
+	private Long getTagDefId(String tagType) {
+		Long ret = tagDefIds.get(tagType);
+
+		if (ret == null) {
+			XXTagDef xTagDef = daoManager.getXXTagDef().findByName(tagType);
+
+			if (xTagDef == null) {
+				throw errorUtil.createRESTException("No TagDefinition found with name :" + tagType, MessageEnums.INVALID_INPUT_DATA);
+			}
+
+			ret = xTagDef.getId();
+
+			tagDefIds.put(tagType, ret);
+			tagDefNames.put(ret, tagType);
+		}
+
+		return ret;
+	}
+
+	private String getTagDefName(Long tagDefId) {
+		String ret = tagDefNames.get(tagDefId);
+
+		if (ret == null) {
+			XXTagDef xTagDef = daoManager.getXXTagDef().getById(tagDefId);
+
+			if (xTagDef == null) {
+				throw errorUtil.createRESTException("No TagDefinition found with name :" + tagDefId, MessageEnums.INVALID_INPUT_DATA);
+			}
+
+			ret = xTagDef.getName();
+
+			tagDefNames.put(tagDefId, ret);
+			tagDefIds.put(ret, tagDefId);
+		}
+
+		return ret;
+	}
+
+	private static String getSignatureKey(Long serviceId, String resourceSignature) {
+		return serviceId + "/" + resourceSignature;
+	}
+
+	private static boolean isResourcePrivateTag(RangerTag tag) {
+		return tag.getOwner() == RangerTag.OWNER_SERVICERESOURCE;
+	}
+
+	/*
+	 * A tag in store, or to be created, with its type-name and attributes; instances are compared by identity
+	 */
+	private static class TagInfo {
+		final XXTag                xTag;
+		final Map<String, String>  attributes  = new HashMap<String, String>();
+		final List<XXTagAttribute> xAttributes = new ArrayList<XXTagAttribute>();
+		String                     type;
+
+		TagInfo(XXTag xTag, String type) {
+			this.xTag = xTag;
+			this.type = type;
+		}
+
+		boolean isResourcePrivate() {
+			return xTag.getOwner() != null && xTag.getOwner() == RangerTag.OWNER_SERVICERESOURCE;
+		}
+	}
+}
@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
@@ -909,8 +910,15 @@ public class TagDBStore extends AbstractTagStore {
 
 	@Override
 	public ServiceTags getServiceTagsIfUpdated(String serviceName, Long lastKnownVersion) throws Exception {
+		return getServiceTagsIfUpdated(serviceName, lastKnownVersion, false);
+	}
+
+	/*
+	 * When supportsTagDeltas is true, only the changes since lastKnownVersion are returned if available in the cache
+	 */
+	public ServiceTags getServiceTagsIfUpdated(String serviceName, Long lastKnownVersion, boolean supportsTagDeltas) throws Exception {
 		if (LOG.isDebugEnabled()) {
-			LOG.debug("==> TagDBStore.getServiceTagsIfUpdated(" + serviceName + ", " + lastKnownVersion + ")");
+			LOG.debug("==> TagDBStore.getServiceTagsIfUpdated(" + serviceName + ", " + lastKnownVersion + ", " + supportsTagDeltas + ")");
 		}
 
 		ServiceTags ret = null;
@@ -938,12 +946,20 @@ public class TagDBStore extends AbstractTagStore {
 			ret = null;
 		}
 
+		if (ret != null && supportsTagDeltas) {
+			ServiceTags delta = RangerServiceTagsCache.getInstance().getServiceTagsDelta(serviceName, lastKnownVersion);
+
+			if (delta != null) {
+				ret = delta;
+			}
+		}
+
 		if (LOG.isDebugEnabled()) {
 			RangerServiceTagsCache.getInstance().dump();
 		}
 
 		if (LOG.isDebugEnabled()) {
-			LOG.debug("<== TagDBStore.getServiceTagsIfUpdated(" + serviceName + ", " + lastKnownVersion + "): count=" + ((ret == null || ret.getTags() == null) ? 0 : ret.getTags().size()));
+			LOG.debug("<== TagDBStore.getServiceTagsIfUpdated(" + serviceName + ", " + lastKnownVersion + ", " + supportsTagDeltas + "): count=" + ((ret == null || ret.getTags() == null) ? 0 : ret.getTags().size()) + ", isDelta=" + (ret != null && ret.getIsDelta()));
 		}
 
 		return ret;
@@ -1032,6 +1048,41 @@ public class TagDBStore extends AbstractTagStore {
 
 	}
 
+	/*
+	 * Adds or updates the given service-resources, and the tags associated with them in serviceTags, with bulk queries and
+	 * batched writes. Unlike other methods of this class, tag-version of affected services is not updated here; ids of such
+	 * services, and of updated tags, are added to updatedServiceIds and updatedTagIds for a later call to updateTagVersions().
+	 */
+	public void addOrUpdateServiceResourcesAndTags(ServiceTags serviceTags, List<RangerServiceResource> resources, Set<Long> updatedServiceIds, Set<Long> updatedTagIds) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> TagDBStore.addOrUpdateServiceResourcesAndTags(resourceCount=" + (resources == null ? 0 : resources.size()) + ")");
+		}
+
+		if (CollectionUtils.isNotEmpty(resources)) {
+			ServiceTagsBulkUpdater updater = new ServiceTagsBulkUpdater(daoManager, guidUtil, rangerAuditFields, errorUtil, updatedServiceIds, updatedTagIds);
+
+			updater.addOrUpdate(serviceTags, resources);
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== TagDBStore.addOrUpdateServiceResourcesAndTags(resourceCount=" + (resources == null ? 0 : resources.size()) + ")");
+		}
+	}
+
+	public void updateTagVersions(Set<Long> serviceIds, Set<Long> tagIds) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> TagDBStore.updateTagVersions(serviceIds=" + serviceIds + ", tagCount=" + (tagIds == null ? 0 : tagIds.size()) + ")");
+		}
+
+		if (CollectionUtils.isNotEmpty(serviceIds) || CollectionUtils.isNotEmpty(tagIds)) {
+			daoManager.getXXServiceVersionInfo().updateServiceVersionInfoForTagUpdates(serviceIds, tagIds, null);
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== TagDBStore.updateTagVersions(serviceIds=" + serviceIds + ", tagCount=" + (tagIds == null ? 0 : tagIds.size()) + ")");
+		}
+	}
+
 	private List<XXTagAttributeDef> createTagAttributeDefs(Long tagDefId, List<RangerTagAttributeDef> tagAttrDefList) {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("==> TagDBStore.createTagAttributeDefs(" + tagDefId + ", attributeDefCount=" + (tagAttrDefList == null ? 0 : tagAttrDefList.size()) + ")");
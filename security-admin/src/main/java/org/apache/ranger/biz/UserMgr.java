@@ -22,7 +22,9 @@ package org.apache.ranger.biz;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.persistence.Query;
 import javax.servlet.http.HttpServletResponse;
@@ -151,10 +153,7 @@ public class UserMgr {
 
 	public XXPortalUser createUser(XXPortalUser user, int userStatus,
 			Collection<String> userRoleList) {
-		user.setStatus(userStatus);
-		String saltEncodedpasswd = encrypt(user.getLoginId(),
-				user.getPassword());
-		user.setPassword(saltEncodedpasswd);
+		setStatusAndEncryptPassword(user, userStatus);
 		user = daoManager.getXXPortalUser().create(user);
 
 		// Create the UserRole for this user
@@ -173,23 +172,35 @@ public class UserMgr {
 	}
 
 	public XXPortalUser createUser(VXPortalUser userProfile, int userStatus) {
-		ArrayList<String> roleList = new ArrayList<String>();
-		Collection<String> reqRoleList = userProfile.getUserRoleList();
-		if (reqRoleList != null && reqRoleList.size() > 0) {
-            for (String role : reqRoleList) {
-                if (role != null) {
-                    roleList.add(role);
-                } else {
-                    roleList.add(RangerConstants.ROLE_USER);
-                }
-            }
-		} else {
-			roleList.add(RangerConstants.ROLE_USER);
-		}
+		List<String> roleList = getUserRoleListOrDefault(userProfile.getUserRoleList());
 
 		return createUser(userProfile, userStatus, roleList);
 	}
 
+	/*
+	 * Roles to create a user with: ROLE_USER in place of a null role, or when no role is given
+	 */
+	private static List<String> getUserRoleListOrDefault(Collection<String> reqRoleList) {
+		List<String> ret = new ArrayList<String>();
+
+		if (reqRoleList != null) {
+			for (String role : reqRoleList) {
+				ret.add(role != null ? role : RangerConstants.ROLE_USER);
+			}
+		}
+
+		if (ret.isEmpty()) {
+			ret.add(RangerConstants.ROLE_USER);
+		}
+
+		return ret;
+	}
+
+	private void setStatusAndEncryptPassword(XXPortalUser user, int userStatus) {
+		user.setStatus(userStatus);
+		user.setPassword(encrypt(user.getLoginId(), user.getPassword()));
+	}
+
 	/**
 	 * @param userProfile
 	 * @return
@@ -971,26 +982,8 @@ public class UserMgr {
 	public XXPortalUserRole addUserRole(Long userId, String userRole) {
 		List<XXPortalUserRole> roleList = daoManager.getXXPortalUserRole()
 				.findByUserId(userId);
-		boolean publicRole = false;
-		for (String publicRoleStr : publicRoles) {
-			if (publicRoleStr.equalsIgnoreCase(userRole)) {
-				publicRole = true;
-				break;
-			}
-		}
-		if (!publicRole) {
-			UserSessionBase sess = ContextUtil.getCurrentUserSession();
-			if (sess == null) {
-				return null;
-			}
-			// Admin
-			if (!sess.isUserAdmin() && !sess.isKeyAdmin()) {
-				logger.error(
-						"SECURITY WARNING: User trying to add non public role. userId="
-								+ userId + ", role=" + userRole + ", session="
-								+ sess.toString(), new Throwable());
-				return null;
-			}
+		if (!isUserRoleAllowed(userId, userRole, ContextUtil.getCurrentUserSession())) {
+			return null;
 		}
 
 		for (XXPortalUserRole gjUserRole : roleList) {
@@ -998,13 +991,7 @@ public class UserMgr {
 				return gjUserRole;
 			}
 		}
-		XXPortalUserRole userRoleObj = new XXPortalUserRole();
-                if(!VALID_ROLE_LIST.contains(userRole.toUpperCase())){
-                        throw restErrorUtil.createRESTException("Invalid user role, please provide valid user role.",MessageEnums.INVALID_INPUT_DATA);
-                }
-		userRoleObj.setUserRole(userRole.toUpperCase());
-		userRoleObj.setUserId(userId);
-		userRoleObj.setStatus(RangerConstants.STATUS_ENABLED);
+		XXPortalUserRole userRoleObj = newUserRole(userId, userRole);
 		daoManager.getXXPortalUserRole().create(userRoleObj);
 
 		// If role is not OTHER, then remove OTHER
@@ -1017,6 +1004,39 @@ public class UserMgr {
 		return null;
 	}
 
+	/*
+	 * Public roles can be added by anyone; other roles only by an admin or a key-admin
+	 */
+	private boolean isUserRoleAllowed(Long userId, String userRole, UserSessionBase sess) {
+		boolean ret = isPublicRole(userRole);
+
+		if (!ret && sess != null) {
+			if (sess.isUserAdmin() || sess.isKeyAdmin()) {
+				ret = true;
+			} else {
+				logger.error("SECURITY WARNING: User trying to add non public role. userId=" + userId + ", role=" + userRole + ", session=" + sess.toString(), new Throwable());
+			}
+		}
+
+		return ret;
+	}
+
+	private XXPortalUserRole newUserRole(Long userId, String userRole) {
+		String role = userRole.toUpperCase();
+
+		if (!VALID_ROLE_LIST.contains(role)) {
+			throw restErrorUtil.createRESTException("Invalid user role, please provide valid user role.", MessageEnums.INVALID_INPUT_DATA);
+		}
+
+		XXPortalUserRole ret = new XXPortalUserRole();
+
+		ret.setUserRole(role);
+		ret.setUserId(userId);
+		ret.setStatus(RangerConstants.STATUS_ENABLED);
+
+		return ret;
+	}
+
 	public void checkAccess(Long userId) {
 		XXPortalUser gjUser = daoManager.getXXPortalUser().getById(userId);
 		if (gjUser == null) {
@@ -1172,6 +1192,73 @@ public class UserMgr {
         return userProfileRes;
         }
 
+	/**
+	 * Creates portal users, with their roles, for external users that don't have one yet - as
+	 * createDefaultAccountUser() does for a single user without password and email address. The portal users and
+	 * their roles are persisted with one flush each; the caller is expected to have checked that the login ids
+	 * don't exist.
+	 */
+	public List<XXPortalUser> createDefaultAccountUsers(List<VXPortalUser> userProfiles) {
+		checkAdminAccess();
+
+		List<XXPortalUser>     ret       = new ArrayList<XXPortalUser>(userProfiles.size());
+		List<List<String>>     userRoles = new ArrayList<List<String>>(userProfiles.size());
+		Set<String>            allRoles  = new HashSet<String>();
+
+		for (VXPortalUser userProfile : userProfiles) {
+			List<String> roleList = getUserRoleListOrDefault(userProfile.getUserRoleList());
+
+			userProfile.setUserSource(RangerCommonEnums.USER_EXTERNAL);
+			userProfile.setEmailAddress(null);
+
+			XXPortalUser user = mapVXPortalUserToXXPortalUser(userProfile);
+
+			setStatusAndEncryptPassword(user, RangerCommonEnums.STATUS_ENABLED);
+
+			ret.add(user);
+			userRoles.add(roleList);
+			allRoles.addAll(roleList);
+		}
+
+		xUserMgr.checkAccessRoles(new ArrayList<String>(allRoles));
+
+		daoManager.getXXPortalUser().batchCreate(ret);
+
+		UserSessionBase        sess            = ContextUtil.getCurrentUserSession();
+		List<XXPortalUserRole> portalUserRoles = new ArrayList<XXPortalUserRole>();
+
+		for (int i = 0; i < ret.size(); i++) {
+			Long        userId     = ret.get(i).getId();
+			Set<String> addedRoles = new HashSet<String>();
+
+			for (String userRole : userRoles.get(i)) {
+				if (!addedRoles.add(userRole.toUpperCase()) || !isUserRoleAllowed(userId, userRole, sess)) {
+					continue;
+				}
+
+				portalUserRoles.add(newUserRole(userId, userRole));
+			}
+		}
+
+		daoManager.getXXPortalUserRole().batchCreate(portalUserRoles);
+
+		if (!portalUserRoles.isEmpty()) {
+			sessionMgr.resetUserSessionForProfiles(sess);
+		}
+
+		return ret;
+	}
+
+	private boolean isPublicRole(String userRole) {
+		for (String publicRoleStr : publicRoles) {
+			if (publicRoleStr.equalsIgnoreCase(userRole)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
     protected VXPortalUser updateRoleForExternalUsers(
             Collection<String> reqRoleList,
             Collection<String> existingRoleList, VXPortalUser userProfileRes) {
@@ -23,12 +23,14 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.ranger.common.ContextUtil;
+import org.apache.ranger.common.DateUtil;
 import org.apache.ranger.common.GUIDUtil;
 import org.apache.ranger.common.RangerCommonEnums;
 import org.apache.ranger.entity.XXGroupPermission;
@@ -85,6 +87,7 @@ import org.apache.ranger.service.XGroupService;
 import org.apache.ranger.service.XUserService;
 import org.apache.ranger.view.VXAuditMap;
 import org.apache.ranger.view.VXAuditMapList;
+import org.apache.ranger.view.VXBulkUserGroupInfo;
 import org.apache.ranger.view.VXGroup;
 import org.apache.ranger.view.VXGroupGroup;
 import org.apache.ranger.view.VXGroupList;
@@ -261,25 +264,9 @@ public class XUserMgr extends XUserMgrBase {
 		if(moduleNameId!=null && vXPortalUser!=null){
 			if(CollectionUtils.isNotEmpty(vXPortalUser.getUserRoleList())){
 				for (String role : vXPortalUser.getUserRoleList()) {
-
-					if (role.equals(RangerConstants.ROLE_USER)) {
-
-						createOrUpdateUserPermisson(vXPortalUser, moduleNameId.get(RangerConstants.MODULE_RESOURCE_BASED_POLICIES), isCreate);
-						createOrUpdateUserPermisson(vXPortalUser, moduleNameId.get(RangerConstants.MODULE_REPORTS), isCreate);
-					} else if (role.equals(RangerConstants.ROLE_SYS_ADMIN)) {
-
-						createOrUpdateUserPermisson(vXPortalUser, moduleNameId.get(RangerConstants.MODULE_REPORTS), isCreate);
-						createOrUpdateUserPermisson(vXPortalUser, moduleNameId.get(RangerConstants.MODULE_RESOURCE_BASED_POLICIES), isCreate);
-						createOrUpdateUserPermisson(vXPortalUser, moduleNameId.get(RangerConstants.MODULE_AUDIT), isCreate);
-						createOrUpdateUserPermisson(vXPortalUser, moduleNameId.get(RangerConstants.MODULE_USER_GROUPS), isCreate);
-						createOrUpdateUserPermisson(vXPortalUser, moduleNameId.get(RangerConstants.MODULE_TAG_BASED_POLICIES), isCreate);
-					} else if (role.equals(RangerConstants.ROLE_KEY_ADMIN)) {
-
-						createOrUpdateUserPermisson(vXPortalUser, moduleNameId.get(RangerConstants.MODULE_KEY_MANAGER), isCreate);
-						createOrUpdateUserPermisson(vXPortalUser, moduleNameId.get(RangerConstants.MODULE_REPORTS), isCreate);
-						createOrUpdateUserPermisson(vXPortalUser, moduleNameId.get(RangerConstants.MODULE_RESOURCE_BASED_POLICIES), isCreate);
+					for (String module : getModulesForRole(role)) {
+						createOrUpdateUserPermisson(vXPortalUser, moduleNameId.get(module), isCreate);
 					}
-
 				}
 			}
 		}
@@ -619,6 +606,393 @@ public class XUserMgr extends XUserMgrBase {
 		return vxGUInfo;
 	}
 	
+	/**
+	 * Creates the users, groups and group memberships sent by usersync in a single call. Existing users, groups,
+	 * memberships, roles and permissions are found with one query per BaseDao.MAX_IN_CLAUSE_SIZE names or ids,
+	 * instead of a few queries per name, and missing ones are persisted with one flush per entity type. Ids of these
+	 * entities are generated by the database on MySQL (IDENTITY), where the inserts are still sent one at a time.
+	 * Unlike createXUserGroupFromMap()/createXGroupUserFromMap(), existing users and groups are not updated, other
+	 * than the roles of external users; and permissions are assigned only to new users and to users whose roles
+	 * changed.
+	 */
+	@Transactional(readOnly = false, propagation = Propagation.REQUIRED)
+	public VXResponse createOrUpdateXUserGroupsInBulk(VXBulkUserGroupInfo vXBulkUserGroupInfo) {
+		checkAdminAccess();
+
+		List<VXGroup>         groupInfos     = vXBulkUserGroupInfo.getXgroupInfo() != null ? vXBulkUserGroupInfo.getXgroupInfo() : new ArrayList<VXGroup>();
+		List<VXUserGroupInfo> userGroupInfos = vXBulkUserGroupInfo.getXuserGroupInfo() != null ? vXBulkUserGroupInfo.getXuserGroupInfo() : new ArrayList<VXUserGroupInfo>();
+		List<VXGroupUserInfo> groupUserInfos = vXBulkUserGroupInfo.getXgroupUserInfo() != null ? vXBulkUserGroupInfo.getXgroupUserInfo() : new ArrayList<VXGroupUserInfo>();
+
+		Map<String, VXUser> usersToCreate = new LinkedHashMap<String, VXUser>();
+		Set<String>         userNames     = new HashSet<String>();
+
+		for (VXUserGroupInfo userGroupInfo : userGroupInfos) {
+			VXUser vXUser = userGroupInfo.getXuserInfo();
+
+			if (vXUser != null && isValidName(vXUser.getName())) {
+				usersToCreate.put(vXUser.getName(), vXUser);
+				userNames.add(vXUser.getName());
+			}
+		}
+
+		for (VXGroupUserInfo groupUserInfo : groupUserInfos) {
+			if (groupUserInfo.getXuserInfo() != null) {
+				for (VXUser vXUser : groupUserInfo.getXuserInfo()) {
+					if (vXUser != null && isValidName(vXUser.getName())) {
+						userNames.add(vXUser.getName());
+					}
+				}
+			}
+		}
+
+		Map<String, XXPortalUser> portalUsers = new HashMap<String, XXPortalUser>();
+		Map<String, XXUser>       xUsers      = new HashMap<String, XXUser>();
+		Set<String>               usersToAssignPermission = new HashSet<String>();
+
+		for (XXPortalUser xXPortalUser : daoManager.getXXPortalUser().findByLoginIds(userNames)) {
+			portalUsers.put(xXPortalUser.getLoginId(), xXPortalUser);
+		}
+
+		for (XXUser xUser : daoManager.getXXUser().findByUserNames(userNames)) {
+			xUsers.put(xUser.getName(), xUser);
+		}
+
+		Map<Long, List<String>> portalUserRoles = getRolesByPortalUserId(portalUsers.values());
+
+		// portal users, as created by UserREST.createDefaultAccountUser() for each user
+		List<VXPortalUser> newPortalUsers = new ArrayList<VXPortalUser>();
+
+		for (VXUser vXUser : usersToCreate.values()) {
+			XXPortalUser xXPortalUser = portalUsers.get(vXUser.getName());
+
+			if (xXPortalUser == null) {
+				VXPortalUser vXPortalUser = new VXPortalUser();
+
+				vXPortalUser.setLoginId(vXUser.getName());
+				vXPortalUser.setFirstName(vXUser.getName());
+				vXPortalUser.setLastName(vXUser.getName());
+				vXPortalUser.setUserRoleList(vXUser.getUserRoleList());
+
+				newPortalUsers.add(vXPortalUser);
+			} else if (updateRolesForExternalUser(xXPortalUser, vXUser.getUserRoleList(), portalUserRoles)) {
+				usersToAssignPermission.add(vXUser.getName());
+			}
+		}
+
+		if (!newPortalUsers.isEmpty()) {
+			for (XXPortalUser xXPortalUser : userMgr.createDefaultAccountUsers(newPortalUsers)) {
+				portalUsers.put(xXPortalUser.getLoginId(), xXPortalUser);
+			}
+		}
+
+		List<VXUser> newUsers = new ArrayList<VXUser>();
+
+		for (VXUser vXUser : usersToCreate.values()) {
+			if (!xUsers.containsKey(vXUser.getName())) {
+				newUsers.add(vXUser);
+				usersToAssignPermission.add(vXUser.getName());
+			}
+		}
+
+		for (XXUser xUser : xUserService.createXUsersWithOutLogin(newUsers)) {
+			xUsers.put(xUser.getName(), xUser);
+		}
+
+		// groups: the given groups, groups of the given users, and groups having at least one existing member
+		Map<String, VXGroup> groupsToCreate = new LinkedHashMap<String, VXGroup>();
+
+		for (VXGroup vXGroup : groupInfos) {
+			if (vXGroup != null && isValidName(vXGroup.getName())) {
+				groupsToCreate.put(vXGroup.getName(), vXGroup);
+			}
+		}
+
+		for (VXUserGroupInfo userGroupInfo : userGroupInfos) {
+			if (userGroupInfo.getXgroupInfo() != null) {
+				for (VXGroup vXGroup : userGroupInfo.getXgroupInfo()) {
+					if (vXGroup != null && isValidName(vXGroup.getName()) && !groupsToCreate.containsKey(vXGroup.getName())) {
+						groupsToCreate.put(vXGroup.getName(), vXGroup);
+					}
+				}
+			}
+		}
+
+		for (VXGroupUserInfo groupUserInfo : groupUserInfos) {
+			VXGroup vXGroup = groupUserInfo.getXgroupInfo();
+
+			if (vXGroup != null && isValidName(vXGroup.getName()) && !groupsToCreate.containsKey(vXGroup.getName()) && groupUserInfo.getXuserInfo() != null) {
+				for (VXUser vXUser : groupUserInfo.getXuserInfo()) {
+					if (vXUser != null && xUsers.containsKey(vXUser.getName())) {
+						groupsToCreate.put(vXGroup.getName(), vXGroup);
+						break;
+					}
+				}
+			}
+		}
+
+		Map<String, XXGroup> xGroups   = new HashMap<String, XXGroup>();
+		List<VXGroup>        newGroups = new ArrayList<VXGroup>();
+
+		for (XXGroup xGroup : daoManager.getXXGroup().findByGroupNames(groupsToCreate.keySet())) {
+			xGroups.put(xGroup.getName(), xGroup);
+		}
+
+		for (VXGroup vXGroup : groupsToCreate.values()) {
+			if (!xGroups.containsKey(vXGroup.getName())) {
+				newGroups.add(vXGroup);
+			}
+		}
+
+		for (XXGroup xGroup : xGroupService.createXGroupsWithOutLogin(newGroups)) {
+			xGroups.put(xGroup.getName(), xGroup);
+		}
+
+		// group memberships
+		Set<Long>   userIds          = new HashSet<Long>();
+		Set<String> groupUserMapKeys = new HashSet<String>();
+
+		for (XXUser xUser : xUsers.values()) {
+			userIds.add(xUser.getId());
+		}
+
+		for (XXGroupUser xGroupUser : daoManager.getXXGroupUser().findByUserIds(userIds)) {
+			groupUserMapKeys.add(xGroupUser.getParentGroupId() + ":" + xGroupUser.getUserId());
+		}
+
+		List<VXGroupUser> newGroupUsers = new ArrayList<VXGroupUser>();
+
+		for (VXUserGroupInfo userGroupInfo : userGroupInfos) {
+			XXUser xUser = userGroupInfo.getXuserInfo() != null ? xUsers.get(userGroupInfo.getXuserInfo().getName()) : null;
+
+			if (xUser != null && userGroupInfo.getXgroupInfo() != null) {
+				for (VXGroup vXGroup : userGroupInfo.getXgroupInfo()) {
+					XXGroup xGroup = vXGroup != null ? xGroups.get(vXGroup.getName()) : null;
+
+					addGroupUserIfNotExists(xGroup, xUser, groupUserMapKeys, newGroupUsers);
+				}
+			}
+		}
+
+		for (VXGroupUserInfo groupUserInfo : groupUserInfos) {
+			XXGroup xGroup = groupUserInfo.getXgroupInfo() != null ? xGroups.get(groupUserInfo.getXgroupInfo().getName()) : null;
+
+			if (xGroup == null || groupUserInfo.getXuserInfo() == null) {
+				continue;
+			}
+
+			for (VXUser vXUser : groupUserInfo.getXuserInfo()) {
+				XXUser       xUser        = vXUser != null ? xUsers.get(vXUser.getName()) : null;
+				XXPortalUser xXPortalUser = vXUser != null ? portalUsers.get(vXUser.getName()) : null;
+
+				if (xUser == null || xXPortalUser == null || xXPortalUser.getUserSource() != RangerCommonEnums.USER_EXTERNAL) {
+					continue;
+				}
+
+				addGroupUserIfNotExists(xGroup, xUser, groupUserMapKeys, newGroupUsers);
+
+				if (updateRolesForExternalUser(xXPortalUser, vXUser.getUserRoleList(), portalUserRoles)) {
+					usersToAssignPermission.add(vXUser.getName());
+				}
+			}
+		}
+
+		xGroupUserService.createXGroupUsersWithOutLogin(newGroupUsers);
+
+		List<XXPortalUser> permissionUsers = new ArrayList<XXPortalUser>(usersToAssignPermission.size());
+
+		for (String userName : usersToAssignPermission) {
+			XXPortalUser xXPortalUser = portalUsers.get(userName);
+
+			if (xXPortalUser != null && xUsers.containsKey(userName)) {
+				permissionUsers.add(xXPortalUser);
+			}
+		}
+
+		assignPermissionToUsers(permissionUsers);
+
+		String msg = "created " + newUsers.size() + " users, " + newGroups.size() + " groups, " + newGroupUsers.size() + " group-user mappings";
+
+		logger.info("createOrUpdateXUserGroupsInBulk(): " + msg);
+
+		VXResponse ret = new VXResponse();
+
+		ret.setStatusCode(VXResponse.STATUS_SUCCESS);
+		ret.setMsgDesc(msg);
+
+		return ret;
+	}
+
+	private boolean isValidName(String name) {
+		return name != null && !name.trim().isEmpty() && !"null".equalsIgnoreCase(name);
+	}
+
+	private void addGroupUserIfNotExists(XXGroup xGroup, XXUser xUser, Set<String> groupUserMapKeys, List<VXGroupUser> newGroupUsers) {
+		if (xGroup != null && groupUserMapKeys.add(xGroup.getId() + ":" + xUser.getId())) {
+			VXGroupUser vXGroupUser = new VXGroupUser();
+
+			vXGroupUser.setName(xGroup.getName());
+			vXGroupUser.setParentGroupId(xGroup.getId());
+			vXGroupUser.setUserId(xUser.getId());
+
+			newGroupUsers.add(vXGroupUser);
+		}
+	}
+
+	/*
+	 * Updates roles of an external user the same way as createXUserGroupFromMap() does; returns true if the
+	 * roles were changed, in which case permissions must be assigned again. portalUserRoles holds the roles of the
+	 * existing portal users, and is updated with the new roles.
+	 */
+	private boolean updateRolesForExternalUser(XXPortalUser xXPortalUser, Collection<String> reqRoleList, Map<Long, List<String>> portalUserRoles) {
+		boolean ret = false;
+
+		if (xXPortalUser != null && xXPortalUser.getUserSource() == RangerCommonEnums.USER_EXTERNAL
+				&& CollectionUtils.isNotEmpty(reqRoleList) && reqRoleList.iterator().next() != null) {
+			List<String> existingRole = portalUserRoles.get(xXPortalUser.getId());
+
+			if (existingRole == null) {
+				existingRole = new ArrayList<String>();
+			}
+
+			if (!reqRoleList.equals(existingRole)) {
+				VXPortalUser vXPortalUser = userManager.mapXXPortalUserToVXPortalUserForDefaultAccount(xXPortalUser);
+
+				userManager.updateRoleForExternalUsers(reqRoleList, existingRole, vXPortalUser);
+
+				portalUserRoles.put(xXPortalUser.getId(), new ArrayList<String>(reqRoleList));
+
+				ret = true;
+			}
+		}
+
+		return ret;
+	}
+
+	private Map<Long, List<String>> getRolesByPortalUserId(Collection<XXPortalUser> xXPortalUsers) {
+		Map<Long, List<String>> ret           = new HashMap<Long, List<String>>();
+		Set<Long>               portalUserIds = new HashSet<Long>();
+
+		for (XXPortalUser xXPortalUser : xXPortalUsers) {
+			portalUserIds.add(xXPortalUser.getId());
+		}
+
+		for (XXPortalUserRole xXPortalUserRole : daoManager.getXXPortalUserRole().findByUserIds(portalUserIds)) {
+			List<String> roles = ret.get(xXPortalUserRole.getUserId());
+
+			if (roles == null) {
+				roles = new ArrayList<String>();
+
+				ret.put(xXPortalUserRole.getUserId(), roles);
+			}
+
+			roles.add(xXPortalUserRole.getUserRole());
+		}
+
+		return ret;
+	}
+
+	/*
+	 * Assigns module permissions to the given users based on their roles, as assignPermissionToUser() does for a
+	 * single user: roles and existing permissions of all users are read with IN-clause queries, and missing
+	 * permissions are persisted with one flush.
+	 */
+	private void assignPermissionToUsers(List<XXPortalUser> xXPortalUsers) {
+		if (xXPortalUsers.isEmpty()) {
+			return;
+		}
+
+		HashMap<String, Long> moduleNameId = getAllModuleNameAndIdMap();
+
+		if (moduleNameId == null) {
+			return;
+		}
+
+		Map<Long, List<String>> portalUserRoles = getRolesByPortalUserId(xXPortalUsers);
+		Map<Long, Set<Long>>    userModuleIds   = new HashMap<Long, Set<Long>>();
+
+		for (XXPortalUser xXPortalUser : xXPortalUsers) {
+			List<String> roles = portalUserRoles.get(xXPortalUser.getId());
+
+			if (roles != null) {
+				Set<Long> moduleIds = new HashSet<Long>();
+
+				for (String role : roles) {
+					for (String module : getModulesForRole(role)) {
+						if (moduleNameId.get(module) != null) {
+							moduleIds.add(moduleNameId.get(module));
+						}
+					}
+				}
+
+				userModuleIds.put(xXPortalUser.getId(), moduleIds);
+			}
+		}
+
+		List<XXUserPermission> permissionsToCreate = new ArrayList<XXUserPermission>();
+		Set<Long>              updatedUserIds      = new HashSet<Long>();
+
+		for (XXUserPermission xUserPermission : daoManager.getXXUserPermission().findByUserIds(userModuleIds.keySet())) {
+			Set<Long> moduleIds = userModuleIds.get(xUserPermission.getUserId());
+
+			if (moduleIds != null && moduleIds.remove(xUserPermission.getModuleId()) && !Integer.valueOf(RangerCommonEnums.IS_ALLOWED).equals(xUserPermission.getIsAllowed())) {
+				xUserPermission.setIsAllowed(RangerCommonEnums.IS_ALLOWED);
+				xUserPermission.setUpdateTime(DateUtil.getUTCDate());
+				xUserPermission.setUpdatedByUserId(ContextUtil.getCurrentUserId());
+
+				daoManager.getXXUserPermission().update(xUserPermission);
+
+				updatedUserIds.add(xUserPermission.getUserId());
+			}
+		}
+
+		for (Map.Entry<Long, Set<Long>> entry : userModuleIds.entrySet()) {
+			for (Long moduleId : entry.getValue()) {
+				XXUserPermission xUserPermission = new XXUserPermission();
+
+				xUserPermission.setUserId(entry.getKey());
+				xUserPermission.setModuleId(moduleId);
+				xUserPermission.setIsAllowed(RangerCommonEnums.IS_ALLOWED);
+				xUserPermission.setAddedByUserId(ContextUtil.getCurrentUserId());
+				xUserPermission.setUpdatedByUserId(ContextUtil.getCurrentUserId());
+
+				permissionsToCreate.add(xUserPermission);
+
+				updatedUserIds.add(entry.getKey());
+			}
+		}
+
+		daoManager.getXXUserPermission().batchCreate(permissionsToCreate);
+
+		for (Long portalUserId : updatedUserIds) {
+			Set<UserSessionBase> userSessions = sessionMgr.getActiveUserSessionsForPortalUserId(portalUserId);
+
+			if (!CollectionUtils.isEmpty(userSessions)) {
+				for (UserSessionBase userSession : userSessions) {
+					sessionMgr.resetUserModulePermission(userSession);
+				}
+			}
+		}
+
+		logger.info("assignPermissionToUsers(): assigned " + permissionsToCreate.size() + " permissions to " + xXPortalUsers.size() + " users");
+	}
+
+	private static String[] getModulesForRole(String role) {
+		final String[] ret;
+
+		if (RangerConstants.ROLE_USER.equals(role)) {
+			ret = new String[] { RangerConstants.MODULE_RESOURCE_BASED_POLICIES, RangerConstants.MODULE_REPORTS };
+		} else if (RangerConstants.ROLE_SYS_ADMIN.equals(role)) {
+			ret = new String[] { RangerConstants.MODULE_REPORTS, RangerConstants.MODULE_RESOURCE_BASED_POLICIES, RangerConstants.MODULE_AUDIT,
+			                     RangerConstants.MODULE_USER_GROUPS, RangerConstants.MODULE_TAG_BASED_POLICIES };
+		} else if (RangerConstants.ROLE_KEY_ADMIN.equals(role)) {
+			ret = new String[] { RangerConstants.MODULE_KEY_MANAGER, RangerConstants.MODULE_REPORTS, RangerConstants.MODULE_RESOURCE_BASED_POLICIES };
+		} else {
+			ret = new String[0];
+		}
+
+		return ret;
+	}
+
 	public VXGroupUserInfo getXGroupUserFromMap(
 			String groupName) {
 		checkAdminAccess();
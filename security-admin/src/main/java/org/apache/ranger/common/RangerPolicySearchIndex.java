@@ -0,0 +1,342 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.util.SearchFilter;
+
+/**
+ * Secondary index of the policies of a service, built once per cached policy-version, to narrow down policy searches
+ * from the admin UI/REST.
+ *
+ * The index maps users, groups, policy names, policy ids, policy types, enabled state and resource values to the
+ * positions of matching policies in the list. getCandidates() intersects these for the search parameters in a filter,
+ * and returns a superset of the policies that match the filter; the search predicates are then evaluated only on these
+ * candidates, so the search results are the same as with a full scan.
+ */
+public class RangerPolicySearchIndex {
+	private static final Log LOG = LogFactory.getLog(RangerPolicySearchIndex.class);
+
+	private final List<RangerPolicy>                 policies;
+	private final Map<String, BitSet>                userIndex        = new HashMap<>();
+	private final Map<String, BitSet>                groupIndex       = new HashMap<>();
+	private final Map<String, BitSet>                policyNameIndex  = new HashMap<>();
+	private final Map<Long, BitSet>                  policyIdIndex    = new HashMap<>();
+	private final Map<String, BitSet>                policyTypeIndex  = new HashMap<>();
+	private final BitSet                             noPolicyType     = new BitSet();
+	private final BitSet                             enabled          = new BitSet();
+	private final Map<String, ResourceValueIndex>    resourceIndex    = new HashMap<>();
+
+	public RangerPolicySearchIndex(List<RangerPolicy> policies) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerPolicySearchIndex(policyCount=" + (policies == null ? 0 : policies.size()) + ")");
+		}
+
+		this.policies = policies != null ? policies : Collections.<RangerPolicy>emptyList();
+
+		for (int i = 0; i < this.policies.size(); i++) {
+			RangerPolicy policy = this.policies.get(i);
+
+			if (policy != null) {
+				addPolicy(i, policy);
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerPolicySearchIndex(policyCount=" + this.policies.size() + "): users=" + userIndex.size() + ", groups=" + groupIndex.size() + ", resources=" + resourceIndex.keySet());
+		}
+	}
+
+	public List<RangerPolicy> getPolicies() {
+		return policies;
+	}
+
+	/*
+	 * Returns positions of the policies that could match the filter, or null if the filter has no indexed parameter
+	 */
+	public BitSet getCandidates(SearchFilter filter) {
+		if (filter == null || filter.isEmpty()) {
+			return null;
+		}
+
+		BitSet ret = null;
+
+		ret = intersect(ret, getMatches(userIndex, filter.getParam(SearchFilter.USER)));
+		ret = intersect(ret, getMatches(groupIndex, filter.getParam(SearchFilter.GROUP)));
+		ret = intersect(ret, getMatches(policyNameIndex, filter.getParam(SearchFilter.POLICY_NAME)));
+		ret = intersect(ret, getPolicyIdMatches(filter.getParam(SearchFilter.POLICY_ID)));
+		ret = intersect(ret, getPolicyTypeMatches(filter.getParam(SearchFilter.POLICY_TYPE)));
+		ret = intersect(ret, getIsEnabledMatches(filter.getParam(SearchFilter.IS_ENABLED)));
+
+		Map<String, String> filterResources = filter.getParamsWithPrefix(SearchFilter.RESOURCE_PREFIX, true);
+
+		if (MapUtils.isNotEmpty(filterResources)) {
+			for (Map.Entry<String, String> entry : filterResources.entrySet()) {
+				ResourceValueIndex valueIndex = resourceIndex.get(entry.getKey());
+
+				ret = intersect(ret, valueIndex != null ? valueIndex.getMatches(entry.getValue()) : new BitSet());
+			}
+		}
+
+		return ret;
+	}
+
+	public List<RangerPolicy> getPolicies(BitSet positions) {
+		List<RangerPolicy> ret = new ArrayList<>(positions.cardinality());
+
+		for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+			ret.add(policies.get(i));
+		}
+
+		return ret;
+	}
+
+	private void addPolicy(int position, RangerPolicy policy) {
+		List<?>[] policyItemsList = new List<?>[] { policy.getPolicyItems(),
+		                                            policy.getDenyPolicyItems(),
+		                                            policy.getAllowExceptions(),
+		                                            policy.getDenyExceptions(),
+		                                            policy.getDataMaskPolicyItems(),
+		                                            policy.getRowFilterPolicyItems()
+		                                          };
+
+		for (List<?> policyItemsObj : policyItemsList) {
+			if (policyItemsObj == null) {
+				continue;
+			}
+
+			for (Object policyItemObj : policyItemsObj) {
+				RangerPolicyItem policyItem = (RangerPolicyItem) policyItemObj;
+
+				if (policyItem == null) {
+					continue;
+				}
+
+				addAll(userIndex, policyItem.getUsers(), position);
+				addAll(groupIndex, policyItem.getGroups(), position);
+			}
+		}
+
+		if (policy.getName() != null) {
+			add(policyNameIndex, policy.getName(), position);
+		}
+
+		if (policy.getId() != null) {
+			add(policyIdIndex, policy.getId(), position);
+		}
+
+		if (policy.getPolicyType() != null) {
+			add(policyTypeIndex, policy.getPolicyType().toString(), position);
+		} else {
+			noPolicyType.set(position);
+		}
+
+		if (Boolean.TRUE.equals(policy.getIsEnabled())) {
+			enabled.set(position);
+		}
+
+		if (MapUtils.isNotEmpty(policy.getResources())) {
+			for (Map.Entry<String, RangerPolicyResource> entry : policy.getResources().entrySet()) {
+				RangerPolicyResource policyResource = entry.getValue();
+
+				if (policyResource == null || CollectionUtils.isEmpty(policyResource.getValues())) {
+					continue;
+				}
+
+				ResourceValueIndex valueIndex = resourceIndex.get(entry.getKey());
+
+				if (valueIndex == null) {
+					valueIndex = new ResourceValueIndex();
+
+					resourceIndex.put(entry.getKey(), valueIndex);
+				}
+
+				for (String value : policyResource.getValues()) {
+					if (value != null) {
+						valueIndex.add(value, position);
+					}
+				}
+			}
+		}
+	}
+
+	private BitSet getPolicyIdMatches(String policyId) {
+		BitSet ret = null;
+
+		if (StringUtils.isNotEmpty(policyId)) {
+			try {
+				ret = getMatches(policyIdIndex, Long.valueOf(policyId));
+			} catch (NumberFormatException excp) {
+				ret = new BitSet();
+			}
+		}
+
+		return ret;
+	}
+
+	private BitSet getPolicyTypeMatches(String policyType) {
+		BitSet ret = null;
+
+		if (StringUtils.isNotEmpty(policyType)) {
+			ret = (BitSet) noPolicyType.clone();
+
+			// policy types are numeric, hence case-insensitive comparison of the search value is same as equality
+			BitSet typeMatches = policyTypeIndex.get(policyType);
+
+			if (typeMatches != null) {
+				ret.or(typeMatches);
+			}
+		}
+
+		return ret;
+	}
+
+	private BitSet getIsEnabledMatches(String status) {
+		BitSet ret = null;
+
+		if (StringUtils.isNotEmpty(status)) {
+			ret = (BitSet) enabled.clone();
+
+			if (!Boolean.parseBoolean(status)) {
+				ret.flip(0, policies.size());
+			}
+		}
+
+		return ret;
+	}
+
+	private static <K> BitSet getMatches(Map<K, BitSet> index, K key) {
+		BitSet ret = null;
+
+		if (key != null && !"".equals(key)) {
+			ret = index.get(key);
+
+			if (ret == null) {
+				ret = new BitSet();
+			}
+		}
+
+		return ret;
+	}
+
+	/*
+	 * Returns the intersection, without modifying either argument; a null argument stands for "all policies"
+	 */
+	private static BitSet intersect(BitSet current, BitSet matches) {
+		BitSet ret;
+
+		if (matches == null) {
+			ret = current;
+		} else if (current == null) {
+			ret = (BitSet) matches.clone();
+		} else {
+			ret = current;
+
+			ret.and(matches);
+		}
+
+		return ret;
+	}
+
+	private static <K> void add(Map<K, BitSet> index, K key, int position) {
+		BitSet positions = index.get(key);
+
+		if (positions == null) {
+			positions = new BitSet();
+
+			index.put(key, positions);
+		}
+
+		positions.set(position);
+	}
+
+	private static void addAll(Map<String, BitSet> index, List<String> keys, int position) {
+		if (keys != null) {
+			for (String key : keys) {
+				if (key != null) {
+					add(index, key, position);
+				}
+			}
+		}
+	}
+
+	/*
+	 * Search for resource:<name>=<value> matches a policy that has the value, or a wildcard value that matches it.
+	 * Wildcard values are indexed by their literal prefix - the part before the first '*' or '?' - hence only values
+	 * whose prefix is a prefix of the searched value need to be considered.
+	 */
+	private static class ResourceValueIndex {
+		private final Map<String, BitSet> exactValues      = new HashMap<>();
+		private final Map<String, BitSet> wildcardPrefixes = new HashMap<>();
+		private       int                 maxPrefixLength  = -1;
+
+		void add(String value, int position) {
+			int wildcardPos = StringUtils.indexOfAny(value, "*?");
+
+			if (wildcardPos == -1) {
+				RangerPolicySearchIndex.add(exactValues, value, position);
+			} else {
+				RangerPolicySearchIndex.add(wildcardPrefixes, value.substring(0, wildcardPos), position);
+
+				maxPrefixLength = Math.max(maxPrefixLength, wildcardPos);
+			}
+		}
+
+		BitSet getMatches(String value) {
+			BitSet ret = new BitSet();
+
+			if (value == null) {
+				return ret;
+			}
+
+			BitSet exactMatches = exactValues.get(value);
+
+			if (exactMatches != null) {
+				ret.or(exactMatches);
+			}
+
+			int maxLen = Math.min(value.length(), maxPrefixLength);
+
+			for (int len = 0; len <= maxLen; len++) {
+				BitSet prefixMatches = wildcardPrefixes.get(value.substring(0, len));
+
+				if (prefixMatches != null) {
+					ret.or(prefixMatches);
+				}
+			}
+
+			return ret;
+		}
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.ObjectUtils;
+import org.apache.ranger.plugin.model.RangerPolicy;
+
+/**
+ * Index of policy names and resource signatures of a service, used by policy validation to check uniqueness of the
+ * name and of the resources of a policy.
+ *
+ * An index is built for a policy-version of the service, identified by the version and its update time; it must be
+ * used only while the service is at that policy-version. The update time is part of the identity so that an index
+ * built in a transaction that is later rolled back is not taken to be current when another transaction moves the
+ * service to the same version number. A committed policy change moves the index to the next policy-version with
+ * update(), so that the index is rebuilt only when it misses a change.
+ */
+public class RangerPolicyValidationIndex {
+	private final Long                    serviceId;
+	private       Long                    policyVersion;
+	private       Date                    policyUpdateTime;
+	private final Map<Long, String[]>     nameAndSignatureById = new HashMap<>();
+	private final Map<String, List<Long>> policyIdsByName      = new HashMap<>();
+	private final Map<String, List<Long>> policyIdsBySignature = new HashMap<>();
+
+	public RangerPolicyValidationIndex(Long serviceId, Long policyVersion, Date policyUpdateTime) {
+		this.serviceId        = serviceId;
+		this.policyVersion    = policyVersion;
+		this.policyUpdateTime = policyUpdateTime;
+	}
+
+	/*
+	 * To be called only while building the index, before it is shared
+	 */
+	public void addPolicy(Long id, String name, String resourceSignature, boolean isEnabled) {
+		// resource uniqueness is enforced only for enabled policies
+		String signature = isEnabled ? resourceSignature : null;
+
+		nameAndSignatureById.put(id, new String[] { name, signature });
+
+		if (name != null) {
+			add(policyIdsByName, name, id);
+		}
+
+		if (signature != null) {
+			add(policyIdsBySignature, signature, id);
+		}
+	}
+
+	/**
+	 * Moves the index from the given policy-version to the next one, in which the given policy was created or updated
+	 * @param policyVersion policy-version the change was made on
+	 * @param policyUpdateTime update time of that policy-version
+	 * @param newPolicyVersion policy-version after the change
+	 * @param newPolicyUpdateTime update time of the new policy-version
+	 * @param policyId id of the policy
+	 * @param policy the policy after the change; null if it was deleted
+	 * @return false, leaving the index unchanged, if the index is not at the given policy-version
+	 */
+	public synchronized boolean update(Long policyVersion, Date policyUpdateTime, Long newPolicyVersion, Date newPolicyUpdateTime, Long policyId, RangerPolicy policy) {
+		boolean ret = isCurrent(serviceId, policyVersion, policyUpdateTime);
+
+		if (ret) {
+			String[] existing = nameAndSignatureById.remove(policyId);
+
+			if (existing != null) {
+				remove(policyIdsByName, existing[0], policyId);
+				remove(policyIdsBySignature, existing[1], policyId);
+			}
+
+			if (policy != null) {
+				addPolicy(policyId, policy.getName(), policy.getResourceSignature(), Boolean.TRUE.equals(policy.getIsEnabled()));
+			}
+
+			this.policyVersion    = newPolicyVersion;
+			this.policyUpdateTime = newPolicyUpdateTime;
+		}
+
+		return ret;
+	}
+
+	public synchronized boolean isCurrent(Long serviceId, Long policyVersion, Date policyUpdateTime) {
+		return ObjectUtils.equals(this.serviceId, serviceId)
+				&& ObjectUtils.equals(this.policyVersion, policyVersion)
+				&& isSameTime(this.policyUpdateTime, policyUpdateTime);
+	}
+
+	public synchronized List<Long> getPolicyIdsByName(String name) {
+		return get(policyIdsByName, name);
+	}
+
+	public synchronized List<Long> getEnabledPolicyIdsBySignature(String resourceSignature) {
+		return get(policyIdsBySignature, resourceSignature);
+	}
+
+	public Long getServiceId() {
+		return serviceId;
+	}
+
+	public synchronized Long getPolicyVersion() {
+		return policyVersion;
+	}
+
+	public synchronized int getPolicyCount() {
+		return nameAndSignatureById.size();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "RangerPolicyValidationIndex={serviceId=" + serviceId + ", policyVersion=" + policyVersion + ", policyUpdateTime=" + policyUpdateTime
+				+ ", policyCount=" + nameAndSignatureById.size() + ", names=" + policyIdsByName.size() + ", signatures=" + policyIdsBySignature.size() + "}";
+	}
+
+	// java.sql.Timestamp.equals(Date) is false even for the same instant, hence the comparison of time values. An index
+	// updated after a commit has the time set by the transaction, which the database may have stored without milliseconds
+	private static boolean isSameTime(Date date1, Date date2) {
+		return date1 == null ? date2 == null : (date2 != null && date1.getTime() / 1000 == date2.getTime() / 1000);
+	}
+
+	// a copy, as the index may be updated while the caller uses the list
+	private static List<Long> get(Map<String, List<Long>> index, String key) {
+		List<Long> ret = key != null ? index.get(key) : null;
+
+		return ret != null ? new ArrayList<>(ret) : Collections.<Long>emptyList();
+	}
+
+	private static void add(Map<String, List<Long>> index, String key, Long id) {
+		List<Long> ids = index.get(key);
+
+		if (ids == null) {
+			ids = new ArrayList<>(1);
+
+			index.put(key, ids);
+		}
+
+		ids.add(id);
+	}
+
+	private static void remove(Map<String, List<Long>> index, String key, Long id) {
+		List<Long> ids = key != null ? index.get(key) : null;
+
+		if (ids != null) {
+			ids.remove(id);
+
+			if (ids.isEmpty()) {
+				index.remove(key);
+			}
+		}
+	}
+}
@@ -45,8 +45,10 @@ public class RangerServicePoliciesCache {
 	public static volatile RangerServicePoliciesCache sInstance = null;
 	private final boolean useServicePoliciesCache;
 	private final int waitTimeInSeconds;
+	private final boolean usePolicyValidationIndex;
 
 	private final Map<String, ServicePoliciesWrapper> servicePoliciesMap = new HashMap<String, ServicePoliciesWrapper>();
+	private final Map<String, RangerPolicyValidationIndex> policyValidationIndexMap = new HashMap<String, RangerPolicyValidationIndex>();
 
 	public static RangerServicePoliciesCache getInstance() {
 		if (sInstance == null) {
@@ -62,6 +64,7 @@ public class RangerServicePoliciesCache {
 	private RangerServicePoliciesCache() {
 		useServicePoliciesCache = RangerConfiguration.getInstance().getBoolean("ranger.admin.policy.download.usecache", true);
 		waitTimeInSeconds = RangerConfiguration.getInstance().getInt("ranger.admin.policy.download.cache.max.waittime.for.update", MAX_WAIT_TIME_FOR_UPDATE);
+		usePolicyValidationIndex = RangerConfiguration.getInstance().getBoolean("ranger.admin.policy.validation.useindex", true);
 	}
 
 	public void dump() {
@@ -164,9 +167,62 @@ public class RangerServicePoliciesCache {
 		return ret;
 	}
 
+	/*
+	 * Returns the search index of the given policies, if these are the cached policies of the service; the index is
+	 * built on first use after the cached policies are updated
+	 */
+	public RangerPolicySearchIndex getPolicySearchIndex(String serviceName, ServicePolicies servicePolicies) {
+		RangerPolicySearchIndex ret = null;
+
+		if (useServicePoliciesCache && servicePolicies != null) {
+			ServicePoliciesWrapper servicePoliciesWrapper = null;
+
+			synchronized (this) {
+				servicePoliciesWrapper = servicePoliciesMap.get(serviceName);
+			}
+
+			if (servicePoliciesWrapper != null) {
+				ret = servicePoliciesWrapper.getPolicySearchIndex(servicePolicies);
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("RangerServicePoliciesCache.getPolicySearchIndex(" + serviceName + "): " + (ret != null ? "found" : "not found"));
+		}
+
+		return ret;
+	}
+
+	public boolean isPolicyValidationIndexEnabled() {
+		return usePolicyValidationIndex;
+	}
+
+	/*
+	 * Returns the validation index last built for the service; callers must check that it is current
+	 */
+	public synchronized RangerPolicyValidationIndex getPolicyValidationIndex(String serviceName) {
+		return usePolicyValidationIndex ? policyValidationIndexMap.get(serviceName) : null;
+	}
+
+	public synchronized void setPolicyValidationIndex(String serviceName, RangerPolicyValidationIndex index) {
+		if (usePolicyValidationIndex) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("RangerServicePoliciesCache.setPolicyValidationIndex(" + serviceName + "): " + index);
+			}
+
+			if (index != null) {
+				policyValidationIndexMap.put(serviceName, index);
+			} else {
+				policyValidationIndexMap.remove(serviceName);
+			}
+		}
+	}
+
 	private class ServicePoliciesWrapper {
 		final Long serviceId;
 		ServicePolicies servicePolicies;
+		ServicePolicies indexedServicePolicies;
+		RangerPolicySearchIndex policySearchIndex;
 		Date updateTime = null;
 		long longestDbLoadTimeInMs = -1;
 
@@ -183,6 +239,22 @@ public class RangerServicePoliciesCache {
 			return servicePolicies;
 		}
 
+		synchronized RangerPolicySearchIndex getPolicySearchIndex(ServicePolicies policies) {
+			RangerPolicySearchIndex ret = null;
+
+			// servicePolicies is replaced, not updated, on policy changes; hence the identity check
+			if (policies == servicePolicies) {
+				if (indexedServicePolicies != policies) {
+					policySearchIndex      = new RangerPolicySearchIndex(policies.getPolicies());
+					indexedServicePolicies = policies;
+				}
+
+				ret = policySearchIndex;
+			}
+
+			return ret;
+		}
+
 		Date getUpdateTime() {
 			return updateTime;
 		}
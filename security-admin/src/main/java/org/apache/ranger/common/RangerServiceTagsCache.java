@@ -20,6 +20,7 @@
 package org.apache.ranger.common;
 
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
 import org.apache.ranger.plugin.model.RangerServiceResource;
@@ -30,8 +31,12 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.plugin.util.ServiceTags;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -41,10 +46,12 @@ public class RangerServiceTagsCache {
 	private static final Log LOG = LogFactory.getLog(RangerServiceTagsCache.class);
 
 	private static final int MAX_WAIT_TIME_FOR_UPDATE = 10;
+	private static final int MAX_TAG_DELTAS_TO_CACHE  = 10;
 
 	private static volatile RangerServiceTagsCache sInstance = null;
 	private final boolean useServiceTagsCache;
 	private final int waitTimeInSeconds;
+	private final int maxTagDeltasToCache;
 
 	private final Map<String, ServiceTagsWrapper> serviceTagsMap = new HashMap<String, ServiceTagsWrapper>();
 
@@ -62,6 +69,7 @@ public class RangerServiceTagsCache {
 	private RangerServiceTagsCache() {
 		useServiceTagsCache = RangerConfiguration.getInstance().getBoolean("ranger.admin.tag.download.usecache", true);
 		waitTimeInSeconds = RangerConfiguration.getInstance().getInt("ranger.admin.tag.download.cache.max.waittime.for.update", MAX_WAIT_TIME_FOR_UPDATE);
+		maxTagDeltasToCache = RangerConfiguration.getInstance().getInt("ranger.admin.tag.delta.cache.max.count", MAX_TAG_DELTAS_TO_CACHE);
 	}
 
 	public void dump() {
@@ -163,11 +171,43 @@ public class RangerServiceTagsCache {
 		return ret;
 	}
 
+	/*
+	 * Returns the changes to tags of the service since lastKnownVersion, from the cached change-log; null if
+	 * the change-log doesn't have all the changes since lastKnownVersion, in which case all tags should be sent
+	 */
+	public ServiceTags getServiceTagsDelta(String serviceName, Long lastKnownVersion) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerServiceTagsCache.getServiceTagsDelta(" + serviceName + ", " + lastKnownVersion + ")");
+		}
+
+		ServiceTags ret = null;
+
+		if (useServiceTagsCache && maxTagDeltasToCache > 0 && lastKnownVersion != null) {
+			ServiceTagsWrapper serviceTagsWrapper = null;
+
+			synchronized (this) {
+				serviceTagsWrapper = serviceTagsMap.get(serviceName);
+			}
+
+			if (serviceTagsWrapper != null) {
+				ret = serviceTagsWrapper.getDelta(lastKnownVersion);
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerServiceTagsCache.getServiceTagsDelta(" + serviceName + ", " + lastKnownVersion + "): " + (ret == null ? null : ("resourceCount=" + ret.getServiceResources().size() + ", tagCount=" + ret.getTags().size())));
+		}
+
+		return ret;
+	}
+
 	private class ServiceTagsWrapper {
 		final Long serviceId;
 		ServiceTags serviceTags;
+		Map<Long, RangerServiceResource> serviceResources = new HashMap<Long, RangerServiceResource>();
 		Date updateTime = null;
 		long longestDbLoadTimeInMs = -1;
+		final LinkedList<TagChanges> changeLog = new LinkedList<TagChanges>();
 
 		ReentrantLock lock = new ReentrantLock();
 
@@ -242,8 +282,19 @@ public class RangerServiceTagsCache {
 					if (serviceTagsFromDb.getTagVersion() == null) {
 						serviceTagsFromDb.setTagVersion(0L);
 					}
+					ServiceTags                      oldServiceTags      = serviceTags;
+					Map<Long, RangerServiceResource> oldServiceResources = serviceResources;
+
 					serviceTags = serviceTagsFromDb;
 					pruneUnusedAttributes();
+
+					serviceResources = new HashMap<Long, RangerServiceResource>();
+
+					for (RangerServiceResource serviceResource : serviceTags.getServiceResources()) {
+						serviceResources.put(serviceResource.getId(), serviceResource);
+					}
+
+					updateChangeLog(oldServiceTags, oldServiceResources);
 				}
 			}
 
@@ -252,6 +303,172 @@ public class RangerServiceTagsCache {
 			}
 		}
 
+		ServiceTags getDelta(Long lastKnownVersion) {
+			ServiceTags ret      = null;
+			boolean     isLocked = false;
+
+			try {
+				isLocked = lock.tryLock(waitTimeInSeconds, TimeUnit.SECONDS);
+
+				if (isLocked) {
+					ret = buildDelta(lastKnownVersion);
+				}
+			} catch (InterruptedException exception) {
+				LOG.error("getDelta:lock got interrupted..", exception);
+			} finally {
+				if (isLocked) {
+					lock.unlock();
+				}
+			}
+
+			return ret;
+		}
+
+		private ServiceTags buildDelta(Long lastKnownVersion) {
+			if (serviceTags == null || changeLog.isEmpty()) {
+				return null;
+			}
+
+			Set<Long> changedResourceIds = new HashSet<Long>();
+			Set<Long> changedTagIds      = new HashSet<Long>();
+			Long      version            = null;
+
+			for (TagChanges changes : changeLog) {
+				if (version == null) {
+					if (!lastKnownVersion.equals(changes.fromVersion)) {
+						continue;
+					}
+				} else if (!version.equals(changes.fromVersion)) {
+					return null;
+				}
+
+				changedResourceIds.addAll(changes.resourceIds);
+				changedTagIds.addAll(changes.tagIds);
+
+				version = changes.toVersion;
+			}
+
+			if (version == null || !version.equals(serviceTags.getTagVersion())) {
+				return null;
+			}
+
+			// sending all tags is cheaper for the plugin when most of the resources changed
+			if (changedResourceIds.size() > serviceResources.size() / 2) {
+				return null;
+			}
+
+			Map<Long, RangerTag>        tags             = new HashMap<Long, RangerTag>();
+			Map<Long, List<Long>>       resourceToTagIds = new HashMap<Long, List<Long>>();
+			List<RangerServiceResource> resources        = new ArrayList<RangerServiceResource>(changedResourceIds.size());
+
+			for (Long resourceId : changedResourceIds) {
+				RangerServiceResource serviceResource = serviceResources.get(resourceId);
+
+				if (serviceResource == null) { // deleted resource: no resourceElements
+					serviceResource = new RangerServiceResource();
+
+					serviceResource.setId(resourceId);
+				} else {
+					List<Long> tagIds = serviceTags.getResourceToTagIds().get(resourceId);
+
+					if (tagIds != null) {
+						resourceToTagIds.put(resourceId, tagIds);
+
+						for (Long tagId : tagIds) {
+							RangerTag tag = serviceTags.getTags().get(tagId);
+
+							if (tag != null) {
+								tags.put(tagId, tag);
+							}
+						}
+					}
+				}
+
+				resources.add(serviceResource);
+			}
+
+			for (Long tagId : changedTagIds) {
+				RangerTag tag = serviceTags.getTags().get(tagId);
+
+				if (tag == null) { // deleted tag: no type
+					tag = new RangerTag();
+
+					tag.setId(tagId);
+				}
+
+				tags.put(tagId, tag);
+			}
+
+			ServiceTags ret = new ServiceTags(serviceTags.getOp(), serviceTags.getServiceName(), serviceTags.getTagVersion(), serviceTags.getTagUpdateTime(), null, tags, resources, resourceToTagIds);
+
+			ret.setIsDelta(Boolean.TRUE);
+
+			return ret;
+		}
+
+		private void updateChangeLog(ServiceTags oldServiceTags, Map<Long, RangerServiceResource> oldServiceResources) {
+			if (maxTagDeltasToCache <= 0) {
+				return;
+			}
+
+			if (oldServiceTags == null) {
+				changeLog.clear();
+
+				return;
+			}
+
+			TagChanges changes = new TagChanges(oldServiceTags.getTagVersion(), serviceTags.getTagVersion());
+
+			for (RangerServiceResource serviceResource : serviceTags.getServiceResources()) {
+				Long                  resourceId  = serviceResource.getId();
+				RangerServiceResource oldResource = oldServiceResources.get(resourceId);
+
+				if (oldResource == null
+						|| !ObjectUtils.equals(oldResource.getResourceElements(), serviceResource.getResourceElements())
+						|| !isSameTagIds(oldServiceTags.getResourceToTagIds().get(resourceId), serviceTags.getResourceToTagIds().get(resourceId))) {
+					changes.resourceIds.add(resourceId);
+				}
+			}
+
+			for (Long resourceId : oldServiceResources.keySet()) {
+				if (!serviceResources.containsKey(resourceId)) {
+					changes.resourceIds.add(resourceId);
+				}
+			}
+
+			for (Map.Entry<Long, RangerTag> entry : serviceTags.getTags().entrySet()) {
+				RangerTag oldTag = oldServiceTags.getTags().get(entry.getKey());
+
+				if (oldTag == null || !oldTag.equals(entry.getValue())) {
+					changes.tagIds.add(entry.getKey());
+				}
+			}
+
+			for (Long tagId : oldServiceTags.getTags().keySet()) {
+				if (!serviceTags.getTags().containsKey(tagId)) {
+					changes.tagIds.add(tagId);
+				}
+			}
+
+			changeLog.add(changes);
+
+			while (changeLog.size() > maxTagDeltasToCache) {
+				changeLog.removeFirst();
+			}
+
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("ServiceTagsWrapper.updateChangeLog(): " + changes);
+			}
+		}
+
+		private boolean isSameTagIds(List<Long> tagIds1, List<Long> tagIds2) {
+			if (tagIds1 == null || tagIds2 == null) {
+				return tagIds1 == tagIds2;
+			}
+
+			return tagIds1.size() == tagIds2.size() && new HashSet<Long>(tagIds1).equals(new HashSet<Long>(tagIds2));
+		}
+
 		private void pruneUnusedAttributes() {
 			if (serviceTags != null) {
 				serviceTags.setOp(null);
@@ -287,7 +504,8 @@ public class RangerServiceTagsCache {
 			sb.append("updateTime=").append(updateTime)
 					.append(", longestDbLoadTimeInMs=").append(longestDbLoadTimeInMs)
 					.append(", Service-Version:").append(serviceTags != null ? serviceTags.getTagVersion() : "null")
-					.append(", Number-Of-Tags:").append(serviceTags != null ? serviceTags.getTags().size() : 0);
+					.append(", Number-Of-Tags:").append(serviceTags != null ? serviceTags.getTags().size() : 0)
+					.append(", Number-Of-Deltas:").append(changeLog.size());
 
 			sb.append("} ");
 
@@ -303,5 +521,24 @@ public class RangerServiceTagsCache {
 			return sb.toString();
 		}
 	}
-}
 
+	/*
+	 * Ids of resources and tags changed between two versions of tags of a service
+	 */
+	private static class TagChanges {
+		final Long      fromVersion;
+		final Long      toVersion;
+		final Set<Long> resourceIds = new HashSet<Long>();
+		final Set<Long> tagIds      = new HashSet<Long>();
+
+		TagChanges(Long fromVersion, Long toVersion) {
+			this.fromVersion = fromVersion;
+			this.toVersion   = toVersion;
+		}
+
+		@Override
+		public String toString() {
+			return "TagChanges={fromVersion=" + fromVersion + ", toVersion=" + toVersion + ", resourceCount=" + resourceIds.size() + ", tagCount=" + tagIds.size() + "}";
+		}
+	}
+}
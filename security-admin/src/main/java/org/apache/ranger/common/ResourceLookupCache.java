@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.log4j.Logger;
+import org.apache.ranger.plugin.service.ResourceLookupContext;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Service;
+
+/**
+ * Short-lived cache of resource-lookup (autocomplete) results, keyed by service, resource-name, values of the other
+ * resources and user-input; this saves repeated calls to the service for the same input, like when a user edits
+ * and retypes a resource name.
+ */
+@Service
+@Scope("singleton")
+public class ResourceLookupCache {
+	private static final Logger LOG = Logger.getLogger(ResourceLookupCache.class);
+
+	public static final String PROP_CACHE_TTL_MS      = "ranger.resource.lookup.cache.ttl.ms";
+	public static final String PROP_CACHE_MAX_ENTRIES = "ranger.resource.lookup.cache.max.entries";
+
+	private static final long DEFAULT_CACHE_TTL_MS      = 30 * 1000L;
+	private static final int  DEFAULT_CACHE_MAX_ENTRIES = 1000;
+
+	private long                      ttlMs;
+	private Map<String, CachedResult> cache;
+
+	@PostConstruct
+	void initialize() {
+		initialize(PropertiesUtil.getLongProperty(PROP_CACHE_TTL_MS, DEFAULT_CACHE_TTL_MS), PropertiesUtil.getIntProperty(PROP_CACHE_MAX_ENTRIES, DEFAULT_CACHE_MAX_ENTRIES));
+	}
+
+	// Not designed for public access - only for testability
+	void initialize(long ttlMs, final int maxEntries) {
+		this.ttlMs = ttlMs;
+		this.cache = new LinkedHashMap<String, CachedResult>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+				return size() > maxEntries;
+			}
+		};
+
+		LOG.info("ResourceLookupCache: ttlMs=" + ttlMs + ", maxEntries=" + maxEntries);
+	}
+
+	public boolean isEnabled() {
+		return ttlMs > 0;
+	}
+
+	/*
+	 * Returns null if the result is not cached or has expired
+	 */
+	public List<String> get(String serviceName, ResourceLookupContext context) {
+		List<String> ret = null;
+
+		if (isEnabled()) {
+			String key = getKey(serviceName, context);
+
+			synchronized (cache) {
+				CachedResult cachedResult = cache.get(key);
+
+				if (cachedResult != null) {
+					if ((System.currentTimeMillis() - cachedResult.cachedTime) < ttlMs) {
+						ret = new ArrayList<String>(cachedResult.result);
+					} else {
+						cache.remove(key);
+					}
+				}
+			}
+
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("ResourceLookupCache.get(" + key + "): " + (ret != null ? "hit" : "miss"));
+			}
+		}
+
+		return ret;
+	}
+
+	public void put(String serviceName, ResourceLookupContext context, List<String> result) {
+		if (isEnabled() && result != null) {
+			String       key          = getKey(serviceName, context);
+			CachedResult cachedResult = new CachedResult(new ArrayList<String>(result), System.currentTimeMillis());
+
+			synchronized (cache) {
+				cache.put(key, cachedResult);
+			}
+		}
+	}
+
+	private String getKey(String serviceName, ResourceLookupContext context) {
+		StringBuilder sb = new StringBuilder();
+
+		sb.append(serviceName).append('|').append(context.getResourceName()).append('|');
+
+		if (context.getResources() != null) {
+			sb.append(new TreeMap<String, List<String>>(context.getResources()));
+		}
+
+		sb.append('|').append(context.getUserInput());
+
+		return sb.toString();
+	}
+
+	private static class CachedResult {
+		final List<String> result;
+		final long         cachedTime;
+
+		CachedResult(List<String> result, long cachedTime) {
+			this.result     = result;
+			this.cachedTime = cachedTime;
+		}
+	}
+}
@@ -26,6 +26,7 @@ import java.lang.reflect.Type;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import javax.persistence.EntityManager;
@@ -43,6 +44,9 @@ import org.apache.ranger.db.RangerDaoManagerBase;
 public abstract class BaseDao<T> {
 	private static final Logger logger = Logger.getLogger(BaseDao.class);
 
+	// Oracle limits IN-lists to 1000 expressions
+	public static final int MAX_IN_CLAUSE_SIZE = 1000;
+
 	protected RangerDaoManager daoManager;
 
 	EntityManager em;
@@ -92,6 +96,24 @@ public abstract class BaseDao<T> {
 		return ret;
 	}
 
+	/**
+	 * Persists all the given objects and flushes once. Inserts of entities with
+	 * database-generated ids (IDENTITY on MySQL) are not JDBC-batched, as the id of
+	 * each row is read back after its insert; this only saves the flush per object.
+	 */
+	public List<T> batchCreate(List<T> objs) {
+		if (objs == null || objs.isEmpty()) {
+			return objs;
+		}
+
+		for (T obj : objs) {
+			em.persist(obj);
+		}
+		em.flush();
+
+		return objs;
+	}
+
 	public T update(T obj) {
 		em.merge(obj);
 		em.flush();
@@ -113,6 +135,20 @@ public abstract class BaseDao<T> {
 		return true;
 	}
 
+	/**
+	 * Removes all the given objects and flushes once, instead of once per object.
+	 */
+	public void batchRemove(List<T> objs) {
+		if (objs == null || objs.isEmpty()) {
+			return;
+		}
+
+		for (T obj : objs) {
+			em.remove(obj);
+		}
+		em.flush();
+	}
+
 	public T getById(Long id) {
 		if (id == null) {
 			return null;
@@ -143,6 +179,36 @@ public abstract class BaseDao<T> {
 		return ret;
 	}
 
+	/**
+	 * Runs the named query, which must have an IN-list parameter named paramName,
+	 * once for every MAX_IN_CLAUSE_SIZE values and returns the combined result.
+	 */
+	public List<T> findByNamedQueryInBatches(String namedQuery, String paramName,
+			Collection<?> values) {
+		List<T> ret = new ArrayList<T>();
+
+		if (namedQuery == null || values == null || values.isEmpty()) {
+			return ret;
+		}
+
+		List<Object> batch = new ArrayList<Object>(Math.min(values.size(), MAX_IN_CLAUSE_SIZE));
+
+		for (Object value : values) {
+			batch.add(value);
+
+			if (batch.size() == MAX_IN_CLAUSE_SIZE) {
+				ret.addAll(findByNamedQuery(namedQuery, paramName, batch));
+				batch = new ArrayList<Object>(MAX_IN_CLAUSE_SIZE);
+			}
+		}
+
+		if (!batch.isEmpty()) {
+			ret.addAll(findByNamedQuery(namedQuery, paramName, batch));
+		}
+
+		return ret;
+	}
+
 	public List<T> findByParentId(Long parentId) {
 		String namedQuery = tClass.getSimpleName() + ".findByParentId";
 		return findByNamedQuery(namedQuery, "parentId", parentId);
@@ -21,6 +21,7 @@
 
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import javax.persistence.NoResultException;
@@ -81,4 +82,8 @@ public class XXGroupDao extends BaseDao<XXGroup> {
 		}
 	}
 
+
+	public List<XXGroup> findByGroupNames(Collection<String> names) {
+		return findByNamedQueryInBatches("XXGroup.findByGroupNames", "names", names);
+	}
 }
@@ -21,6 +21,7 @@
 
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -132,4 +133,8 @@ public class XXGroupUserDao extends BaseDao<XXGroupUser> {
 		}
 		return null;
 	}
+
+	public List<XXGroupUser> findByUserIds(Collection<Long> userIds) {
+		return findByNamedQueryInBatches("XXGroupUser.findByUserIds", "userIds", userIds);
+	}
 }
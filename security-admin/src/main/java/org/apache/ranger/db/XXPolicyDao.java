@@ -22,6 +22,7 @@ import java.util.List;
 
 import javax.persistence.NoResultException;
 
+import org.apache.commons.collections.CollectionUtils;
 import org.apache.ranger.common.db.BaseDao;
 import org.apache.ranger.entity.XXPolicy;
 
@@ -64,6 +65,28 @@ public class XXPolicyDao extends BaseDao<XXPolicy> {
 		}
 	}
 
+	public List<XXPolicy> findByIds(List<Long> policyIds) {
+		if (CollectionUtils.isEmpty(policyIds)) {
+			return new ArrayList<XXPolicy>();
+		}
+		return getEntityManager()
+				.createNamedQuery("XXPolicy.findByIds", tClass)
+				.setParameter("policyIds", policyIds).getResultList();
+	}
+
+	/*
+	 * Returns id, name, resource-signature and enabled status of policies of the service, ordered by id
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Object[]> findNameAndSignatureByServiceId(Long serviceId) {
+		if (serviceId == null) {
+			return new ArrayList<Object[]>();
+		}
+		return getEntityManager()
+				.createNamedQuery("XXPolicy.findNameAndSignatureByServiceId")
+				.setParameter("serviceId", serviceId).getResultList();
+	}
+
 	public Long getMaxIdOfXXPolicy() {
 		try {
 			return (Long) getEntityManager().createNamedQuery("XXPolicy.getMaxIdOfXXPolicy").getSingleResult();
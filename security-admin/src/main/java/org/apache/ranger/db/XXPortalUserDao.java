@@ -19,6 +19,7 @@
 
 package org.apache.ranger.db;
 
+import java.util.Collection;
 import java.util.List;
 
 import javax.persistence.NoResultException;
@@ -101,4 +102,8 @@ public class XXPortalUserDao extends BaseDao<XXPortalUser> {
 		}
 
 	}
+
+	public List<XXPortalUser> findByLoginIds(Collection<String> loginIds) {
+		return findByNamedQueryInBatches("XXPortalUser.findByLoginIds", "loginIds", loginIds);
+	}
 }
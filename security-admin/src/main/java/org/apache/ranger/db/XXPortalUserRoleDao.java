@@ -21,6 +21,7 @@
 
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import javax.persistence.NoResultException;
@@ -70,4 +71,8 @@ public class XXPortalUserRoleDao extends BaseDao<XXPortalUserRole> {
 			return new ArrayList<String>();
 		}
 	}
+
+	public List<XXPortalUserRole> findByUserIds(Collection<Long> userIds) {
+		return findByNamedQueryInBatches("XXPortalUserRole.findByUserIds", "userIds", userIds);
+	}
 }
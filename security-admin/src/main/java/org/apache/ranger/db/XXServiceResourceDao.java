@@ -20,6 +20,7 @@
 package org.apache.ranger.db;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import javax.persistence.NoResultException;
@@ -119,4 +120,28 @@ public class XXServiceResourceDao extends BaseDao<XXServiceResource> {
 			return new ArrayList<String>();
 		}
 	}
+
+	public List<XXServiceResource> findByGuids(Collection<String> guids) {
+		return findByNamedQueryInBatches("XXServiceResource.findByGuids", "guids", guids);
+	}
+
+	public List<XXServiceResource> findByServiceAndResourceSignatures(Long serviceId, Collection<String> resourceSignatures) {
+		List<XXServiceResource> ret = new ArrayList<XXServiceResource>();
+
+		if (serviceId == null || resourceSignatures == null || resourceSignatures.isEmpty()) {
+			return ret;
+		}
+
+		List<String> signatures = new ArrayList<String>(resourceSignatures);
+
+		for (int i = 0; i < signatures.size(); i += MAX_IN_CLAUSE_SIZE) {
+			List<String> batch = signatures.subList(i, Math.min(i + MAX_IN_CLAUSE_SIZE, signatures.size()));
+
+			ret.addAll(getEntityManager().createNamedQuery("XXServiceResource.findByServiceAndResourceSignatures", tClass)
+					.setParameter("serviceId", serviceId)
+					.setParameter("resourceSignatures", batch).getResultList());
+		}
+
+		return ret;
+	}
 }
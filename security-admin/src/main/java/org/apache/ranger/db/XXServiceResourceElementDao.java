@@ -20,6 +20,7 @@
 package org.apache.ranger.db;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import javax.persistence.NoResultException;
@@ -84,4 +85,8 @@ public class XXServiceResourceElementDao extends BaseDao<XXServiceResourceElemen
 			return new ArrayList<XXServiceResourceElement>();
 		}
 	}
+
+	public List<XXServiceResourceElement> findByResourceIds(Collection<Long> resourceIds) {
+		return findByNamedQueryInBatches("XXServiceResourceElement.findByResourceIds", "resourceIds", resourceIds);
+	}
 }
@@ -20,6 +20,7 @@
 package org.apache.ranger.db;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import javax.persistence.NoResultException;
@@ -109,4 +110,8 @@ public class XXServiceResourceElementValueDao extends BaseDao<XXServiceResourceE
 			return new ArrayList<XXServiceResourceElementValue>();
 		}
 	}
+
+	public List<XXServiceResourceElementValue> findByResElementIds(Collection<Long> resElementIds) {
+		return findByNamedQueryInBatches("XXServiceResourceElementValue.findByResElementIds", "resElementIds", resElementIds);
+	}
 }
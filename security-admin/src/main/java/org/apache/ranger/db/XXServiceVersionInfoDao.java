@@ -17,8 +17,12 @@
 
 package org.apache.ranger.db;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.NoResultException;
 
@@ -111,6 +115,27 @@ public class XXServiceVersionInfoDao extends BaseDao<XXServiceVersionInfo> {
 		}
 	}
 
+	/*
+	 * Updates tag-version, once, of the given services and of the services having resources associated with any of the given tags
+	 */
+	public void updateServiceVersionInfoForTagUpdates(Collection<Long> serviceIds, Collection<Long> tagIds, Date updateTime) {
+		Map<Long, XXServiceVersionInfo> serviceVersionInfos = new HashMap<Long, XXServiceVersionInfo>();
+
+		if (CollectionUtils.isNotEmpty(serviceIds)) {
+			for (XXServiceVersionInfo serviceVersionInfo : findByNamedQueryInBatches("XXServiceVersionInfo.findByServiceIds", "serviceIds", serviceIds)) {
+				serviceVersionInfos.put(serviceVersionInfo.getId(), serviceVersionInfo);
+			}
+		}
+
+		if (CollectionUtils.isNotEmpty(tagIds)) {
+			for (XXServiceVersionInfo serviceVersionInfo : findByNamedQueryInBatches("XXServiceVersionInfo.findByTagIds", "tagIds", tagIds)) {
+				serviceVersionInfos.put(serviceVersionInfo.getId(), serviceVersionInfo);
+			}
+		}
+
+		updateTagVersionAndTagUpdateTime(new ArrayList<XXServiceVersionInfo>(serviceVersionInfos.values()), updateTime);
+	}
+
 	private void updateTagVersionAndTagUpdateTime(List<XXServiceVersionInfo> serviceVersionInfos, Date updateTime) {
 		if(CollectionUtils.isEmpty(serviceVersionInfos)) {
 			return;
@@ -20,6 +20,7 @@
 package org.apache.ranger.db;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import javax.persistence.NoResultException;
@@ -93,4 +94,8 @@ public class XXTagAttributeDao extends BaseDao<XXTagAttribute> {
 			return new ArrayList<XXTagAttribute>();
 		}
 	}
+
+	public List<XXTagAttribute> findByTagIds(Collection<Long> tagIds) {
+		return findByNamedQueryInBatches("XXTagAttribute.findByTagIds", "tagIds", tagIds);
+	}
 }
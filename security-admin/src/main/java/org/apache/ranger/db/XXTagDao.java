@@ -20,6 +20,7 @@
 package org.apache.ranger.db;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import javax.persistence.NoResultException;
@@ -151,4 +152,12 @@ public class XXTagDao extends BaseDao<XXTag> {
 			return new ArrayList<XXTag>();
 		}
 	}
+
+	public List<XXTag> findByIds(Collection<Long> ids) {
+		return findByNamedQueryInBatches("XXTag.findByIds", "ids", ids);
+	}
+
+	public List<XXTag> findByGuids(Collection<String> guids) {
+		return findByNamedQueryInBatches("XXTag.findByGuids", "guids", guids);
+	}
 }
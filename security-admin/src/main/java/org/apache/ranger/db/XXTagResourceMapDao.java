@@ -20,6 +20,7 @@
 package org.apache.ranger.db;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import javax.persistence.NoResultException;
@@ -152,4 +153,8 @@ public class XXTagResourceMapDao extends BaseDao<XXTagResourceMap> {
 			return new ArrayList<XXTagResourceMap>();
 		}
 	}
+
+	public List<XXTagResourceMap> findByResourceIds(Collection<Long> resourceIds) {
+		return findByNamedQueryInBatches("XXTagResourceMap.findByResourceIds", "resourceIds", resourceIds);
+	}
 }
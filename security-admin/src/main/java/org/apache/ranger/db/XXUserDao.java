@@ -20,6 +20,7 @@
  package org.apache.ranger.db;
 
 
+import java.util.Collection;
 import java.util.List;
 
 import javax.persistence.NoResultException;
@@ -76,4 +77,8 @@ public class XXUserDao extends BaseDao<XXUser> {
 			return null;
 		}
 	}
+
+	public List<XXUser> findByUserNames(Collection<String> names) {
+		return findByNamedQueryInBatches("XXUser.findByUserNames", "names", names);
+	}
 }
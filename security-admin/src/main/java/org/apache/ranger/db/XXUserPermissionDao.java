@@ -18,6 +18,7 @@
 package org.apache.ranger.db;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import javax.persistence.NoResultException;
@@ -129,4 +130,8 @@ public class XXUserPermissionDao extends BaseDao<XXUserPermission>{
 			logger.debug("ModuleId not provided.");
 		}
 	}
+
+	public List<XXUserPermission> findByUserIds(Collection<Long> userIds) {
+		return findByNamedQueryInBatches("XXUserPermission.findByUserIds", "userIds", userIds);
+	}
 }
@@ -1882,6 +1882,7 @@ public class ServiceREST {
 		String metaDataInfo = null;
 		List<XXTrxLog> trxLogListError = new ArrayList<XXTrxLog>();
 		XXTrxLog xxTrxLogError = new XXTrxLog();
+		boolean isBulkPolicyUpdate = false;
 		
 		try {
 			if (RangerPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
@@ -2027,6 +2028,11 @@ public class ServiceREST {
 					} else if (updateIfExists.equalsIgnoreCase("true")) {
 						isOverride = false;
 					}
+
+					// policy-version of the updated services is incremented once, at the end of the import
+					svcStore.beginBulkPolicyUpdate();
+					isBulkPolicyUpdate = true;
+
 					if (isOverride && "false".equalsIgnoreCase(updateIfExists) && StringUtils.isEmpty(polResource)) {
 						if (LOG.isDebugEnabled()) {
 							LOG.debug("Deleting Policy from provided services in servicesMapJson file...");
@@ -2096,6 +2102,9 @@ public class ServiceREST {
 							throw restErrorUtil.createRESTException("zero policy is created from provided data file!!");
 						}
 					}
+
+					isBulkPolicyUpdate = false;
+					svcStore.endBulkPolicyUpdate(true);
 				} catch (IOException e) {
 					LOG.error(e.getMessage());
 					throw restErrorUtil.createRESTException(e.getMessage());
@@ -2135,6 +2144,14 @@ public class ServiceREST {
 			bizUtil.createTrxLog(trxLogListError);
 			throw restErrorUtil.createRESTException(excp.getMessage());
 		} finally {
+			if (isBulkPolicyUpdate) {
+				// the import failed; its changes are rolled back, hence the policy-versions are left as is
+				try {
+					svcStore.endBulkPolicyUpdate(false);
+				} catch (Exception excp) {
+					LOG.error("endBulkPolicyUpdate() failed", excp);
+				}
+			}
 			RangerPerfTracer.log(perf);
 			List<XXTrxLog> trxLogListEnd = new ArrayList<XXTrxLog>();
 			XXTrxLog xxTrxLogEnd = new XXTrxLog();
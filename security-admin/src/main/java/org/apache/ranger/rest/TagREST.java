@@ -1106,6 +1106,7 @@ public class TagREST {
     public ServiceTags getServiceTagsIfUpdated(@PathParam("serviceName") String serviceName,
                                                    @QueryParam(TagRESTConstants.LAST_KNOWN_TAG_VERSION_PARAM) Long lastKnownVersion,
                                                @DefaultValue("0") @QueryParam(TagRESTConstants.LAST_ACTIVATION_TIME) Long lastActivationTime, @QueryParam("pluginId") String pluginId,
+                                               @DefaultValue("false") @QueryParam(TagRESTConstants.SUPPORTS_TAG_DELTAS_PARAM) boolean supportsTagDeltas,
                                                @Context HttpServletRequest request) {
         if(LOG.isDebugEnabled()) {
             LOG.debug("==> TagREST.getServiceTagsIfUpdated(" + serviceName + ", " + lastKnownVersion + ", " + lastActivationTime + ", " + pluginId + ")");
@@ -1117,7 +1118,7 @@ public class TagREST {
         Long downloadedVersion = null;
 
         try {
-            ret = tagStore.getServiceTagsIfUpdated(serviceName, lastKnownVersion);
+            ret = tagStore.getServiceTagsIfUpdated(serviceName, lastKnownVersion, supportsTagDeltas);
 
             if (ret == null) {
                 downloadedVersion = lastKnownVersion;
@@ -1126,7 +1127,7 @@ public class TagREST {
             } else {
                 downloadedVersion = ret.getTagVersion();
                 httpCode = HttpServletResponse.SC_OK;
-                logMsg = "Returning " + (ret.getTags() != null ? ret.getTags().size() : 0) + " tags. Tag version=" + ret.getTagVersion();
+                logMsg = "Returning " + (ret.getTags() != null ? ret.getTags().size() : 0) + " tags. Tag version=" + ret.getTagVersion() + ", isDelta=" + ret.getIsDelta();
             }
         } catch (WebApplicationException webException) {
             httpCode = webException.getResponse().getStatus();
@@ -1156,6 +1157,7 @@ public class TagREST {
     public ServiceTags getSecureServiceTagsIfUpdated(@PathParam("serviceName") String serviceName,
                                                    @QueryParam(TagRESTConstants.LAST_KNOWN_TAG_VERSION_PARAM) Long lastKnownVersion,
                                                      @DefaultValue("0") @QueryParam(TagRESTConstants.LAST_ACTIVATION_TIME) Long lastActivationTime, @QueryParam("pluginId") String pluginId,
+                                               @DefaultValue("false") @QueryParam(TagRESTConstants.SUPPORTS_TAG_DELTAS_PARAM) boolean supportsTagDeltas,
                                                      @Context HttpServletRequest request) {
 
         if(LOG.isDebugEnabled()) {
@@ -1194,7 +1196,7 @@ public class TagREST {
         		}
         	}
         	if (isAllowed) {
-	            ret = tagStore.getServiceTagsIfUpdated(serviceName, lastKnownVersion);
+	            ret = tagStore.getServiceTagsIfUpdated(serviceName, lastKnownVersion, supportsTagDeltas);
 
 				if(ret == null) {
                     downloadedVersion = lastKnownVersion;
@@ -63,6 +63,7 @@ import org.apache.ranger.view.VXAuditMap;
 import org.apache.ranger.view.VXAuditMapList;
 import org.apache.ranger.view.VXAuthSession;
 import org.apache.ranger.view.VXAuthSessionList;
+import org.apache.ranger.view.VXBulkUserGroupInfo;
 import org.apache.ranger.view.VXGroup;
 import org.apache.ranger.view.VXGroupGroup;
 import org.apache.ranger.view.VXGroupGroupList;
@@ -77,6 +78,7 @@ import org.apache.ranger.view.VXModuleDef;
 import org.apache.ranger.view.VXModuleDefList;
 import org.apache.ranger.view.VXPermMap;
 import org.apache.ranger.view.VXPermMapList;
+import org.apache.ranger.view.VXResponse;
 import org.apache.ranger.view.VXString;
 import org.apache.ranger.view.VXStringList;
 import org.apache.ranger.view.VXUser;
@@ -291,6 +293,14 @@ public class XUserREST {
 		return  xUserMgr.createXUserGroupFromMap(vXUserGroupInfo);
 	}
 	
+	@POST
+	@Path("/usergroups/bulk")
+	@Produces({ "application/xml", "application/json" })
+	@PreAuthorize("hasRole('ROLE_SYS_ADMIN')")
+	public VXResponse createOrUpdateXUserGroupsInBulk(VXBulkUserGroupInfo vXBulkUserGroupInfo) {
+		return xUserMgr.createOrUpdateXUserGroupsInBulk(vXBulkUserGroupInfo);
+	}
+
 	@POST
 	@Path("/secure/users")
 	@Produces({ "application/xml", "application/json" })
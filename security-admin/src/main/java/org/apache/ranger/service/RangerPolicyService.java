@@ -17,8 +17,6 @@
 
 package org.apache.ranger.service;
 
-import java.io.IOException;
-import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -31,7 +29,6 @@ import org.apache.commons.collections.CollectionUtils;
 import org.apache.ranger.biz.RangerPolicyRetriever;
 import org.apache.ranger.common.AppConstants;
 import org.apache.ranger.common.JSONUtil;
-import org.apache.ranger.common.MessageEnums;
 import org.apache.ranger.common.view.VTrxLogAttr;
 import org.apache.ranger.entity.XXPolicy;
 import org.apache.ranger.entity.XXService;
@@ -41,10 +38,6 @@ import org.apache.ranger.plugin.model.RangerPolicy.RangerDataMaskPolicyItem;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerRowFilterPolicyItem;
-import org.codehaus.jackson.JsonParseException;
-import org.codehaus.jackson.map.JsonMappingException;
-import org.codehaus.jackson.map.ObjectMapper;
-import org.codehaus.jackson.type.TypeReference;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
@@ -87,6 +80,13 @@ public class RangerPolicyService extends RangerPolicyServiceBase<XXPolicy, Range
 		trxLogAttrs.put("rowFilterPolicyItems", new VTrxLogAttr("rowFilterPolicyItems", "Row level filter Policy Items", false));
 		trxLogAttrs.put("isAuditEnabled", new VTrxLogAttr("isAuditEnabled", "Audit Status", false));
 	}
+
+	// attributes of trxLogAttrs, in the order their transaction-log rows are created
+	private static final String[] TRX_LOG_FIELD_NAMES = {
+		POLICY_NAME_CLASS_FIELD_NAME, POLICY_DESCRIPTION_CLASS_FIELD_NAME, IS_AUDIT_ENABLED_CLASS_FIELD_NAME, POLICY_RESOURCE_CLASS_FIELD_NAME,
+		POLICY_ITEM_CLASS_FIELD_NAME, DENYPOLICY_ITEM_CLASS_FIELD_NAME, ALLOW_EXCEPTIONS_CLASS_FIELD_NAME, DENY_EXCEPTIONS_CLASS_FIELD_NAME,
+		DATAMASK_POLICY_ITEM_CLASS_FIELD_NAME, ROWFILTER_POLICY_ITEM_CLASS_FIELD_NAME, IS_ENABLED_CLASS_FIELD_NAME
+	};
 	
 	public RangerPolicyService() {
 		super();
@@ -139,367 +139,208 @@ public class RangerPolicyService extends RangerPolicyServiceBase<XXPolicy, Range
 			return null;
 		}
 		List<XXTrxLog> trxLogList = new ArrayList<XXTrxLog>();
-		Field[] fields = vObj.getClass().getDeclaredFields();
-		
-		try {
-			
-			Field nameField = vObj.getClass().getDeclaredField("name");
-			nameField.setAccessible(true);
-			String objectName = "" + nameField.get(vObj);
-			for (Field field : fields) {
-				if (!trxLogAttrs.containsKey(field.getName())) {
-					continue;
-				}
-				XXTrxLog xTrxLog = processFieldToCreateTrxLog(field, objectName, nameField, vObj, mObj, action);
-				if (xTrxLog != null) {
-					trxLogList.add(xTrxLog);
-				}
+
+		// the existing policy is read once, not once for every attribute
+		RangerPolicy oldPolicy = action == OPERATION_UPDATE_CONTEXT ? populateViewBean(mObj) : null;
+
+		if (action == OPERATION_UPDATE_CONTEXT && oldPolicy == null) {
+			logger.error("Transaction log failure: could not read existing policy, id=" + mObj.getId());
+
+			return trxLogList;
+		}
+
+		List<XXDataMaskTypeDef> dataMaskTypeDefs = null;
+
+		if (CollectionUtils.isNotEmpty(vObj.getDataMaskPolicyItems()) || (oldPolicy != null && CollectionUtils.isNotEmpty(oldPolicy.getDataMaskPolicyItems()))) {
+			dataMaskTypeDefs = daoMgr.getXXDataMaskTypeDef().getAll();
+		}
+
+		String    objectName = "" + vObj.getName();
+		XXService parentObj  = null;
+
+		for (String fieldName : TRX_LOG_FIELD_NAMES) {
+			XXTrxLog xTrxLog = processFieldToCreateTrxLog(fieldName, vObj, oldPolicy, action, dataMaskTypeDefs);
+
+			if (xTrxLog == null) {
+				continue;
 			}
 
-			Field[] superClassFields = vObj.getClass().getSuperclass()
-					.getDeclaredFields();
-			for (Field field : superClassFields) {
-				if ("isEnabled".equalsIgnoreCase(field.getName())) {
-					XXTrxLog xTrx = processFieldToCreateTrxLog(field, objectName, nameField, vObj, mObj, action);
-					if (xTrx != null) {
-						trxLogList.add(xTrx);
-					}
-					break;
+			if (parentObj == null) {
+				parentObj = daoMgr.getXXService().findByName(vObj.getService());
+
+				if (parentObj == null) {
+					logger.error("Transaction log failure: service not found, name=" + vObj.getService());
+
+					return trxLogList;
 				}
 			}
-		} catch (IllegalAccessException illegalAcc) {
-			logger.error("Transaction log failure.", illegalAcc);
-		} catch (NoSuchFieldException noSuchField) {
-			logger.error("Transaction log failure.", noSuchField);
+
+			xTrxLog.setObjectClassType(AppConstants.CLASS_TYPE_RANGER_POLICY);
+			xTrxLog.setObjectId(vObj.getId());
+			xTrxLog.setObjectName(objectName);
+			xTrxLog.setParentObjectClassType(AppConstants.CLASS_TYPE_XA_SERVICE);
+			xTrxLog.setParentObjectId(parentObj.getId());
+			xTrxLog.setParentObjectName(parentObj.getName());
+
+			trxLogList.add(xTrxLog);
 		}
-		
+
 		return trxLogList;
 	}
-	
-	private XXTrxLog processFieldToCreateTrxLog(Field field, String objectName,
-			Field nameField, RangerPolicy vObj, XXPolicy mObj, int action) {
 
+	/*
+	 * On update, attributes holding collections are compared as objects first, so that the JSON of an attribute is
+	 * built only when the attribute has changed
+	 */
+	private XXTrxLog processFieldToCreateTrxLog(String fieldName, RangerPolicy vObj, RangerPolicy oldPolicy, int action, List<XXDataMaskTypeDef> dataMaskTypeDefs) {
 		String actionString = "";
-
-		field.setAccessible(true);
-		String fieldName = field.getName();
 		XXTrxLog xTrxLog = new XXTrxLog();
 
-		try {
-			VTrxLogAttr vTrxLogAttr = trxLogAttrs.get(fieldName);
-
-			xTrxLog.setAttributeName(vTrxLogAttr.getAttribUserFriendlyName());
-
-			String value = null;
-			boolean isEnum = vTrxLogAttr.isEnum();
-			if (isEnum) {
-
-			} else if (POLICY_RESOURCE_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-				value = processPolicyResourcesForTrxLog(field.get(vObj));
-			} else if (POLICY_ITEM_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-				value = processPolicyItemsForTrxLog(field.get(vObj));
-			} else if (DENYPOLICY_ITEM_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-				value = processPolicyItemsForTrxLog(field.get(vObj));
-			} else if (POLICY_NAME_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-				value = processPolicyNameForTrxLog(field.get(vObj));
-			} else if (ALLOW_EXCEPTIONS_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-				value = processPolicyItemsForTrxLog(field.get(vObj));
-			} else if (DENY_EXCEPTIONS_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-				value = processPolicyItemsForTrxLog(field.get(vObj));
-			} else if (DATAMASK_POLICY_ITEM_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-				value = processDataMaskPolicyItemsForTrxLog(field.get(vObj));
-				if(vObj.getDataMaskPolicyItems() != null && CollectionUtils.isNotEmpty(vObj.getDataMaskPolicyItems())) {
-					for(RangerDataMaskPolicyItem policyItem : vObj.getDataMaskPolicyItems()) {
-						if(policyItem.getDataMaskInfo() != null && policyItem.getDataMaskInfo().getDataMaskType() != null) {
-							List<XXDataMaskTypeDef> xDataMaskDef = daoMgr.getXXDataMaskTypeDef().getAll();
-							if(CollectionUtils.isNotEmpty(xDataMaskDef) && xDataMaskDef != null ) {
-								for (XXDataMaskTypeDef xxDataMaskTypeDef : xDataMaskDef) {
-									if(xxDataMaskTypeDef.getName().equalsIgnoreCase(policyItem.getDataMaskInfo().getDataMaskType())) {
-										String label = xxDataMaskTypeDef.getLabel();
-										StringBuilder sbValue = new StringBuilder(value);
-										label = ",\"DataMasklabel\":\""+label+"\"";
-										int sbValueIndex = sbValue.lastIndexOf("}]");
-										sbValue.insert(sbValueIndex, label);
-										value = sbValue.toString();
-										break;
-									}
-								}
-							}
-						}
-					}
-				}
-			} else if (ROWFILTER_POLICY_ITEM_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-				value = processRowFilterPolicyItemForTrxLog(field.get(vObj));
-			} else if (IS_ENABLED_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-				value = String.valueOf(processIsEnabledClassFieldNameForTrxLog(field.get(vObj)));
-			
+		xTrxLog.setAttributeName(trxLogAttrs.get(fieldName).getAttribUserFriendlyName());
+
+		if (action == OPERATION_CREATE_CONTEXT) {
+			String value = getFieldValueForTrxLog(fieldName, vObj, dataMaskTypeDefs);
+
+			if (stringUtil.isEmpty(value)) {
+				return null;
 			}
-			else {
-				value = "" + field.get(vObj);
+			xTrxLog.setNewValue(value);
+			actionString = actionCreate;
+		} else if (action == OPERATION_DELETE_CONTEXT) {
+			xTrxLog.setPreviousValue(getFieldValueForTrxLog(fieldName, vObj, dataMaskTypeDefs));
+			actionString = actionDelete;
+		} else if (action == OPERATION_UPDATE_CONTEXT) {
+			if (isFieldUnchanged(fieldName, vObj, oldPolicy)) {
+				return null;
 			}
 
-			if (action == OPERATION_CREATE_CONTEXT) {
-				if (stringUtil.isEmpty(value)) {
-					return null;
-				}
-				xTrxLog.setNewValue(value);
-				actionString = actionCreate;
-			} else if (action == OPERATION_DELETE_CONTEXT) {
-				xTrxLog.setPreviousValue(value);
-				actionString = actionDelete;
-			} else if (action == OPERATION_UPDATE_CONTEXT) {
-				actionString = actionUpdate;
-				String oldValue = null;
-				Field[] mFields = mObj.getClass().getDeclaredFields();
-				for (Field mField : mFields) {
-					mField.setAccessible(true);
-					String mFieldName = mField.getName();
-					if (fieldName.equalsIgnoreCase(mFieldName)) {
-						if (isEnum) {
-
-						} else {
-							oldValue = mField.get(mObj) + "";
-						}
-						break;
-					}
-				}
-				RangerPolicy oldPolicy = populateViewBean(mObj);
-				if (POLICY_RESOURCE_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-					if (oldPolicy != null) {
-						oldValue = processPolicyResourcesForTrxLog(oldPolicy.getResources());
-					}
-				} else if (POLICY_ITEM_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-					if (oldPolicy != null) {
-						oldValue = processPolicyItemsForTrxLog(oldPolicy.getPolicyItems());
-					}
-				} else if (DENYPOLICY_ITEM_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-					if (oldPolicy != null) {
-						oldValue = processPolicyItemsForTrxLog(oldPolicy.getDenyPolicyItems());
-					}
-				} else if (POLICY_NAME_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-					if (oldPolicy != null) {
-						oldValue = processPolicyNameForTrxLog(oldPolicy.getName());
-					}
-				} else if (POLICY_DESCRIPTION_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-					if (oldPolicy != null) {
-						oldValue = processPolicyNameForTrxLog(oldPolicy.getDescription());
-					}
-				}  else if (ALLOW_EXCEPTIONS_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-					if (oldPolicy != null) {
-						oldValue = processPolicyItemsForTrxLog(oldPolicy.getAllowExceptions());
-					}
-				} else if (DENY_EXCEPTIONS_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-					if (oldPolicy != null) {
-						oldValue = processPolicyItemsForTrxLog(oldPolicy.getDenyExceptions());
-					}
-				} else if (DATAMASK_POLICY_ITEM_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-					if (oldPolicy != null) {
-						oldValue = processDataMaskPolicyItemsForTrxLog(oldPolicy.getDataMaskPolicyItems());
-						if(oldPolicy.getDataMaskPolicyItems() != null && CollectionUtils.isNotEmpty(oldPolicy.getDataMaskPolicyItems())) {
-							for(RangerDataMaskPolicyItem oldPolicyItem : oldPolicy.getDataMaskPolicyItems()) {
-								if(oldPolicyItem.getDataMaskInfo() != null && oldPolicyItem.getDataMaskInfo().getDataMaskType() != null) {
-									List<XXDataMaskTypeDef> xDataMaskDef = daoMgr.getXXDataMaskTypeDef().getAll();
-									if(CollectionUtils.isNotEmpty(xDataMaskDef) && xDataMaskDef != null ) {
-										for (XXDataMaskTypeDef xxDataMaskTypeDef : xDataMaskDef) {
-											if(xxDataMaskTypeDef.getName().equalsIgnoreCase(oldPolicyItem.getDataMaskInfo().getDataMaskType())) {
-												String oldLabel = xxDataMaskTypeDef.getLabel();
-												StringBuilder sbOldValue = new StringBuilder(oldValue);
-												oldLabel = ",\"DataMasklabel\":\""+oldLabel+"\"";
-												int sbValueIndex = sbOldValue.lastIndexOf("}]");
-												sbOldValue.insert(sbValueIndex, oldLabel);
-												oldValue = sbOldValue.toString();
-												break;
-											}
-										}
-									}
-								}
-							}
-						}
-					}
-				} else if (ROWFILTER_POLICY_ITEM_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-					if (oldPolicy != null) {
-						oldValue = processRowFilterPolicyItemForTrxLog(oldPolicy.getRowFilterPolicyItems());
-					}
-				}else if (IS_ENABLED_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-					if (oldPolicy != null) {
-						oldValue = String.valueOf(processIsEnabledClassFieldNameForTrxLog(oldPolicy.getIsEnabled()));
-					}
-				}
-				if (oldValue == null || oldValue.equalsIgnoreCase(value)) {
-					return null;
-				} else if (POLICY_RESOURCE_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-					// Compare old and new resources
-					if(compareTwoPolicyResources(value, oldValue)) {
-						return null;
-					}
-				} else if (POLICY_ITEM_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-					//Compare old and new policyItems
-					if(compareTwoPolicyItemList(value, oldValue)) {
-						return null;
-					}
-				} else if (POLICY_NAME_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-					//compare old and new policyName
-					if(compareTwoPolicyName(value, oldValue)) {
-						return null;
-					}
-				} else if (DENYPOLICY_ITEM_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-					//compare old and new denyPolicyItem
-					if(compareTwoPolicyItemList(value, oldValue)) {
-						return null;
-					}
-				} else if (ALLOW_EXCEPTIONS_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-					//compare old and new allowExceptions
-					if(compareTwoPolicyItemList(value, oldValue)) {
-						return null;
-					}
-				} else if (DENY_EXCEPTIONS_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-					//compare old and new denyExceptions
-					if(compareTwoPolicyItemList(value, oldValue)) {
-						return null;
-					}
-				} else if (POLICY_DESCRIPTION_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-					//compare old and new Description
-					if(org.apache.commons.lang.StringUtils.equals(value, oldValue)) {
-						return null;
-					}
-				} else if (DATAMASK_POLICY_ITEM_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-					//compare old and new dataMaskPolicyItems
-					if(compareTwoDataMaskingPolicyItemList(value, oldValue)) {
-						return null;
-					}
-				} else if (ROWFILTER_POLICY_ITEM_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-					//compare old and new rowFilterPolicyItems
-					if(compareTwoRowFilterPolicyItemList(value, oldValue)) {
-						return null;
-					}
-				} else if (IS_ENABLED_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-					if (oldPolicy != null) {
-					    oldValue = processPolicyNameForTrxLog(String.valueOf(oldPolicy.getIsEnabled()));
-					}
-				} else if (IS_AUDIT_ENABLED_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-					if (oldPolicy != null) {
-					    oldValue = processPolicyNameForTrxLog(String.valueOf(oldPolicy.getIsAuditEnabled()));
-					}
-				} else if (IS_ENABLED_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-					if(compareTwoPolicyName(value, oldValue)) {
-					    return null;
-					}
-				} else if (IS_AUDIT_ENABLED_CLASS_FIELD_NAME.equalsIgnoreCase(fieldName)) {
-					if(compareTwoPolicyName(value, oldValue)) {
-						return null;
-					}
-				}
+			String value    = getFieldValueForTrxLog(fieldName, vObj, dataMaskTypeDefs);
+			String oldValue = getFieldValueForTrxLog(fieldName, oldPolicy, dataMaskTypeDefs);
 
-				xTrxLog.setPreviousValue(oldValue);
-				xTrxLog.setNewValue(value);
+			if (oldValue.equalsIgnoreCase(value)) {
+				return null;
 			}
-		} catch (IllegalArgumentException | IllegalAccessException e) {
-			logger.error("Process field to create trx log failure.", e);
+			xTrxLog.setPreviousValue(oldValue);
+			xTrxLog.setNewValue(value);
+			actionString = actionUpdate;
 		}
 
 		xTrxLog.setAction(actionString);
-		xTrxLog.setObjectClassType(AppConstants.CLASS_TYPE_RANGER_POLICY);
-		xTrxLog.setObjectId(vObj.getId());
-		xTrxLog.setObjectName(objectName);
-		
-		XXService parentObj = daoMgr.getXXService().findByName(vObj.getService());
-		xTrxLog.setParentObjectClassType(AppConstants.CLASS_TYPE_XA_SERVICE);
-		xTrxLog.setParentObjectId(parentObj.getId());
-		xTrxLog.setParentObjectName(parentObj.getName());
 
 		return xTrxLog;
 	}
 
-	private boolean compareTwoPolicyItemList(String value, String oldValue) {
-		if (value == null && oldValue == null) {
-			return true;
+	private String getFieldValueForTrxLog(String fieldName, RangerPolicy policy, List<XXDataMaskTypeDef> dataMaskTypeDefs) {
+		final String ret;
+
+		if (POLICY_NAME_CLASS_FIELD_NAME.equals(fieldName)) {
+			ret = processPolicyNameForTrxLog(policy.getName());
+		} else if (POLICY_DESCRIPTION_CLASS_FIELD_NAME.equals(fieldName)) {
+			ret = processPolicyNameForTrxLog(policy.getDescription());
+		} else if (IS_AUDIT_ENABLED_CLASS_FIELD_NAME.equals(fieldName)) {
+			ret = String.valueOf(policy.getIsAuditEnabled());
+		} else if (POLICY_RESOURCE_CLASS_FIELD_NAME.equals(fieldName)) {
+			ret = processPolicyResourcesForTrxLog(policy.getResources());
+		} else if (POLICY_ITEM_CLASS_FIELD_NAME.equals(fieldName)) {
+			ret = processPolicyItemsForTrxLog(policy.getPolicyItems());
+		} else if (DENYPOLICY_ITEM_CLASS_FIELD_NAME.equals(fieldName)) {
+			ret = processPolicyItemsForTrxLog(policy.getDenyPolicyItems());
+		} else if (ALLOW_EXCEPTIONS_CLASS_FIELD_NAME.equals(fieldName)) {
+			ret = processPolicyItemsForTrxLog(policy.getAllowExceptions());
+		} else if (DENY_EXCEPTIONS_CLASS_FIELD_NAME.equals(fieldName)) {
+			ret = processPolicyItemsForTrxLog(policy.getDenyExceptions());
+		} else if (DATAMASK_POLICY_ITEM_CLASS_FIELD_NAME.equals(fieldName)) {
+			ret = addDataMaskLabels(processDataMaskPolicyItemsForTrxLog(policy.getDataMaskPolicyItems()), policy.getDataMaskPolicyItems(), dataMaskTypeDefs);
+		} else if (ROWFILTER_POLICY_ITEM_CLASS_FIELD_NAME.equals(fieldName)) {
+			ret = processRowFilterPolicyItemForTrxLog(policy.getRowFilterPolicyItems());
+		} else if (IS_ENABLED_CLASS_FIELD_NAME.equals(fieldName)) {
+			ret = String.valueOf(processIsEnabledClassFieldNameForTrxLog(policy.getIsEnabled()));
+		} else {
+			ret = "";
+		}
+
+		return ret;
+	}
+
+	private boolean isFieldUnchanged(String fieldName, RangerPolicy vObj, RangerPolicy oldPolicy) {
+		final boolean ret;
+
+		if (POLICY_RESOURCE_CLASS_FIELD_NAME.equals(fieldName)) {
+			ret = compareTwoPolicyResources(vObj.getResources(), oldPolicy.getResources());
+		} else if (POLICY_ITEM_CLASS_FIELD_NAME.equals(fieldName)) {
+			ret = compareTwoPolicyItemList(vObj.getPolicyItems(), oldPolicy.getPolicyItems());
+		} else if (DENYPOLICY_ITEM_CLASS_FIELD_NAME.equals(fieldName)) {
+			ret = compareTwoPolicyItemList(vObj.getDenyPolicyItems(), oldPolicy.getDenyPolicyItems());
+		} else if (ALLOW_EXCEPTIONS_CLASS_FIELD_NAME.equals(fieldName)) {
+			ret = compareTwoPolicyItemList(vObj.getAllowExceptions(), oldPolicy.getAllowExceptions());
+		} else if (DENY_EXCEPTIONS_CLASS_FIELD_NAME.equals(fieldName)) {
+			ret = compareTwoPolicyItemList(vObj.getDenyExceptions(), oldPolicy.getDenyExceptions());
+		} else if (DATAMASK_POLICY_ITEM_CLASS_FIELD_NAME.equals(fieldName)) {
+			ret = compareTwoPolicyItemList(vObj.getDataMaskPolicyItems(), oldPolicy.getDataMaskPolicyItems());
+		} else if (ROWFILTER_POLICY_ITEM_CLASS_FIELD_NAME.equals(fieldName)) {
+			ret = compareTwoPolicyItemList(vObj.getRowFilterPolicyItems(), oldPolicy.getRowFilterPolicyItems());
+		} else {
+			ret = false; // scalars: compared by their trx-log values
 		}
-		if (value == "" && oldValue == "") {
-			return true;
+
+		return ret;
+	}
+
+	/*
+	 * Items are compared irrespective of their order in the lists
+	 */
+	private boolean compareTwoPolicyItemList(List<? extends RangerPolicyItem> items, List<? extends RangerPolicyItem> oldItems) {
+		if (CollectionUtils.isEmpty(items) || CollectionUtils.isEmpty(oldItems)) {
+			return CollectionUtils.isEmpty(items) && CollectionUtils.isEmpty(oldItems);
 		}
-		if (stringUtil.isEmpty(value) || stringUtil.isEmpty(oldValue)) {
+
+		return items.size() == oldItems.size() && oldItems.containsAll(items);
+	}
+
+	private boolean compareTwoPolicyResources(Map<String, RangerPolicyResource> resources, Map<String, RangerPolicyResource> oldResources) {
+		if (resources == null || oldResources == null) {
+			return resources == oldResources;
+		}
+
+		if (resources.size() != oldResources.size()) {
 			return false;
 		}
 
-		ObjectMapper mapper = new ObjectMapper();
-		try {
-			List<RangerPolicyItem> obj = mapper.readValue(value,
-					new TypeReference<List<RangerPolicyItem>>() {
-					});
-			List<RangerPolicyItem> oldObj = mapper.readValue(oldValue,
-					new TypeReference<List<RangerPolicyItem>>() {
-					});
-			
-			int oldListSize = oldObj.size();
-			int listSize = obj.size();
-			if(oldListSize != listSize) {
+		for (Map.Entry<String, RangerPolicyResource> entry : resources.entrySet()) {
+			if (entry.getValue() == null || !entry.getValue().equals(oldResources.get(entry.getKey()))) {
 				return false;
 			}
-			
-			for(RangerPolicyItem polItem : obj) {
-				if(!oldObj.contains(polItem)) {
-					return false;
-				}
-			}
-			return true;
-		} catch (JsonParseException e) {
-			throw restErrorUtil.createRESTException(
-					"Invalid input data: " + e.getMessage(),
-					MessageEnums.INVALID_INPUT_DATA);
-		} catch (JsonMappingException e) {
-			throw restErrorUtil.createRESTException(
-					"Invalid input data: " + e.getMessage(),
-					MessageEnums.INVALID_INPUT_DATA);
-		} catch (IOException e) {
-			throw restErrorUtil.createRESTException(
-					"Invalid input data: " + e.getMessage(),
-					MessageEnums.INVALID_INPUT_DATA);
 		}
+
+		return true;
 	}
 
-	private boolean compareTwoPolicyResources(String value, String oldValue) {
-		if (value == null && oldValue == null) {
-			return true;
-		}
-		if (value == "" && oldValue == "") {
-			return true;
-		}
-		if (stringUtil.isEmpty(value) || stringUtil.isEmpty(oldValue)) {
-			return false;
+	private String addDataMaskLabels(String value, List<RangerDataMaskPolicyItem> policyItems, List<XXDataMaskTypeDef> dataMaskTypeDefs) {
+		if (CollectionUtils.isEmpty(policyItems) || CollectionUtils.isEmpty(dataMaskTypeDefs)) {
+			return value;
 		}
 
-		ObjectMapper mapper = new ObjectMapper();
-		try {
-			Map<String, RangerPolicyResource> obj = mapper.readValue(value,
-					new TypeReference<Map<String, RangerPolicyResource>>() {
-					});
-			Map<String, RangerPolicyResource> oldObj = mapper.readValue(oldValue,
-					new TypeReference<Map<String, RangerPolicyResource>>() {
-					});
-			
-			if (obj.size() != oldObj.size()) {
-				return false;
+		String ret = value;
+
+		for (RangerDataMaskPolicyItem policyItem : policyItems) {
+			if (policyItem.getDataMaskInfo() == null || policyItem.getDataMaskInfo().getDataMaskType() == null) {
+				continue;
 			}
-			
-			for (Map.Entry<String, RangerPolicyResource> entry : obj.entrySet()) {
-				if (!entry.getValue().equals(oldObj.get(entry.getKey()))) {
-					return false;
+
+			for (XXDataMaskTypeDef xxDataMaskTypeDef : dataMaskTypeDefs) {
+				if (xxDataMaskTypeDef.getName().equalsIgnoreCase(policyItem.getDataMaskInfo().getDataMaskType())) {
+					StringBuilder sbValue = new StringBuilder(ret);
+					int sbValueIndex = sbValue.lastIndexOf("}]");
+					if (sbValueIndex >= 0) {
+						sbValue.insert(sbValueIndex, ",\"DataMasklabel\":\"" + xxDataMaskTypeDef.getLabel() + "\"");
+						ret = sbValue.toString();
+					}
+					break;
 				}
 			}
-			return true;
-		} catch (JsonParseException e) {
-			throw restErrorUtil.createRESTException(
-					"Invalid input data: " + e.getMessage(),
-					MessageEnums.INVALID_INPUT_DATA);
-		} catch (JsonMappingException e) {
-			throw restErrorUtil.createRESTException(
-					"Invalid input data: " + e.getMessage(),
-					MessageEnums.INVALID_INPUT_DATA);
-		} catch (IOException e) {
-			throw restErrorUtil.createRESTException(
-					"Invalid input data: " + e.getMessage(),
-					MessageEnums.INVALID_INPUT_DATA);
 		}
+
+		return ret;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -531,10 +372,6 @@ public class RangerPolicyService extends RangerPolicyServiceBase<XXPolicy, Range
 		return ret;
 	}
 
-	private boolean compareTwoPolicyName(String value, String oldValue) {
-		return org.apache.commons.lang.StringUtils.equals(value, oldValue);
-	}
-
 	private String processPolicyNameForTrxLog(Object value) {
 		if (value == null) {
 			return "";
@@ -580,92 +417,4 @@ public class RangerPolicyService extends RangerPolicyServiceBase<XXPolicy, Range
 		String isEnabled = String.valueOf(value);
 			return isEnabled;
 	}
-
-	private boolean compareTwoDataMaskingPolicyItemList(String value, String oldValue) {
-		if (value == null && oldValue == null) {
-			return true;
-		}
-		if (value == "" && oldValue == "") {
-			return true;
-		}
-		if (stringUtil.isEmpty(value) || stringUtil.isEmpty(oldValue)) {
-			return false;
-		}
-		ObjectMapper mapper = new ObjectMapper();
-		try {
-			List<RangerDataMaskPolicyItem> obj = mapper.readValue(value,
-					new TypeReference<List<RangerDataMaskPolicyItem>>() {
-					});
-			List<RangerDataMaskPolicyItem> oldObj = mapper.readValue(oldValue,
-					new TypeReference<List<RangerDataMaskPolicyItem>>() {
-					});
-			int oldListSize = oldObj.size();
-			int listSize = obj.size();
-			if(oldListSize != listSize) {
-				return false;
-			}
-			for(RangerDataMaskPolicyItem polItem : obj) {
-				if(!oldObj.contains(polItem)) {
-					return false;
-				}
-			}
-			return true;
-		} catch (JsonParseException e) {
-			throw restErrorUtil.createRESTException(
-					"Invalid input data: " + e.getMessage(),
-					MessageEnums.INVALID_INPUT_DATA);
-		} catch (JsonMappingException e) {
-			throw restErrorUtil.createRESTException(
-					"Invalid input data: " + e.getMessage(),
-					MessageEnums.INVALID_INPUT_DATA);
-		} catch (IOException e) {
-			throw restErrorUtil.createRESTException(
-					"Invalid input data: " + e.getMessage(),
-					MessageEnums.INVALID_INPUT_DATA);
-		}
-	}
-
-	private boolean compareTwoRowFilterPolicyItemList(String value, String oldValue) {
-		if (value == null && oldValue == null) {
-			return true;
-		}
-		if (value == "" && oldValue == "") {
-			return true;
-		}
-		if (stringUtil.isEmpty(value) || stringUtil.isEmpty(oldValue)) {
-			return false;
-		}
-		ObjectMapper mapper = new ObjectMapper();
-		try {
-			List<RangerRowFilterPolicyItem> obj = mapper.readValue(value,
-					new TypeReference<List<RangerRowFilterPolicyItem>>() {
-					});
-			List<RangerRowFilterPolicyItem> oldObj = mapper.readValue(oldValue,
-					new TypeReference<List<RangerRowFilterPolicyItem>>() {
-					});
-			int oldListSize = oldObj.size();
-			int listSize = obj.size();
-			if(oldListSize != listSize) {
-				return false;
-			}
-			for(RangerRowFilterPolicyItem polItem : obj) {
-				if(!oldObj.contains(polItem)) {
-					return false;
-				}
-			}
-			return true;
-		} catch (JsonParseException e) {
-			throw restErrorUtil.createRESTException(
-					"Invalid input data: " + e.getMessage(),
-					MessageEnums.INVALID_INPUT_DATA);
-		} catch (JsonMappingException e) {
-			throw restErrorUtil.createRESTException(
-					"Invalid input data: " + e.getMessage(),
-					MessageEnums.INVALID_INPUT_DATA);
-		} catch (IOException e) {
-			throw restErrorUtil.createRESTException(
-					"Invalid input data: " + e.getMessage(),
-					MessageEnums.INVALID_INPUT_DATA);
-		}
-	}
 }
@@ -18,7 +18,6 @@
 package org.apache.ranger.service;
 
 import java.io.IOException;
-import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
@@ -66,6 +65,9 @@ public class RangerServiceService extends RangerServiceServiceBase<XXService, Ra
 		trxLogAttrs.put("configs", new VTrxLogAttr("configs", "Connection Configurations", false));
 		trxLogAttrs.put("tagService", new VTrxLogAttr("tagService", "Tag Service Name", false));
 	}
+
+	// attributes of trxLogAttrs, in the order their transaction-log rows are created
+	private static final String[] TRX_LOG_FIELD_NAMES = { "name", "description", "tagService", "configs", "isEnabled" };
 	
 	public RangerServiceService() {
 		super();
@@ -139,159 +141,168 @@ public class RangerServiceService extends RangerServiceServiceBase<XXService, Ra
 			return null;
 		}
 		List<XXTrxLog> trxLogList = new ArrayList<XXTrxLog>();
-		Field[] fields = vObj.getClass().getDeclaredFields();
+		String objectName = "" + vObj.getName();
+		RangerService oldService = null;
+		XXServiceDef parentObj = null;
 
-		try {
-			Field nameField = vObj.getClass().getDeclaredField("name");
-			nameField.setAccessible(true);
-			String objectName = "" + nameField.get(vObj);
+		for (String fieldName : TRX_LOG_FIELD_NAMES) {
+			if (action == OPERATION_UPDATE_CONTEXT && oldService == null && ("configs".equals(fieldName) || "tagService".equals(fieldName))) {
+				oldService = this.populateViewBean(mObj); // read once, only for the attributes that need it
 
-			for (Field field : fields) {
-				if (!trxLogAttrs.containsKey(field.getName())) {
-					continue;
-				}
-				XXTrxLog xTrxLog = processFieldToCreateTrxLog(field,
-						objectName, nameField, vObj, mObj, action);
-				if (xTrxLog != null) {
-					trxLogList.add(xTrxLog);
+				if (oldService == null) {
+					LOG.error("Transaction log failure: could not read existing service, id=" + mObj.getId());
+
+					return trxLogList;
 				}
 			}
-			Field[] superClassFields = vObj.getClass().getSuperclass().getDeclaredFields();
-			for(Field field : superClassFields) {
-				if("isEnabled".equalsIgnoreCase(field.getName())) {
-					XXTrxLog xTrx = processFieldToCreateTrxLog(field, objectName, nameField, vObj, mObj, action);
-					if(xTrx != null) {
-						trxLogList.add(xTrx);
-					}
-					break;
+
+			XXTrxLog xTrxLog = processFieldToCreateTrxLog(fieldName, vObj, mObj, oldService, action);
+
+			if (xTrxLog == null) {
+				continue;
+			}
+
+			if (parentObj == null) {
+				parentObj = daoMgr.getXXServiceDef().findByName(vObj.getType());
+
+				if (parentObj == null) {
+					LOG.error("Transaction log failure: service-def not found, name=" + vObj.getType());
+
+					return trxLogList;
 				}
 			}
-		} catch (IllegalAccessException e) {
-			LOG.error("Transaction log failure.", e);
-		} catch (NoSuchFieldException e) {
-			LOG.error("Transaction log failure.", e);
+
+			xTrxLog.setObjectClassType(AppConstants.CLASS_TYPE_XA_SERVICE);
+			xTrxLog.setObjectId(vObj.getId());
+			xTrxLog.setObjectName(objectName);
+			xTrxLog.setParentObjectClassType(AppConstants.CLASS_TYPE_XA_SERVICE_DEF);
+			xTrxLog.setParentObjectId(parentObj.getId());
+			xTrxLog.setParentObjectName(parentObj.getName());
+
+			trxLogList.add(xTrxLog);
 		}
 		return trxLogList;
 	}
 
-	@SuppressWarnings("unchecked")
-	private XXTrxLog processFieldToCreateTrxLog(Field field, String objectName,
-			Field nameField, RangerService vObj, XXService mObj, int action) {
-
+	private XXTrxLog processFieldToCreateTrxLog(String fieldName, RangerService vObj, XXService mObj, RangerService oldService, int action) {
 		String actionString = "";
-
-		field.setAccessible(true);
-		String fieldName = field.getName();
 		XXTrxLog xTrxLog = new XXTrxLog();
 
-		try {
-			VTrxLogAttr vTrxLogAttr = trxLogAttrs.get(fieldName);
-
-			xTrxLog.setAttributeName(vTrxLogAttr.getAttribUserFriendlyName());
+		xTrxLog.setAttributeName(trxLogAttrs.get(fieldName).getAttribUserFriendlyName());
 
-			String value = null;
-			boolean isEnum = vTrxLogAttr.isEnum();
-			if (isEnum) {
-
-			} else if ("configs".equalsIgnoreCase(fieldName)) {
-				Map<String, String> configs = (field.get(vObj) != null) ? (Map<String, String>) field
-						.get(vObj) : new HashMap<String, String>();
+		String value;
+		if ("configs".equals(fieldName)) {
+			value = jsonUtil.readMapToString(vObj.getConfigs() != null ? vObj.getConfigs() : new HashMap<String, String>());
+		} else {
+			value = "" + getFieldValue(fieldName, vObj);
+		}
 
-						value = jsonUtil.readMapToString(configs);
-			} else {
-				value = "" + field.get(vObj);
+		if (action == OPERATION_CREATE_CONTEXT) {
+			if (stringUtil.isEmpty(value)) {
+				return null;
 			}
-
-			if (action == OPERATION_CREATE_CONTEXT) {
-				if (stringUtil.isEmpty(value)) {
-					return null;
-				}
-				xTrxLog.setNewValue(value);
-				actionString = actionCreate;
-			} else if (action == OPERATION_DELETE_CONTEXT) {
-				xTrxLog.setPreviousValue(value);
-				actionString = actionDelete;
-			} else if (action == OPERATION_UPDATE_CONTEXT) {
-				actionString = actionUpdate;
-				String oldValue = null;
-				Field[] mFields = mObj.getClass().getSuperclass().getDeclaredFields();
-				for (Field mField : mFields) {
-					mField.setAccessible(true);
-					String mFieldName = mField.getName();
-					if (fieldName.equalsIgnoreCase(mFieldName)) {
-						if (isEnum) {
-
-						} else {
-							oldValue = mField.get(mObj) + "";
-						}
-						break;
-					}
-				}
-				if ("configs".equalsIgnoreCase(fieldName)) {
-					Map<String, String> vConfig = jsonUtil.jsonToMap(value);
-					RangerService oldService = this.populateViewBean(mObj);
-					Map<String, String> xConfig = oldService.getConfigs();
-
-					Map<String, String> newConfig = new HashMap<String, String>();
-					Map<String, String> oldConfig = new HashMap<String, String>();
-
-					for (Entry<String, String> entry : vConfig.entrySet()) {
-
-						String key = entry.getKey();
-						if (!xConfig.containsKey(key)) {
-							if(StringUtils.isNotEmpty(entry.getValue())) {
-								newConfig.put(key, entry.getValue());
-							}
-						} else if (!entry.getValue().equalsIgnoreCase(
-								xConfig.get(key))) {
-							if ("password".equalsIgnoreCase(key)
-									&& entry.getValue().equalsIgnoreCase(
-											hiddenPasswordString)) {
-								continue;
-							}
+			xTrxLog.setNewValue(value);
+			actionString = actionCreate;
+		} else if (action == OPERATION_DELETE_CONTEXT) {
+			xTrxLog.setPreviousValue(value);
+			actionString = actionDelete;
+		} else if (action == OPERATION_UPDATE_CONTEXT) {
+			actionString = actionUpdate;
+			String oldValue = null;
+			if ("configs".equals(fieldName)) {
+				Map<String, String> vConfig = vObj.getConfigs() != null ? vObj.getConfigs() : new HashMap<String, String>();
+				Map<String, String> xConfig = oldService.getConfigs();
+
+				Map<String, String> newConfig = new HashMap<String, String>();
+				Map<String, String> oldConfig = new HashMap<String, String>();
+
+				for (Entry<String, String> entry : vConfig.entrySet()) {
+
+					String key = entry.getKey();
+					if (!xConfig.containsKey(key)) {
+						if(StringUtils.isNotEmpty(entry.getValue())) {
 							newConfig.put(key, entry.getValue());
-							oldConfig.put(key, xConfig.get(key));
 						}
-					}
-					for (Entry<String, String> entry : xConfig.entrySet()) {
-						String key = entry.getKey();
-						if (!vConfig.containsKey(key)) {
-							oldConfig.put(key, entry.getValue());
-							newConfig.put(key,null);
+					} else if (!StringUtils.equalsIgnoreCase(entry.getValue(), xConfig.get(key))) {
+						if ("password".equalsIgnoreCase(key)
+								&& StringUtils.equalsIgnoreCase(entry.getValue(), hiddenPasswordString)) {
+							continue;
 						}
+						newConfig.put(key, entry.getValue());
+						oldConfig.put(key, xConfig.get(key));
 					}
-					oldValue = jsonUtil.readMapToString(oldConfig);
-					value = jsonUtil.readMapToString(newConfig);
 				}
-				if ("tagService".equalsIgnoreCase(fieldName)) {
-					if(!StringUtils.isEmpty(oldValue) && !"null".equalsIgnoreCase(oldValue)){
-						RangerService oldService = this.populateViewBean(mObj);
-						oldValue=oldService.getTagService();
+				for (Entry<String, String> entry : xConfig.entrySet()) {
+					String key = entry.getKey();
+					if (!vConfig.containsKey(key)) {
+						oldConfig.put(key, entry.getValue());
+						newConfig.put(key,null);
 					}
 				}
-				if (oldValue == null || value.equalsIgnoreCase(oldValue)) {
+				if (newConfig.isEmpty() && oldConfig.isEmpty()) {
 					return null;
 				}
-				xTrxLog.setPreviousValue(oldValue);
-				xTrxLog.setNewValue(value);
+				oldValue = jsonUtil.readMapToString(oldConfig);
+				value = jsonUtil.readMapToString(newConfig);
+			} else {
+				oldValue = "" + getFieldValue(fieldName, mObj);
+			}
+			if ("tagService".equals(fieldName)) {
+				if(!StringUtils.isEmpty(oldValue) && !"null".equalsIgnoreCase(oldValue)){
+					oldValue=oldService.getTagService();
+				}
 			}
-		} catch (IllegalArgumentException | IllegalAccessException e) {
-			LOG.error("Process field to create trx log failure." , e);
+			if (oldValue == null || value.equalsIgnoreCase(oldValue)) {
+				return null;
+			}
+			xTrxLog.setPreviousValue(oldValue);
+			xTrxLog.setNewValue(value);
 		}
 
 		xTrxLog.setAction(actionString);
-		xTrxLog.setObjectClassType(AppConstants.CLASS_TYPE_XA_SERVICE);
-		xTrxLog.setObjectId(vObj.getId());
-		xTrxLog.setObjectName(objectName);
-
-		XXServiceDef parentObj = daoMgr.getXXServiceDef().findByName(vObj.getType());
-		xTrxLog.setParentObjectClassType(AppConstants.CLASS_TYPE_XA_SERVICE_DEF);
-		xTrxLog.setParentObjectId(parentObj.getId());
-		xTrxLog.setParentObjectName(parentObj.getName());
 
 		return xTrxLog;
 	}
 
+	private Object getFieldValue(String fieldName, RangerService vObj) {
+		final Object ret;
+
+		if ("name".equals(fieldName)) {
+			ret = vObj.getName();
+		} else if ("description".equals(fieldName)) {
+			ret = vObj.getDescription();
+		} else if ("tagService".equals(fieldName)) {
+			ret = vObj.getTagService();
+		} else if ("isEnabled".equals(fieldName)) {
+			ret = vObj.getIsEnabled();
+		} else {
+			ret = null;
+		}
+
+		return ret;
+	}
+
+	/*
+	 * Value of the attribute in the existing service; tagService is the ID of the tag service
+	 */
+	private Object getFieldValue(String fieldName, XXService mObj) {
+		final Object ret;
+
+		if ("name".equals(fieldName)) {
+			ret = mObj.getName();
+		} else if ("description".equals(fieldName)) {
+			ret = mObj.getDescription();
+		} else if ("tagService".equals(fieldName)) {
+			ret = mObj.getTagService();
+		} else if ("isEnabled".equals(fieldName)) {
+			ret = mObj.getIsenabled();
+		} else {
+			ret = null;
+		}
+
+		return ret;
+	}
+
 	public Map<String, String> getConfigsWithDecryptedPassword(RangerService service) throws IOException {
 		Map<String, String> configs = service.getConfigs();
 		
@@ -0,0 +1,506 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.entity.XXTrxLog;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+/**
+ * Local journal of transaction-log rows that are yet to be written to the database.
+ *
+ * Rows are appended, one JSON line each, to journal files named after the sequence number of their first row. Rows of
+ * a transaction are appended as pending before it commits; a completion line appended after the transaction completes
+ * marks them as committed or discards them. A checkpoint file holds the sequence number up to which all rows have
+ * been written to the database, or discarded. Journals whose rows have all been written are deleted.
+ *
+ * After a restart, open() returns the rows past the checkpoint that were not discarded, in the order they were
+ * appended. Pending rows without a completion line are returned as well, as their transaction may have committed
+ * before the process died. Rows written to the database, but not yet covered by the checkpoint, are written again:
+ * delivery is at-least-once.
+ *
+ * Not thread-safe: RangerTrxLogWriter serializes the calls.
+ */
+class RangerTrxLogSpool {
+	private static final Log LOG = LogFactory.getLog(RangerTrxLogSpool.class);
+
+	static final String JOURNAL_FILE_PREFIX = "trxlog-";
+	static final String JOURNAL_FILE_SUFFIX = ".json";
+	static final String CHECKPOINT_FILE     = "trxlog.checkpoint";
+
+	private final File                dir;
+	private final long                maxJournalSize;
+	private final Gson                 gson          = new Gson();
+	private final JsonParser           jsonParser    = new JsonParser();
+	private final TreeMap<Long, File>  journals      = new TreeMap<Long, File>();  // first sequence number -> journal file
+	private final TreeMap<Long, int[]> unwrittenRows = new TreeMap<Long, int[]>(); // first sequence number of appended rows -> { row count, rows not written or discarded }
+
+	private Writer currentJournal     = null;
+	private long   currentJournalSize = 0;
+	private long   lastAppendedSeq    = 0;
+	private long   checkpointSeq      = 0;
+
+	RangerTrxLogSpool(File dir, long maxJournalSize) {
+		this.dir            = dir;
+		this.maxJournalSize = maxJournalSize;
+	}
+
+	File getDir() {
+		return dir;
+	}
+
+	long getLastAppendedSeq() {
+		return lastAppendedSeq;
+	}
+
+	long getCheckpointSeq() {
+		return checkpointSeq;
+	}
+
+	/*
+	 * Returns rows appended, but not checkpointed, before the spool was last closed - or before the process died
+	 */
+	List<Record> open() throws IOException {
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("failed to create transaction-log spool directory " + dir);
+		}
+
+		TreeMap<Long, Record> records = new TreeMap<Long, Record>();
+
+		checkpointSeq   = readCheckpoint();
+		lastAppendedSeq = checkpointSeq;
+
+		File[] files = dir.listFiles();
+
+		if (files != null) {
+			for (File file : files) {
+				Long firstSeq = getJournalFirstSeq(file.getName());
+
+				if (firstSeq != null) {
+					journals.put(firstSeq, file);
+				}
+			}
+		}
+
+		for (File journal : journals.values()) {
+			readJournal(journal, records);
+		}
+
+		int inDoubtCount = 0;
+
+		for (Record record : records.values()) {
+			if (record.isPending()) {
+				record.pending = null;
+
+				inDoubtCount++;
+			}
+
+			unwrittenRows.put(record.seq, new int[] { 1, 1 });
+		}
+
+		if (inDoubtCount > 0) {
+			LOG.warn("RangerTrxLogSpool.open(" + dir + "): " + inDoubtCount + " rows of transactions that did not complete before the last shutdown will be written");
+		}
+
+		List<Record> ret = new ArrayList<Record>(records.values());
+
+		deleteCheckpointedJournals();
+
+		LOG.info("RangerTrxLogSpool.open(" + dir + "): checkpoint=" + checkpointSeq + ", pendingRows=" + ret.size() + ", journals=" + journals.size());
+
+		return ret;
+	}
+
+	List<Record> append(List<XXTrxLog> trxLogs) throws IOException {
+		return append(trxLogs, false);
+	}
+
+	/*
+	 * Assigns sequence numbers to the rows, in order, and appends them to the journal. Pending rows, i.e. rows of a
+	 * transaction that is yet to commit, must be passed to complete() once the transaction completes.
+	 */
+	List<Record> append(List<XXTrxLog> trxLogs, boolean isPending) throws IOException {
+		List<Record> ret   = new ArrayList<Record>(trxLogs.size());
+		List<String> lines = new ArrayList<String>(trxLogs.size());
+
+		for (XXTrxLog trxLog : trxLogs) {
+			Record record = new Record(++lastAppendedSeq, trxLog);
+
+			if (isPending) {
+				record.pending = Boolean.TRUE;
+			}
+
+			ret.add(record);
+			lines.add(gson.toJson(record));
+		}
+
+		if (currentJournal == null || currentJournalSize >= maxJournalSize) {
+			rollJournal(ret.get(0).seq);
+		}
+
+		writeLines(lines);
+
+		unwrittenRows.put(ret.get(0).seq, new int[] { ret.size(), ret.size() });
+
+		return ret;
+	}
+
+	/*
+	 * Marks pending rows as committed, or discards them when their transaction rolled back
+	 */
+	void complete(List<Record> records, boolean isCommitted) throws IOException {
+		Completion completion = new Completion(records.get(0).seq, records.get(records.size() - 1).seq, isCommitted);
+
+		if (currentJournal == null) {
+			rollJournal(lastAppendedSeq + 1);
+		}
+
+		writeLines(Collections.singletonList(gson.toJson(completion)));
+
+		if (isCommitted) {
+			for (Record record : records) {
+				record.pending = null;
+			}
+		} else {
+			unwrittenRows.remove(completion.firstSeq);
+
+			saveCheckpoint();
+		}
+	}
+
+	/*
+	 * Records that the given rows have been written to the database. The checkpoint moves up to the first row that
+	 * is yet to be written, as rows of concurrent transactions are not written in the order they were appended.
+	 */
+	void checkpoint(List<Record> records) throws IOException {
+		for (Record record : records) {
+			Map.Entry<Long, int[]> entry = unwrittenRows.floorEntry(record.seq);
+
+			if (entry == null || record.seq >= entry.getKey() + entry.getValue()[0]) { // not a row of this spool
+				continue;
+			}
+
+			if (--entry.getValue()[1] <= 0) {
+				unwrittenRows.remove(entry.getKey());
+			}
+		}
+
+		saveCheckpoint();
+	}
+
+	void close() {
+		closeJournal();
+	}
+
+	private void saveCheckpoint() throws IOException {
+		long seq = unwrittenRows.isEmpty() ? lastAppendedSeq : (unwrittenRows.firstKey() - 1);
+
+		if (seq <= checkpointSeq) {
+			return;
+		}
+
+		File tmpFile = new File(dir, CHECKPOINT_FILE + ".tmp");
+
+		Files.write(tmpFile.toPath(), Long.toString(seq).getBytes(StandardCharsets.UTF_8));
+		Files.move(tmpFile.toPath(), new File(dir, CHECKPOINT_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		checkpointSeq = seq;
+
+		if (checkpointSeq >= lastAppendedSeq) { // all rows written: start afresh with the next append
+			closeJournal();
+		}
+
+		deleteCheckpointedJournals();
+	}
+
+	private void writeLines(List<String> lines) throws IOException {
+		for (String line : lines) {
+			currentJournal.write(line);
+			currentJournal.write('\n');
+
+			currentJournalSize += line.length() + 1;
+		}
+
+		currentJournal.flush();
+	}
+
+	private void rollJournal(long firstSeq) throws IOException {
+		closeJournal();
+
+		File journal = new File(dir, JOURNAL_FILE_PREFIX + String.format("%020d", firstSeq) + JOURNAL_FILE_SUFFIX);
+
+		currentJournal     = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(journal, true), StandardCharsets.UTF_8));
+		currentJournalSize = journal.length();
+
+		journals.put(firstSeq, journal);
+	}
+
+	private void closeJournal() {
+		if (currentJournal != null) {
+			try {
+				currentJournal.close();
+			} catch (IOException excp) {
+				LOG.warn("RangerTrxLogSpool: failed to close journal", excp);
+			}
+
+			currentJournal = null;
+		}
+	}
+
+	/*
+	 * A journal holds rows from its first sequence number up to the first sequence number of the next journal. The
+	 * current journal is kept until closed, as rows are still being appended to it.
+	 */
+	private void deleteCheckpointedJournals() {
+		Iterator<Map.Entry<Long, File>> iter = journals.entrySet().iterator();
+
+		while (iter.hasNext()) {
+			Map.Entry<Long, File> entry       = iter.next();
+			Long                  nextFirstSeq = journals.higherKey(entry.getKey());
+			long                  lastSeq      = nextFirstSeq != null ? nextFirstSeq - 1 : lastAppendedSeq;
+			boolean               isCurrent    = nextFirstSeq == null && currentJournal != null;
+
+			if (lastSeq > checkpointSeq || isCurrent) {
+				break;
+			}
+
+			if (!entry.getValue().delete() && entry.getValue().exists()) {
+				LOG.warn("RangerTrxLogSpool: failed to delete journal " + entry.getValue());
+			}
+
+			iter.remove();
+		}
+	}
+
+	private long readCheckpoint() throws IOException {
+		long ret  = 0;
+		File file = new File(dir, CHECKPOINT_FILE);
+
+		if (file.exists()) {
+			String value = StringUtils.trim(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+
+			try {
+				ret = Long.parseLong(value);
+			} catch (NumberFormatException excp) {
+				LOG.error("RangerTrxLogSpool: invalid checkpoint '" + value + "' in " + file + ". Rows in all journals will be written");
+			}
+		}
+
+		return ret;
+	}
+
+	private void readJournal(File journal, TreeMap<Long, Record> records) throws IOException {
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(journal), StandardCharsets.UTF_8))) {
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				if (StringUtils.isBlank(line)) {
+					continue;
+				}
+
+				JsonObject json = null;
+
+				try {
+					JsonElement element = jsonParser.parse(line);
+
+					if (element.isJsonObject()) {
+						json = element.getAsJsonObject();
+					}
+				} catch (JsonParseException excp) {
+					// the last line is incomplete if the process died while appending to the journal
+				}
+
+				if (json == null) {
+					LOG.warn("RangerTrxLogSpool: ignoring unreadable row in " + journal + ": " + line);
+				} else if (json.has("seq")) {
+					Record record = gson.fromJson(json, Record.class);
+
+					lastAppendedSeq = Math.max(lastAppendedSeq, record.seq);
+
+					if (record.seq > checkpointSeq) {
+						records.put(record.seq, record);
+					}
+				} else {
+					Completion                 completion = gson.fromJson(json, Completion.class);
+					NavigableMap<Long, Record> completed  = records.subMap(completion.firstSeq, true, completion.lastSeq, true);
+
+					if (completion.committed) {
+						for (Record record : completed.values()) {
+							record.pending = null;
+						}
+					} else {
+						completed.clear();
+					}
+				}
+			}
+		}
+	}
+
+	private static Long getJournalFirstSeq(String fileName) {
+		Long ret = null;
+
+		if (fileName.startsWith(JOURNAL_FILE_PREFIX) && fileName.endsWith(JOURNAL_FILE_SUFFIX)) {
+			try {
+				ret = Long.parseLong(fileName.substring(JOURNAL_FILE_PREFIX.length(), fileName.length() - JOURNAL_FILE_SUFFIX.length()));
+			} catch (NumberFormatException excp) {
+				// not a journal
+			}
+		}
+
+		return ret;
+	}
+
+	/*
+	 * Marks rows firstSeq to lastSeq, appended as pending, as committed or discarded
+	 */
+	static class Completion {
+		long    firstSeq;
+		long    lastSeq;
+		boolean committed;
+
+		Completion() {
+		}
+
+		Completion(long firstSeq, long lastSeq, boolean committed) {
+			this.firstSeq  = firstSeq;
+			this.lastSeq   = lastSeq;
+			this.committed = committed;
+		}
+	}
+
+	/*
+	 * Columns of XXTrxLog, in a form that does not depend on how the JPA provider enhances the entity class
+	 */
+	static class Record {
+		long    seq;
+		Boolean pending; // null, and so left out of the journal, unless the transaction of the row is yet to commit
+		int     objectClassType;
+		Long    objectId;
+		Long    parentObjectId;
+		int     parentObjectClassType;
+		String  parentObjectName;
+		String  objectName;
+		String  attributeName;
+		String  previousValue;
+		String  newValue;
+		String  transactionId;
+		String  action;
+		String  sessionId;
+		String  requestId;
+		String  sessionType;
+		Long    createTime;
+		Long    addedByUserId;
+		Long    updatedByUserId;
+
+		Record() {
+		}
+
+		Record(long seq, XXTrxLog trxLog) {
+			this.seq                   = seq;
+			this.objectClassType       = trxLog.getObjectClassType();
+			this.objectId              = trxLog.getObjectId();
+			this.parentObjectId        = trxLog.getParentObjectId();
+			this.parentObjectClassType = trxLog.getParentObjectClassType();
+			this.parentObjectName      = trxLog.getParentObjectName();
+			this.objectName            = trxLog.getObjectName();
+			this.attributeName         = trxLog.getAttributeName();
+			this.previousValue         = trxLog.getPreviousValue();
+			this.newValue              = trxLog.getNewValue();
+			this.transactionId         = trxLog.getTransactionId();
+			this.action                = trxLog.getAction();
+			this.sessionId             = trxLog.getSessionId();
+			this.requestId             = trxLog.getRequestId();
+			this.sessionType           = trxLog.getSessionType();
+			this.createTime            = trxLog.getCreateTime() != null ? trxLog.getCreateTime().getTime() : null;
+			this.addedByUserId         = trxLog.getAddedByUserId();
+			this.updatedByUserId       = trxLog.getUpdatedByUserId();
+		}
+
+		long getSeq() {
+			return seq;
+		}
+
+		boolean isPending() {
+			return pending != null && pending;
+		}
+
+		/*
+		 * Returns a new entity on every call, so that a failed attempt to persist leaves nothing behind for the retry
+		 */
+		XXTrxLog toTrxLog() {
+			XXTrxLog ret = new XXTrxLog();
+
+			ret.setObjectClassType(objectClassType);
+			ret.setObjectId(objectId);
+			ret.setParentObjectId(parentObjectId);
+			ret.setParentObjectClassType(parentObjectClassType);
+			ret.setParentObjectName(parentObjectName);
+			ret.setObjectName(objectName);
+			ret.setAttributeName(attributeName);
+			ret.setPreviousValue(previousValue);
+			ret.setNewValue(newValue);
+			ret.setTransactionId(transactionId);
+			ret.setAction(action);
+			ret.setSessionId(sessionId);
+			ret.setRequestId(requestId);
+			ret.setSessionType(sessionType);
+			ret.setAddedByUserId(addedByUserId);
+			ret.setUpdatedByUserId(updatedByUserId);
+
+			if (createTime != null) {
+				ret.setCreateTime(new Date(createTime));
+			}
+
+			return ret;
+		}
+
+		@Override
+		public String toString() {
+			return "Record={seq=" + seq + ", objectClassType=" + objectClassType + ", objectId=" + objectId + ", objectName=" + objectName
+					+ ", attributeName=" + attributeName + ", action=" + action + ", transactionId=" + transactionId + "}";
+		}
+	}
+}
@@ -0,0 +1,396 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.common.PropertiesUtil;
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.entity.XXTrxLog;
+import org.apache.ranger.service.RangerTrxLogSpool.Record;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes transaction-log (x_trx_log) rows outside of the transaction that made the change being logged.
+ *
+ * Rows given to write() are appended to a local journal (RangerTrxLogSpool) just before the current transaction
+ * commits, so that they survive a crash right after the commit. Once the transaction completes, the rows are marked
+ * as committed and queued - or discarded if it rolled back, as they would have been when written in that transaction.
+ * Queued rows are written to the database by a single thread, in the order they were queued, up to batchSize rows in
+ * each transaction; with eclipselink.jdbc.batch-writing, each such transaction sends the inserts in JDBC batches.
+ *
+ * When a batch fails, its rows are retried one at a time: rows that fail while the database is reachable are logged
+ * and dropped, so that one bad row does not hold up the rest; if the database is unreachable, the batch is retried
+ * after retryIntervalMs.
+ */
+@Component
+public class RangerTrxLogWriter {
+	private static final Log LOG = LogFactory.getLog(RangerTrxLogWriter.class);
+
+	public static final String PROP_ASYNC_ENABLED       = "ranger.admin.trxlog.async.enabled";
+	public static final String PROP_BATCH_SIZE          = "ranger.admin.trxlog.batch.size";
+	public static final String PROP_RETRY_INTERVAL_MS   = "ranger.admin.trxlog.retry.interval.ms";
+	public static final String PROP_SPOOL_DIR           = "ranger.admin.trxlog.spool.dir";
+	public static final String PROP_SPOOL_FILE_MAX_SIZE = "ranger.admin.trxlog.spool.file.max.size";
+
+	private static final long POLL_INTERVAL_MS = 1000;
+
+	@Autowired
+	RangerDaoManager daoManager;
+
+	@Autowired
+	@Qualifier(value = "transactionManager")
+	PlatformTransactionManager txManager;
+
+	private final BlockingQueue<Record> queue = new LinkedBlockingQueue<Record>();
+
+	private boolean           asyncEnabled    = false;
+	private int               batchSize       = 100;
+	private long              retryIntervalMs = 5000;
+	private RangerTrxLogSpool spool           = null;
+	private Thread            writerThread    = null;
+	private volatile boolean  isStopped       = false;
+
+	@PostConstruct
+	public void init() {
+		asyncEnabled = PropertiesUtil.getBooleanProperty(PROP_ASYNC_ENABLED, true);
+
+		LOG.info(PROP_ASYNC_ENABLED + " = " + asyncEnabled);
+
+		if (!asyncEnabled) {
+			return;
+		}
+
+		batchSize       = Math.max(1, PropertiesUtil.getIntProperty(PROP_BATCH_SIZE, batchSize));
+		retryIntervalMs = Math.max(100, PropertiesUtil.getLongProperty(PROP_RETRY_INTERVAL_MS, retryIntervalMs));
+
+		String spoolDir = PropertiesUtil.getProperty(PROP_SPOOL_DIR);
+
+		if (StringUtils.isBlank(spoolDir)) {
+			spoolDir = System.getProperty("logdir", System.getProperty("java.io.tmpdir")) + File.separator + "trxlog-spool";
+		}
+
+		spool = new RangerTrxLogSpool(new File(spoolDir), PropertiesUtil.getLongProperty(PROP_SPOOL_FILE_MAX_SIZE, 16 * 1024 * 1024));
+
+		try {
+			queue.addAll(spool.open());
+		} catch (IOException excp) {
+			LOG.error("RangerTrxLogWriter: failed to open spool in " + spoolDir + ". Transaction-log rows will be queued in memory only", excp);
+
+			spool.close();
+			spool = null;
+		}
+
+		writerThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				runWriter();
+			}
+		}, "RangerTrxLogWriter");
+
+		writerThread.setDaemon(true);
+		writerThread.start();
+
+		LOG.info("RangerTrxLogWriter started: batchSize=" + batchSize + ", retryIntervalMs=" + retryIntervalMs + ", spoolDir=" + (spool != null ? spool.getDir() : null) + ", pendingRows=" + queue.size());
+	}
+
+	@PreDestroy
+	public void destroy() {
+		if (writerThread == null) {
+			return;
+		}
+
+		LOG.info("attempt to shutdown RangerTrxLogWriter: pendingRows=" + queue.size());
+
+		isStopped = true;
+
+		try {
+			writerThread.join(TimeUnit.SECONDS.toMillis(30));
+		} catch (InterruptedException excp) {
+			LOG.error("RangerTrxLogWriter: interrupted while waiting for pending rows to be written");
+		}
+
+		synchronized (this) {
+			if (spool != null) {
+				spool.close();
+			}
+		}
+
+		LOG.info("RangerTrxLogWriter shutdown finished: pendingRows=" + queue.size());
+	}
+
+	public boolean isAsyncEnabled() {
+		return asyncEnabled && writerThread != null;
+	}
+
+	int getPendingCount() {
+		return queue.size();
+	}
+
+	/*
+	 * Spools the rows before the current transaction commits and queues them once it has committed; if there is no
+	 * transaction, spools and queues them now
+	 */
+	public void write(final List<XXTrxLog> trxLogs) {
+		if (CollectionUtils.isEmpty(trxLogs)) {
+			return;
+		}
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				private List<Record> records = null;
+
+				@Override
+				public void beforeCommit(boolean readOnly) {
+					records = spool(trxLogs, true);
+				}
+
+				@Override
+				public void afterCompletion(int status) {
+					// with STATUS_UNKNOWN the transaction may have committed: queue the rows, as after a crash
+					if (status == STATUS_ROLLED_BACK) {
+						discard(records);
+					} else {
+						enqueue(trxLogs, records);
+					}
+				}
+			});
+		} else {
+			enqueue(trxLogs, spool(trxLogs, false));
+		}
+	}
+
+	/*
+	 * Returns null if the rows could not be appended to the spool
+	 */
+	synchronized List<Record> spool(List<XXTrxLog> trxLogs, boolean isPending) {
+		List<Record> ret = null;
+
+		if (spool != null) {
+			try {
+				ret = spool.append(trxLogs, isPending);
+			} catch (IOException excp) {
+				LOG.error("RangerTrxLogWriter: failed to append " + trxLogs.size() + " rows to spool. Queueing them in memory only", excp);
+			}
+		}
+
+		return ret;
+	}
+
+	/*
+	 * Rows that are not in the spool are queued with sequence number 0
+	 */
+	synchronized void enqueue(List<XXTrxLog> trxLogs, List<Record> records) {
+		if (records == null) {
+			records = new ArrayList<Record>(trxLogs.size());
+
+			for (XXTrxLog trxLog : trxLogs) {
+				records.add(new Record(0, trxLog));
+			}
+		} else if (records.get(0).isPending()) {
+			complete(records, true);
+		}
+
+		queue.addAll(records);
+	}
+
+	synchronized void discard(List<Record> records) {
+		if (records != null) {
+			complete(records, false);
+		}
+	}
+
+	private void runWriter() {
+		List<Record> batch = new ArrayList<Record>(batchSize);
+
+		while (!isStopped || !queue.isEmpty()) {
+			try {
+				if (batch.isEmpty()) {
+					Record first = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+					if (first == null) {
+						continue;
+					}
+
+					batch.add(first);
+					queue.drainTo(batch, batchSize - 1);
+				}
+
+				if (writeBatch(batch)) {
+					checkpoint(batch);
+
+					batch.clear();
+				} else if (isStopped) {
+					LOG.warn("RangerTrxLogWriter: stopping with " + (batch.size() + queue.size()) + " rows not written; they will be written after restart");
+
+					break;
+				} else {
+					Thread.sleep(retryIntervalMs);
+				}
+			} catch (InterruptedException excp) {
+				LOG.warn("RangerTrxLogWriter: interrupted", excp);
+
+				break;
+			} catch (Throwable excp) {
+				LOG.error("RangerTrxLogWriter: unexpected failure", excp);
+			}
+		}
+	}
+
+	/*
+	 * Returns false if the rows are to be retried later
+	 */
+	private boolean writeBatch(List<Record> batch) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerTrxLogWriter.writeBatch(rows=" + batch.size() + ", firstSeq=" + batch.get(0).getSeq() + ")");
+		}
+
+		boolean ret;
+
+		try {
+			insert(batch);
+
+			ret = true;
+		} catch (Exception excp) {
+			LOG.warn("RangerTrxLogWriter: failed to write batch of " + batch.size() + " rows. Retrying one row at a time", excp);
+
+			List<Record> failedRecords = new ArrayList<Record>();
+
+			for (Record record : batch) {
+				try {
+					insert(Collections.singletonList(record));
+				} catch (Exception recordExcp) {
+					failedRecords.add(record);
+				}
+			}
+
+			ret = failedRecords.isEmpty() || isDatabaseAvailable();
+
+			if (ret) {
+				for (Record record : failedRecords) {
+					LOG.error("RangerTrxLogWriter: dropping transaction-log row that failed to be written: " + record);
+				}
+			} else {
+				LOG.error("RangerTrxLogWriter: database not available; will retry " + failedRecords.size() + " rows in " + retryIntervalMs + "ms");
+
+				batch.removeAll(failedRecords);
+
+				checkpoint(batch);
+
+				batch.clear();
+				batch.addAll(failedRecords);
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerTrxLogWriter.writeBatch(rows=" + batch.size() + "): " + ret);
+		}
+
+		return ret;
+	}
+
+	private void insert(final List<Record> records) {
+		TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+
+		txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+		txTemplate.execute(new TransactionCallback<Object>() {
+			@Override
+			public Object doInTransaction(TransactionStatus status) {
+				List<XXTrxLog> trxLogs = new ArrayList<XXTrxLog>(records.size());
+
+				for (Record record : records) {
+					trxLogs.add(record.toTrxLog());
+				}
+
+				daoManager.getXXTrxLog().batchCreate(trxLogs);
+
+				return null;
+			}
+		});
+	}
+
+	private boolean isDatabaseAvailable() {
+		boolean ret;
+
+		try {
+			TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+
+			txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+			txTemplate.setReadOnly(true);
+
+			txTemplate.execute(new TransactionCallback<Object>() {
+				@Override
+				public Object doInTransaction(TransactionStatus status) {
+					return daoManager.getXXTrxLog().getMaxIdOfXXTrxLog();
+				}
+			});
+
+			ret = true;
+		} catch (Exception excp) {
+			ret = false;
+		}
+
+		return ret;
+	}
+
+	private synchronized void complete(List<Record> records, boolean isCommitted) {
+		if (spool != null) {
+			try {
+				spool.complete(records, isCommitted);
+			} catch (IOException excp) {
+				LOG.error("RangerTrxLogWriter: failed to mark " + records.size() + " spooled rows as " + (isCommitted ? "committed" : "discarded") + ". These rows will be written after restart", excp);
+			}
+		}
+	}
+
+	private synchronized void checkpoint(List<Record> records) {
+		if (spool != null && !records.isEmpty()) {
+			try {
+				spool.checkpoint(records);
+			} catch (IOException excp) {
+				LOG.error("RangerTrxLogWriter: failed to save spool checkpoint after " + records.size() + " rows. These rows will be written again after restart", excp);
+			}
+		}
+	}
+}
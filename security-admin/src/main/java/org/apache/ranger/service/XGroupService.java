@@ -128,6 +128,26 @@ public class XGroupService extends XGroupServiceBase<XXGroup, VXGroup> {
 		return vxGroup;
 	}
 
+	/**
+	 * Creates the given groups, which must not exist yet, with batched inserts.
+	 */
+	public List<XXGroup> createXGroupsWithOutLogin(List<VXGroup> vxGroups) {
+		List<XXGroup> xxGroups = new ArrayList<XXGroup>(vxGroups.size());
+		XXPortalUser xXPortalUser = daoManager.getXXPortalUser().getById(createdByUserId);
+
+		for (VXGroup vxGroup : vxGroups) {
+			XXGroup xxGroup = mapViewToEntityBean(vxGroup, new XXGroup(), 0);
+
+			if (xXPortalUser != null) {
+				xxGroup.setAddedByUserId(createdByUserId);
+				xxGroup.setUpdatedByUserId(createdByUserId);
+			}
+			xxGroups.add(xxGroup);
+		}
+
+		return getDao().batchCreate(xxGroups);
+	}
+
 	public VXGroup readResourceWithOutLogin(Long id) {
 		XXGroup resource = getDao().getById(id);
 		if (resource == null) {
@@ -103,6 +103,27 @@ public class XGroupUserService extends
 		return vxGroupUser;
 	}
 
+	/**
+	 * Creates the given group-user mappings, which must not exist yet, with batched inserts.
+	 * Unlike createXGroupUserWithOutLogin(), parentGroupId must be set in each of the given mappings.
+	 */
+	public List<XXGroupUser> createXGroupUsersWithOutLogin(List<VXGroupUser> vxGroupUsers) {
+		List<XXGroupUser> xxGroupUsers = new ArrayList<XXGroupUser>(vxGroupUsers.size());
+		XXPortalUser xXPortalUser = daoManager.getXXPortalUser().getById(createdByUserId);
+
+		for (VXGroupUser vxGroupUser : vxGroupUsers) {
+			XXGroupUser xxGroupUser = mapViewToEntityBean(vxGroupUser, new XXGroupUser(), 0);
+
+			if (xXPortalUser != null) {
+				xxGroupUser.setAddedByUserId(createdByUserId);
+				xxGroupUser.setUpdatedByUserId(createdByUserId);
+			}
+			xxGroupUsers.add(xxGroupUser);
+		}
+
+		return getDao().batchCreate(xxGroupUsers);
+	}
+
 	public VXGroupUser readResourceWithOutLogin(Long id) {
 		XXGroupUser resource = getDao().getById(id);
 		if (resource == null) {
@@ -185,6 +185,26 @@ public class XUserService extends XUserServiceBase<XXUser, VXUser> {
 		return vxUser;
 	}
 
+	/**
+	 * Creates the given users, which must not exist yet, with batched inserts.
+	 */
+	public List<XXUser> createXUsersWithOutLogin(List<VXUser> vxUsers) {
+		List<XXUser> xxUsers = new ArrayList<XXUser>(vxUsers.size());
+		XXPortalUser xXPortalUser = daoManager.getXXPortalUser().getById(createdByUserId);
+
+		for (VXUser vxUser : vxUsers) {
+			XXUser xxUser = mapViewToEntityBean(vxUser, new XXUser(), 0);
+
+			if (xXPortalUser != null) {
+				xxUser.setAddedByUserId(createdByUserId);
+				xxUser.setUpdatedByUserId(createdByUserId);
+			}
+			xxUsers.add(xxUser);
+		}
+
+		return getDao().batchCreate(xxUsers);
+	}
+
 	public VXUser readResourceWithOutLogin(Long id) {
 		XXUser resource = getDao().getById(id);
 		if (resource == null) {
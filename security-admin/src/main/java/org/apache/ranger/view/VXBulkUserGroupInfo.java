@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.view;
+
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.codehaus.jackson.annotate.JsonAutoDetect;
+import org.codehaus.jackson.annotate.JsonAutoDetect.Visibility;
+import org.codehaus.jackson.annotate.JsonIgnoreProperties;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
+
+/**
+ * Users, groups and group memberships sent by usersync in a single request
+ */
+@JsonAutoDetect(getterVisibility=Visibility.NONE, setterVisibility=Visibility.NONE, fieldVisibility=Visibility.ANY)
+@JsonSerialize(include=JsonSerialize.Inclusion.NON_NULL )
+@JsonIgnoreProperties(ignoreUnknown=true)
+@XmlRootElement
+public class VXBulkUserGroupInfo extends VXDataObject implements java.io.Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	// groups to create, with or without members
+	List<VXGroup> xgroupInfo;
+	// users to create, with the groups they belong to
+	List<VXUserGroupInfo> xuserGroupInfo;
+	// members to add to groups; only users that already exist are added
+	List<VXGroupUserInfo> xgroupUserInfo;
+
+	public VXBulkUserGroupInfo ( ) {
+	}
+
+	public List<VXGroup> getXgroupInfo() {
+		return xgroupInfo;
+	}
+
+	public void setXgroupInfo(List<VXGroup> xgroupInfo) {
+		this.xgroupInfo = xgroupInfo;
+	}
+
+	public List<VXUserGroupInfo> getXuserGroupInfo() {
+		return xuserGroupInfo;
+	}
+
+	public void setXuserGroupInfo(List<VXUserGroupInfo> xuserGroupInfo) {
+		this.xuserGroupInfo = xuserGroupInfo;
+	}
+
+	public List<VXGroupUserInfo> getXgroupUserInfo() {
+		return xgroupUserInfo;
+	}
+
+	public void setXgroupUserInfo(List<VXGroupUserInfo> xgroupUserInfo) {
+		this.xgroupUserInfo = xgroupUserInfo;
+	}
+
+}
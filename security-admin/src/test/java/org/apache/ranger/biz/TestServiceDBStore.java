@@ -17,15 +17,22 @@
 
 package org.apache.ranger.biz;
 
+import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+
 import org.apache.ranger.common.ContextUtil;
 import org.apache.ranger.common.RangerFactory;
+import org.apache.ranger.common.RangerServicePoliciesCache;
 import org.apache.ranger.common.StringUtil;
 import org.apache.ranger.common.UserSessionBase;
 import org.apache.ranger.db.*;
@@ -74,6 +81,10 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
 @RunWith(MockitoJUnitRunner.class)
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 public class TestServiceDBStore {
@@ -2133,6 +2144,10 @@ public class TestServiceDBStore {
 		policyListObj.setStartIndex(0);
 		policyListObj.setTotalCount(10);
 
+		// no service-version-info, hence the lookup is not done using the validation index
+		XXServiceVersionInfoDao xServiceVersionInfoDao = Mockito.mock(XXServiceVersionInfoDao.class);
+		Mockito.when(daoManager.getXXServiceVersionInfo()).thenReturn(xServiceVersionInfoDao);
+
 		List<RangerPolicy> dbRangerPolicy = serviceDBStore.getPolicies(filter);
 		Assert.assertNotNull(dbRangerPolicy);
 	}
@@ -2319,6 +2334,9 @@ public class TestServiceDBStore {
 		policy.setService(rangerService.getId());
 		policiesList.add(policy);
 
+		XXServiceVersionInfoDao xServiceVersionInfoDao = Mockito.mock(XXServiceVersionInfoDao.class);
+		Mockito.when(daoManager.getXXServiceVersionInfo()).thenReturn(xServiceVersionInfoDao);
+
 		XXPolicyDao xPolicyDao = Mockito.mock(XXPolicyDao.class);
 		Mockito.when(daoManager.getXXPolicy()).thenReturn(xPolicyDao);
 		Mockito.when(
@@ -2331,4 +2349,190 @@ public class TestServiceDBStore {
 		Assert.assertNotNull(policyList);
 		Mockito.verify(daoManager).getXXPolicy();
 	}
+
+	@Test
+	public void test41getPoliciesInJson() throws Exception {
+		setup();
+		ByteArrayOutputStream out      = new ByteArrayOutputStream();
+		HttpServletResponse   response = Mockito.mock(HttpServletResponse.class);
+		Mockito.when(response.getOutputStream()).thenReturn(toServletOutputStream(out));
+
+		List<RangerPolicy> policies = new ArrayList<RangerPolicy>();
+		policies.add(rangerPolicy());
+		policies.add(rangerPolicy());
+		policies.get(1).setId(Id + 1);
+
+		serviceDBStore.getPoliciesInJson(policies, response);
+
+		JsonObject exported = new JsonParser().parse(out.toString("UTF-8")).getAsJsonObject();
+		Assert.assertEquals("metaDataInfo", exported.entrySet().iterator().next().getKey());
+		JsonArray exportedPolicies = exported.getAsJsonArray("policies");
+		Assert.assertEquals(2, exportedPolicies.size());
+		Assert.assertEquals(Id.longValue(), exportedPolicies.get(0).getAsJsonObject().get("id").getAsLong());
+		Assert.assertEquals(Id + 1, exportedPolicies.get(1).getAsJsonObject().get("id").getAsLong());
+		Mockito.verify(response).setStatus(HttpServletResponse.SC_OK);
+	}
+
+	@Test
+	public void test42getPoliciesInCSV() throws Exception {
+		ByteArrayOutputStream out      = new ByteArrayOutputStream();
+		HttpServletResponse   response = Mockito.mock(HttpServletResponse.class);
+		Mockito.when(response.getOutputStream()).thenReturn(toServletOutputStream(out));
+
+		RangerPolicy policy = rangerPolicy();
+		policy.setPolicyType(RangerPolicy.POLICY_TYPE_ACCESS);
+		policy.getResources().put("path", new RangerPolicyResource("/tmp"));
+		policy.getPolicyItems().get(0).getUsers().add("user1");
+		policy.getPolicyItems().get(0).getAccesses().add(new RangerPolicyItemAccess("read"));
+		List<RangerPolicy> policies = new ArrayList<RangerPolicy>();
+		policies.add(policy);
+		policies.add(policy);
+
+		XXService xService = xService();
+		XXServiceDao xServiceDao = Mockito.mock(XXServiceDao.class);
+		XXServiceDef xServiceDef = serviceDef();
+		xServiceDef.setName("hdfs");
+		XXServiceDefDao xServiceDefDao = Mockito.mock(XXServiceDefDao.class);
+		Mockito.when(daoManager.getXXService()).thenReturn(xServiceDao);
+		Mockito.when(xServiceDao.findByName(policy.getService())).thenReturn(xService);
+		Mockito.when(daoManager.getXXServiceDef()).thenReturn(xServiceDefDao);
+		Mockito.when(xServiceDefDao.getById(xService.getType())).thenReturn(xServiceDef);
+
+		serviceDBStore.getPoliciesInCSV(policies, response);
+
+		String[] lines = out.toString("UTF-8").split("\n");
+		Assert.assertEquals(3, lines.length);
+		Assert.assertEquals("ID|Name|Resources|Groups|Users|Accesses|Service Type|Status", lines[0]);
+		Assert.assertEquals(lines[1], lines[2]);
+		Assert.assertTrue(lines[1].startsWith(Id + "|" + policy.getName() + "|"));
+		Assert.assertTrue(lines[1].endsWith("|user1|read|" + xServiceDef.getName() + "|Enabled|"));
+		// service-type is looked up once per export, not once per policy
+		Mockito.verify(xServiceDao, Mockito.times(1)).findByName(policy.getService());
+		Mockito.verify(xServiceDefDao, Mockito.times(1)).getById(xService.getType());
+	}
+
+	@Test
+	public void test43bulkPolicyUpdate() throws Exception {
+		setup();
+		XXService xService = xService();
+		RangerService rangerService = rangerService();
+		RangerPolicy rangerPolicy = rangerPolicy();
+		XXServiceDao xServiceDao = Mockito.mock(XXServiceDao.class);
+		XXServiceVersionInfoDao xServiceVersionInfoDao = Mockito.mock(XXServiceVersionInfoDao.class);
+		XXServiceVersionInfo xServiceVersionInfo = new XXServiceVersionInfo();
+		xServiceVersionInfo.setServiceId(Id);
+		xServiceVersionInfo.setPolicyVersion(1L);
+
+		Mockito.when(daoManager.getXXService()).thenReturn(xServiceDao);
+		Mockito.when(xServiceDao.findByName(rangerPolicy.getService())).thenReturn(xService);
+		Mockito.when(bizUtil.hasAccess(xService, null)).thenReturn(true);
+		Mockito.when(svcService.getPopulatedViewObject(xService)).thenReturn(rangerService);
+		Mockito.when(daoManager.getXXPolicyItem()).thenReturn(Mockito.mock(XXPolicyItemDao.class));
+		Mockito.when(daoManager.getXXPolicyResource()).thenReturn(Mockito.mock(XXPolicyResourceDao.class));
+		Mockito.when(daoManager.getXXPolicy()).thenReturn(Mockito.mock(XXPolicyDao.class));
+		Mockito.when(xServiceDao.getById(Id)).thenReturn(xService);
+		Mockito.when(daoManager.getXXServiceVersionInfo()).thenReturn(xServiceVersionInfoDao);
+		Mockito.when(xServiceVersionInfoDao.findByServiceId(Id)).thenReturn(xServiceVersionInfo);
+
+		serviceDBStore.beginBulkPolicyUpdate();
+		try {
+			serviceDBStore.deletePolicy(rangerPolicy);
+			serviceDBStore.deletePolicy(rangerPolicy);
+			Mockito.verify(xServiceVersionInfoDao, Mockito.never()).update(xServiceVersionInfo);
+		} finally {
+			serviceDBStore.endBulkPolicyUpdate(true);
+		}
+
+		Mockito.verify(xServiceVersionInfoDao, Mockito.times(1)).update(xServiceVersionInfo);
+		Assert.assertEquals(Long.valueOf(2L), xServiceVersionInfo.getPolicyVersion());
+
+		// after the bulk update, each change updates the policy-version
+		serviceDBStore.deletePolicy(rangerPolicy);
+		Mockito.verify(xServiceVersionInfoDao, Mockito.times(2)).update(xServiceVersionInfo);
+		Assert.assertEquals(Long.valueOf(3L), xServiceVersionInfo.getPolicyVersion());
+	}
+
+	@Test
+	public void test44getPoliciesUsingValidationIndex() throws Exception {
+		setup();
+		XXService xService = xService();
+		RangerService rangerService = rangerService();
+		String serviceName = rangerService.getName();
+		XXServiceDao xServiceDao = Mockito.mock(XXServiceDao.class);
+		XXServiceVersionInfoDao xServiceVersionInfoDao = Mockito.mock(XXServiceVersionInfoDao.class);
+		XXServiceVersionInfo xServiceVersionInfo = new XXServiceVersionInfo();
+		xServiceVersionInfo.setServiceId(Id);
+		xServiceVersionInfo.setPolicyVersion(5L);
+		xServiceVersionInfo.setPolicyUpdateTime(new Date());
+		XXPolicyDao xPolicyDao = Mockito.mock(XXPolicyDao.class);
+		XXPolicy xPolicy = Mockito.mock(XXPolicy.class);
+		RangerPolicy rangerPolicy = rangerPolicy();
+		List<Object[]> policyRows = new ArrayList<Object[]>();
+		policyRows.add(new Object[] { rangerPolicy.getId(), "policy-1", "signature-1", Boolean.TRUE });
+		policyRows.add(new Object[] { 2L, "policy-2", "signature-2", Boolean.FALSE });
+
+		rangerPolicy.setService(serviceName);
+
+		Mockito.when(daoManager.getXXService()).thenReturn(xServiceDao);
+		Mockito.when(xServiceDao.findByName(serviceName)).thenReturn(xService);
+		Mockito.when(xServiceDao.getById(Id)).thenReturn(xService);
+		Mockito.when(bizUtil.hasAccess(xService, null)).thenReturn(true);
+		Mockito.when(svcService.getPopulatedViewObject(xService)).thenReturn(rangerService);
+		Mockito.when(daoManager.getXXPolicyItem()).thenReturn(Mockito.mock(XXPolicyItemDao.class));
+		Mockito.when(daoManager.getXXPolicyResource()).thenReturn(Mockito.mock(XXPolicyResourceDao.class));
+		Mockito.when(daoManager.getXXServiceVersionInfo()).thenReturn(xServiceVersionInfoDao);
+		Mockito.when(xServiceVersionInfoDao.findByServiceName(serviceName)).thenReturn(xServiceVersionInfo);
+		Mockito.when(xServiceVersionInfoDao.findByServiceId(Id)).thenReturn(xServiceVersionInfo);
+		Mockito.when(daoManager.getXXPolicy()).thenReturn(xPolicyDao);
+		Mockito.when(xPolicyDao.findNameAndSignatureByServiceId(Id)).thenReturn(policyRows);
+		Mockito.when(xPolicyDao.findByIds(Collections.singletonList(rangerPolicy.getId()))).thenReturn(Collections.singletonList(xPolicy));
+		Mockito.when(policyService.getPopulatedViewObject(xPolicy)).thenReturn(rangerPolicy);
+
+		try {
+			List<RangerPolicy> policies = serviceDBStore.getPoliciesByResourceSignature(serviceName, "signature-1", true);
+			Assert.assertEquals(1, policies.size());
+			Assert.assertSame(rangerPolicy, policies.get(0));
+
+			// resource uniqueness is checked only among enabled policies
+			Assert.assertTrue(serviceDBStore.getPoliciesByResourceSignature(serviceName, "signature-2", true).isEmpty());
+
+			SearchFilter filter = new SearchFilter();
+			filter.setParam(SearchFilter.SERVICE_NAME, serviceName);
+			filter.setParam(SearchFilter.POLICY_NAME, "policy-1");
+			policies = serviceDBStore.getPolicies(filter);
+			Assert.assertEquals(1, policies.size());
+			Assert.assertSame(rangerPolicy, policies.get(0));
+
+			// a policy change moves the index to the new policy-version, instead of it being rebuilt
+			serviceDBStore.deletePolicy(rangerPolicy);
+			Assert.assertEquals(Long.valueOf(6L), xServiceVersionInfo.getPolicyVersion());
+			Assert.assertTrue(serviceDBStore.getPoliciesByResourceSignature(serviceName, "signature-1", true).isEmpty());
+			Assert.assertTrue(serviceDBStore.getPolicies(filter).isEmpty());
+
+			// index is built once, and matching policies are read with one query per lookup
+			Mockito.verify(xPolicyDao, Mockito.times(1)).findNameAndSignatureByServiceId(Id);
+			Mockito.verify(xPolicyDao, Mockito.times(2)).findByIds(Collections.singletonList(rangerPolicy.getId()));
+			Mockito.verify(xPolicyDao, Mockito.never()).getById(rangerPolicy.getId());
+		} finally {
+			RangerServicePoliciesCache.getInstance().setPolicyValidationIndex(serviceName, null);
+		}
+	}
+
+	private ServletOutputStream toServletOutputStream(final ByteArrayOutputStream out) {
+		return new ServletOutputStream() {
+			@Override
+			public void write(int b) {
+				out.write(b);
+			}
+
+			@Override
+			public boolean isReady() {
+				return true;
+			}
+
+			@Override
+			public void setWriteListener(WriteListener writeListener) {
+			}
+		};
+	}
 }
@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.biz;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ranger.common.GUIDUtil;
+import org.apache.ranger.common.RESTErrorUtil;
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.db.XXResourceDefDao;
+import org.apache.ranger.db.XXServiceDao;
+import org.apache.ranger.db.XXServiceResourceDao;
+import org.apache.ranger.db.XXServiceResourceElementDao;
+import org.apache.ranger.db.XXServiceResourceElementValueDao;
+import org.apache.ranger.db.XXTagAttributeDao;
+import org.apache.ranger.db.XXTagDao;
+import org.apache.ranger.db.XXTagDefDao;
+import org.apache.ranger.db.XXTagResourceMapDao;
+import org.apache.ranger.entity.XXDBBase;
+import org.apache.ranger.entity.XXResourceDef;
+import org.apache.ranger.entity.XXService;
+import org.apache.ranger.entity.XXServiceResource;
+import org.apache.ranger.entity.XXServiceResourceElement;
+import org.apache.ranger.entity.XXServiceResourceElementValue;
+import org.apache.ranger.entity.XXTag;
+import org.apache.ranger.entity.XXTagDef;
+import org.apache.ranger.entity.XXTagResourceMap;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.apache.ranger.plugin.store.RangerServiceResourceSignature;
+import org.apache.ranger.plugin.util.ServiceTags;
+import org.apache.ranger.service.RangerAuditFields;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TestServiceTagsBulkUpdater {
+	private static final Long SERVICE_ID     = 1L;
+	private static final Long SERVICE_DEF_ID = 10L;
+	private static final Long TAG_DEF_ID     = 50L;
+
+	@Mock
+	RangerDaoManager daoManager;
+
+	@Mock
+	RESTErrorUtil errorUtil;
+
+	@Mock
+	XXServiceDao xServiceDao;
+
+	@Mock
+	XXResourceDefDao xResourceDefDao;
+
+	@Mock
+	XXServiceResourceDao xServiceResourceDao;
+
+	@Mock
+	XXServiceResourceElementDao xServiceResourceElementDao;
+
+	@Mock
+	XXServiceResourceElementValueDao xServiceResourceElementValueDao;
+
+	@Mock
+	XXTagDao xTagDao;
+
+	@Mock
+	XXTagDefDao xTagDefDao;
+
+	@Mock
+	XXTagAttributeDao xTagAttributeDao;
+
+	@Mock
+	XXTagResourceMapDao xTagResourceMapDao;
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testAddOrUpdate() {
+		RangerServiceResource newResource      = getResource(1L, "res-1", "finance");
+		RangerServiceResource existingResource = getResource(2L, "res-2", "hr");
+		RangerTag             sharedTag        = new RangerTag("tag-1", "PII", new HashMap<String, String>(), RangerTag.OWNER_GLOBAL);
+
+		Map<Long, List<Long>> resourceToTagIds = new HashMap<Long, List<Long>>();
+		resourceToTagIds.put(1L, Arrays.asList(1L));
+		resourceToTagIds.put(2L, Arrays.asList(1L));
+
+		ServiceTags serviceTags = new ServiceTags();
+		serviceTags.setServiceName("hive1");
+		serviceTags.setServiceResources(Arrays.asList(newResource, existingResource));
+		serviceTags.setTags(Collections.singletonMap(1L, sharedTag));
+		serviceTags.setResourceToTagIds(resourceToTagIds);
+
+		XXServiceResource xExistingResource = new XXServiceResource();
+		xExistingResource.setId(200L);
+		xExistingResource.setGuid("res-2");
+		xExistingResource.setServiceId(SERVICE_ID);
+		xExistingResource.setIsEnabled(Boolean.TRUE);
+		xExistingResource.setResourceSignature(new RangerServiceResourceSignature(existingResource).getSignature());
+
+		XXTag xPrivateTag = new XXTag();
+		xPrivateTag.setId(400L);
+		xPrivateTag.setType(TAG_DEF_ID);
+		xPrivateTag.setOwner(RangerTag.OWNER_SERVICERESOURCE);
+
+		XXTagResourceMap xTagResourceMap = new XXTagResourceMap();
+		xTagResourceMap.setId(300L);
+		xTagResourceMap.setTagId(400L);
+		xTagResourceMap.setResourceId(200L);
+
+		XXService xService = new XXService();
+		xService.setId(SERVICE_ID);
+		xService.setType(SERVICE_DEF_ID);
+
+		XXResourceDef xResourceDef = new XXResourceDef();
+		xResourceDef.setId(100L);
+
+		XXTagDef xTagDef = new XXTagDef();
+		xTagDef.setId(TAG_DEF_ID);
+		xTagDef.setName("PII");
+
+		Mockito.when(daoManager.getXXService()).thenReturn(xServiceDao);
+		Mockito.when(daoManager.getXXResourceDef()).thenReturn(xResourceDefDao);
+		Mockito.when(daoManager.getXXServiceResource()).thenReturn(xServiceResourceDao);
+		Mockito.when(daoManager.getXXServiceResourceElement()).thenReturn(xServiceResourceElementDao);
+		Mockito.when(daoManager.getXXServiceResourceElementValue()).thenReturn(xServiceResourceElementValueDao);
+		Mockito.when(daoManager.getXXTag()).thenReturn(xTagDao);
+		Mockito.when(daoManager.getXXTagDef()).thenReturn(xTagDefDao);
+		Mockito.when(daoManager.getXXTagAttribute()).thenReturn(xTagAttributeDao);
+		Mockito.when(daoManager.getXXTagResourceMap()).thenReturn(xTagResourceMapDao);
+
+		Mockito.when(xServiceDao.findByName("hive1")).thenReturn(xService);
+		Mockito.when(xResourceDefDao.findByNameAndServiceDefId("database", SERVICE_DEF_ID)).thenReturn(xResourceDef);
+		Mockito.when(xServiceResourceDao.findByGuids(Mockito.anyCollection())).thenReturn(Collections.singletonList(xExistingResource));
+		Mockito.when(xServiceResourceDao.findByServiceAndResourceSignatures(Mockito.eq(SERVICE_ID), Mockito.anyCollection())).thenReturn(new ArrayList<XXServiceResource>());
+		Mockito.when(xServiceResourceDao.batchCreate(Mockito.anyList())).thenAnswer(new IdAssigner(201L));
+		Mockito.when(xServiceResourceElementDao.batchCreate(Mockito.anyList())).thenAnswer(new IdAssigner(301L));
+		Mockito.when(xTagResourceMapDao.findByResourceIds(Mockito.anyCollection())).thenReturn(Collections.singletonList(xTagResourceMap));
+		Mockito.when(xTagDao.findByIds(Mockito.anyCollection())).thenReturn(Collections.singletonList(xPrivateTag));
+		Mockito.when(xTagDao.findByGuids(Mockito.anyCollection())).thenReturn(new ArrayList<XXTag>());
+		Mockito.when(xTagDao.batchCreate(Mockito.anyList())).thenAnswer(new IdAssigner(500L));
+		Mockito.when(xTagDefDao.getById(TAG_DEF_ID)).thenReturn(xTagDef);
+
+		Set<Long> updatedServiceIds = new HashSet<Long>();
+		Set<Long> updatedTagIds     = new HashSet<Long>();
+
+		ServiceTagsBulkUpdater updater = new ServiceTagsBulkUpdater(daoManager, new GUIDUtil(), new RangerAuditFields(), errorUtil, updatedServiceIds, updatedTagIds);
+
+		updater.addOrUpdate(serviceTags, serviceTags.getServiceResources());
+
+		ArgumentCaptor<List> createdResources = ArgumentCaptor.forClass(List.class);
+		ArgumentCaptor<List> createdValues    = ArgumentCaptor.forClass(List.class);
+		ArgumentCaptor<List> createdTags      = ArgumentCaptor.forClass(List.class);
+		ArgumentCaptor<List> createdMaps      = ArgumentCaptor.forClass(List.class);
+		ArgumentCaptor<List> deletedTags      = ArgumentCaptor.forClass(List.class);
+		ArgumentCaptor<List> deletedMaps      = ArgumentCaptor.forClass(List.class);
+
+		Mockito.verify(xServiceResourceDao).batchCreate(createdResources.capture());
+		Mockito.verify(xServiceResourceElementValueDao).batchCreate(createdValues.capture());
+		Mockito.verify(xTagDao).batchCreate(createdTags.capture());
+		Mockito.verify(xTagResourceMapDao).batchCreate(createdMaps.capture());
+		Mockito.verify(xTagDao).batchRemove(deletedTags.capture());
+		Mockito.verify(xTagResourceMapDao).batchRemove(deletedMaps.capture());
+
+		Assert.assertEquals(1, createdResources.getValue().size());
+		Assert.assertEquals("res-1", ((XXServiceResource) createdResources.getValue().get(0)).getGuid());
+		Assert.assertEquals("finance", ((XXServiceResourceElementValue) createdValues.getValue().get(0)).getValue());
+		Assert.assertEquals(Long.valueOf(301L), ((XXServiceResourceElementValue) createdValues.getValue().get(0)).getResElementId());
+
+		// the shared tag is created once, and associated with both resources
+		Assert.assertEquals(1, createdTags.getValue().size());
+		Assert.assertEquals("tag-1", ((XXTag) createdTags.getValue().get(0)).getGuid());
+		Assert.assertEquals(2, createdMaps.getValue().size());
+
+		Set<Long> mappedResourceIds = new HashSet<Long>();
+		for (Object obj : createdMaps.getValue()) {
+			XXTagResourceMap createdMap = (XXTagResourceMap) obj;
+
+			Assert.assertEquals(Long.valueOf(500L), createdMap.getTagId());
+			mappedResourceIds.add(createdMap.getResourceId());
+		}
+		Assert.assertEquals(new HashSet<Long>(Arrays.asList(200L, 201L)), mappedResourceIds);
+
+		// the private tag no longer in the upload is removed from the existing resource, and deleted
+		Assert.assertEquals(Collections.singletonList(xTagResourceMap), deletedMaps.getValue());
+		Assert.assertEquals(Collections.singletonList(xPrivateTag), deletedTags.getValue());
+
+		// the existing resource is unchanged; tag-versions are left to the caller
+		Mockito.verify(xServiceResourceElementDao, Mockito.never()).findByResourceIds(Mockito.anyCollection());
+		Assert.assertEquals(Collections.singleton(SERVICE_ID), updatedServiceIds);
+		Assert.assertTrue(updatedTagIds.isEmpty());
+	}
+
+	private RangerServiceResource getResource(Long id, String guid, String database) {
+		RangerServiceResource ret = new RangerServiceResource();
+
+		ret.setId(id);
+		ret.setGuid(guid);
+		ret.setServiceName("hive1");
+		ret.setResourceElements(Collections.singletonMap("database", new RangerPolicyResource(database)));
+
+		return ret;
+	}
+
+	private static class IdAssigner implements Answer<List<XXDBBase>> {
+		private long nextId;
+
+		IdAssigner(long firstId) {
+			this.nextId = firstId;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public List<XXDBBase> answer(InvocationOnMock invocation) {
+			List<XXDBBase> objs = (List<XXDBBase>) invocation.getArguments()[0];
+
+			for (XXDBBase obj : objs) {
+				setId(obj, nextId++);
+			}
+
+			return objs;
+		}
+
+		private void setId(XXDBBase obj, long id) {
+			if (obj instanceof XXServiceResource) {
+				((XXServiceResource) obj).setId(id);
+			} else if (obj instanceof XXServiceResourceElement) {
+				((XXServiceResourceElement) obj).setId(id);
+			} else if (obj instanceof XXTag) {
+				((XXTag) obj).setId(id);
+			}
+		}
+	}
+}
@@ -17,7 +17,9 @@
 package org.apache.ranger.biz;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -69,6 +71,7 @@ import org.apache.ranger.service.XPortalUserService;
 import org.apache.ranger.service.XUserPermissionService;
 import org.apache.ranger.service.XUserService;
 import org.apache.ranger.view.VXAuditMapList;
+import org.apache.ranger.view.VXBulkUserGroupInfo;
 import org.apache.ranger.view.VXGroup;
 import org.apache.ranger.view.VXGroupList;
 import org.apache.ranger.view.VXGroupPermission;
@@ -77,6 +80,7 @@ import org.apache.ranger.view.VXGroupUserList;
 import org.apache.ranger.view.VXModuleDef;
 import org.apache.ranger.view.VXPermMapList;
 import org.apache.ranger.view.VXPortalUser;
+import org.apache.ranger.view.VXResponse;
 import org.apache.ranger.view.VXStringList;
 import org.apache.ranger.view.VXUser;
 import org.apache.ranger.view.VXUserGroupInfo;
@@ -90,6 +94,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.junit.runners.MethodSorters;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -1659,4 +1664,162 @@ public class TestXUserMgr {
 				.getLoginId());
 		Assert.assertNotNull(vXStringList);
 	}
+
+	@Test
+	public void test49createOrUpdateXUserGroupsInBulk() {
+		setup();
+		XXPortalUserDao xXPortalUserDao = Mockito.mock(XXPortalUserDao.class);
+		XXUserDao xXUserDao = Mockito.mock(XXUserDao.class);
+		XXGroupDao xXGroupDao = Mockito.mock(XXGroupDao.class);
+		XXGroupUserDao xXGroupUserDao = Mockito.mock(XXGroupUserDao.class);
+
+		XXPortalUser xXPortalUser = new XXPortalUser();
+		xXPortalUser.setId(userId);
+		xXPortalUser.setLoginId("user1");
+		xXPortalUser.setUserSource(RangerCommonEnums.USER_APP);
+
+		XXUser xXUser = new XXUser();
+		xXUser.setId(userId);
+		xXUser.setName("user1");
+
+		XXGroup existingGroup = new XXGroup();
+		existingGroup.setId(1L);
+		existingGroup.setName("existing");
+
+		XXGroup newGroup = new XXGroup();
+		newGroup.setId(2L);
+		newGroup.setName("new");
+
+		XXGroupUser xXGroupUser = new XXGroupUser();
+		xXGroupUser.setParentGroupId(existingGroup.getId());
+		xXGroupUser.setUserId(userId);
+
+		VXUser vXUser = new VXUser();
+		vXUser.setName("user1");
+
+		VXGroup vXExistingGroup = new VXGroup();
+		vXExistingGroup.setName("existing");
+
+		VXGroup vXNewGroup = new VXGroup();
+		vXNewGroup.setName("new");
+
+		VXUserGroupInfo vXUserGroupInfo = new VXUserGroupInfo();
+		vXUserGroupInfo.setXuserInfo(vXUser);
+		vXUserGroupInfo.setXgroupInfo(Arrays.asList(vXExistingGroup, vXNewGroup));
+
+		VXBulkUserGroupInfo vXBulkUserGroupInfo = new VXBulkUserGroupInfo();
+		vXBulkUserGroupInfo.setXuserGroupInfo(Collections.singletonList(vXUserGroupInfo));
+
+		Mockito.when(daoManager.getXXPortalUser()).thenReturn(xXPortalUserDao);
+		Mockito.when(xXPortalUserDao.findByLoginIds(Mockito.anyCollection())).thenReturn(Collections.singletonList(xXPortalUser));
+		Mockito.when(daoManager.getXXUser()).thenReturn(xXUserDao);
+		Mockito.when(xXUserDao.findByUserNames(Mockito.anyCollection())).thenReturn(Collections.singletonList(xXUser));
+		Mockito.when(daoManager.getXXGroup()).thenReturn(xXGroupDao);
+		Mockito.when(xXGroupDao.findByGroupNames(Mockito.anyCollection())).thenReturn(Collections.singletonList(existingGroup));
+		Mockito.when(xGroupService.createXGroupsWithOutLogin(Mockito.anyList())).thenReturn(Collections.singletonList(newGroup));
+		Mockito.when(daoManager.getXXGroupUser()).thenReturn(xXGroupUserDao);
+		Mockito.when(xXGroupUserDao.findByUserIds(Mockito.anyCollection())).thenReturn(Collections.singletonList(xXGroupUser));
+		Mockito.when(daoManager.getXXPortalUserRole()).thenReturn(Mockito.mock(XXPortalUserRoleDao.class));
+
+		VXResponse vXResponse = xUserMgr.createOrUpdateXUserGroupsInBulk(vXBulkUserGroupInfo);
+
+		Assert.assertEquals(VXResponse.STATUS_SUCCESS, vXResponse.getStatusCode());
+		Assert.assertEquals("created 0 users, 1 groups, 1 group-user mappings", vXResponse.getMsgDesc());
+
+		ArgumentCaptor<List> newGroupUsers = ArgumentCaptor.forClass(List.class);
+		Mockito.verify(xGroupUserService).createXGroupUsersWithOutLogin(newGroupUsers.capture());
+		Assert.assertEquals(1, newGroupUsers.getValue().size());
+		Assert.assertEquals(newGroup.getId(), ((VXGroupUser) newGroupUsers.getValue().get(0)).getParentGroupId());
+		Mockito.verify(userMgr, Mockito.never()).createDefaultAccountUser((VXPortalUser) Mockito.any());
+		Mockito.verify(userMgr, Mockito.never()).createDefaultAccountUsers(Mockito.anyList());
+	}
+
+	@Test
+	public void test50createOrUpdateXUserGroupsInBulkNewUsers() {
+		setup();
+		XXPortalUserDao xXPortalUserDao = Mockito.mock(XXPortalUserDao.class);
+		XXUserDao xXUserDao = Mockito.mock(XXUserDao.class);
+		XXGroupDao xXGroupDao = Mockito.mock(XXGroupDao.class);
+		XXGroupUserDao xXGroupUserDao = Mockito.mock(XXGroupUserDao.class);
+		XXPortalUserRoleDao xXPortalUserRoleDao = Mockito.mock(XXPortalUserRoleDao.class);
+		XXUserPermissionDao xXUserPermissionDao = Mockito.mock(XXUserPermissionDao.class);
+		XXModuleDefDao xXModuleDefDao = Mockito.mock(XXModuleDefDao.class);
+
+		List<XXPortalUser> newPortalUsers = new ArrayList<XXPortalUser>();
+		List<XXUser> newUsers = new ArrayList<XXUser>();
+		List<VXUserGroupInfo> userGroupInfos = new ArrayList<VXUserGroupInfo>();
+		List<XXPortalUserRole> portalUserRoles = new ArrayList<XXPortalUserRole>();
+
+		for (long i = 1; i <= 2; i++) {
+			XXPortalUser xXPortalUser = new XXPortalUser();
+			xXPortalUser.setId(10 + i);
+			xXPortalUser.setLoginId("user" + i);
+			xXPortalUser.setUserSource(RangerCommonEnums.USER_EXTERNAL);
+			newPortalUsers.add(xXPortalUser);
+
+			XXUser xXUser = new XXUser();
+			xXUser.setId(20 + i);
+			xXUser.setName("user" + i);
+			newUsers.add(xXUser);
+
+			XXPortalUserRole xXPortalUserRole = new XXPortalUserRole();
+			xXPortalUserRole.setUserId(xXPortalUser.getId());
+			xXPortalUserRole.setUserRole(RangerConstants.ROLE_USER);
+			portalUserRoles.add(xXPortalUserRole);
+
+			VXUser vXUser = new VXUser();
+			vXUser.setName("user" + i);
+
+			VXUserGroupInfo vXUserGroupInfo = new VXUserGroupInfo();
+			vXUserGroupInfo.setXuserInfo(vXUser);
+			userGroupInfos.add(vXUserGroupInfo);
+		}
+
+		// user11 already has one of the two permissions of ROLE_USER
+		XXUserPermission xXUserPermission = new XXUserPermission();
+		xXUserPermission.setUserId(11L);
+		xXUserPermission.setModuleId(1L);
+		xXUserPermission.setIsAllowed(RangerCommonEnums.IS_ALLOWED);
+
+		XXModuleDef resourceModule = new XXModuleDef();
+		resourceModule.setId(1L);
+		resourceModule.setModule(RangerConstants.MODULE_RESOURCE_BASED_POLICIES);
+
+		XXModuleDef reportsModule = new XXModuleDef();
+		reportsModule.setId(2L);
+		reportsModule.setModule(RangerConstants.MODULE_REPORTS);
+
+		VXBulkUserGroupInfo vXBulkUserGroupInfo = new VXBulkUserGroupInfo();
+		vXBulkUserGroupInfo.setXuserGroupInfo(userGroupInfos);
+
+		Mockito.when(daoManager.getXXPortalUser()).thenReturn(xXPortalUserDao);
+		Mockito.when(xXPortalUserDao.findByLoginIds(Mockito.anyCollection())).thenReturn(new ArrayList<XXPortalUser>());
+		Mockito.when(daoManager.getXXUser()).thenReturn(xXUserDao);
+		Mockito.when(xXUserDao.findByUserNames(Mockito.anyCollection())).thenReturn(new ArrayList<XXUser>());
+		Mockito.when(userMgr.createDefaultAccountUsers(Mockito.anyList())).thenReturn(newPortalUsers);
+		Mockito.when(xUserService.createXUsersWithOutLogin(Mockito.anyList())).thenReturn(newUsers);
+		Mockito.when(daoManager.getXXGroup()).thenReturn(xXGroupDao);
+		Mockito.when(daoManager.getXXGroupUser()).thenReturn(xXGroupUserDao);
+		Mockito.when(daoManager.getXXPortalUserRole()).thenReturn(xXPortalUserRoleDao);
+		Mockito.when(xXPortalUserRoleDao.findByUserIds(Mockito.anyCollection())).thenReturn(portalUserRoles);
+		Mockito.when(daoManager.getXXModuleDef()).thenReturn(xXModuleDefDao);
+		Mockito.when(xXModuleDefDao.getAll()).thenReturn(Arrays.asList(resourceModule, reportsModule));
+		Mockito.when(daoManager.getXXUserPermission()).thenReturn(xXUserPermissionDao);
+		Mockito.when(xXUserPermissionDao.findByUserIds(Mockito.anyCollection())).thenReturn(Collections.singletonList(xXUserPermission));
+
+		VXResponse vXResponse = xUserMgr.createOrUpdateXUserGroupsInBulk(vXBulkUserGroupInfo);
+
+		Assert.assertEquals(VXResponse.STATUS_SUCCESS, vXResponse.getStatusCode());
+		Assert.assertEquals("created 2 users, 0 groups, 0 group-user mappings", vXResponse.getMsgDesc());
+
+		ArgumentCaptor<List> portalUsers = ArgumentCaptor.forClass(List.class);
+		Mockito.verify(userMgr).createDefaultAccountUsers(portalUsers.capture());
+		Assert.assertEquals(2, portalUsers.getValue().size());
+		Mockito.verify(userMgr, Mockito.never()).createDefaultAccountUser((VXPortalUser) Mockito.any());
+
+		ArgumentCaptor<List> permissions = ArgumentCaptor.forClass(List.class);
+		Mockito.verify(xXUserPermissionDao).batchCreate(permissions.capture());
+		Assert.assertEquals(3, permissions.getValue().size());
+		Mockito.verify(xXUserPermissionDao, Mockito.never()).findByModuleIdAndPortalUserId(Mockito.anyLong(), Mockito.anyLong());
+	}
 }
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.store.ServicePredicateUtil;
+import org.apache.ranger.plugin.util.SearchFilter;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRangerPolicySearchIndex {
+
+	@Test
+	public void testCandidates() {
+		List<RangerPolicy> policies = Arrays.asList(
+				createPolicy(1L, "p1", "/finance/*", "alice", "analysts"),
+				createPolicy(2L, "p2", "/finance/reports", "bob", "analysts"),
+				createPolicy(3L, "p3", "/hr", "alice", "hr"),
+				createPolicy(4L, "p4", "*", "carol", "admins"),
+				createPolicy(5L, "p5", "/fin?nce", "bob", "hr"));
+
+		policies.get(2).setIsEnabled(false);
+
+		RangerPolicySearchIndex index = new RangerPolicySearchIndex(policies);
+
+		Assert.assertNull(index.getCandidates(null));
+		Assert.assertNull(index.getCandidates(createFilter(SearchFilter.POLICY_NAME_PARTIAL, "p")));
+
+		Assert.assertEquals(ids(1, 3), ids(index, createFilter(SearchFilter.USER, "alice")));
+		Assert.assertEquals(ids(), ids(index, createFilter(SearchFilter.USER, "dave")));
+		Assert.assertEquals(ids(1, 2), ids(index, createFilter(SearchFilter.GROUP, "analysts")));
+		Assert.assertEquals(ids(4), ids(index, createFilter(SearchFilter.POLICY_ID, "4")));
+		Assert.assertEquals(ids(), ids(index, createFilter(SearchFilter.POLICY_ID, "four")));
+		Assert.assertEquals(ids(5), ids(index, createFilter(SearchFilter.POLICY_NAME, "p5")));
+		Assert.assertEquals(ids(3), ids(index, createFilter(SearchFilter.IS_ENABLED, "false")));
+		Assert.assertEquals(ids(1, 2, 4, 5), ids(index, createFilter(SearchFilter.IS_ENABLED, "true")));
+
+		Assert.assertEquals(ids(1, 2, 4, 5), ids(index, createFilter(SearchFilter.RESOURCE_PREFIX + "path", "/finance/reports")));
+		Assert.assertEquals(ids(4, 5), ids(index, createFilter(SearchFilter.RESOURCE_PREFIX + "path", "/finance")));
+		Assert.assertEquals(ids(3, 4), ids(index, createFilter(SearchFilter.RESOURCE_PREFIX + "path", "/hr")));
+		Assert.assertEquals(ids(), ids(index, createFilter(SearchFilter.RESOURCE_PREFIX + "table", "/hr")));
+
+		SearchFilter filter = createFilter(SearchFilter.USER, "bob");
+
+		filter.setParam(SearchFilter.RESOURCE_PREFIX + "path", "/finance/reports");
+
+		Assert.assertEquals(ids(2, 5), ids(index, filter));
+	}
+
+	@Test
+	public void testSameResultsAsFullScan() {
+		List<RangerPolicy> policies = new ArrayList<>();
+		String[]           paths    = new String[] { "/a", "/a/*", "/a/b", "/b*", "*", "/a/?", "/c" };
+
+		for (int i = 0; i < 70; i++) {
+			policies.add(createPolicy((long) i, "policy-" + i, paths[i % paths.length], "user" + (i % 3), "group" + (i % 5)));
+		}
+
+		RangerPolicySearchIndex index         = new RangerPolicySearchIndex(policies);
+		ServicePredicateUtil    predicateUtil = new ServicePredicateUtil(null);
+
+		for (String path : new String[] { "/a", "/a/b", "/a/c", "/b", "/bb", "/c", "/d" }) {
+			for (String user : new String[] { null, "user1", "user5" }) {
+				SearchFilter filter = createFilter(SearchFilter.RESOURCE_PREFIX + "path", path);
+
+				if (user != null) {
+					filter.setParam(SearchFilter.USER, user);
+				}
+
+				List<RangerPolicy> expected = new ArrayList<>(policies);
+
+				predicateUtil.applyFilter(expected, filter);
+
+				List<RangerPolicy> actual = index.getPolicies(index.getCandidates(filter));
+
+				predicateUtil.applyFilter(actual, filter);
+
+				Assert.assertEquals("path=" + path + ", user=" + user, expected, actual);
+			}
+		}
+	}
+
+	private List<Long> ids(long... ids) {
+		List<Long> ret = new ArrayList<>();
+
+		for (long id : ids) {
+			ret.add(id);
+		}
+
+		return ret;
+	}
+
+	private List<Long> ids(RangerPolicySearchIndex index, SearchFilter filter) {
+		BitSet     candidates = index.getCandidates(filter);
+		List<Long> ret        = new ArrayList<>();
+
+		Assert.assertNotNull(candidates);
+
+		for (RangerPolicy policy : index.getPolicies(candidates)) {
+			ret.add(policy.getId());
+		}
+
+		return ret;
+	}
+
+	private SearchFilter createFilter(String name, String value) {
+		SearchFilter ret = new SearchFilter();
+
+		ret.setParam(name, value);
+
+		return ret;
+	}
+
+	private RangerPolicy createPolicy(Long id, String name, String path, String user, String group) {
+		RangerPolicy     ret        = new RangerPolicy();
+		RangerPolicyItem policyItem = new RangerPolicyItem();
+
+		policyItem.setUsers(Collections.singletonList(user));
+		policyItem.setGroups(Collections.singletonList(group));
+
+		ret.setId(id);
+		ret.setName(name);
+		ret.setService("hdfs");
+		ret.setPolicyType(RangerPolicy.POLICY_TYPE_ACCESS);
+		ret.getResources().put("path", new RangerPolicyResource(path));
+
+		ret.getPolicyItems().add(policyItem);
+
+		return ret;
+	}
+}
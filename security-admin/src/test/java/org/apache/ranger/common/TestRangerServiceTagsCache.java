@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.apache.ranger.plugin.store.TagStore;
+import org.apache.ranger.plugin.util.ServiceTags;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TestRangerServiceTagsCache {
+	private static final String SERVICE_NAME = "hive_delta";
+	private static final Long   SERVICE_ID   = 1001L;
+
+	@Mock
+	TagStore tagStore;
+
+	@Test
+	public void testGetServiceTagsDelta() throws Exception {
+		ServiceTags version1 = getServiceTags(1L, Arrays.asList(getResource(1L, "finance"), getResource(2L, "hr"), getResource(4L, "payroll"), getResource(5L, "tax")), 1L);
+		ServiceTags version2 = getServiceTags(2L, Arrays.asList(getResource(1L, "finance"), getResource(3L, "sales"), getResource(4L, "payroll"), getResource(5L, "tax")), 2L);
+
+		Mockito.when(tagStore.getTagVersion(SERVICE_NAME)).thenReturn(1L, 2L);
+		Mockito.when(tagStore.getServiceTags(SERVICE_NAME)).thenReturn(version1, version2);
+
+		RangerServiceTagsCache cache = RangerServiceTagsCache.getInstance();
+
+		Assert.assertEquals(Long.valueOf(1L), cache.getServiceTags(SERVICE_NAME, SERVICE_ID, tagStore).getTagVersion());
+		Assert.assertNull(cache.getServiceTagsDelta(SERVICE_NAME, 1L));
+
+		Assert.assertEquals(Long.valueOf(2L), cache.getServiceTags(SERVICE_NAME, SERVICE_ID, tagStore).getTagVersion());
+
+		ServiceTags delta = cache.getServiceTagsDelta(SERVICE_NAME, 1L);
+
+		Assert.assertNotNull(delta);
+		Assert.assertTrue(delta.getIsDelta());
+		Assert.assertEquals(Long.valueOf(2L), delta.getTagVersion());
+
+		// resource 2 deleted, resource 3 added; other resources and their tag unchanged
+		Map<Long, RangerServiceResource> resources = new HashMap<Long, RangerServiceResource>();
+		for (RangerServiceResource resource : delta.getServiceResources()) {
+			resources.put(resource.getId(), resource);
+		}
+
+		Assert.assertEquals(2, resources.size());
+		Assert.assertTrue(resources.get(2L).getResourceElements().isEmpty());
+		Assert.assertEquals("sales", resources.get(3L).getResourceElements().get("database").getValues().get(0));
+		Assert.assertEquals(Collections.singletonList(2L), delta.getResourceToTagIds().get(3L));
+
+		Assert.assertNull(delta.getTags().get(1L).getType());
+		Assert.assertEquals("PII", delta.getTags().get(2L).getType());
+
+		// versions not in the change-log get all tags
+		Assert.assertNull(cache.getServiceTagsDelta(SERVICE_NAME, 0L));
+	}
+
+	@Test
+	public void testGetServiceTagsDeltaWithNullResourceElements() throws Exception {
+		final String serviceName = "hive_delta_null_elements";
+
+		RangerServiceResource resource1 = Mockito.spy(getResource(1L, "finance"));
+		RangerServiceResource resource2 = getResource(2L, "hr");
+
+		Mockito.when(resource1.getResourceElements()).thenReturn(null); // setResourceElements() doesn't keep a null
+
+		ServiceTags version1 = getServiceTags(1L, Arrays.asList(resource1, resource2), 1L);
+		ServiceTags version2 = getServiceTags(2L, Arrays.asList(getResource(1L, "finance"), getResource(2L, "hr")), 1L);
+
+		version1.setServiceName(serviceName);
+		version2.setServiceName(serviceName);
+
+		Mockito.when(tagStore.getTagVersion(serviceName)).thenReturn(1L, 2L);
+		Mockito.when(tagStore.getServiceTags(serviceName)).thenReturn(version1, version2);
+
+		RangerServiceTagsCache cache = RangerServiceTagsCache.getInstance();
+
+		Assert.assertEquals(Long.valueOf(1L), cache.getServiceTags(serviceName, SERVICE_ID + 1, tagStore).getTagVersion());
+		Assert.assertEquals(Long.valueOf(2L), cache.getServiceTags(serviceName, SERVICE_ID + 1, tagStore).getTagVersion());
+
+		ServiceTags delta = cache.getServiceTagsDelta(serviceName, 1L);
+
+		// only resource 1, whose resource-elements changed from null, is in the delta
+		Assert.assertNotNull(delta);
+		Assert.assertEquals(1, delta.getServiceResources().size());
+		Assert.assertEquals(Long.valueOf(1L), delta.getServiceResources().get(0).getId());
+	}
+
+	private ServiceTags getServiceTags(Long version, List<RangerServiceResource> resources, Long tagId) {
+		Map<Long, RangerTag>  tags             = new HashMap<Long, RangerTag>();
+		Map<Long, List<Long>> resourceToTagIds = new HashMap<Long, List<Long>>();
+
+		RangerTag tag = new RangerTag("PII", new HashMap<String, String>());
+		tag.setId(tagId);
+		tags.put(tagId, tag);
+
+		for (RangerServiceResource resource : resources) {
+			resourceToTagIds.put(resource.getId(), new ArrayList<Long>(Collections.singletonList(resource.getId() == 2L || resource.getId() == 3L ? tagId : 100L)));
+		}
+
+		RangerTag sharedTag = new RangerTag("FINANCE", new HashMap<String, String>());
+		sharedTag.setId(100L);
+		tags.put(100L, sharedTag);
+
+		return new ServiceTags(ServiceTags.OP_ADD_OR_UPDATE, SERVICE_NAME, version, null, null, tags, resources, resourceToTagIds);
+	}
+
+	private RangerServiceResource getResource(Long id, String database) {
+		RangerServiceResource ret = new RangerServiceResource(SERVICE_NAME, Collections.singletonMap("database", new RangerPolicyResource(database)));
+
+		ret.setId(id);
+
+		return ret;
+	}
+}
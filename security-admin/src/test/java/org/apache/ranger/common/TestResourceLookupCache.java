@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ranger.plugin.service.ResourceLookupContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestResourceLookupCache {
+
+	@Test
+	public void testGetAndPut() {
+		ResourceLookupCache cache = new ResourceLookupCache();
+
+		cache.initialize(60 * 1000L, 2);
+
+		ResourceLookupContext tables = getContext("table", "sales_db", "tr");
+
+		Assert.assertNull(cache.get("hive", tables));
+
+		cache.put("hive", tables, Arrays.asList("trades", "transactions"));
+
+		Assert.assertEquals(Arrays.asList("trades", "transactions"), cache.get("hive", getContext("table", "sales_db", "tr")));
+		Assert.assertNull(cache.get("hive", getContext("table", "hr_db", "tr")));
+		Assert.assertNull(cache.get("hive", getContext("table", "sales_db", "tra")));
+		Assert.assertNull(cache.get("hive2", tables));
+
+		// least recently used entry is evicted
+		cache.put("hive", getContext("table", "sales_db", "tra"), Arrays.asList("trades"));
+		cache.put("hive", getContext("table", "sales_db", "t"), Arrays.asList("trades"));
+
+		Assert.assertNull(cache.get("hive", tables));
+	}
+
+	@Test
+	public void testDisabled() {
+		ResourceLookupCache cache = new ResourceLookupCache();
+
+		cache.initialize(0, 100);
+
+		ResourceLookupContext tables = getContext("table", "sales_db", "tr");
+
+		cache.put("hive", tables, Arrays.asList("trades"));
+
+		Assert.assertFalse(cache.isEnabled());
+		Assert.assertNull(cache.get("hive", tables));
+	}
+
+	private ResourceLookupContext getContext(String resourceName, String database, String userInput) {
+		ResourceLookupContext ret = new ResourceLookupContext();
+
+		ret.setResourceName(resourceName);
+		ret.setUserInput(userInput);
+		ret.setResources(Collections.singletonMap("database", (List<String>) Collections.singletonList(database)));
+
+		return ret;
+	}
+}
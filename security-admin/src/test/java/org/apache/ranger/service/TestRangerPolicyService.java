@@ -190,4 +190,35 @@ public class TestRangerPolicyService {
 				rangerPolicy, 1);
 		Assert.assertNotNull(dbXXTrxLogList);
 	}
+
+	@Test
+	public void test9getTransactionLogForUpdate() {
+		XXServiceDao xServiceDao = Mockito.mock(XXServiceDao.class);
+		RangerPolicy rangerPolicy = rangerPolicy();
+		RangerPolicy oldPolicy = rangerPolicy();
+		XXPolicy xxPolicy = policy();
+		XXService xService = xService();
+		RangerPolicyService spyPolicyService = Mockito.spy(policyService);
+
+		oldPolicy.setDescription("test");
+		oldPolicy.setIsEnabled(false);
+
+		Mockito.doReturn(oldPolicy).when(spyPolicyService).populateViewBean(xxPolicy);
+		Mockito.when(daoManager.getXXService()).thenReturn(xServiceDao);
+		Mockito.when(xServiceDao.findByName(rangerPolicy.getService())).thenReturn(xService);
+
+		List<XXTrxLog> dbXXTrxLogList = spyPolicyService.getTransactionLog(rangerPolicy, xxPolicy, RangerPolicyService.OPERATION_UPDATE_CONTEXT);
+
+		Assert.assertEquals(2, dbXXTrxLogList.size());
+		Assert.assertEquals("Policy Description", dbXXTrxLogList.get(0).getAttributeName());
+		Assert.assertEquals("test", dbXXTrxLogList.get(0).getPreviousValue());
+		Assert.assertEquals("policy", dbXXTrxLogList.get(0).getNewValue());
+		Assert.assertEquals("Policy Status", dbXXTrxLogList.get(1).getAttributeName());
+		Assert.assertEquals(xService.getName(), dbXXTrxLogList.get(1).getParentObjectName());
+
+		// unchanged resources and policy-items are not serialized
+		Mockito.verify(jsonUtil, Mockito.never()).readListToString(Mockito.<List<?>>any());
+		Mockito.verify(jsonUtil, Mockito.never()).readMapToString(Mockito.<Map<?, ?>>any());
+		Mockito.verify(xServiceDao, Mockito.times(1)).findByName(rangerPolicy.getService());
+	}
 }
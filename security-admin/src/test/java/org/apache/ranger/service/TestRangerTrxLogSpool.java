@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.service;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ranger.entity.XXTrxLog;
+import org.apache.ranger.service.RangerTrxLogSpool.Record;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestRangerTrxLogSpool {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void test1ReopenReturnsPendingRowsInOrder() throws IOException {
+		File              dir   = folder.newFolder("spool");
+		RangerTrxLogSpool spool = new RangerTrxLogSpool(dir, 1024 * 1024);
+
+		Assert.assertTrue(spool.open().isEmpty());
+
+		List<Record> records = spool.append(Arrays.asList(trxLog("name", "a", "b"), trxLog("description", null, "c")));
+
+		Assert.assertEquals(1L, records.get(0).getSeq());
+		Assert.assertEquals(2L, records.get(1).getSeq());
+
+		spool.append(Arrays.asList(trxLog("isEnabled", "true", "false")));
+		spool.close();
+
+		RangerTrxLogSpool reopened = new RangerTrxLogSpool(dir, 1024 * 1024);
+		List<Record>      pending  = reopened.open();
+
+		Assert.assertEquals(Arrays.asList(1L, 2L, 3L), getSeqs(pending));
+
+		XXTrxLog trxLog = pending.get(0).toTrxLog();
+
+		Assert.assertEquals("name", trxLog.getAttributeName());
+		Assert.assertEquals("a", trxLog.getPreviousValue());
+		Assert.assertEquals("b", trxLog.getNewValue());
+		Assert.assertEquals(Long.valueOf(5L), trxLog.getAddedByUserId());
+		Assert.assertNull(trxLog.getId());
+
+		// sequence numbers continue after those found in the journals
+		Assert.assertEquals(4L, reopened.append(Arrays.asList(trxLog("name", "b", "c"))).get(0).getSeq());
+	}
+
+	@Test
+	public void test2CheckpointDeletesWrittenJournals() throws IOException {
+		File              dir   = folder.newFolder("spool");
+		RangerTrxLogSpool spool = new RangerTrxLogSpool(dir, 1); // a new journal for every append
+
+		spool.open();
+
+		List<Record> records = new ArrayList<Record>();
+
+		for (int i = 0; i < 4; i++) {
+			records.addAll(spool.append(Arrays.asList(trxLog("name", "v" + i, "v" + (i + 1)))));
+		}
+
+		Assert.assertEquals(4, getJournalCount(dir));
+
+		spool.checkpoint(records.subList(0, 2));
+
+		Assert.assertEquals(2, getJournalCount(dir));
+
+		spool.close();
+
+		RangerTrxLogSpool reopened = new RangerTrxLogSpool(dir, 1);
+
+		List<Record> pending = reopened.open();
+
+		Assert.assertEquals(Arrays.asList(3L, 4L), getSeqs(pending));
+
+		reopened.checkpoint(pending);
+
+		Assert.assertEquals(0, getJournalCount(dir));
+		Assert.assertEquals(5L, reopened.append(Arrays.asList(trxLog("name", "x", "y"))).get(0).getSeq());
+	}
+
+	@Test
+	public void test3IncompleteRowIsIgnored() throws IOException {
+		File              dir   = folder.newFolder("spool");
+		RangerTrxLogSpool spool = new RangerTrxLogSpool(dir, 1024 * 1024);
+
+		spool.open();
+		spool.append(Arrays.asList(trxLog("name", "a", "b")));
+		spool.close();
+
+		File[] journals = dir.listFiles();
+
+		Assert.assertEquals(1, journals.length);
+
+		try (FileWriter writer = new FileWriter(journals[0], true)) {
+			writer.write("{\"seq\":2,\"objectClassType\":1,\"attr");
+		}
+
+		Assert.assertEquals(Arrays.asList(1L), getSeqs(new RangerTrxLogSpool(dir, 1024 * 1024).open()));
+	}
+
+	@Test
+	public void test4PendingRowsAreCommittedOrDiscarded() throws IOException {
+		File              dir   = folder.newFolder("spool");
+		RangerTrxLogSpool spool = new RangerTrxLogSpool(dir, 1024 * 1024);
+
+		spool.open();
+
+		List<Record> committed  = spool.append(Arrays.asList(trxLog("name", "a", "b"), trxLog("description", "c", "d")), true);
+		List<Record> rolledBack = spool.append(Arrays.asList(trxLog("name", "b", "c")), true);
+		List<Record> inDoubt    = spool.append(Arrays.asList(trxLog("name", "c", "d")), true);
+
+		spool.complete(committed, true);
+		spool.complete(rolledBack, false);
+
+		Assert.assertFalse(committed.get(0).isPending());
+		Assert.assertTrue(inDoubt.get(0).isPending());
+		Assert.assertEquals(0L, spool.getCheckpointSeq());
+
+		spool.close(); // as if the process died before the transaction of inDoubt completed
+
+		RangerTrxLogSpool reopened = new RangerTrxLogSpool(dir, 1024 * 1024);
+		List<Record>      pending  = reopened.open();
+
+		Assert.assertEquals(Arrays.asList(1L, 2L, 4L), getSeqs(pending));
+		Assert.assertFalse(pending.get(2).isPending());
+		Assert.assertEquals(5L, reopened.append(Arrays.asList(trxLog("name", "d", "e"))).get(0).getSeq());
+	}
+
+	@Test
+	public void test5CheckpointWaitsForEarlierRows() throws IOException {
+		File              dir   = folder.newFolder("spool");
+		RangerTrxLogSpool spool = new RangerTrxLogSpool(dir, 1024 * 1024);
+
+		spool.open();
+
+		List<Record> first  = spool.append(Arrays.asList(trxLog("name", "a", "b"), trxLog("description", "c", "d")), true);
+		List<Record> second = spool.append(Arrays.asList(trxLog("name", "b", "c")), true);
+
+		// the transaction of second commits, and its rows are written, before that of first
+		spool.complete(second, true);
+		spool.checkpoint(second);
+
+		Assert.assertEquals(0L, spool.getCheckpointSeq());
+
+		spool.complete(first, true);
+		spool.checkpoint(first.subList(0, 1));
+
+		Assert.assertEquals(0L, spool.getCheckpointSeq()); // the checkpoint moves past an append once all its rows are written
+
+		spool.checkpoint(first.subList(1, 2));
+
+		Assert.assertEquals(3L, spool.getCheckpointSeq());
+		Assert.assertEquals(0, getJournalCount(dir));
+
+		List<Record> discarded = spool.append(Arrays.asList(trxLog("name", "c", "d")), true);
+
+		spool.complete(discarded, false);
+
+		Assert.assertEquals(4L, spool.getCheckpointSeq());
+		Assert.assertTrue(new RangerTrxLogSpool(dir, 1024 * 1024).open().isEmpty());
+	}
+
+	private XXTrxLog trxLog(String attributeName, String previousValue, String newValue) {
+		XXTrxLog ret = new XXTrxLog();
+
+		ret.setAttributeName(attributeName);
+		ret.setPreviousValue(previousValue);
+		ret.setNewValue(newValue);
+		ret.setAction("update");
+		ret.setObjectName("policy-1");
+		ret.setAddedByUserId(5L);
+
+		return ret;
+	}
+
+	private List<Long> getSeqs(List<Record> records) {
+		List<Long> ret = new ArrayList<Long>();
+
+		for (Record record : records) {
+			ret.add(record.getSeq());
+		}
+
+		return ret;
+	}
+
+	private int getJournalCount(File dir) {
+		int ret = 0;
+
+		for (File file : dir.listFiles()) {
+			if (file.getName().startsWith(RangerTrxLogSpool.JOURNAL_FILE_PREFIX)) {
+				ret++;
+			}
+		}
+
+		return ret;
+	}
+}
@@ -38,6 +38,10 @@ public abstract  class AbstractTagSource implements TagSource {
 		}
 	}
 
+	protected TagSink getTagSink() {
+		return tagSink;
+	}
+
 	@Override
 	public void setName(String name) {
 		this.name = name;
@@ -53,7 +57,12 @@ public abstract  class AbstractTagSource implements TagSource {
 		return this.name;
 	}
 
-	protected void updateSink(final ServiceTags toUpload) {
+	/*
+	 * Returns false if the upload failed
+	 */
+	protected boolean updateSink(final ServiceTags toUpload) {
+		boolean ret = true;
+
 		if (toUpload == null) {
 			if (LOG.isDebugEnabled()) {
 				LOG.debug("No ServiceTags to upload");
@@ -75,8 +84,12 @@ public abstract  class AbstractTagSource implements TagSource {
 				String toUploadJSON = new Gson().toJson(toUpload);
 				LOG.error("Failed to upload serviceTags: " + toUploadJSON);
 				LOG.error("Exception : ", exception);
+
+				ret = false;
 			}
 		}
+
+		return ret;
 	}
 
 }
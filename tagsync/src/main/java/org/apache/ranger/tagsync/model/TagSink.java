@@ -19,14 +19,17 @@
 
 package org.apache.ranger.tagsync.model;
 
+import org.apache.ranger.plugin.model.RangerServiceResource;
 import org.apache.ranger.plugin.util.ServiceTags;
 
+import java.util.List;
 import java.util.Properties;
 
 
 public interface TagSink {
 	boolean initialize(Properties properties);
 	ServiceTags upload(ServiceTags toUpload) throws Exception;
+	List<RangerServiceResource> getServiceResources(String serviceName) throws Exception;
 	boolean start();
 	void stop();
 }
@@ -66,6 +66,8 @@ public class TagSyncConfig extends Configuration {
 
 	private static final String TAGSYNC_TAGADMIN_CONNECTION_CHECK_INTERVAL_PROP = "ranger.tagsync.dest.ranger.connection.check.interval";
 
+	private static final String TAGSYNC_TAGADMIN_UPLOAD_THREADS_PROP = "ranger.tagsync.dest.ranger.upload.threads";
+
 	private static final String TAGSYNC_SOURCE_ATLAS_CUSTOM_RESOURCE_MAPPERS_PROP = "ranger.tagsync.atlas.custom.resource.mappers";
 
 	private static final String TAGSYNC_ATLASSOURCE_ENDPOINT_PROP = "ranger.tagsync.source.atlasrest.endpoint";
@@ -74,6 +76,11 @@ public class TagSyncConfig extends Configuration {
 
 	private static final String TAGSYNC_ATLAS_REST_SSL_CONFIG_FILE_PROP = "ranger.tagsync.source.atlasrest.ssl.config.filename";
 
+	private static final String TAGSYNC_ATLAS_REST_SOURCE_DOWNLOAD_PAGE_SIZE_PROP = "ranger.tagsync.source.atlasrest.download.page.size";
+	private static final String TAGSYNC_ATLAS_REST_SOURCE_DOWNLOAD_THREADS_PROP = "ranger.tagsync.source.atlasrest.download.threads";
+	private static final String TAGSYNC_ATLAS_REST_SOURCE_INCREMENTAL_SYNC_PROP = "ranger.tagsync.source.atlasrest.incremental.sync.enabled";
+	private static final String TAGSYNC_ATLAS_REST_SOURCE_FULL_SYNC_INTERVAL_PROP = "ranger.tagsync.source.atlasrest.full.sync.interval.millis";
+
 	public static final String TAGSYNC_FILESOURCE_FILENAME_PROP = "ranger.tagsync.source.file.filename";
 
 	private static final String TAGSYNC_FILESOURCE_MOD_TIME_CHECK_INTERVAL_PROP = "ranger.tagsync.source.file.check.interval.millis";
@@ -89,7 +96,11 @@ public class TagSyncConfig extends Configuration {
 	private static final String DEFAULT_ATLASREST_PASSWORD = "admin";
 
 	private static final int DEFAULT_TAGSYNC_TAGADMIN_CONNECTION_CHECK_INTERVAL = 15000;
+	private static final int DEFAULT_TAGSYNC_TAGADMIN_UPLOAD_THREADS = 4;
 	private static final long DEFAULT_TAGSYNC_ATLASREST_SOURCE_DOWNLOAD_INTERVAL = 900000;
+	private static final int DEFAULT_TAGSYNC_ATLASREST_SOURCE_DOWNLOAD_PAGE_SIZE = 10000;
+	private static final int DEFAULT_TAGSYNC_ATLASREST_SOURCE_DOWNLOAD_THREADS = 4;
+	private static final long DEFAULT_TAGSYNC_ATLASREST_SOURCE_FULL_SYNC_INTERVAL = 86400000;
 	private static final long DEFAULT_TAGSYNC_FILESOURCE_MOD_TIME_CHECK_INTERVAL = 60000;
 	private static final long DEFAULT_TAGSYNC_SOURCE_RETRY_INITIALIZATION_INTERVAL = 10000;
 
@@ -238,6 +249,50 @@ public class TagSyncConfig extends Configuration {
 		return ret;
 	}
 
+	static public int getTagSourceAtlasDownloadPageSize(Properties prop) {
+		String val = prop.getProperty(TAGSYNC_ATLAS_REST_SOURCE_DOWNLOAD_PAGE_SIZE_PROP);
+		int ret = DEFAULT_TAGSYNC_ATLASREST_SOURCE_DOWNLOAD_PAGE_SIZE;
+		if (StringUtils.isNotBlank(val)) {
+			try {
+				ret = Integer.valueOf(val);
+			} catch (NumberFormatException exception) {
+				// Ignore
+			}
+		}
+		return ret > 0 ? ret : DEFAULT_TAGSYNC_ATLASREST_SOURCE_DOWNLOAD_PAGE_SIZE;
+	}
+
+	static public int getTagSourceAtlasDownloadThreads(Properties prop) {
+		String val = prop.getProperty(TAGSYNC_ATLAS_REST_SOURCE_DOWNLOAD_THREADS_PROP);
+		int ret = DEFAULT_TAGSYNC_ATLASREST_SOURCE_DOWNLOAD_THREADS;
+		if (StringUtils.isNotBlank(val)) {
+			try {
+				ret = Integer.valueOf(val);
+			} catch (NumberFormatException exception) {
+				// Ignore
+			}
+		}
+		return ret > 0 ? ret : 1;
+	}
+
+	static public boolean isTagSourceAtlasIncrementalSyncEnabled(Properties prop) {
+		String val = prop.getProperty(TAGSYNC_ATLAS_REST_SOURCE_INCREMENTAL_SYNC_PROP);
+		return StringUtils.equalsIgnoreCase(StringUtils.trimToEmpty(val), "true");
+	}
+
+	static public long getTagSourceAtlasFullSyncIntervalInMillis(Properties prop) {
+		String val = prop.getProperty(TAGSYNC_ATLAS_REST_SOURCE_FULL_SYNC_INTERVAL_PROP);
+		long ret = DEFAULT_TAGSYNC_ATLASREST_SOURCE_FULL_SYNC_INTERVAL;
+		if (StringUtils.isNotBlank(val)) {
+			try {
+				ret = Long.valueOf(val);
+			} catch (NumberFormatException exception) {
+				// Ignore
+			}
+		}
+		return ret;
+	}
+
 	static public String getTagSinkClassName(Properties prop) {
 		String val = prop.getProperty(TAGSYNC_SINK_CLASS_PROP);
 		if (StringUtils.equalsIgnoreCase(val, "ranger")) {
@@ -388,6 +443,19 @@ public class TagSyncConfig extends Configuration {
 		return ret;
 	}
 
+	static public int getTagAdminUploadThreads(Properties prop) {
+		int ret = DEFAULT_TAGSYNC_TAGADMIN_UPLOAD_THREADS;
+		String val = prop.getProperty(TAGSYNC_TAGADMIN_UPLOAD_THREADS_PROP);
+		if (StringUtils.isNotBlank(val)) {
+			try {
+				ret = Integer.valueOf(val);
+			} catch (NumberFormatException exception) {
+				// Ignore
+			}
+		}
+		return ret > 0 ? ret : 1;
+	}
+
 	static public long getTagSourceRetryInitializationInterval(Properties prop) {
 		long ret = DEFAULT_TAGSYNC_SOURCE_RETRY_INITIALIZATION_INTERVAL;
 		String val = prop.getProperty(TAGSYNC_SOURCE_RETRY_INITIALIZATION_INTERVAL_PROP);
@@ -20,6 +20,7 @@
 package org.apache.ranger.tagsync.sink.tagadmin;
 
 import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.GenericType;
 import com.sun.jersey.api.client.WebResource;
 
 import org.apache.commons.collections.MapUtils;
@@ -28,6 +29,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.ranger.admin.client.datatype.RESTResponse;
+import org.apache.ranger.plugin.model.RangerServiceResource;
 import org.apache.ranger.tagsync.model.TagSink;
 import org.apache.ranger.plugin.util.RangerRESTClient;
 import org.apache.ranger.plugin.util.SearchFilter;
@@ -37,11 +39,17 @@ import javax.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
 import java.security.PrivilegedAction;
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 
 public class TagAdminRESTSink implements TagSink, Runnable {
 	private static final Log LOG = LogFactory.getLog(TagAdminRESTSink.class);
@@ -53,15 +61,21 @@ public class TagAdminRESTSink implements TagSink, Runnable {
 
 	private static final String REST_URL_IMPORT_SERVICETAGS_RESOURCE = REST_PREFIX + MODULE_PREFIX + "/importservicetags/";
 
+	private static final String REST_URL_SERVICE_RESOURCES_RESOURCE = REST_PREFIX + MODULE_PREFIX + "/resources/service/";
+
 	private long rangerAdminConnectionCheckInterval;
 
 	private RangerRESTClient tagRESTClient = null;
 
 	private boolean isKerberized;
 
-	private BlockingQueue<UploadWorkItem> uploadWorkItems;
+	private UploadWorkItemQueue uploadWorkItems;
+
+	// number of threads uploading to Ranger admin, i.e. max number of concurrent uploads; uploads for a service are
+	// always made one at a time, in the order received
+	private int uploadThreads;
 
-	private Thread myThread = null;
+	private List<Thread> myThreads = new ArrayList<Thread>();
 
 	@Override
 	public boolean initialize(Properties properties) {
@@ -77,6 +91,7 @@ public class TagAdminRESTSink implements TagSink, Runnable {
 		String password = TagSyncConfig.getTagAdminPassword(properties);
 		rangerAdminConnectionCheckInterval = TagSyncConfig.getTagAdminConnectionCheckInterval(properties);
 		isKerberized = TagSyncConfig.getTagsyncKerberosIdentity(properties) != null;
+		uploadThreads = TagSyncConfig.getTagAdminUploadThreads(properties);
 
 
 		if (LOG.isDebugEnabled()) {
@@ -85,6 +100,7 @@ public class TagAdminRESTSink implements TagSink, Runnable {
 			LOG.debug("userName=" + userName);
 			LOG.debug("rangerAdminConnectionCheckInterval=" + rangerAdminConnectionCheckInterval);
 			LOG.debug("isKerberized=" + isKerberized);
+			LOG.debug("uploadThreads=" + uploadThreads);
 		}
 
 		if (StringUtils.isNotBlank(restUrl)) {
@@ -95,7 +111,7 @@ public class TagAdminRESTSink implements TagSink, Runnable {
 			// Build and cache REST client. This will catch any errors in building REST client up-front
 			tagRESTClient.getClient();
 
-			uploadWorkItems = new LinkedBlockingQueue<UploadWorkItem>();
+			uploadWorkItems = new UploadWorkItemQueue();
 			ret = true;
 		} else {
 			LOG.error("No value specified for property 'ranger.tagsync.tagadmin.rest.url'!");
@@ -129,6 +145,55 @@ public class TagAdminRESTSink implements TagSink, Runnable {
 		return ret;
 	}
 
+	@Override
+	public List<RangerServiceResource> getServiceResources(final String serviceName) throws Exception {
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("==> getServiceResources(" + serviceName + ")");
+		}
+
+		final List<RangerServiceResource> ret;
+
+		if(isKerberized) {
+			UserGroupInformation userGroupInformation = UserGroupInformation.getLoginUser();
+
+			if (userGroupInformation == null) {
+				throw new Exception("Failed to get UserGroupInformation.getLoginUser()");
+			}
+
+			userGroupInformation.checkTGTAndReloginFromKeytab();
+
+			ret = userGroupInformation.doAs(new PrivilegedExceptionAction<List<RangerServiceResource>>() {
+				@Override
+				public List<RangerServiceResource> run() throws Exception {
+					return downloadServiceResources(serviceName);
+				}
+			});
+		} else {
+			ret = downloadServiceResources(serviceName);
+		}
+
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("<== getServiceResources(" + serviceName + "): count=" + ret.size());
+		}
+
+		return ret;
+	}
+
+	private List<RangerServiceResource> downloadServiceResources(String serviceName) throws Exception {
+		WebResource    webResource = createWebResource(REST_URL_SERVICE_RESOURCES_RESOURCE + serviceName);
+		ClientResponse response    = webResource.accept(REST_MIME_TYPE_JSON).get(ClientResponse.class);
+
+		if(response == null || response.getStatus() != HttpServletResponse.SC_OK) {
+			RESTResponse resp = response != null ? RESTResponse.fromClientResponse(response) : null;
+
+			throw new Exception("Download of resources of service " + serviceName + " failed with response: " + (resp != null ? resp.getMessage() : null));
+		}
+
+		List<RangerServiceResource> ret = response.getEntity(new GenericType<List<RangerServiceResource>>() { });
+
+		return ret != null ? ret : new ArrayList<RangerServiceResource>();
+	}
+
 	private ServiceTags doUpload(ServiceTags serviceTags) throws Exception {
 			if(isKerberized) {
 				try{
@@ -221,17 +286,23 @@ public class TagAdminRESTSink implements TagSink, Runnable {
 	@Override
 	public boolean start() {
 
-		myThread = new Thread(this);
-		myThread.setDaemon(true);
-		myThread.start();
+		for (int i = 0; i < uploadThreads; i++) {
+			Thread myThread = new Thread(this, "TagAdminRESTSink-" + i);
+			myThread.setDaemon(true);
+			myThread.start();
+
+			myThreads.add(myThread);
+		}
 
 		return true;
 	}
 
 	@Override
 	public void stop() {
-		if (myThread != null && myThread.isAlive()) {
-			myThread.interrupt();
+		for (Thread myThread : myThreads) {
+			if (myThread.isAlive()) {
+				myThread.interrupt();
+			}
 		}
 	}
 
@@ -247,31 +318,34 @@ public class TagAdminRESTSink implements TagSink, Runnable {
 			try {
 				uploadWorkItem = uploadWorkItems.take();
 
-				ServiceTags toUpload = uploadWorkItem.getServiceTags();
+				try {
+					ServiceTags toUpload = uploadWorkItem.getServiceTags();
 
-				boolean doRetry;
+					boolean doRetry;
 
-				do {
-					doRetry = false;
+					do {
+						doRetry = false;
 
-					try {
-						ServiceTags uploaded = doUpload(toUpload);
-						if (uploaded == null) { // Treat this as if an Exception is thrown by doUpload
+						try {
+							ServiceTags uploaded = doUpload(toUpload);
+							if (uploaded == null) { // Treat this as if an Exception is thrown by doUpload
+								doRetry = true;
+								Thread.sleep(rangerAdminConnectionCheckInterval);
+							} else {
+								// ServiceTags uploaded successfully
+								uploadWorkItem.uploadCompleted(uploaded);
+							}
+						} catch (InterruptedException interrupted) {
+							LOG.error("Caught exception..: ", interrupted);
+							return;
+						} catch (Exception exception) {
 							doRetry = true;
 							Thread.sleep(rangerAdminConnectionCheckInterval);
-						} else {
-							// ServiceTags uploaded successfully
-							uploadWorkItem.uploadCompleted(uploaded);
 						}
-					} catch (InterruptedException interrupted) {
-						LOG.error("Caught exception..: ", interrupted);
-						return;
-					} catch (Exception exception) {
-						doRetry = true;
-						Thread.sleep(rangerAdminConnectionCheckInterval);
-					}
-				} while (doRetry);
-
+					} while (doRetry);
+				} finally {
+					uploadWorkItems.uploadDone(uploadWorkItem);
+				}
 			}
 			catch (InterruptedException exception) {
 				LOG.error("Interrupted..: ", exception);
@@ -307,6 +381,91 @@ public class TagAdminRESTSink implements TagSink, Runnable {
 			this.serviceTags = serviceTags;
 		}
 
+		// null for service-tags that aren't for a single service, like deletes of resources by guid
+		String getServiceName() {
+			return serviceTags != null && StringUtils.isNotBlank(serviceTags.getServiceName()) ? serviceTags.getServiceName() : null;
+		}
+	}
+
+	/*
+	 * Hands out work items to the upload threads such that:
+	 *  - uploads for a service are made one at a time, in the order they were received; this keeps a REPLACE from
+	 *    running concurrently with, or being overtaken by, other uploads for the same service
+	 *  - an upload not for a single service runs exclusively, after all uploads received before it and before any
+	 *    upload received after it
+	 */
+	static class UploadWorkItemQueue {
+		private final List<UploadWorkItem> workItems       = new LinkedList<UploadWorkItem>();
+		private final Set<String>          busyServices    = new HashSet<String>();
+		private       boolean              isExclusiveBusy = false;
+
+		synchronized void put(UploadWorkItem workItem) {
+			workItems.add(workItem);
+
+			notifyAll();
+		}
+
+		synchronized UploadWorkItem take() throws InterruptedException {
+			UploadWorkItem ret = poll();
+
+			while (ret == null) {
+				wait();
+
+				ret = poll();
+			}
+
+			return ret;
+		}
+
+		// returns null when no work item can be uploaded now
+		synchronized UploadWorkItem poll() {
+			UploadWorkItem ret = null;
+
+			if (!isExclusiveBusy) {
+				Set<String> waitingServices = new HashSet<String>();
+
+				for (Iterator<UploadWorkItem> iter = workItems.iterator(); iter.hasNext(); ) {
+					UploadWorkItem workItem    = iter.next();
+					String         serviceName = workItem.getServiceName();
+
+					if (serviceName == null) {
+						if (busyServices.isEmpty() && waitingServices.isEmpty()) {
+							iter.remove();
+
+							isExclusiveBusy = true;
+							ret             = workItem;
+						}
+
+						break; // work items after this one must wait for it
+					}
+
+					if (!busyServices.contains(serviceName) && !waitingServices.contains(serviceName)) {
+						iter.remove();
+
+						busyServices.add(serviceName);
+						ret = workItem;
+
+						break;
+					}
+
+					waitingServices.add(serviceName);
+				}
+			}
+
+			return ret;
+		}
+
+		synchronized void uploadDone(UploadWorkItem workItem) {
+			String serviceName = workItem.getServiceName();
+
+			if (serviceName == null) {
+				isExclusiveBusy = false;
+			} else {
+				busyServices.remove(serviceName);
+			}
+
+			notifyAll();
+		}
 	}
 
 }
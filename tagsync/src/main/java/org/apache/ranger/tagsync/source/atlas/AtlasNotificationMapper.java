@@ -37,6 +37,7 @@ import org.apache.ranger.tagsync.source.atlasrest.RangerAtlasEntityWithTags;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -87,7 +88,7 @@ public class AtlasNotificationMapper {
 				if (entityNotification.getOperationType() == EntityNotificationV1.OperationType.ENTITY_DELETE) {
 					ret = buildServiceTagsForEntityDeleteNotification(entityWithTags);
 				} else {
-					ret = buildServiceTags(entityWithTags, null);
+					ret = buildServiceTags(entityWithTags, null, true);
 				}
 
 			} catch (Exception exception) {
@@ -100,10 +101,18 @@ public class AtlasNotificationMapper {
 	}
 
 	public static Map<String, ServiceTags> processAtlasEntities(List<RangerAtlasEntityWithTags> atlasEntities) {
+		return processAtlasEntities(atlasEntities, ServiceTags.OP_REPLACE);
+	}
+
+	/*
+	 * Builds service-tags, one per service, with the given op - for example OP_ADD_OR_UPDATE when the entities are
+	 * one page of a paged download and so are not the complete set of resources of the service
+	 */
+	public static Map<String, ServiceTags> processAtlasEntities(List<RangerAtlasEntityWithTags> atlasEntities, String op) {
 		Map<String, ServiceTags> ret = null;
 
 		try {
-			ret = buildServiceTags(atlasEntities);
+			ret = buildServiceTags(atlasEntities, op, false);
 		} catch (Exception exception) {
 			LOG.error("Failed to build serviceTags", exception);
 		}
@@ -111,6 +120,70 @@ public class AtlasNotificationMapper {
 		return ret;
 	}
 
+	/*
+	 * Merges the given notifications, in the order received, into one service-tags per service: only the last
+	 * notification for an entity is applied. Deleted entities are returned in a separate service-tags with OP_DELETE
+	 */
+	public static List<ServiceTags> processEntityNotifications(List<EntityNotificationV1> entityNotifications) {
+		List<ServiceTags> ret = new ArrayList<ServiceTags>();
+
+		Map<String, EntityNotificationV1> lastNotifications = new LinkedHashMap<String, EntityNotificationV1>();
+
+		for (EntityNotificationV1 entityNotification : entityNotifications) {
+			if (isNotificationHandled(entityNotification)) {
+				String guid = entityNotification.getEntity().getId()._getId();
+
+				if (StringUtils.isNotBlank(guid)) {
+					lastNotifications.remove(guid);
+					lastNotifications.put(guid, entityNotification);
+				} else {
+					// cannot be merged with other notifications of the entity
+					ServiceTags serviceTags = processEntityNotification(entityNotification);
+
+					if (serviceTags != null) {
+						ret.add(serviceTags);
+					}
+				}
+			} else {
+				logUnhandledEntityNotification(entityNotification);
+			}
+		}
+
+		List<RangerAtlasEntityWithTags> updatedEntities  = new ArrayList<RangerAtlasEntityWithTags>();
+		ServiceTags                     deletedResources = new ServiceTags();
+
+		deletedResources.setOp(ServiceTags.OP_DELETE);
+
+		for (Map.Entry<String, EntityNotificationV1> entry : lastNotifications.entrySet()) {
+			EntityNotificationV1 entityNotification = entry.getValue();
+
+			if (entityNotification.getOperationType() == EntityNotificationV1.OperationType.ENTITY_DELETE) {
+				RangerServiceResource serviceResource = new RangerServiceResource();
+
+				serviceResource.setGuid(entry.getKey());
+
+				deletedResources.getServiceResources().add(serviceResource);
+			} else {
+				updatedEntities.add(new RangerAtlasEntityWithTags(entityNotification));
+			}
+		}
+
+		if (CollectionUtils.isNotEmpty(updatedEntities)) {
+			try {
+				// entities without tags are included, so that tags removed from them are removed in Ranger as well
+				ret.addAll(buildServiceTags(updatedEntities, ServiceTags.OP_ADD_OR_UPDATE, true).values());
+			} catch (Exception exception) {
+				LOG.error("Failed to build serviceTags", exception);
+			}
+		}
+
+		if (CollectionUtils.isNotEmpty(deletedResources.getServiceResources())) {
+			ret.add(deletedResources);
+		}
+
+		return ret;
+	}
+
 	static private boolean isNotificationHandled(EntityNotificationV1 entityNotification) {
 		boolean ret = false;
 
@@ -157,7 +230,7 @@ public class AtlasNotificationMapper {
 			serviceResource.setGuid(guid);
 			ret.getServiceResources().add(serviceResource);
 		} else {
-			ret = buildServiceTags(entityWithTags, null);
+			ret = buildServiceTags(entityWithTags, null, true);
 			if (ret != null) {
 				// tag-definitions should NOT be deleted as part of service-resource delete
 				ret.setTagDefinitions(MapUtils.EMPTY_MAP);
@@ -173,14 +246,14 @@ public class AtlasNotificationMapper {
 		return ret;
 	}
 
-	static private Map<String, ServiceTags> buildServiceTags(List<RangerAtlasEntityWithTags> entitiesWithTags) throws Exception {
+	static private Map<String, ServiceTags> buildServiceTags(List<RangerAtlasEntityWithTags> entitiesWithTags, String op, boolean includeEntitiesWithoutTags) throws Exception {
 
 		Map<String, ServiceTags> ret = new HashMap<String, ServiceTags>();
 
 		for (RangerAtlasEntityWithTags element : entitiesWithTags) {
 			RangerAtlasEntity entity = element.getEntity();
 			if (entity != null) {
-				buildServiceTags(element, ret);
+				buildServiceTags(element, ret, includeEntitiesWithoutTags);
 			} else {
 				if (LOG.isDebugEnabled()) {
 					LOG.debug("Ignoring entity because its State is not ACTIVE: " + element);
@@ -232,13 +305,13 @@ public class AtlasNotificationMapper {
 		if (MapUtils.isNotEmpty(ret)) {
 			for (Map.Entry<String, ServiceTags> entry : ret.entrySet()) {
 				ServiceTags serviceTags = entry.getValue();
-				serviceTags.setOp(ServiceTags.OP_REPLACE);
+				serviceTags.setOp(op);
 			}
 		}
 		return ret;
 	}
 
-	static private ServiceTags buildServiceTags(RangerAtlasEntityWithTags entityWithTags, Map<String, ServiceTags> serviceTagsMap) throws Exception {
+	static private ServiceTags buildServiceTags(RangerAtlasEntityWithTags entityWithTags, Map<String, ServiceTags> serviceTagsMap, boolean includeEntityWithoutTags) throws Exception {
 		ServiceTags            ret             = null;
 		RangerAtlasEntity entity          = entityWithTags.getEntity();
 		RangerServiceResource  serviceResource = AtlasResourceMapperUtil.getRangerServiceResource(entity);
@@ -251,7 +324,7 @@ public class AtlasNotificationMapper {
 
 			ret = createOrGetServiceTags(serviceTagsMap, serviceName);
 
-			if (serviceTagsMap == null || CollectionUtils.isNotEmpty(tags)) {
+			if (includeEntityWithoutTags || CollectionUtils.isNotEmpty(tags)) {
 
 				serviceResource.setId((long) ret.getServiceResources().size());
 				ret.getServiceResources().add(serviceResource);
@@ -50,6 +50,10 @@ public class AtlasResourceMapperUtil {
 		return ret;
 	}
 
+	public static Set<String> getEntityTypesHandled() {
+		return Collections.unmodifiableSet(atlasResourceMappers.keySet());
+	}
+
 	public static RangerServiceResource getRangerServiceResource(RangerAtlasEntity atlasEntity) {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("==> getRangerServiceResource(" + atlasEntity.getGuid() +")");
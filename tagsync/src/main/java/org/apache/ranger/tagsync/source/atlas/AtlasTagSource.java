@@ -29,6 +29,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.plugin.util.ServiceTags;
 import org.apache.ranger.tagsync.model.AbstractTagSource;
+import org.apache.ranger.tagsync.process.TagSyncConfig;
 import org.apache.atlas.kafka.AtlasKafkaMessage;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.ranger.tagsync.source.atlasrest.RangerAtlasEntityWithTags;
@@ -36,8 +37,16 @@ import org.apache.ranger.tagsync.source.atlasrest.RangerAtlasEntityWithTags;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class AtlasTagSource extends AbstractTagSource {
 	private static final Log LOG = LogFactory.getLog(AtlasTagSource.class);
@@ -103,7 +112,7 @@ public class AtlasTagSource extends AbstractTagSource {
 			NotificationInterface notification = NotificationProvider.get();
 			List<NotificationConsumer<EntityNotificationV1>> iterators = notification.createConsumers(NotificationInterface.NotificationType.ENTITIES, 1);
 
-			consumerTask = new ConsumerRunnable(iterators.get(0));
+			consumerTask = new ConsumerRunnable(iterators.get(0), TagSyncConfig.getTagAdminUploadThreads(properties));
 
 		}
 
@@ -152,9 +161,11 @@ public class AtlasTagSource extends AbstractTagSource {
 	private class ConsumerRunnable implements Runnable {
 
 		private final NotificationConsumer<EntityNotificationV1> consumer;
+		private final ExecutorService                            uploadExecutor;
 
-		private ConsumerRunnable(NotificationConsumer<EntityNotificationV1> consumer) {
-			this.consumer = consumer;
+		private ConsumerRunnable(NotificationConsumer<EntityNotificationV1> consumer, int uploadThreads) {
+			this.consumer       = consumer;
+			this.uploadExecutor = Executors.newFixedThreadPool(uploadThreads);
 		}
 
 
@@ -163,10 +174,13 @@ public class AtlasTagSource extends AbstractTagSource {
 			if (LOG.isDebugEnabled()) {
 				LOG.debug("==> ConsumerRunnable.run()");
 			}
-			while (true) {
-				try {
+			try {
+				while (true) {
 					List<AtlasKafkaMessage<EntityNotificationV1>> messages = consumer.receive(1000L);
 
+					List<EntityNotificationV1> notifications = new ArrayList<>(messages.size());
+					Map<TopicPartition, Long>  lastOffsets   = new HashMap<>();
+
 					for (AtlasKafkaMessage<EntityNotificationV1> message :  messages) {
 						EntityNotificationV1 notification = message != null ? message.getMessage() : null;
 
@@ -175,23 +189,80 @@ public class AtlasTagSource extends AbstractTagSource {
 								LOG.debug("Notification=" + getPrintableEntityNotification(notification));
 							}
 
-							ServiceTags serviceTags = AtlasNotificationMapper.processEntityNotification(notification);
-							if (serviceTags != null) {
-								updateSink(serviceTags);
-							}
+							notifications.add(notification);
+
+							TopicPartition partition  = new TopicPartition("ATLAS_ENTITIES", message.getPartition());
+							Long           lastOffset = lastOffsets.get(partition);
 
-							TopicPartition partition = new TopicPartition("ATLAS_ENTITIES", message.getPartition());
-							consumer.commit(partition, message.getOffset());
+							if (lastOffset == null || lastOffset < message.getOffset()) {
+								lastOffsets.put(partition, message.getOffset());
+							}
 						} else {
 							LOG.error("Null entityNotification received from Kafka!! Ignoring..");
 						}
 					}
-				} catch (Exception exception) {
-					LOG.error("Caught exception..: ", exception);
-					return;
+
+					if (notifications.isEmpty()) {
+						continue;
+					}
+
+					List<ServiceTags> serviceTagsList = AtlasNotificationMapper.processEntityNotifications(notifications);
+
+					if (!uploadServiceTags(serviceTagsList)) {
+						// offsets are not committed, so these notifications will be received again after restart
+						LOG.error("Failed to upload service-tags for " + notifications.size() + " notifications. Exiting..");
+						return;
+					}
+
+					for (Map.Entry<TopicPartition, Long> entry : lastOffsets.entrySet()) {
+						consumer.commit(entry.getKey(), entry.getValue());
+					}
+
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("Processed " + notifications.size() + " notifications as " + serviceTagsList.size() + " service-tags");
+					}
+				}
+			} catch (Exception exception) {
+				LOG.error("Caught exception..: ", exception);
+			} finally {
+				uploadExecutor.shutdownNow();
+			}
+		}
+
+		/*
+		 * Uploads the service-tags concurrently; these are for distinct entities, hence can be applied in any order
+		 */
+		private boolean uploadServiceTags(List<ServiceTags> serviceTagsList) throws InterruptedException {
+			boolean ret = true;
+
+			if (serviceTagsList.size() == 1) {
+				ret = updateSink(serviceTagsList.get(0));
+			} else if (serviceTagsList.size() > 1) {
+				List<Future<Boolean>> futures = new ArrayList<>(serviceTagsList.size());
+
+				for (final ServiceTags serviceTags : serviceTagsList) {
+					futures.add(uploadExecutor.submit(new Callable<Boolean>() {
+						@Override
+						public Boolean call() {
+							return updateSink(serviceTags);
+						}
+					}));
+				}
+
+				for (Future<Boolean> future : futures) {
+					try {
+						if (!future.get()) {
+							ret = false;
+						}
+					} catch (ExecutionException exception) {
+						LOG.error("Failed to upload service-tags", exception);
+
+						ret = false;
+					}
 				}
 			}
+
+			return ret;
 		}
 	}
 }
-
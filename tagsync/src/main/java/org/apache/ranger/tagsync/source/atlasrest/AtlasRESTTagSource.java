@@ -19,8 +19,6 @@
 
 package org.apache.ranger.tagsync.source.atlasrest;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import org.apache.atlas.AtlasClientV2;
 import org.apache.atlas.AtlasServiceException;
 import org.apache.atlas.exception.AtlasBaseException;
@@ -44,6 +42,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.ranger.plugin.model.RangerServiceResource;
 import org.apache.ranger.plugin.util.ServiceTags;
 import org.apache.ranger.tagsync.model.AbstractTagSource;
 import org.apache.ranger.tagsync.model.TagSink;
@@ -56,12 +55,21 @@ import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class AtlasRESTTagSource extends AbstractTagSource implements Runnable {
 	private static final Log LOG = LogFactory.getLog(AtlasRESTTagSource.class);
@@ -77,11 +85,22 @@ public class AtlasRESTTagSource extends AbstractTagSource implements Runnable {
 		}
 	};
 
+	private static final String      ATTRIBUTE_MODIFICATION_TIMESTAMP = "__modificationTimestamp";
+	private static final Set<String> SEARCH_RESULT_ATTRIBUTES         = Collections.singleton(ATTRIBUTE_MODIFICATION_TIMESTAMP);
+
 	private long sleepTimeBetweenCycleInMillis;
 	private String[] restUrls         = null;
 	private boolean  isKerberized     = false;
 	private String[] userNamePassword = null;
 
+	private int                      downloadPageSize;
+	private int                      downloadThreads;
+	private boolean                  isIncrementalSyncEnabled;
+	private long                     fullSyncIntervalInMillis;
+	private long                     lastFullSyncTime   = 0; // start-time of the last successful full-sync
+	private final AtlasSyncWatermark watermark          = new AtlasSyncWatermark();
+	private Set<String>              serviceNamesSynced = new HashSet<>();
+
 	private Thread myThread = null;
 
 	public static void main(String[] args) {
@@ -128,6 +147,10 @@ public class AtlasRESTTagSource extends AbstractTagSource implements Runnable {
 
 		sleepTimeBetweenCycleInMillis = TagSyncConfig.getTagSourceAtlasDownloadIntervalInMillis(properties);
 		isKerberized = TagSyncConfig.getTagsyncKerberosIdentity(properties) != null;
+		downloadPageSize         = TagSyncConfig.getTagSourceAtlasDownloadPageSize(properties);
+		downloadThreads          = TagSyncConfig.getTagSourceAtlasDownloadThreads(properties);
+		isIncrementalSyncEnabled = TagSyncConfig.isTagSourceAtlasIncrementalSyncEnabled(properties);
+		fullSyncIntervalInMillis = TagSyncConfig.getTagSourceAtlasFullSyncIntervalInMillis(properties);
 
 		String restEndpoint       = TagSyncConfig.getAtlasRESTEndpoint(properties);
 		String sslConfigFile = TagSyncConfig.getAtlasRESTSslConfigFile(properties);
@@ -138,6 +161,10 @@ public class AtlasRESTTagSource extends AbstractTagSource implements Runnable {
 			LOG.debug("sslConfigFile=" + sslConfigFile);
 			LOG.debug("userName=" + userNamePassword[0]);
 			LOG.debug("kerberized=" + isKerberized);
+			LOG.debug("downloadPageSize=" + downloadPageSize);
+			LOG.debug("downloadThreads=" + downloadThreads);
+			LOG.debug("isIncrementalSyncEnabled=" + isIncrementalSyncEnabled);
+			LOG.debug("fullSyncIntervalInMillis=" + fullSyncIntervalInMillis);
 		}
         if (StringUtils.isNotEmpty(restEndpoint)) {
             this.restUrls = restEndpoint.split(",");
@@ -201,112 +228,431 @@ public class AtlasRESTTagSource extends AbstractTagSource implements Runnable {
 	}
 
 	public void synchUp() {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> AtlasRESTTagSource.synchUp()");
+		}
+
+		long    syncStartTime = System.currentTimeMillis();
+		long    fromTime      = watermark.getTimestamp();
+		boolean isFullSync    = !isIncrementalSyncEnabled || lastFullSyncTime == 0 || fromTime == 0 || (syncStartTime - lastFullSyncTime) >= fullSyncIntervalInMillis;
+		boolean isSuccess;
+
+		watermark.startCycle();
+
+		if (isFullSync) {
+			isSuccess = doFullSync();
+
+			if (isSuccess) {
+				lastFullSyncTime = syncStartTime;
+			}
+		} else {
+			isSuccess = doIncrementalSync(fromTime);
+		}
+
+		// the next incremental sync fetches entities modified at or after the latest modification time seen in Atlas
+		watermark.endCycle(isSuccess);
+
+		if (isSuccess && isIncrementalSyncEnabled && watermark.getTimestamp() == 0) {
+			LOG.warn("Atlas did not return " + ATTRIBUTE_MODIFICATION_TIMESTAMP + " of entities; next sync will be a full sync");
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== AtlasRESTTagSource.synchUp(): isFullSync=" + isFullSync + ", isSuccess=" + isSuccess + ", timeTaken=" + (System.currentTimeMillis() - syncStartTime) + "ms");
+		}
+	}
+
+	/*
+	 * Downloads all classified entities page by page, using downloadThreads workers; tags of entities in each page are
+	 * uploaded with OP_ADD_OR_UPDATE as soon as the page is downloaded, so that only downloadThreads pages are held in
+	 * memory. Once all pages are uploaded, resources in Ranger that were not seen in this cycle are deleted by guid
+	 */
+	private boolean doFullSync() {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> AtlasRESTTagSource.doFullSync()");
+		}
+
+		boolean ret = false;
 
-		List<RangerAtlasEntityWithTags> rangerAtlasEntities = getAtlasActiveEntities();
+		final AtlasTypeRegistry typeRegistry = getAtlasTypeRegistry();
 
-		if (CollectionUtils.isNotEmpty(rangerAtlasEntities)) {
-			if (LOG.isDebugEnabled()) {
-				for (RangerAtlasEntityWithTags element : rangerAtlasEntities) {
-					LOG.debug(element);
+		if (typeRegistry != null) {
+			final Set<String>   seenGuids            = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+			final Set<String>   seenServiceNames     = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+			final AtomicInteger nextPage             = new AtomicInteger(0);
+			final AtomicBoolean isLastPageDownloaded = new AtomicBoolean(false);
+			final AtomicBoolean isFailed             = new AtomicBoolean(false);
+
+			ExecutorService executor = Executors.newFixedThreadPool(downloadThreads);
+			List<Future<?>> futures  = new ArrayList<>(downloadThreads);
+
+			try {
+				for (int i = 0; i < downloadThreads; i++) {
+					futures.add(executor.submit(new Runnable() {
+						@Override
+						public void run() {
+							try {
+								AtlasClientV2 atlasClient = getAtlasClient();
+
+								while (!isLastPageDownloaded.get() && !isFailed.get()) {
+									int page = nextPage.getAndIncrement();
+
+									SearchParameters searchParams = new SearchParameters();
+
+									searchParams.setClassification("*");
+									searchParams.setIncludeClassificationAttributes(true);
+									searchParams.setAttributes(SEARCH_RESULT_ATTRIBUTES);
+									searchParams.setOffset(page * downloadPageSize);
+									searchParams.setLimit(downloadPageSize);
+
+									AtlasSearchResult       searchResult  = atlasClient.facetedSearch(searchParams);
+									List<AtlasEntityHeader> entityHeaders = searchResult != null ? searchResult.getEntities() : null;
+									int                     entityCount   = entityHeaders != null ? entityHeaders.size() : 0;
+
+									if (LOG.isDebugEnabled()) {
+										LOG.debug("page=" + page + ": downloaded " + entityCount + " entities");
+									}
+
+									if (entityCount < downloadPageSize) {
+										isLastPageDownloaded.set(true);
+									}
+
+									if (entityCount > 0) {
+										updateWatermark(entityHeaders);
+
+										uploadPage(page, getRangerAtlasEntities(typeRegistry, entityHeaders), seenGuids, seenServiceNames);
+									}
+								}
+							} catch (Exception excp) {
+								LOG.error("failed to sync tags from Atlas", excp);
+
+								isFailed.set(true);
+							}
+						}
+					}));
 				}
+
+				for (Future<?> future : futures) {
+					future.get();
+				}
+
+				ret = !isFailed.get();
+			} catch (InterruptedException excp) {
+				LOG.error("Interrupted while syncing tags from Atlas", excp);
+
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException excp) {
+				LOG.error("Failed to sync tags from Atlas", excp);
+			} finally {
+				executor.shutdownNow();
 			}
-			Map<String, ServiceTags> serviceTagsMap = AtlasNotificationMapper.processAtlasEntities(rangerAtlasEntities);
 
-			if (MapUtils.isNotEmpty(serviceTagsMap)) {
-				for (Map.Entry<String, ServiceTags> entry : serviceTagsMap.entrySet()) {
-					if (LOG.isDebugEnabled()) {
-						Gson gsonBuilder = new GsonBuilder().setDateFormat("yyyyMMdd-HH:mm:ss.SSS-Z")
-								.setPrettyPrinting()
-								.create();
-						String serviceTagsString = gsonBuilder.toJson(entry.getValue());
+			if (ret) {
+				Set<String> serviceNames = new HashSet<>(serviceNamesSynced);
+
+				serviceNames.addAll(seenServiceNames);
+
+				ret = deleteUnseenResources(serviceNames, seenGuids);
+
+				if (ret) {
+					serviceNamesSynced = serviceNames;
+				}
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== AtlasRESTTagSource.doFullSync(): ret=" + ret);
+		}
+
+		return ret;
+	}
+
+	private void uploadPage(int page, List<RangerAtlasEntityWithTags> rangerAtlasEntities, Set<String> seenGuids, Set<String> seenServiceNames) throws Exception {
+		if (CollectionUtils.isEmpty(rangerAtlasEntities)) {
+			return;
+		}
+
+		Map<String, ServiceTags> serviceTagsMap = AtlasNotificationMapper.processAtlasEntities(rangerAtlasEntities, ServiceTags.OP_ADD_OR_UPDATE);
+
+		if (serviceTagsMap == null) {
+			throw new Exception("failed to map Atlas entities in page " + page);
+		}
+
+		for (ServiceTags serviceTags : serviceTagsMap.values()) {
+			for (RangerServiceResource serviceResource : serviceTags.getServiceResources()) {
+				seenGuids.add(serviceResource.getGuid());
+			}
+
+			seenServiceNames.add(serviceTags.getServiceName());
+
+			if (!updateSink(serviceTags)) {
+				throw new Exception("failed to upload tags of service " + serviceTags.getServiceName() + " in page " + page);
+			}
+		}
+	}
+
+	/*
+	 * Deletes, by guid, resources of the given services that are in Ranger but were not seen in the current full-sync:
+	 * entities that were deleted in Atlas, or that no longer have classifications
+	 */
+	private boolean deleteUnseenResources(Set<String> serviceNames, Set<String> seenGuids) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> AtlasRESTTagSource.deleteUnseenResources(serviceNames=" + serviceNames + ", seenGuidCount=" + seenGuids.size() + ")");
+		}
+
+		boolean ret          = true;
+		int     deletedCount = 0;
+
+		for (String serviceName : serviceNames) {
+			List<RangerServiceResource> serviceResources;
+
+			try {
+				serviceResources = getTagSink().getServiceResources(serviceName);
+			} catch (Exception excp) {
+				LOG.error("failed to get resources of service " + serviceName + " from Ranger", excp);
+
+				ret = false;
+
+				break;
+			}
+
+			ServiceTags deletedResources = null;
+
+			for (RangerServiceResource serviceResource : serviceResources) {
+				String guid = serviceResource.getGuid();
+
+				if (StringUtils.isEmpty(guid) || seenGuids.contains(guid)) {
+					continue;
+				}
+
+				if (deletedResources == null) {
+					deletedResources = new ServiceTags();
+
+					deletedResources.setOp(ServiceTags.OP_DELETE);
+					deletedResources.setServiceName(serviceName);
+				}
+
+				RangerServiceResource deletedResource = new RangerServiceResource();
+
+				deletedResource.setGuid(guid);
+
+				deletedResources.getServiceResources().add(deletedResource);
+
+				if (deletedResources.getServiceResources().size() >= downloadPageSize) {
+					ret = updateSink(deletedResources);
+
+					deletedCount     += deletedResources.getServiceResources().size();
+					deletedResources = null;
 
-						LOG.debug("serviceTags=" + serviceTagsString);
+					if (!ret) {
+						break;
 					}
-					updateSink(entry.getValue());
 				}
 			}
+
+			if (ret && deletedResources != null) {
+				ret = updateSink(deletedResources);
+
+				deletedCount += deletedResources.getServiceResources().size();
+			}
+
+			if (!ret) {
+				break;
+			}
 		}
 
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== AtlasRESTTagSource.deleteUnseenResources(serviceNames=" + serviceNames + "): ret=" + ret + ", deletedCount=" + deletedCount);
+		}
+
+		return ret;
 	}
 
-	private List<RangerAtlasEntityWithTags> getAtlasActiveEntities() {
+	/*
+	 * Downloads entities of handled types that were modified in Atlas at or after fromTime; entities modified at
+	 * fromTime were seen by the previous cycle as well, and uploading them again doesn't change anything. Tags of the entities that are
+	 * classified are added/updated; entities that are deleted, or no longer classified, are deleted in Ranger
+	 */
+	private boolean doIncrementalSync(long fromTime) {
 		if (LOG.isDebugEnabled()) {
-			LOG.debug("==> getAtlasActiveEntities()");
+			LOG.debug("==> AtlasRESTTagSource.doIncrementalSync(fromTime=" + fromTime + ")");
 		}
-		List<RangerAtlasEntityWithTags> ret = null;
 
-		SearchParameters searchParams = new SearchParameters();
-		AtlasTypeRegistry typeRegistry = new AtlasTypeRegistry();
-		AtlasTypeRegistry.AtlasTransientTypeRegistry tty = null;
-		AtlasSearchResult searchResult = null;
+		boolean ret = false;
+
+		AtlasTypeRegistry typeRegistry = getAtlasTypeRegistry();
+
+		if (typeRegistry != null) {
+			try {
+				AtlasClientV2 atlasClient = getAtlasClient();
+
+				for (String typeName : AtlasResourceMapperUtil.getEntityTypesHandled()) {
+					for (int offset = 0; ; offset += downloadPageSize) {
+						SearchParameters                searchParams   = new SearchParameters();
+						SearchParameters.FilterCriteria modifiedFilter = new SearchParameters.FilterCriteria();
+
+						modifiedFilter.setAttributeName(ATTRIBUTE_MODIFICATION_TIMESTAMP);
+						modifiedFilter.setOperator(SearchParameters.Operator.GTE);
+						modifiedFilter.setAttributeValue(Long.toString(fromTime));
+
+						searchParams.setTypeName(typeName);
+						searchParams.setEntityFilters(modifiedFilter);
+						searchParams.setExcludeDeletedEntities(false);
+						searchParams.setIncludeClassificationAttributes(true);
+						searchParams.setAttributes(SEARCH_RESULT_ATTRIBUTES);
+						searchParams.setOffset(offset);
+						searchParams.setLimit(downloadPageSize);
+
+						AtlasSearchResult       searchResult  = atlasClient.facetedSearch(searchParams);
+						List<AtlasEntityHeader> entityHeaders = searchResult != null ? searchResult.getEntities() : null;
+						int                     entityCount   = entityHeaders != null ? entityHeaders.size() : 0;
+
+						if (LOG.isDebugEnabled()) {
+							LOG.debug("typeName=" + typeName + ", offset=" + offset + ": downloaded " + entityCount + " modified entities");
+						}
+
+						if (entityCount > 0) {
+							updateWatermark(entityHeaders);
+
+							ServiceTags deletedResources = new ServiceTags();
+
+							deletedResources.setOp(ServiceTags.OP_DELETE);
 
-		searchParams.setClassification("*");
-		searchParams.setIncludeClassificationAttributes(true);
-		searchParams.setOffset(0);
-		searchParams.setLimit(Integer.MAX_VALUE);
+							for (AtlasEntityHeader header : entityHeaders) {
+								if (header.getStatus() != AtlasEntity.Status.ACTIVE || CollectionUtils.isEmpty(header.getClassifications())) {
+									RangerServiceResource serviceResource = new RangerServiceResource();
+
+									serviceResource.setGuid(header.getGuid());
+
+									deletedResources.getServiceResources().add(serviceResource);
+								}
+							}
+
+							List<RangerAtlasEntityWithTags> rangerAtlasEntities = getRangerAtlasEntities(typeRegistry, entityHeaders);
+
+							if (CollectionUtils.isNotEmpty(rangerAtlasEntities)) {
+								Map<String, ServiceTags> serviceTagsMap = AtlasNotificationMapper.processAtlasEntities(rangerAtlasEntities, ServiceTags.OP_ADD_OR_UPDATE);
+
+								if (serviceTagsMap == null) {
+									throw new Exception("failed to map Atlas entities of type " + typeName);
+								}
+
+								for (ServiceTags serviceTags : serviceTagsMap.values()) {
+									updateSink(serviceTags);
+								}
+							}
+
+							if (CollectionUtils.isNotEmpty(deletedResources.getServiceResources())) {
+								updateSink(deletedResources);
+							}
+						}
+
+						if (entityCount < downloadPageSize) {
+							break;
+						}
+					}
+				}
+
+				ret = true;
+			} catch (Exception excp) {
+				LOG.error("failed to download modified entities from Atlas", excp);
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== AtlasRESTTagSource.doIncrementalSync(fromTime=" + fromTime + "): ret=" + ret);
+		}
+
+		return ret;
+	}
+
+	private void updateWatermark(List<AtlasEntityHeader> entityHeaders) {
+		for (AtlasEntityHeader header : entityHeaders) {
+			watermark.update(header.getAttribute(ATTRIBUTE_MODIFICATION_TIMESTAMP));
+		}
+	}
+
+	private AtlasTypeRegistry getAtlasTypeRegistry() {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> getAtlasTypeRegistry()");
+		}
+
+		AtlasTypeRegistry                            ret           = null;
+		AtlasTypeRegistry                            typeRegistry  = new AtlasTypeRegistry();
+		AtlasTypeRegistry.AtlasTransientTypeRegistry tty           = null;
+		boolean                                      commitUpdates = false;
 
-		boolean commitUpdates = false;
 		try {
 			AtlasClientV2 atlasClient = getAtlasClient();
-			searchResult = atlasClient.facetedSearch(searchParams);
-			AtlasTypesDef typesDef = atlasClient.getAllTypeDefs(new SearchFilter());
+			AtlasTypesDef typesDef    = atlasClient.getAllTypeDefs(new SearchFilter());
+
 			tty = typeRegistry.lockTypeRegistryForUpdate();
 			tty.addTypes(typesDef);
+
 			commitUpdates = true;
 		} catch (AtlasServiceException | AtlasBaseException | IOException excp) {
-			LOG.error("failed to download tags from Atlas", excp);
+			LOG.error("failed to download type-definitions from Atlas", excp);
 		} catch (Exception unexpectedException) {
-			LOG.error("Failed to download tags from Atlas due to unexpected exception", unexpectedException);
+			LOG.error("Failed to download type-definitions from Atlas due to unexpected exception", unexpectedException);
 		} finally {
 			if (tty != null) {
 				typeRegistry.releaseTypeRegistryForUpdate(tty, commitUpdates);
 			}
 		}
 
-		if (commitUpdates && searchResult != null) {
-			if (LOG.isDebugEnabled()) {
-				LOG.debug(AtlasType.toJson(searchResult));
-			}
-			ret = new ArrayList<>();
-			List<AtlasEntityHeader> entityHeaders = searchResult.getEntities();
-			if (CollectionUtils.isNotEmpty(entityHeaders)) {
-				for (AtlasEntityHeader header : entityHeaders) {
-					if (!header.getStatus().equals(AtlasEntity.Status.ACTIVE)) {
-						if (LOG.isDebugEnabled()) {
-							LOG.debug("Skipping entity because it is not ACTIVE, header:[" + header + "]");
-						}
-						continue;
-					}
+		if (commitUpdates) {
+			ret = typeRegistry;
+		}
 
-					String typeName = header.getTypeName();
-					if (!AtlasResourceMapperUtil.isEntityTypeHandled(typeName)) {
-						if (LOG.isDebugEnabled()) {
-							LOG.debug("Not fetching Atlas entities of type:[" + typeName + "]");
-						}
-						continue;
-					}
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== getAtlasTypeRegistry(): ret=" + ret);
+		}
 
-					Map<String, Map<String, String>> allTagsForEntity = new HashMap<>();
+		return ret;
+	}
 
-					for (AtlasClassification classification : header.getClassifications()) {
-						Map<String, Map<String, String>> tags = resolveTag(typeRegistry, classification.getTypeName(), classification.getAttributes());
-						if (tags != null) {
-							allTagsForEntity.putAll(tags);
-						}
-					}
+	/*
+	 * Returns the ACTIVE, classified entities of handled types from the given search result
+	 */
+	private List<RangerAtlasEntityWithTags> getRangerAtlasEntities(AtlasTypeRegistry typeRegistry, List<AtlasEntityHeader> entityHeaders) {
+		List<RangerAtlasEntityWithTags> ret = new ArrayList<>();
 
-					if (MapUtils.isNotEmpty(allTagsForEntity)) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(AtlasType.toJson(entityHeaders));
+		}
 
-						RangerAtlasEntity entity = new RangerAtlasEntity(typeName, header.getGuid(), header.getAttributes());
-						RangerAtlasEntityWithTags entityWithTags = new RangerAtlasEntityWithTags(entity, allTagsForEntity, typeRegistry);
-						ret.add(entityWithTags);
+		for (AtlasEntityHeader header : entityHeaders) {
+			if (!header.getStatus().equals(AtlasEntity.Status.ACTIVE)) {
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Skipping entity because it is not ACTIVE, header:[" + header + "]");
+				}
+				continue;
+			}
+
+			String typeName = header.getTypeName();
+			if (!AtlasResourceMapperUtil.isEntityTypeHandled(typeName)) {
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Not fetching Atlas entities of type:[" + typeName + "]");
+				}
+				continue;
+			}
+
+			Map<String, Map<String, String>> allTagsForEntity = new HashMap<>();
+
+			if (header.getClassifications() != null) {
+				for (AtlasClassification classification : header.getClassifications()) {
+					Map<String, Map<String, String>> tags = resolveTag(typeRegistry, classification.getTypeName(), classification.getAttributes());
+					if (tags != null) {
+						allTagsForEntity.putAll(tags);
 					}
 				}
 			}
-		}
 
-		if (LOG.isDebugEnabled()) {
-			LOG.debug("<== getAtlasActiveEntities()");
+			if (MapUtils.isNotEmpty(allTagsForEntity)) {
+
+				RangerAtlasEntity entity = new RangerAtlasEntity(typeName, header.getGuid(), header.getAttributes());
+				RangerAtlasEntityWithTags entityWithTags = new RangerAtlasEntityWithTags(entity, allTagsForEntity, typeRegistry);
+				ret.add(entityWithTags);
+			}
 		}
 
 		return ret;
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.tagsync.source.atlasrest;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/*
+ * Tracks the latest __modificationTimestamp of Atlas entities downloaded by successful sync cycles. Incremental sync
+ * searches for entities modified at or after this time; as the timestamps come from Atlas, skew between the clocks of
+ * Atlas and tagsync doesn't matter.
+ *
+ * Timestamps seen during a cycle, possibly by many download threads, are applied only when the cycle succeeds.
+ */
+class AtlasSyncWatermark {
+	private static final Log LOG = LogFactory.getLog(AtlasSyncWatermark.class);
+
+	private final AtomicLong cycleTimestamp = new AtomicLong(0);
+	private       long       timestamp      = 0;
+
+	// 0 when not known yet, or when Atlas did not return modification timestamps
+	long getTimestamp() {
+		return timestamp;
+	}
+
+	void startCycle() {
+		cycleTimestamp.set(0);
+	}
+
+	void update(Object modificationTimestamp) {
+		long value = toTimestamp(modificationTimestamp);
+
+		while (true) {
+			long current = cycleTimestamp.get();
+
+			if (value <= current || cycleTimestamp.compareAndSet(current, value)) {
+				break;
+			}
+		}
+	}
+
+	void endCycle(boolean isSuccess) {
+		if (isSuccess && cycleTimestamp.get() > timestamp) {
+			timestamp = cycleTimestamp.get();
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("AtlasSyncWatermark.endCycle(isSuccess=" + isSuccess + "): cycleTimestamp=" + cycleTimestamp.get() + ", timestamp=" + timestamp);
+		}
+	}
+
+	static long toTimestamp(Object value) {
+		long ret = 0;
+
+		if (value instanceof Number) {
+			ret = ((Number) value).longValue();
+		} else if (value instanceof Date) {
+			ret = ((Date) value).getTime();
+		} else if (value != null) {
+			try {
+				ret = Long.parseLong(value.toString().trim());
+			} catch (NumberFormatException excp) {
+				LOG.warn("ignoring invalid modification timestamp: " + value);
+			}
+		}
+
+		return ret;
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.tagsync.sink.tagadmin;
+
+import org.apache.ranger.plugin.util.ServiceTags;
+import org.apache.ranger.tagsync.sink.tagadmin.TagAdminRESTSink.UploadWorkItem;
+import org.apache.ranger.tagsync.sink.tagadmin.TagAdminRESTSink.UploadWorkItemQueue;
+import org.junit.Test;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class TestUploadWorkItemQueue {
+
+	@Test
+	public void testUploadsForAServiceAreSerialized() {
+		UploadWorkItemQueue queue    = new UploadWorkItemQueue();
+		UploadWorkItem      replace1 = getWorkItem("cl1_hive", ServiceTags.OP_REPLACE);
+		UploadWorkItem      update1  = getWorkItem("cl1_hive", ServiceTags.OP_ADD_OR_UPDATE);
+		UploadWorkItem      update2  = getWorkItem("cl1_hdfs", ServiceTags.OP_ADD_OR_UPDATE);
+
+		queue.put(replace1);
+		queue.put(update1);
+		queue.put(update2);
+
+		assertSame(replace1, queue.poll());
+		assertSame(update2, queue.poll()); // another service is not held up by the replace
+		assertNull(queue.poll());          // update1 must wait for replace1
+
+		queue.uploadDone(update2);
+
+		assertNull(queue.poll());
+
+		queue.uploadDone(replace1);
+
+		assertSame(update1, queue.poll());
+		assertNull(queue.poll());
+	}
+
+	@Test
+	public void testUploadsNotForAServiceAreExclusive() {
+		UploadWorkItemQueue queue   = new UploadWorkItemQueue();
+		UploadWorkItem      update1 = getWorkItem("cl1_hive", ServiceTags.OP_ADD_OR_UPDATE);
+		UploadWorkItem      delete  = getWorkItem(null, ServiceTags.OP_DELETE);
+		UploadWorkItem      update2 = getWorkItem("cl1_hdfs", ServiceTags.OP_ADD_OR_UPDATE);
+
+		queue.put(update1);
+		queue.put(delete);
+		queue.put(update2);
+
+		assertSame(update1, queue.poll());
+		assertNull(queue.poll()); // delete waits for update1; update2 may not overtake the delete
+
+		queue.uploadDone(update1);
+
+		assertSame(delete, queue.poll());
+		assertNull(queue.poll());
+
+		queue.uploadDone(delete);
+
+		assertSame(update2, queue.poll());
+	}
+
+	@Test
+	public void testTakeWaitsForUploadDone() throws Exception {
+		final UploadWorkItemQueue queue   = new UploadWorkItemQueue();
+		final UploadWorkItem      update1 = getWorkItem("cl1_hive", ServiceTags.OP_ADD_OR_UPDATE);
+		final UploadWorkItem      update2 = getWorkItem("cl1_hive", ServiceTags.OP_ADD_OR_UPDATE);
+		final UploadWorkItem[]    taken   = new UploadWorkItem[1];
+
+		queue.put(update1);
+		queue.put(update2);
+
+		assertSame(update1, queue.take());
+
+		Thread uploader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					taken[0] = queue.take();
+				} catch (InterruptedException excp) {
+					// test fails on the assert below
+				}
+			}
+		});
+
+		uploader.start();
+		uploader.join(200);
+
+		assertNull(taken[0]);
+
+		queue.uploadDone(update1);
+		uploader.join(10000);
+
+		assertSame(update2, taken[0]);
+	}
+
+	private UploadWorkItem getWorkItem(String serviceName, String op) {
+		ServiceTags serviceTags = new ServiceTags();
+
+		serviceTags.setServiceName(serviceName);
+		serviceTags.setOp(op);
+
+		return new UploadWorkItem(serviceTags);
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.tagsync.source.atlas;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.atlas.v1.model.instance.Id;
+import org.apache.atlas.v1.model.instance.Referenceable;
+import org.apache.atlas.v1.model.instance.Struct;
+import org.apache.atlas.v1.model.notification.EntityNotificationV1;
+import org.apache.atlas.v1.model.notification.EntityNotificationV1.OperationType;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.apache.ranger.plugin.util.ServiceTags;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TestAtlasNotificationMapper {
+	private static final String SERVICE_NAME = "cl1_hive";
+
+	@BeforeClass
+	public static void setUpBeforeClass() {
+		AtlasResourceMapperUtil.initializeAtlasResourceMappers(new Properties());
+	}
+
+	@Test
+	public void testLastNotificationOfEntityWins() {
+		List<EntityNotificationV1> notifications = Arrays.asList(
+				getNotification(OperationType.TRAIT_ADD, "guid-1", "default.t1@cl1", "PII"),
+				getNotification(OperationType.TRAIT_ADD, "guid-2", "default.t2@cl1", "PII"),
+				getNotification(OperationType.TRAIT_DELETE, "guid-1", "default.t1@cl1"),
+				getNotification(OperationType.TRAIT_UPDATE, "guid-2", "default.t2@cl1", "PII", "FINANCE"));
+
+		List<ServiceTags> serviceTagsList = AtlasNotificationMapper.processEntityNotifications(notifications);
+
+		assertEquals(1, serviceTagsList.size());
+
+		ServiceTags serviceTags = serviceTagsList.get(0);
+
+		assertEquals(SERVICE_NAME, serviceTags.getServiceName());
+		assertEquals(ServiceTags.OP_ADD_OR_UPDATE, serviceTags.getOp());
+		assertEquals(2, serviceTags.getServiceResources().size());
+
+		// t1 is included without tags, so that its removed tag is removed in Ranger as well
+		assertEquals(Collections.<String>emptyList(), getTagTypes(serviceTags, "t1"));
+		assertEquals(Arrays.asList("FINANCE", "PII"), getTagTypes(serviceTags, "t2"));
+	}
+
+	@Test
+	public void testDeletesAreMergedIntoOneServiceTags() {
+		List<EntityNotificationV1> notifications = Arrays.asList(
+				getNotification(OperationType.TRAIT_ADD, "guid-1", "default.t1@cl1", "PII"),
+				getNotification(OperationType.ENTITY_DELETE, "guid-1", "default.t1@cl1"),
+				getNotification(OperationType.TRAIT_ADD, "guid-2", "default.t2@cl1", "PII"),
+				getNotification(OperationType.ENTITY_DELETE, "guid-3", "default.t3@cl1"));
+
+		List<ServiceTags> serviceTagsList = AtlasNotificationMapper.processEntityNotifications(notifications);
+
+		assertEquals(2, serviceTagsList.size());
+
+		ServiceTags updated = serviceTagsList.get(0);
+		ServiceTags deleted = serviceTagsList.get(1);
+
+		assertEquals(ServiceTags.OP_ADD_OR_UPDATE, updated.getOp());
+		assertEquals(1, updated.getServiceResources().size());
+		assertEquals(Arrays.asList("PII"), getTagTypes(updated, "t2"));
+
+		assertEquals(ServiceTags.OP_DELETE, deleted.getOp());
+		assertEquals(2, deleted.getServiceResources().size());
+		assertEquals("guid-1", deleted.getServiceResources().get(0).getGuid());
+		assertEquals("guid-3", deleted.getServiceResources().get(1).getGuid());
+	}
+
+	@Test
+	public void testUnhandledNotificationsAreIgnored() {
+		List<EntityNotificationV1> notifications = new ArrayList<EntityNotificationV1>();
+
+		notifications.add(getNotification(OperationType.ENTITY_CREATE, "guid-1", "default.t1@cl1")); // no tags
+		notifications.add(getNotification(OperationType.TRAIT_ADD, "guid-2", "default.t2@cl1", "PII"));
+
+		EntityNotificationV1 unknownType = getNotification(OperationType.TRAIT_ADD, "guid-3", "default.t3@cl1", "PII");
+
+		when(unknownType.getEntity().getTypeName()).thenReturn("unknown_type");
+
+		notifications.add(unknownType);
+
+		List<ServiceTags> serviceTagsList = AtlasNotificationMapper.processEntityNotifications(notifications);
+
+		assertEquals(1, serviceTagsList.size());
+		assertEquals(1, serviceTagsList.get(0).getServiceResources().size());
+		assertEquals(Arrays.asList("PII"), getTagTypes(serviceTagsList.get(0), "t2"));
+	}
+
+	private List<String> getTagTypes(ServiceTags serviceTags, String tableName) {
+		List<String> ret = null;
+
+		for (RangerServiceResource resource : serviceTags.getServiceResources()) {
+			if (resource.getResourceElements().get("table").getValues().contains(tableName)) {
+				ret = new ArrayList<String>();
+
+				for (Long tagId : serviceTags.getResourceToTagIds().get(resource.getId())) {
+					RangerTag tag = serviceTags.getTags().get(tagId);
+
+					ret.add(tag.getType());
+				}
+
+				Collections.sort(ret);
+			}
+		}
+
+		assertTrue("no resource for table " + tableName, ret != null);
+
+		return ret;
+	}
+
+	private EntityNotificationV1 getNotification(OperationType opType, String guid, String qualifiedName, String... traitNames) {
+		EntityNotificationV1 ret    = mock(EntityNotificationV1.class);
+		Referenceable        entity = mock(Referenceable.class);
+		Id                   id     = mock(Id.class);
+		Map<String, Object>  values = new HashMap<String, Object>();
+		List<Struct>         traits = new ArrayList<Struct>();
+
+		values.put(AtlasHiveResourceMapper.ENTITY_ATTRIBUTE_QUALIFIED_NAME, qualifiedName);
+
+		for (String traitName : traitNames) {
+			Struct trait = mock(Struct.class);
+
+			when(trait.getTypeName()).thenReturn(traitName);
+			when(trait.getValuesMap()).thenReturn(Collections.<String, Object>emptyMap());
+
+			traits.add(trait);
+		}
+
+		when(id._getId()).thenReturn(guid);
+		when(id.getState()).thenReturn(Id.EntityState.ACTIVE);
+		when(entity.getId()).thenReturn(id);
+		when(entity.getTypeName()).thenReturn(AtlasHiveResourceMapper.ENTITY_TYPE_HIVE_TABLE);
+		when(entity.getValues()).thenReturn(values);
+		when(ret.getEntity()).thenReturn(entity);
+		when(ret.getOperationType()).thenReturn(opType);
+		when(ret.getAllTraits()).thenReturn(traits);
+
+		return ret;
+	}
+}
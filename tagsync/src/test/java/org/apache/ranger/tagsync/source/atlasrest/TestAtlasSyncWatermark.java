@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.tagsync.source.atlasrest;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestAtlasSyncWatermark {
+
+    @Test
+    public void testAdvancesToLatestTimestampOnSuccess() {
+        AtlasSyncWatermark watermark = new AtlasSyncWatermark();
+
+        Assert.assertEquals(0, watermark.getTimestamp());
+
+        watermark.startCycle();
+        watermark.update(1000L);
+        watermark.update(3000);
+        watermark.update(2000L);
+        watermark.update(null);
+        watermark.endCycle(true);
+
+        Assert.assertEquals(3000, watermark.getTimestamp());
+
+        // a cycle that finds no modified entities leaves the watermark as is
+        watermark.startCycle();
+        watermark.endCycle(true);
+
+        Assert.assertEquals(3000, watermark.getTimestamp());
+    }
+
+    @Test
+    public void testFailedCycleDoesNotAdvance() {
+        AtlasSyncWatermark watermark = new AtlasSyncWatermark();
+
+        watermark.startCycle();
+        watermark.update(1000L);
+        watermark.endCycle(true);
+
+        watermark.startCycle();
+        watermark.update(5000L);
+        watermark.endCycle(false);
+
+        Assert.assertEquals(1000, watermark.getTimestamp());
+
+        // timestamps of the failed cycle are not carried over to the next one
+        watermark.startCycle();
+        watermark.update(2000L);
+        watermark.endCycle(true);
+
+        Assert.assertEquals(2000, watermark.getTimestamp());
+    }
+
+    @Test
+    public void testTimestampValues() {
+        Assert.assertEquals(1500, AtlasSyncWatermark.toTimestamp(1500L));
+        Assert.assertEquals(1500, AtlasSyncWatermark.toTimestamp(1500.0d));
+        Assert.assertEquals(1500, AtlasSyncWatermark.toTimestamp(new Date(1500)));
+        Assert.assertEquals(1500, AtlasSyncWatermark.toTimestamp(" 1500 "));
+        Assert.assertEquals(0, AtlasSyncWatermark.toTimestamp("not-a-timestamp"));
+        Assert.assertEquals(0, AtlasSyncWatermark.toTimestamp(null));
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        final AtlasSyncWatermark watermark = new AtlasSyncWatermark();
+        List<Thread>             threads   = new ArrayList<>();
+
+        watermark.startCycle();
+
+        for (int i = 0; i < 4; i++) {
+            final long base = i * 10000L;
+
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (long j = 1; j <= 10000; j++) {
+                        watermark.update(base + j);
+                    }
+                }
+            });
+
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        watermark.endCycle(true);
+
+        Assert.assertEquals(40000, watermark.getTimestamp());
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.ldapusersync.process;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.Attributes;
+
+import org.apache.log4j.Logger;
+
+/*
+ * High-water marks of LDAP delta sync, one per search base: the highest uSNChanged (AD) and modifyTimestamp seen
+ * in the last sync of the search base. Marks are kept in a properties file, when configured, so that a restart
+ * of usersync doesn't result in a full sync.
+ */
+class LdapDeltaSyncState {
+	private static final Logger LOG = Logger.getLogger(LdapDeltaSyncState.class);
+
+	static final String TYPE_USER  = "user";
+	static final String TYPE_GROUP = "group";
+
+	private static final String USN_CHANGED_SUFFIX      = ".uSNChanged";
+	private static final String MODIFY_TIMESTAMP_SUFFIX = ".modifyTimestamp";
+	private static final String LAST_FULL_SYNC_TIME     = "lastFullSyncTime";
+	private static final int    TIMESTAMP_LENGTH        = 14; // yyyyMMddHHmmss of generalized time
+
+	private final String              stateFile;
+	private final Properties          marks        = new Properties();
+	private final Map<String, String> pendingMarks = new HashMap<String, String>();
+
+	LdapDeltaSyncState(String stateFile) {
+		this.stateFile = stateFile;
+	}
+
+	void load() {
+		marks.clear();
+		pendingMarks.clear();
+
+		if (stateFile == null) {
+			return;
+		}
+
+		File file = new File(stateFile);
+
+		if (!file.exists()) {
+			LOG.info("LDAP delta sync state file " + stateFile + " not found; a full sync will be done");
+
+			return;
+		}
+
+		InputStream in = null;
+
+		try {
+			in = new FileInputStream(file);
+
+			marks.load(in);
+
+			LOG.info("Loaded LDAP delta sync state from " + stateFile + ": " + marks);
+		} catch (Exception excp) {
+			LOG.warn("Failed to load LDAP delta sync state from " + stateFile + "; a full sync will be done", excp);
+
+			marks.clear();
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (Exception excp) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	/*
+	 * Returns the filter to find entries changed since the last sync of the given search base;
+	 * null if the search base was not synced earlier, in which case all entries should be searched.
+	 */
+	String getChangedSinceFilter(String type, String searchBase) {
+		String key          = getKey(type, searchBase);
+		String uSNChanged   = marks.getProperty(key + USN_CHANGED_SUFFIX);
+		String modifyTime   = marks.getProperty(key + MODIFY_TIMESTAMP_SUFFIX);
+		String ret          = null;
+
+		if (uSNChanged != null) {
+			ret = "(uSNChanged>=" + uSNChanged + ")";
+		} else if (modifyTime != null) {
+			// inclusive, as entries changed later in the same second are not seen yet; entries found again are skipped as unchanged
+			ret = "(modifyTimestamp>=" + modifyTime + "Z)";
+		}
+
+		return ret;
+	}
+
+	/*
+	 * Marks are updated only when commit() is called, after all the changes found are sent to ranger admin
+	 */
+	void setPendingMarks(String type, String searchBase, HighWaterMark highWaterMark) {
+		String key = getKey(type, searchBase);
+
+		if (highWaterMark.uSNChanged >= 0) {
+			pendingMarks.put(key + USN_CHANGED_SUFFIX, Long.toString(highWaterMark.uSNChanged + 1));
+		}
+
+		if (highWaterMark.modifyTimestamp != null) {
+			pendingMarks.put(key + MODIFY_TIMESTAMP_SUFFIX, highWaterMark.modifyTimestamp);
+		}
+	}
+
+	void clearPendingMarks() {
+		pendingMarks.clear();
+	}
+
+	boolean isFullSyncDue(long fullSyncIntervalMs) {
+		if (fullSyncIntervalMs <= 0) {
+			return false;
+		}
+
+		long lastFullSyncTime = Long.parseLong(marks.getProperty(LAST_FULL_SYNC_TIME, "0"));
+
+		return System.currentTimeMillis() - lastFullSyncTime >= fullSyncIntervalMs;
+	}
+
+	void setFullSyncDone(long syncStartTime) {
+		pendingMarks.put(LAST_FULL_SYNC_TIME, Long.toString(syncStartTime));
+	}
+
+	void commit() {
+		if (pendingMarks.isEmpty()) {
+			return;
+		}
+
+		marks.putAll(pendingMarks);
+		pendingMarks.clear();
+
+		if (stateFile == null) {
+			return;
+		}
+
+		File         file    = new File(stateFile);
+		File         tmpFile = new File(stateFile + ".tmp");
+		OutputStream out     = null;
+
+		try {
+			if (file.getParentFile() != null && !file.getParentFile().exists()) {
+				file.getParentFile().mkdirs();
+			}
+
+			out = new FileOutputStream(tmpFile);
+
+			marks.store(out, "LDAP delta sync high-water marks");
+
+			out.close();
+			out = null;
+
+			if (!tmpFile.renameTo(file)) {
+				file.delete();
+
+				if (!tmpFile.renameTo(file)) {
+					LOG.warn("Failed to save LDAP delta sync state to " + stateFile);
+				}
+			}
+		} catch (Exception excp) {
+			LOG.warn("Failed to save LDAP delta sync state to " + stateFile, excp);
+		} finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (Exception excp) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	private static String getKey(String type, String searchBase) {
+		return type + ":" + searchBase.trim().toLowerCase();
+	}
+
+	/*
+	 * Highest uSNChanged/modifyTimestamp of the entries found in a search
+	 */
+	static class HighWaterMark {
+		private long   uSNChanged      = -1;
+		private String modifyTimestamp = null;
+
+		void update(Attributes attributes) throws NamingException {
+			Attribute attr = attributes.get("uSNChanged");
+
+			if (attr != null && attr.get() != null) {
+				long val = Long.parseLong(attr.get().toString().trim());
+
+				if (val > uSNChanged) {
+					uSNChanged = val;
+				}
+			}
+
+			attr = attributes.get("modifytimestamp");
+
+			if (attr != null && attr.get() != null) {
+				String val = attr.get().toString().trim();
+
+				// generalized time, like 20180614104552Z or 20180614104552.0Z; values with same length compare as strings
+				if (val.length() >= TIMESTAMP_LENGTH) {
+					val = val.substring(0, TIMESTAMP_LENGTH);
+
+					if (modifyTimestamp == null || val.compareTo(modifyTimestamp) > 0) {
+						modifyTimestamp = val;
+					}
+				}
+			}
+		}
+	}
+}
@@ -20,11 +20,10 @@
  package org.apache.ranger.ldapusersync.process;
 
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Date;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -49,8 +48,10 @@ import javax.naming.ldap.PagedResultsResponseControl;
 import javax.naming.ldap.StartTlsRequest;
 import javax.naming.ldap.StartTlsResponse;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.collections.BidiMap;
 import org.apache.commons.collections.bidimap.DualHashBidiMap;
+import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 import org.apache.ranger.unixusersync.config.UserGroupSyncConfig;
 import org.apache.ranger.usergroupsync.AbstractUserGroupSource;
@@ -64,10 +65,17 @@ public class LdapDeltaUserGroupBuilder extends AbstractUserGroupSource {
 	private static final Logger LOG = Logger.getLogger(LdapDeltaUserGroupBuilder.class);
 	
 	private static final int PAGE_SIZE = 500;
-	private static long deltaSyncUserTime = 0; // Used for AD uSNChanged 
-	private static long deltaSyncGroupTime = 0; // Used for AD uSNChanged
-	private String deltaSyncUserTimeStamp; // Used for OpenLdap modifyTimestamp
-	private String deltaSyncGroupTimeStamp; // Used for OpenLdap modifyTimestamp
+
+	private static final String USER_DIGEST_PREFIX       = "u:";
+	private static final String GROUP_DIGEST_PREFIX      = "g:";
+	private static final String GROUP_USER_DIGEST_PREFIX = "gu:";
+
+	private LdapDeltaSyncState deltaSyncState;
+	private long fullSyncIntervalMs;
+	private boolean isFullSync = false;
+	// digest of users/groups last sent to the sink, to skip entries found again without changes
+	private Map<String, String> pushedDigests = new HashMap<String, String>();
+	private Map<String, String> pendingDigests = new HashMap<String, String>();
 
   private String ldapUrl;
   private String ldapBindDn;
@@ -150,11 +158,11 @@ public class LdapDeltaUserGroupBuilder extends AbstractUserGroupSource {
 
 	@Override
 	public void init() throws Throwable{
-		deltaSyncUserTime = 0;
-		deltaSyncGroupTime = 0;
-		DateFormat dateFormat = new SimpleDateFormat("yyyyMMddhhmmss");
-		deltaSyncUserTimeStamp = dateFormat.format(new Date(0));
-		deltaSyncGroupTimeStamp = dateFormat.format(new Date(0));
+		deltaSyncState = new LdapDeltaSyncState(config.getDeltaSyncStateFile());
+		deltaSyncState.load();
+		fullSyncIntervalMs = config.getDeltaSyncFullSyncIntervalMs();
+		pushedDigests = new HashMap<String, String>();
+		pendingDigests = new HashMap<String, String>();
 		userNameMap = new HashMap<String, String>();
 		setConfig();
 	}
@@ -303,6 +311,14 @@ public class LdapDeltaUserGroupBuilder extends AbstractUserGroupSource {
 	@Override
 	public void updateSink(UserGroupSink sink) throws Throwable {
 		LOG.info("LdapDeltaUserGroupBuilder updateSink started");
+		long syncStartTime = System.currentTimeMillis();
+		isFullSync = deltaSyncState.isFullSyncDue(fullSyncIntervalMs);
+		if (isFullSync) {
+			LOG.info("Performing full sync, to reconcile entries changed/deleted since last full sync");
+			pushedDigests.clear();
+		}
+		pendingDigests.clear();
+		deltaSyncState.clearPendingMarks();
 		//userGroupMap = new HashMap<String, UserInfo>();
 		groupUserTable = HashBasedTable.create();
         groupNameMap = new DualHashBidiMap();
@@ -322,11 +338,25 @@ public class LdapDeltaUserGroupBuilder extends AbstractUserGroupSource {
 				getUsers(sink);
 			}
 		}
-		if (groupUserTable.isEmpty()) {
-			//System.out.println("groupUserTable is empty!!");
-			return;
+		if (!groupUserTable.isEmpty()) {
+			updateSinkWithGroupUsers(sink);
 		}
-        
+
+		// users/groups found in this cycle are marked as synced only after the sink sends them to ranger admin
+		sink.flush();
+
+		pushedDigests.putAll(pendingDigests);
+		pendingDigests.clear();
+
+		if (isFullSync) {
+			deltaSyncState.setFullSyncDone(syncStartTime);
+		}
+		deltaSyncState.commit();
+
+		LOG.info("LdapDeltaUserGroupBuilder updateSink completed in " + (System.currentTimeMillis() - syncStartTime) + " ms");
+	}
+
+	private void updateSinkWithGroupUsers(UserGroupSink sink) throws Throwable {
 		if (groupHierarchyLevels > 0) {
 			LOG.info("Going through group hierarchy for nested group evaluation");
             Set<String> groupFullNames = groupNameMap.keySet();
@@ -349,9 +379,15 @@ public class LdapDeltaUserGroupBuilder extends AbstractUserGroupSource {
 		    }
 			List<String> userList = new ArrayList<>(userSet);
 			String transformGroupName = groupNameTransform(groupName);
+			String digest = getDigestIfChanged(GROUP_USER_DIGEST_PREFIX + transformGroupName, userList);
+			if (digest == null) {
+				LOG.debug("addOrUpdateGroup(): group = " + groupName + " is unchanged since last sync");
+				continue;
+			}
 			LOG.debug("addOrUpdateGroup(): group = " + groupName + " users = " + userList);
 			try {
 				sink.addOrUpdateGroup(transformGroupName, userList);
+				pendingDigests.put(GROUP_USER_DIGEST_PREFIX + transformGroupName, digest);
 			} catch (Throwable t) {
 				LOG.error("sink.addOrUpdateGroup failed with exception: " + t.getMessage()
 				+ ", for group: " + transformGroupName
@@ -360,6 +396,17 @@ public class LdapDeltaUserGroupBuilder extends AbstractUserGroupSource {
 		}
 	}
 
+	/*
+	 * Returns the digest of the given names if it is different from the one last sent to the sink for the key; null otherwise
+	 */
+	private String getDigestIfChanged(String key, Collection<String> names) {
+		List<String> sortedNames = new ArrayList<String>(names);
+		Collections.sort(sortedNames);
+		String ret = DigestUtils.md5Hex(StringUtils.join(sortedNames, '\n'));
+		String lastDigest = pendingDigests.containsKey(key) ? pendingDigests.get(key) : pushedDigests.get(key);
+		return ret.equals(lastDigest) ? null : ret;
+	}
+
 	private void getUsers(UserGroupSink sink) throws Throwable {
 		NamingEnumeration<SearchResult> userSearchResultEnum = null;
 		NamingEnumeration<SearchResult> groupSearchResultEnum = null;
@@ -371,14 +418,9 @@ public class LdapDeltaUserGroupBuilder extends AbstractUserGroupSource {
 				ldapContext.setRequestControls(new Control[]{
 						new PagedResultsControl(pagedResultsSize, Control.NONCRITICAL) });
 			}
-			DateFormat dateFormat = new SimpleDateFormat("yyyyMMddhhmmss");
-			if (groupSearchFirstEnabled && groupUserTable.rowKeySet().size() != 0) {
-				// Fix RANGER-1957: Perform full sync when group search is enabled and when there are updates to the groups
-				deltaSyncUserTime = 0;
-				deltaSyncUserTimeStamp = dateFormat.format(new Date(0));
-			}
-
-			extendedUserSearchFilter = "(objectclass=" + userObjectClass + ")(|(uSNChanged>=" + deltaSyncUserTime + ")(modifyTimestamp>=" + deltaSyncUserTimeStamp + "Z))";
+			// Fix RANGER-1957: Perform full sync when group search is enabled and when there are updates to the groups
+			boolean isFullUserSearch = isFullSync || (groupSearchFirstEnabled && groupUserTable.rowKeySet().size() != 0);
+			String userFilter = "(objectclass=" + userObjectClass + ")";
 
 			if (userSearchFilter != null && !userSearchFilter.trim().isEmpty()) {
 				String customFilter = userSearchFilter.trim();
@@ -386,18 +428,18 @@ public class LdapDeltaUserGroupBuilder extends AbstractUserGroupSource {
 					customFilter = "(" + customFilter + ")";
 				}
 
-				extendedUserSearchFilter = "(&" + extendedUserSearchFilter + customFilter + ")";
-			} else {
-				extendedUserSearchFilter = "(&" + extendedUserSearchFilter + ")";
+				userFilter = userFilter + customFilter;
 			}
-			LOG.info("extendedUserSearchFilter = " + extendedUserSearchFilter);
-
-			long highestdeltaSyncUserTime = deltaSyncUserTime;
 
 			// When multiple OUs are configured, go through each OU as the user search base to search for users.
 			for (int ou=0; ou<userSearchBase.length; ou++) {
 				byte[] cookie = null;
 				int counter = 0;
+				int unchangedCounter = 0;
+				LdapDeltaSyncState.HighWaterMark highWaterMark = new LdapDeltaSyncState.HighWaterMark();
+				String changedSinceFilter = isFullUserSearch ? null : deltaSyncState.getChangedSinceFilter(LdapDeltaSyncState.TYPE_USER, userSearchBase[ou]);
+				extendedUserSearchFilter = "(&" + userFilter + (changedSinceFilter != null ? changedSinceFilter : "") + ")";
+				LOG.info("extendedUserSearchFilter = " + extendedUserSearchFilter + " for search base " + userSearchBase[ou]);
 				try {
 				int paged = 0;
 				do {
@@ -446,36 +488,10 @@ public class LdapDeltaUserGroupBuilder extends AbstractUserGroupSource {
 							continue;
 						}
 
-						Attribute timeStampAttr  = attributes.get("uSNChanged");
-						if (timeStampAttr != null) {
-							String uSNChangedVal = (String) timeStampAttr.get();
-							long currentDeltaSyncTime = Long.parseLong(uSNChangedVal);
-							LOG.info("uSNChangedVal = " + uSNChangedVal + "and currentDeltaSyncTime = " + currentDeltaSyncTime);
-							if (currentDeltaSyncTime > highestdeltaSyncUserTime) {
-								highestdeltaSyncUserTime = currentDeltaSyncTime;
-							}
-						} else {
-							timeStampAttr = attributes.get("modifytimestamp");
-							if (timeStampAttr != null) {
-								String timeStampVal = (String) timeStampAttr.get();
-								Date parseDate = dateFormat.parse(timeStampVal);
-								long currentDeltaSyncTime = parseDate.getTime();
-								LOG.info("timeStampVal = " + timeStampVal + "and currentDeltaSyncTime = " + currentDeltaSyncTime);
-								if (currentDeltaSyncTime > highestdeltaSyncUserTime) {
-									highestdeltaSyncUserTime = currentDeltaSyncTime;
-									deltaSyncUserTimeStamp = timeStampVal;
-								}
-							}
-						}
+						highWaterMark.update(attributes);
 
 						if (!groupSearchFirstEnabled) {
 							String transformUserName = userNameTransform(userName);
-							try {
-								sink.addOrUpdateUser(transformUserName);
-							} catch (Throwable t) {
-								LOG.error("sink.addOrUpdateUser failed with exception: " + t.getMessage()
-								+ ", for user: " + transformUserName);
-							}
 							//System.out.println("Adding user fullname = " + userFullName + " username = " + transformUserName);
 							userNameMap.put(userFullName, transformUserName);
 							Set<String> groups = new HashSet<String>();
@@ -497,13 +513,30 @@ public class LdapDeltaUserGroupBuilder extends AbstractUserGroupSource {
 							}
 
 							List<String> groupList = new ArrayList<String>(groups);
+							String digest = getDigestIfChanged(USER_DIGEST_PREFIX + transformUserName, groupList);
+							if (digest == null) {
+								unchangedCounter++;
+								continue;
+							}
+							boolean isPushed = true;
+							try {
+								sink.addOrUpdateUser(transformUserName);
+							} catch (Throwable t) {
+								isPushed = false;
+								LOG.error("sink.addOrUpdateUser failed with exception: " + t.getMessage()
+								+ ", for user: " + transformUserName);
+							}
 							try {
 								sink.addOrUpdateUser(transformUserName, groupList);
 
 							} catch (Throwable t) {
+								isPushed = false;
 								LOG.error("sink.addOrUpdateUserGroups failed with exception: " + t.getMessage()
 								+ ", for user: " + transformUserName + " and groups: " + groupList);
 							}
+							if (isPushed) {
+								pendingDigests.put(USER_DIGEST_PREFIX + transformUserName, digest);
+							}
                             counter++;
 						} else {
 							// If the user from the search result is present in the group user table,
@@ -512,12 +545,7 @@ public class LdapDeltaUserGroupBuilder extends AbstractUserGroupSource {
 							if ((groupUserTable.containsColumn(userFullName) || groupUserTable.containsColumn(userName))
 									&& !userNameMap.containsKey(userFullName)) {
 								String transformUserName = userNameTransform(userName);
-								try {
-									sink.addOrUpdateUser(transformUserName);
-								} catch (Throwable t) {
-									LOG.error("sink.addOrUpdateUser failed with exception: " + t.getMessage()
-									+ ", for user: " + transformUserName);
-								}
+								addOrUpdateUser(sink, transformUserName);
 								userNameMap.put(userFullName, transformUserName);
 								//Also update the username in the groupUserTable with the one from username attribute.
 								Map<String,String> userMap =  groupUserTable.column(userFullName);
@@ -577,19 +605,14 @@ public class LdapDeltaUserGroupBuilder extends AbstractUserGroupSource {
 					}
 				} while (cookie != null);
 				LOG.info("LdapDeltaUserGroupBuilder.getUsers() completed with user count: "
-						+ counter);
+						+ counter + ", unchanged user count: " + unchangedCounter);
+				deltaSyncState.setPendingMarks(LdapDeltaSyncState.TYPE_USER, userSearchBase[ou], highWaterMark);
 				} catch (Exception t) {
 					LOG.error("LdapDeltaUserGroupBuilder.getUsers() failed with exception: " + t);
 					LOG.info("LdapDeltaUserGroupBuilder.getUsers() user count: "
 							+ counter);
 				}
 			}
-			if (deltaSyncUserTime < highestdeltaSyncUserTime) {
-				// Incrementing highestdeltaSyncUserTime (for AD) in order to avoid search record repetition for next sync cycle.
-				deltaSyncUserTime = highestdeltaSyncUserTime + 1;
-				// Incrementing the highest timestamp value (for Openldap) with 1sec in order to avoid search record repetition for next sync cycle.
-				deltaSyncUserTimeStamp = dateFormat.format(new Date(highestdeltaSyncUserTime + 60l));
-			}
 		} finally {
 			if (userSearchResultEnum != null) {
 				userSearchResultEnum.close();
@@ -603,8 +626,7 @@ public class LdapDeltaUserGroupBuilder extends AbstractUserGroupSource {
 
 	private void getGroups(UserGroupSink sink) throws Throwable {
 		NamingEnumeration<SearchResult> groupSearchResultEnum = null;
-        DateFormat dateFormat = new SimpleDateFormat("yyyyMMddhhmmss");
-        long highestdeltaSyncGroupTime = deltaSyncGroupTime;
+		boolean isDeltaGroupSearch = false;
 		try {
 			createLdapContext();
 			int total;
@@ -622,12 +644,16 @@ public class LdapDeltaUserGroupBuilder extends AbstractUserGroupSource {
 				extendedGroupSearchFilter = extendedGroupSearchFilter + customFilter;
 			}
 
-			extendedAllGroupsSearchFilter = "(&"  + extendedGroupSearchFilter + "(|(uSNChanged>=" + deltaSyncGroupTime + ")(modifyTimestamp>=" + deltaSyncGroupTimeStamp + "Z)))";
-
-			LOG.info("extendedAllGroupsSearchFilter = " + extendedAllGroupsSearchFilter);
 			for (int ou=0; ou<groupSearchBase.length; ou++) {
 				byte[] cookie = null;
 				int counter = 0;
+				LdapDeltaSyncState.HighWaterMark highWaterMark = new LdapDeltaSyncState.HighWaterMark();
+				String changedSinceFilter = isFullSync ? null : deltaSyncState.getChangedSinceFilter(LdapDeltaSyncState.TYPE_GROUP, groupSearchBase[ou]);
+				if (changedSinceFilter != null) {
+					isDeltaGroupSearch = true;
+				}
+				extendedAllGroupsSearchFilter = "(&"  + extendedGroupSearchFilter + (changedSinceFilter != null ? changedSinceFilter : "") + ")";
+				LOG.info("extendedAllGroupsSearchFilter = " + extendedAllGroupsSearchFilter + " for search base " + groupSearchBase[ou]);
 				try {
 					int paged = 0;
 					do {
@@ -657,29 +683,14 @@ public class LdapDeltaUserGroupBuilder extends AbstractUserGroupSource {
 							// update the group name to ranger admin
 							// check for group members and populate userInfo object with user's full name and group mapping
 							if (groupSearchFirstEnabled) {
-								LOG.debug("Update Ranger admin with " + transformGroupName);
-								sink.addOrUpdateGroup(transformGroupName);
-							}
-							Attribute timeStampAttr  = groupEntry.getAttributes().get("uSNChanged");
-							if (timeStampAttr != null) {
-								String uSNChangedVal = (String) timeStampAttr.get();
-								long currentDeltaSyncTime = Long.parseLong(uSNChangedVal);
-								if (currentDeltaSyncTime > highestdeltaSyncGroupTime) {
-									highestdeltaSyncGroupTime = currentDeltaSyncTime;
-								}
-							} else {
-								timeStampAttr = groupEntry.getAttributes().get("modifytimestamp");
-								if (timeStampAttr != null) {
-									String timeStampVal = (String) timeStampAttr.get();
-									Date parseDate = dateFormat.parse(timeStampVal);
-									long currentDeltaSyncTime = parseDate.getTime();
-									LOG.info("timeStampVal = " + timeStampVal + "and currentDeltaSyncTime = " + currentDeltaSyncTime);
-									if (currentDeltaSyncTime > highestdeltaSyncGroupTime) {
-										highestdeltaSyncGroupTime = currentDeltaSyncTime;
-										deltaSyncGroupTimeStamp = timeStampVal;
-									}
+								String digest = getDigestIfChanged(GROUP_DIGEST_PREFIX + transformGroupName, Collections.<String>emptyList());
+								if (digest != null) {
+									LOG.debug("Update Ranger admin with " + transformGroupName);
+									sink.addOrUpdateGroup(transformGroupName);
+									pendingDigests.put(GROUP_DIGEST_PREFIX + transformGroupName, digest);
 								}
 							}
+							highWaterMark.update(groupEntry.getAttributes());
 							Attribute groupMemberAttr = groupEntry.getAttributes().get(groupMemberAttributeName);
 							int userCount = 0;
 							if (groupMemberAttr == null || groupMemberAttr.size() <= 0) {
@@ -698,12 +709,7 @@ public class LdapDeltaUserGroupBuilder extends AbstractUserGroupSource {
 								originalUserFullName = originalUserFullName.toLowerCase();
 								if (groupSearchFirstEnabled && !userSearchEnabled) {
 									String transformUserName = userNameTransform(userName);
-									try {
-										sink.addOrUpdateUser(transformUserName);
-									} catch (Throwable t) {
-										LOG.error("sink.addOrUpdateUser failed with exception: " + t.getMessage()
-										+ ", for user: " + transformUserName);
-									}
+									addOrUpdateUser(sink, transformUserName);
 									userNameMap.put(originalUserFullName, transformUserName);
 								}
 								//System.out.println("Adding " + userNameMap.get(originalUserFullName) + " and fullname = " + originalUserFullName + " to " + gName);
@@ -744,6 +750,7 @@ public class LdapDeltaUserGroupBuilder extends AbstractUserGroupSource {
 					} while (cookie != null);
 					LOG.info("LdapDeltaUserGroupBuilder.getGroups() completed with group count: "
 							+ counter);
+					deltaSyncState.setPendingMarks(LdapDeltaSyncState.TYPE_GROUP, groupSearchBase[ou], highWaterMark);
 				} catch (Exception t) {
 					LOG.error("LdapDeltaUserGroupBuilder.getGroups() failed with exception: " + t);
 					LOG.info("LdapDeltaUserGroupBuilder.getGroups() group count: "
@@ -759,19 +766,26 @@ public class LdapDeltaUserGroupBuilder extends AbstractUserGroupSource {
 		}
 
         if (groupHierarchyLevels > 0) {
-			LOG.debug("deltaSyncGroupTime = " + deltaSyncGroupTime);
-            if (deltaSyncGroupTime > 0) {
+			LOG.debug("isDeltaGroupSearch = " + isDeltaGroupSearch);
+            if (isDeltaGroupSearch) {
 				LOG.info("LdapDeltaUserGroupBuilder.getGroups(): Going through group hierarchy for nested group evaluation for deltasync");
 				goUpGroupHierarchyLdap(groupNameMap.keySet(), groupHierarchyLevels-1);
             }
         }
+	}
 
-        if (deltaSyncGroupTime < highestdeltaSyncGroupTime) {
-            // Incrementing highestdeltaSyncGroupTime (for AD) in order to avoid search record repetition for next sync cycle.
-            deltaSyncGroupTime = highestdeltaSyncGroupTime+1;
-            // Incrementing the highest timestamp value (for OpenLdap) with 1min in order to avoid search record repetition for next sync cycle.
-            deltaSyncGroupTimeStamp = dateFormat.format(new Date(highestdeltaSyncGroupTime + 60000l));
-        }
+	private void addOrUpdateUser(UserGroupSink sink, String transformUserName) {
+		String digest = getDigestIfChanged(USER_DIGEST_PREFIX + transformUserName, Collections.<String>emptyList());
+		if (digest == null) {
+			return;
+		}
+		try {
+			sink.addOrUpdateUser(transformUserName);
+			pendingDigests.put(USER_DIGEST_PREFIX + transformUserName, digest);
+		} catch (Throwable t) {
+			LOG.error("sink.addOrUpdateUser failed with exception: " + t.getMessage()
+			+ ", for user: " + transformUserName);
+		}
 	}
 
 
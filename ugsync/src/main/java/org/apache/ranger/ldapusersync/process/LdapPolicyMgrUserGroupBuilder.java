@@ -29,11 +29,19 @@ import java.security.KeyStore;
 import java.security.PrivilegedAction;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 import javax.net.ssl.HostnameVerifier;
@@ -50,6 +58,7 @@ import org.apache.hadoop.security.SecureClientLogin;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 import org.apache.ranger.unixusersync.config.UserGroupSyncConfig;
+import org.apache.ranger.unixusersync.model.BulkUserGroupInfo;
 import org.apache.ranger.unixusersync.model.GroupUserInfo;
 import org.apache.ranger.unixusersync.model.MUserInfo;
 import org.apache.ranger.unixusersync.model.UserGroupInfo;
@@ -64,6 +73,7 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.sun.jersey.api.client.Client;
 import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.UniformInterfaceException;
 import com.sun.jersey.api.client.WebResource;
 import com.sun.jersey.api.client.config.ClientConfig;
 import com.sun.jersey.api.client.config.DefaultClientConfig;
@@ -95,6 +105,8 @@ private static final Logger LOG = Logger.getLogger(LdapPolicyMgrUserGroupBuilder
 	public static final String PM_GET_GROUP_USER_MAP_LIST_URI = "/service/xusers/groupusers/groupName/${groupName}";		// GET
 	
 	private static final String PM_ADD_LOGIN_USER_URI = "/service/users/default";			// POST
+
+	private static final String PM_ADD_USER_GROUP_BULK_URI = "/service/xusers/usergroups/bulk";	// POST
 	private static final String GROUP_SOURCE_EXTERNAL ="1";
 	private static String LOCAL_HOSTNAME = "unknown";
 	private boolean isMockRun = false;
@@ -123,6 +135,15 @@ private static final Logger LOG = Logger.getLogger(LdapPolicyMgrUserGroupBuilder
     Map<String, String> userMap = new LinkedHashMap<String, String>();
     Map<String, String> groupMap = new LinkedHashMap<String, String>();
 
+	private int                         bulkSize                = 0;
+	private int                         maxInflightBulkRequests = 1;
+	private ExecutorService             bulkExecutor            = null;
+	private BulkUserGroupInfo           pendingBulkInfo         = new BulkUserGroupInfo();
+	private final Set<String>           pendingBulkNames        = new HashSet<String>();
+	private final List<Future<Boolean>> inflightBulkRequests    = new ArrayList<Future<Boolean>>();
+	private final Set<String>           inflightBulkNames       = new HashSet<String>();
+	private volatile boolean            isBulkSupported         = true;
+
 	static {
 		try {
 			LOCAL_HOSTNAME = java.net.InetAddress.getLocalHost().getCanonicalHostName();
@@ -157,10 +178,36 @@ private static final Logger LOG = Logger.getLogger(LdapPolicyMgrUserGroupBuilder
         if (userGroupRoles != null && !userGroupRoles.isEmpty()) {
             getRoleForUserGroups(userGroupRoles);
         }
+
+		bulkSize = config.getPolicyMgrBulkSize();
+
+		if (isBulkEnabled() && bulkExecutor == null) {
+			maxInflightBulkRequests = config.getPolicyMgrBulkMaxInflightRequests();
+
+			LOG.info("Sending users/groups to ranger admin in bulk: bulkSize=" + bulkSize + ", maxInflightRequests=" + maxInflightBulkRequests);
+
+			bulkExecutor = Executors.newFixedThreadPool(maxInflightBulkRequests, new ThreadFactory() {
+				private final AtomicInteger threadCount = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread ret = new Thread(r, "UserGroupSync-bulk-" + threadCount.incrementAndGet());
+
+					ret.setDaemon(true);
+
+					return ret;
+				}
+			});
+		}
     }
 
 	@Override
 	public void addOrUpdateUser(String userName, List<String> groups) throws Throwable {
+		if (isBulkEnabled()) {
+			addUserGroupInfoToBulk(userName, groups);
+			return;
+		}
+		flushBulk();
 		//* Add user to groups mapping in the x_user table. 
 		//* Here the assumption is that the user already exists in x_portal_user table.
 		if ( ! isMockRun ) {
@@ -177,6 +224,11 @@ private static final Logger LOG = Logger.getLogger(LdapPolicyMgrUserGroupBuilder
 
 	@Override
 	public void addOrUpdateGroup(String groupName) throws Throwable {
+		if (isBulkEnabled()) {
+			addGroupInfoToBulk(groupName);
+			return;
+		}
+		flushBulk();
 		//* Build the group info object and do the rest call
 			if ( ! isMockRun ) {
 				if ( addGroupInfo(groupName) == null) {
@@ -268,6 +320,12 @@ private static final Logger LOG = Logger.getLogger(LdapPolicyMgrUserGroupBuilder
 
 	@Override
 	public void addOrUpdateUser(String userName) throws Throwable {
+		if (isBulkEnabled()) {
+			// ranger admin creates the portal user as well, for users sent in bulk
+			addUserGroupInfoToBulk(userName, new ArrayList<String>());
+			return;
+		}
+		flushBulk();
 		// First add to x_portal_user
 		LOG.debug("INFO: addPMAccount(" + userName + ")" );
 		if (! isMockRun) {
@@ -455,7 +513,17 @@ private static final Logger LOG = Logger.getLogger(LdapPolicyMgrUserGroupBuilder
 		}
 		
 		LOG.debug("addUsers = " + addUsers);
+		if (!delUsers.isEmpty()) {
+			// users added to this group earlier may still be in a pending bulk request; the delete must not overtake them
+			flushBulk();
+		}
 		delXGroupUserInfo(groupName, delUsers);
+
+		if (isBulkEnabled()) {
+			addGroupUserInfoToBulk(groupName, addUsers);
+			return;
+		}
+		flushBulk();
 		
 		//* Add user to group mapping in the x_group_user table. 
 		//* Here the assumption is that the user already exists in x_portal_user table.
@@ -584,6 +652,20 @@ private static final Logger LOG = Logger.getLogger(LdapPolicyMgrUserGroupBuilder
 		WebResource r = c.resource(getURL(PM_ADD_GROUP_USER_INFO_URI));
 		
         Gson gson = new GsonBuilder().create();
+        setGroupUserRoles(groupuserInfo);
+        String jsonString = gson.toJson(groupuserInfo);
+		LOG.debug("GROUP USER MAPPING" + jsonString);
+		
+		String response = r.accept(MediaType.APPLICATION_JSON_TYPE).type(MediaType.APPLICATION_JSON_TYPE).post(String.class, jsonString);
+		
+		LOG.debug("RESPONSE: [" + response + "]");
+		
+		ret = gson.fromJson(response, GroupUserInfo.class);
+		
+		return ret;
+	}
+
+	private void setGroupUserRoles(GroupUserInfo groupuserInfo) {
         if (groupuserInfo != null
                 && groupuserInfo.getXgroupInfo() != null
                 && groupuserInfo.getXuserInfo() != null
@@ -608,19 +690,261 @@ private static final Logger LOG = Logger.getLogger(LdapPolicyMgrUserGroupBuilder
                 }
             }
         }
-        String jsonString = gson.toJson(groupuserInfo);
-		LOG.debug("GROUP USER MAPPING" + jsonString);
-		
-		String response = r.accept(MediaType.APPLICATION_JSON_TYPE).type(MediaType.APPLICATION_JSON_TYPE).post(String.class, jsonString);
-		
-		LOG.debug("RESPONSE: [" + response + "]");
-		
-		ret = gson.fromJson(response, GroupUserInfo.class);
-		
-		return ret;
 	}
 
-	
+	@Override
+	public void flush() throws Throwable {
+		if (bulkExecutor == null) {
+			return;
+		}
+
+		try {
+			if (pendingBulkInfo.size() > 0) {
+				sendBulk();
+			}
+
+			waitForInflightBulkRequests();
+		} finally {
+			pendingBulkInfo = new BulkUserGroupInfo();
+			pendingBulkNames.clear();
+			inflightBulkNames.clear();
+		}
+	}
+
+	private boolean isBulkEnabled() {
+		return bulkSize > 1 && !isMockRun && isBulkSupported;
+	}
+
+	/*
+	 * Sends the pending users/groups and waits for the requests in progress, if any; called before a request that
+	 * must not overtake them
+	 */
+	private void flushBulk() throws Throwable {
+		if (bulkExecutor != null && (pendingBulkInfo.size() > 0 || !inflightBulkRequests.isEmpty())) {
+			flush();
+		}
+	}
+
+	private void addUserGroupInfoToBulk(String userName, List<String> groups) throws Throwable {
+		UserGroupInfo userGroupInfo = new UserGroupInfo();
+		List<XGroupInfo> xGroupInfoList = new ArrayList<XGroupInfo>();
+
+		for (String groupName : groups) {
+			xGroupInfoList.add(addXGroupInfo(groupName));
+			pendingBulkNames.add("g:" + groupName);
+		}
+
+		userGroupInfo.setXuserInfo(addXUserInfo(userName));
+		userGroupInfo.setXgroupInfo(xGroupInfoList);
+		pendingBulkNames.add("u:" + userName);
+
+		pendingBulkInfo.getXuserGroupInfo().add(userGroupInfo);
+
+		sendBulkIfFull();
+	}
+
+	private void addGroupInfoToBulk(String groupName) throws Throwable {
+		pendingBulkInfo.getXgroupInfo().add(addXGroupInfo(groupName));
+		pendingBulkNames.add("g:" + groupName);
+
+		sendBulkIfFull();
+	}
+
+	private void addGroupUserInfoToBulk(String groupName, List<String> users) throws Throwable {
+		if (users.isEmpty()) {
+			return;
+		}
+
+		GroupUserInfo groupUserInfo = new GroupUserInfo();
+		List<XUserInfo> xUserInfoList = new ArrayList<XUserInfo>();
+
+		for (String userName : users) {
+			xUserInfoList.add(addXUserInfo(userName));
+			pendingBulkNames.add("u:" + userName);
+		}
+
+		groupUserInfo.setXgroupInfo(addXGroupInfo(groupName));
+		groupUserInfo.setXuserInfo(xUserInfoList);
+		pendingBulkNames.add("g:" + groupName);
+
+		setGroupUserRoles(groupUserInfo);
+
+		pendingBulkInfo.getXgroupUserInfo().add(groupUserInfo);
+
+		sendBulkIfFull();
+	}
+
+	private void sendBulkIfFull() throws Throwable {
+		if (pendingBulkInfo.size() >= bulkSize) {
+			sendBulk();
+		}
+	}
+
+	/*
+	 * Sends the pending users/groups to ranger admin, with up to maxInflightRequests requests in progress. A request that
+	 * refers to a user or group sent in a request still in progress waits for all requests in progress to complete, so
+	 * that ranger admin doesn't create the same user/group concurrently and finds users added to a group.
+	 */
+	private void sendBulk() throws Throwable {
+		for (String name : pendingBulkNames) {
+			if (inflightBulkNames.contains(name)) {
+				waitForInflightBulkRequests();
+				break;
+			}
+		}
+
+		final BulkUserGroupInfo bulkInfo = pendingBulkInfo;
+
+		pendingBulkInfo = new BulkUserGroupInfo();
+
+		inflightBulkNames.addAll(pendingBulkNames);
+		pendingBulkNames.clear();
+
+		if (inflightBulkRequests.size() >= maxInflightBulkRequests) {
+			Future<Boolean> oldest = inflightBulkRequests.remove(0);
+
+			if (!oldest.get()) {
+				String msg = "Failed to add users/groups in bulk";
+				LOG.error(msg);
+				throw new Exception(msg);
+			}
+		}
+
+		inflightBulkRequests.add(bulkExecutor.submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				return addBulkUserGroupInfo(bulkInfo);
+			}
+		}));
+	}
+
+	private void waitForInflightBulkRequests() throws Throwable {
+		boolean isSuccess = true;
+
+		for (Future<Boolean> request : inflightBulkRequests) {
+			if (!request.get()) {
+				isSuccess = false;
+			}
+		}
+
+		inflightBulkRequests.clear();
+		inflightBulkNames.clear();
+
+		if (!isSuccess) {
+			String msg = "Failed to add users/groups in bulk";
+			LOG.error(msg);
+			throw new Exception(msg);
+		}
+	}
+
+	private boolean addBulkUserGroupInfo(final BulkUserGroupInfo bulkInfo) {
+		if(LOG.isDebugEnabled()) {
+	 		LOG.debug("==> LdapPolicyMgrUserGroupBuilder.addBulkUserGroupInfo(" + bulkInfo.size() + ")");
+	 	}
+		Boolean ret = null;
+		if (authenticationType != null && AUTH_KERBEROS.equalsIgnoreCase(authenticationType) && SecureClientLogin.isKerberosCredentialExists(principal, keytab)){
+			try {
+				Subject sub = SecureClientLogin.loginUserFromKeytab(principal, keytab, nameRules);
+				ret = Subject.doAs(sub, new PrivilegedAction<Boolean>() {
+					@Override
+					public Boolean run() {
+						try {
+							return getBulkUserGroupInfo(bulkInfo);
+						} catch (Exception e) {
+							LOG.error("Failed to add users/groups in bulk : ", e);
+						}
+						return false;
+					}
+				});
+			} catch (Exception e) {
+				LOG.error("Failed to Authenticate Using given Principal and Keytab : " , e);
+			}
+		} else {
+			try {
+				ret = getBulkUserGroupInfo(bulkInfo);
+			} catch (Exception e) {
+				LOG.error("Failed to add users/groups in bulk : ", e);
+			}
+		}
+		if ((ret == null || !ret) && !isBulkSupported) {
+			ret = addUserGroupInfoPerEntity(bulkInfo);
+		}
+		if(LOG.isDebugEnabled()) {
+	 		LOG.debug("<== LdapPolicyMgrUserGroupBuilder.addBulkUserGroupInfo(" + bulkInfo.size() + "): " + ret);
+	 	}
+		return ret != null && ret;
+	}
+
+	/*
+	 * Sends the users/groups of a bulk request one at a time, for ranger admin versions without the bulk API
+	 */
+	private boolean addUserGroupInfoPerEntity(BulkUserGroupInfo bulkInfo) {
+		for (XGroupInfo groupInfo : bulkInfo.getXgroupInfo()) {
+			if (addGroupInfo(groupInfo.getName()) == null) {
+				return false;
+			}
+		}
+
+		for (UserGroupInfo userGroupInfo : bulkInfo.getXuserGroupInfo()) {
+			String       userName = userGroupInfo.getXuserInfo().getName();
+			List<String> groups   = new ArrayList<String>();
+
+			for (XGroupInfo groupInfo : userGroupInfo.getXgroupInfo()) {
+				groups.add(groupInfo.getName());
+			}
+
+			if (addMUser(userName) == null || addUserGroupInfo(userName, groups) == null) {
+				return false;
+			}
+		}
+
+		for (GroupUserInfo groupUserInfo : bulkInfo.getXgroupUserInfo()) {
+			List<String> users = new ArrayList<String>();
+
+			for (XUserInfo xUserInfo : groupUserInfo.getXuserInfo()) {
+				users.add(xUserInfo.getName());
+			}
+
+			if (addGroupUserInfo(groupUserInfo.getXgroupInfo().getName(), users) == null) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private boolean getBulkUserGroupInfo(BulkUserGroupInfo bulkInfo) {
+		Client c = getClient();
+
+		WebResource r = c.resource(getURL(PM_ADD_USER_GROUP_BULK_URI));
+
+		Gson gson = new GsonBuilder().create();
+
+		String jsonString = gson.toJson(bulkInfo);
+
+		LOG.debug("BULK USER GROUP MAPPING" + jsonString);
+
+		String response;
+
+		try {
+			response = r.accept(MediaType.APPLICATION_JSON_TYPE).type(MediaType.APPLICATION_JSON_TYPE).post(String.class, jsonString);
+		} catch (UniformInterfaceException excp) {
+			if (excp.getResponse() != null && excp.getResponse().getStatus() == 404) {
+				LOG.warn("ranger admin doesn't support " + PM_ADD_USER_GROUP_BULK_URI + "; users/groups will be sent one at a time");
+
+				isBulkSupported = false;
+
+				return false;
+			}
+
+			throw excp;
+		}
+
+		LOG.info("RESPONSE for " + bulkInfo.size() + " users/groups: [" + response + "]");
+
+		return response != null;
+	}
+
 	private MUserInfo addMUser(String aUserName) {
 		MUserInfo ret = null;
 		MUserInfo userInfo = new MUserInfo();
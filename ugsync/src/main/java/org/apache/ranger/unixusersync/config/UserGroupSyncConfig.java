@@ -108,6 +108,11 @@ public class UserGroupSyncConfig  {
 	private static final String LGSYNC_LDAP_DELTASYNC_ENABLED = "ranger.usersync.ldap.deltasync";
 	private static final boolean DEFAULT_LGSYNC_LDAP_DELTASYNC_ENABLED = false;
 
+	private static final String LGSYNC_LDAP_DELTASYNC_STATE_FILE = "ranger.usersync.ldap.deltasync.state.file";
+
+	private static final String LGSYNC_LDAP_DELTASYNC_FULL_SYNC_INTERVAL_MS = "ranger.usersync.ldap.deltasync.full.sync.interval.ms";
+	private static final long DEFAULT_LGSYNC_LDAP_DELTASYNC_FULL_SYNC_INTERVAL_MS = 24 * 60 * 60 * 1000L;
+
 	private static final String LGSYNC_LDAP_STARTTLS_ENABLED = "ranger.usersync.ldap.starttls";
 	private static final boolean DEFAULT_LGSYNC_LDAP_STARTTLS_ENABLED = false;
 
@@ -212,6 +217,12 @@ public class UserGroupSyncConfig  {
 	private static final String DEFAULT_POLICYMGR_USERNAME = "rangerusersync";
 
 	private static final String DEFAULT_POLICYMGR_PASSWORD = "rangerusersync";
+
+	private static final String SYNC_POLICY_MGR_BULK_SIZE = "ranger.usersync.policymgr.bulk.size";
+	private static final int DEFAULT_SYNC_POLICY_MGR_BULK_SIZE = 1000;
+
+	private static final String SYNC_POLICY_MGR_BULK_MAX_INFLIGHT_REQUESTS = "ranger.usersync.policymgr.bulk.max.inflight.requests";
+	private static final int DEFAULT_SYNC_POLICY_MGR_BULK_MAX_INFLIGHT_REQUESTS = 4;
 	private static final String SYNC_SOURCE = "ranger.usersync.sync.source";
 	private static final String LGSYNC_REFERRAL = "ranger.usersync.ldap.referral";
 	private static final String DEFAULT_LGSYNC_REFERRAL = "ignore";
@@ -949,6 +960,32 @@ public class UserGroupSyncConfig  {
 		return starttlsEnabled;
 	}
 	
+	/*
+	 * Number of users, groups and group memberships sent to ranger admin in one bulk request; 1 or less sends one
+	 * request per user/group. The bulk API needs a ranger admin of this version or later; with an older ranger admin,
+	 * usersync falls back to one request per user/group.
+	 */
+	public int getPolicyMgrBulkSize() {
+		int bulkSize = DEFAULT_SYNC_POLICY_MGR_BULK_SIZE;
+		String val = prop.getProperty(SYNC_POLICY_MGR_BULK_SIZE);
+		if(val != null && !val.trim().isEmpty()) {
+			bulkSize = Integer.parseInt(val.trim());
+		}
+		return bulkSize;
+	}
+
+	public int getPolicyMgrBulkMaxInflightRequests() {
+		int maxInflightRequests = DEFAULT_SYNC_POLICY_MGR_BULK_MAX_INFLIGHT_REQUESTS;
+		String val = prop.getProperty(SYNC_POLICY_MGR_BULK_MAX_INFLIGHT_REQUESTS);
+		if(val != null && !val.trim().isEmpty()) {
+			maxInflightRequests = Integer.parseInt(val.trim());
+		}
+		if (maxInflightRequests < 1) {
+			maxInflightRequests = DEFAULT_SYNC_POLICY_MGR_BULK_MAX_INFLIGHT_REQUESTS;
+		}
+		return maxInflightRequests;
+	}
+
 	public boolean isDeltaSyncEnabled() {
 		boolean deltaSyncEnabled;
 		String val = prop.getProperty(LGSYNC_LDAP_DELTASYNC_ENABLED);
@@ -960,6 +997,27 @@ public class UserGroupSyncConfig  {
 		return deltaSyncEnabled;
 	}
 
+	/*
+	 * File to save high-water marks of LDAP delta sync in; when not set, a restart of usersync results in a full sync
+	 */
+	public String getDeltaSyncStateFile() {
+		String val = prop.getProperty(LGSYNC_LDAP_DELTASYNC_STATE_FILE);
+		return (val == null || val.trim().isEmpty()) ? null : val.trim();
+	}
+
+	/*
+	 * Interval between full syncs done by LDAP delta sync, to reconcile entries deleted or missed since last full sync;
+	 * 0 or less disables periodic full syncs
+	 */
+	public long getDeltaSyncFullSyncIntervalMs() {
+		long fullSyncIntervalMs = DEFAULT_LGSYNC_LDAP_DELTASYNC_FULL_SYNC_INTERVAL_MS;
+		String val = prop.getProperty(LGSYNC_LDAP_DELTASYNC_FULL_SYNC_INTERVAL_MS);
+		if(val != null && !val.trim().isEmpty()) {
+			fullSyncIntervalMs = Long.parseLong(val.trim());
+		}
+		return fullSyncIntervalMs;
+	}
+
 	/* Used only for unit testing */
 	public void setUserSearchFilter(String filter) {
 		prop.setProperty(LGSYNC_USER_SEARCH_FILTER, filter);
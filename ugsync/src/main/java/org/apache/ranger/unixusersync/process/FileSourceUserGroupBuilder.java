@@ -63,6 +63,7 @@ public class FileSourceUserGroupBuilder extends AbstractUserGroupSource {
 		ugSink.init();
 
 		filesourceUGBuilder.updateSink(ugSink);
+		ugSink.flush();
 		
 		if ( LOG.isDebugEnabled()) {
 			filesourceUGBuilder.print();
@@ -30,9 +30,11 @@ import java.security.PrivilegedAction;
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.regex.Pattern;
 
@@ -54,6 +56,7 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.sun.jersey.api.client.Client;
 import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.UniformInterfaceException;
 import com.sun.jersey.api.client.WebResource;
 import com.sun.jersey.api.client.config.ClientConfig;
 import com.sun.jersey.api.client.config.DefaultClientConfig;
@@ -61,6 +64,7 @@ import com.sun.jersey.api.client.filter.HTTPBasicAuthFilter;
 import com.sun.jersey.client.urlconnection.HTTPSProperties;
 
 import org.apache.ranger.unixusersync.config.UserGroupSyncConfig;
+import org.apache.ranger.unixusersync.model.BulkUserGroupInfo;
 import org.apache.ranger.unixusersync.model.GetXGroupListResponse;
 import org.apache.ranger.unixusersync.model.GetXUserGroupListResponse;
 import org.apache.ranger.unixusersync.model.GetXUserListResponse;
@@ -94,6 +98,8 @@ public class PolicyMgrUserGroupBuilder implements UserGroupSink {
 	private static final String PM_DEL_USER_GROUP_LINK_URI = "/service/xusers/group/${groupName}/user/${userName}"; // DELETE
 
 	private static final String PM_ADD_LOGIN_USER_URI = "/service/users/default";			// POST
+
+	private static final String PM_ADD_USER_GROUP_BULK_URI = "/service/xusers/usergroups/bulk";	// POST
 	private static final String GROUP_SOURCE_EXTERNAL ="1";
 
 	private static String LOCAL_HOSTNAME = "unknown";
@@ -126,6 +132,13 @@ public class PolicyMgrUserGroupBuilder implements UserGroupSink {
 	String nameRules;
     Map<String, String> userMap = new LinkedHashMap<String, String>();
     Map<String, String> groupMap = new LinkedHashMap<String, String>();
+
+	private int               bulkSize          = 0;
+	private boolean           isBulkSupported   = true;
+	private BulkUserGroupInfo pendingBulkInfo   = new BulkUserGroupInfo();
+	private final Set<String> pendingUserNames  = new HashSet<String>();
+	private final Set<String> pendingGroupNames = new HashSet<String>();
+
 	static {
 		try {
 			LOCAL_HOSTNAME = java.net.InetAddress.getLocalHost().getCanonicalHostName();
@@ -168,6 +181,11 @@ public class PolicyMgrUserGroupBuilder implements UserGroupSink {
         if (userGroupRoles != null && !userGroupRoles.isEmpty()) {
             getRoleForUserGroups(userGroupRoles);
         }
+		bulkSize = config.getPolicyMgrBulkSize();
+
+		if (isBulkEnabled()) {
+			LOG.info("Sending new users/groups to ranger admin in bulk: bulkSize=" + bulkSize);
+		}
 		buildUserGroupInfo();
 	}
 
@@ -323,7 +341,14 @@ public class PolicyMgrUserGroupBuilder implements UserGroupSink {
 			groups = new ArrayList<String>();
 		}
 
-		if (user == null) {    // Does not exists
+		if (user == null && pendingUserNames.contains(userName)) {
+			return; // already in the pending bulk request
+		}
+
+		if (user == null && isBulkEnabled()) {
+			addUserGroupInfoToBulk(userName, groups);
+		}
+		else if (user == null) {    // Does not exists
 
 			LOG.debug("INFO: addPMAccount(" + userName + ")" );
 			if (! isMockRun) {
@@ -347,6 +372,13 @@ public class PolicyMgrUserGroupBuilder implements UserGroupSink {
 
 		}
 		else {					// Validate group memberships
+			for (String group : groups) {
+				if (pendingGroupNames.contains(group)) {
+					flush(); // the group must be created before the user is added to it
+					break;
+				}
+			}
+
 			List<String> oldGroups = user.getGroups();
 			List<String> addGroups = new ArrayList<String>();
 			List<String> delGroups = new ArrayList<String>();
@@ -630,22 +662,7 @@ public class PolicyMgrUserGroupBuilder implements UserGroupSink {
 		LOG.debug("INFO: addPMXAUser(" + userName + ")" );
 		if (! isMockRun) {
 			user = addXUserInfo(userName);
-            if (!groups.isEmpty() && user != null) {
-                for (String group : groups) {
-                    String value = groupMap.get(group);
-                    if (value != null) {
-                        List<String> userRoleList = new ArrayList<String>();
-                        userRoleList.add(value);
-                        if (userMap.containsKey(user.getName())) {
-                            List<String> userRole = new ArrayList<String>();
-                            userRole.add(userMap.get(user.getName()));
-                            user.setUserRoleList(userRole);
-                        } else {
-                            user.setUserRoleList(userRoleList);
-                        }
-                    }
-                }
-            }
+            setUserRoles(user, groups);
             usergroupInfo.setXuserInfo(user);
         }
 
@@ -680,6 +697,28 @@ public class PolicyMgrUserGroupBuilder implements UserGroupSink {
 		}
 	}
 
+	/*
+	 * Sets the role of a new user: the role given for the user, else the role given for one of its groups, if any
+	 */
+	private void setUserRoles(XUserInfo user, List<String> groups) {
+		if (!groups.isEmpty() && user != null) {
+			for (String group : groups) {
+				String value = groupMap.get(group);
+				if (value != null) {
+					List<String> userRoleList = new ArrayList<String>();
+					userRoleList.add(value);
+					if (userMap.containsKey(user.getName())) {
+						List<String> userRole = new ArrayList<String>();
+						userRole.add(userMap.get(user.getName()));
+						user.setUserRoleList(userRole);
+					} else {
+						user.setUserRoleList(userRoleList);
+					}
+				}
+			}
+		}
+	}
+
 	private UserGroupInfo getUsergroupInfo(UserGroupInfo ret) {
 		Client c = getClient();
 
@@ -1117,7 +1156,14 @@ public class PolicyMgrUserGroupBuilder implements UserGroupSink {
 	public void addOrUpdateGroup(String groupName) throws Throwable{
 		XGroupInfo group = groupName2XGroupInfoMap.get(groupName);
 
-		if (group == null) {    // Does not exists
+		if (group == null && pendingGroupNames.contains(groupName)) {
+			return; // already in the pending bulk request
+		}
+
+		if (group == null && isBulkEnabled()) {
+			addGroupInfoToBulk(groupName);
+		}
+		else if (group == null) {    // Does not exists
 
 			//* Build the group info object and do the rest call
  			if ( ! isMockRun ) {
@@ -1203,6 +1249,174 @@ public class PolicyMgrUserGroupBuilder implements UserGroupSink {
 
 	}
 
+	/*
+	 * Sends the new users/groups pending in bulk, if any. Existing users are updated as they are processed, since
+	 * only the changes in their group memberships are sent.
+	 */
+	@Override
+	public void flush() throws Throwable {
+		if (pendingBulkInfo.size() == 0) {
+			return;
+		}
+
+		BulkUserGroupInfo bulkInfo = pendingBulkInfo;
+
+		pendingBulkInfo = new BulkUserGroupInfo();
+		pendingUserNames.clear();
+		pendingGroupNames.clear();
+
+		if (!addBulkUserGroupInfo(bulkInfo)) {
+			String msg = "Failed to add users/groups in bulk";
+			LOG.error(msg);
+			throw new Exception(msg);
+		}
+	}
+
+	private boolean isBulkEnabled() {
+		return bulkSize > 1 && !isMockRun && isBulkSupported;
+	}
+
+	private void addUserGroupInfoToBulk(String userName, List<String> groups) throws Throwable {
+		UserGroupInfo userGroupInfo = new UserGroupInfo();
+		XUserInfo     user          = addXUserInfo(userName);
+
+		setUserRoles(user, groups);
+
+		userGroupInfo.setXuserInfo(user);
+		userGroupInfo.setXgroupInfo(getXGroupInfoList(groups));
+
+		pendingBulkInfo.getXuserGroupInfo().add(userGroupInfo);
+		pendingUserNames.add(userName);
+
+		if (pendingBulkInfo.size() >= bulkSize) {
+			flush();
+		}
+	}
+
+	private void addGroupInfoToBulk(String groupName) throws Throwable {
+		pendingBulkInfo.getXgroupInfo().add(addXGroupInfo(groupName));
+		pendingGroupNames.add(groupName);
+
+		if (pendingBulkInfo.size() >= bulkSize) {
+			flush();
+		}
+	}
+
+	private boolean addBulkUserGroupInfo(final BulkUserGroupInfo bulkInfo) {
+		if(LOG.isDebugEnabled()) {
+	 		LOG.debug("==> PolicyMgrUserGroupBuilder.addBulkUserGroupInfo(" + bulkInfo.size() + ")");
+	 	}
+		Boolean ret = null;
+		if (authenticationType != null && AUTH_KERBEROS.equalsIgnoreCase(authenticationType) && SecureClientLogin.isKerberosCredentialExists(principal, keytab)){
+			try {
+				Subject sub = SecureClientLogin.loginUserFromKeytab(principal, keytab, nameRules);
+				ret = Subject.doAs(sub, new PrivilegedAction<Boolean>() {
+					@Override
+					public Boolean run() {
+						try {
+							return getBulkUserGroupInfo(bulkInfo);
+						} catch (Exception e) {
+							LOG.error("Failed to add users/groups in bulk : ", e);
+						}
+						return false;
+					}
+				});
+			} catch (Exception e) {
+				LOG.error("Failed to Authenticate Using given Principal and Keytab : " , e);
+			}
+		} else {
+			try {
+				ret = getBulkUserGroupInfo(bulkInfo);
+			} catch (Exception e) {
+				LOG.error("Failed to add users/groups in bulk : ", e);
+			}
+		}
+		if (ret != null && ret) {
+			for (XGroupInfo groupInfo : bulkInfo.getXgroupInfo()) {
+				addGroupToList(groupInfo);
+			}
+
+			for (UserGroupInfo userGroupInfo : bulkInfo.getXuserGroupInfo()) {
+				XUserInfo xUserInfo = userGroupInfo.getXuserInfo();
+
+				for (XGroupInfo groupInfo : userGroupInfo.getXgroupInfo()) {
+					addGroupToList(groupInfo);
+					xUserInfo.getGroups().add(groupInfo.getName());
+				}
+
+				addUserToList(xUserInfo);
+			}
+		} else if (!isBulkSupported) {
+			ret = addUserGroupInfoPerEntity(bulkInfo);
+		}
+		if(LOG.isDebugEnabled()) {
+	 		LOG.debug("<== PolicyMgrUserGroupBuilder.addBulkUserGroupInfo(" + bulkInfo.size() + "): " + ret);
+	 	}
+		return ret != null && ret;
+	}
+
+	/*
+	 * Sends the users/groups of a bulk request one at a time, for ranger admin versions without the bulk API
+	 */
+	private boolean addUserGroupInfoPerEntity(BulkUserGroupInfo bulkInfo) {
+		for (XGroupInfo groupInfo : bulkInfo.getXgroupInfo()) {
+			XGroupInfo group = addGroupInfo(groupInfo.getName());
+
+			if (group == null) {
+				return false;
+			}
+
+			addGroupToList(group);
+		}
+
+		for (UserGroupInfo userGroupInfo : bulkInfo.getXuserGroupInfo()) {
+			String       userName = userGroupInfo.getXuserInfo().getName();
+			List<String> groups   = new ArrayList<String>();
+
+			for (XGroupInfo groupInfo : userGroupInfo.getXgroupInfo()) {
+				groups.add(groupInfo.getName());
+			}
+
+			if (addMUser(userName) == null || addUserGroupInfo(userName, groups) == null) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private boolean getBulkUserGroupInfo(BulkUserGroupInfo bulkInfo) {
+		Client c = getClient();
+
+		WebResource r = c.resource(getURL(PM_ADD_USER_GROUP_BULK_URI));
+
+		Gson gson = new GsonBuilder().create();
+
+		String jsonString = gson.toJson(bulkInfo);
+
+		LOG.debug("BULK USER GROUP MAPPING" + jsonString);
+
+		String response;
+
+		try {
+			response = r.accept(MediaType.APPLICATION_JSON_TYPE).type(MediaType.APPLICATION_JSON_TYPE).post(String.class, jsonString);
+		} catch (UniformInterfaceException excp) {
+			if (excp.getResponse() != null && excp.getResponse().getStatus() == 404) {
+				LOG.warn("ranger admin doesn't support " + PM_ADD_USER_GROUP_BULK_URI + "; users/groups will be sent one at a time");
+
+				isBulkSupported = false;
+
+				return false;
+			}
+
+			throw excp;
+		}
+
+		LOG.info("RESPONSE for " + bulkInfo.size() + " users/groups: [" + response + "]");
+
+		return response != null;
+	}
+
     private void getRoleForUserGroups(String userGroupRolesData) {
 
         String roleDelimiter = config.getRoleDelimiter();
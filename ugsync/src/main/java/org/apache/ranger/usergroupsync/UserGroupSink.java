@@ -31,4 +31,9 @@ public interface UserGroupSink {
 	void addOrUpdateGroup(String group) throws Throwable;
 	
 	void addOrUpdateGroup(String group, List<String> users) throws Throwable;
+
+	/*
+	 * Sends users/groups buffered by the sink, if any; called after each update from the source
+	 */
+	void flush() throws Throwable;
 }
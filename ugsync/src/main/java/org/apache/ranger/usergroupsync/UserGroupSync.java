@@ -56,6 +56,7 @@ public class UserGroupSync implements Runnable {
 
 					LOG.info("Begin: initial load of user/group from source==>sink");
 					ugSource.updateSink(ugSink);
+					ugSink.flush();
 					LOG.info("End: initial load of user/group from source==>sink");
 
 					initDone = true;
@@ -112,6 +113,7 @@ public class UserGroupSync implements Runnable {
 				if (forceSync || ugSource.isChanged()) {
 					LOG.info("Begin: update user/group from source==>sink");
 					ugSource.updateSink(ugSink);
+					ugSink.flush();
 					LOG.info("End: update user/group from source==>sink");
 				}
 				else {
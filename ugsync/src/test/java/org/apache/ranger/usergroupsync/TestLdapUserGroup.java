@@ -701,6 +701,33 @@ public class TestLdapUserGroup extends AbstractLdapTestUnit{
 		assertEquals(2, sink.getTotalGroups());
 	}
 
+	@Test
+	public void testDeltaUpdateSinkSkipsUnchanged() throws Throwable {
+		config.setUserNameAttribute("sAMAccountName");
+		config.setUserSearchBase("cn=users,DC=ranger,DC=qe,DC=hortonworks,DC=com");
+		config.setUserSearchFilter("");
+		config.setGroupSearchBase("OU=Groups,DC=ranger,DC=qe,DC=hortonworks,DC=com");
+		config.setGroupSearchFilter("");
+		config.setUserGroupMemberAttributeName("member");
+		config.setUserObjectClass("organizationalPerson");
+		config.setGroupObjectClass("groupOfNames");
+		config.setGroupSearchEnabled(true);
+		config.setGroupSearchFirstEnabled(false);
+		config.setDeltaSync(true);
+		ldapBuilder = config.getUserGroupSource();
+		ldapBuilder.init();
+		LdapPolicyMgrUserGroupBuilderTest sink = new LdapPolicyMgrUserGroupBuilderTest();
+		sink.init();
+		ldapBuilder.updateSink(sink);
+		assertEquals(10, sink.getTotalGroups());
+
+		// nothing changed in the directory since the previous sync
+		sink.init();
+		ldapBuilder.updateSink(sink);
+		assertEquals(0, sink.getTotalUsers());
+		assertEquals(0, sink.getTotalGroups());
+	}
+
 	@After
 	public void shutdown() throws Exception {
 		if (getService().isStarted()) {
@@ -23,6 +23,16 @@
 #include <sys/types.h>
 #include <crypt.h>
 
+/*
+ * Validates one "LOGIN:<user> <password>" request per input line and writes one
+ * response line per request, so the authentication service can keep this process
+ * alive and reuse it across logins. Exits when stdin is closed.
+ *
+ * Each response is prefixed with "[<user>] ", the user read from the request, so
+ * that the service can verify that a response belongs to the request it sent. A
+ * line that doesn't fit in the buffer gets exactly one FAILED response, without
+ * the prefix: the rest of it is discarded instead of being read as another request.
+ */
 int main(int ac, char **av, char **ev)
 {
 	char username[64] ;
@@ -30,34 +40,43 @@ int main(int ac, char **av, char **ev)
 	char line[512] ;
 	struct passwd *pwp;
 	struct spwd *spwd ; 
+	int c ;
 
-	fgets(line,512,stdin) ;
+	while (fgets(line,512,stdin) != NULL) {
+		username[0] = '\0' ;
+		password[0] = '\0' ;
 
-	sscanf(line, "LOGIN:%s %s",username,password) ;
-
-	pwp = getpwnam(username) ;
-
-	if (pwp == (struct passwd *)NULL) {
-		fprintf(stdout, "FAILED: [%s] does not exists.\n", username) ;
-		exit(1) ;
-	}
-	
-	spwd = getspnam(pwp->pw_name) ;
+		if (strchr(line, '\n') == NULL && !feof(stdin)) {
+			while ((c = fgetc(stdin)) != EOF && c != '\n') ;
 
-	if (spwd == (struct spwd *)NULL) {
-		fprintf(stdout, "FAILED: unable to get (shadow) password for %s\n", username) ;
-		exit(1) ;
-	}
-	else {
-		char *gen = crypt(password,spwd->sp_pwdp) ;
-		if (strcmp(spwd->sp_pwdp,gen) == 0) {
-			fprintf(stdout, "OK:\n") ;
-			exit(0);
+			fprintf(stdout, "FAILED: request is too long.\n") ;
 		}
 		else {
-			fprintf(stdout, "FAILED: Password did not match.\n") ;
-			exit(1) ;
+			sscanf(line, "LOGIN:%63s %63s",username,password) ;
+
+			pwp = getpwnam(username) ;
+
+			if (pwp == (struct passwd *)NULL) {
+				fprintf(stdout, "[%s] FAILED: [%s] does not exists.\n", username, username) ;
+			}
+			else if ((spwd = getspnam(pwp->pw_name)) == (struct spwd *)NULL) {
+				fprintf(stdout, "[%s] FAILED: unable to get (shadow) password for %s\n", username, username) ;
+			}
+			else {
+				char *gen = crypt(password,spwd->sp_pwdp) ;
+				if (gen != NULL && strcmp(spwd->sp_pwdp,gen) == 0) {
+					fprintf(stdout, "[%s] OK:\n", username) ;
+				}
+				else {
+					fprintf(stdout, "[%s] FAILED: Password did not match.\n", username) ;
+				}
+			}
 		}
+
+		memset(password, 0, sizeof(password)) ;
+		memset(line, 0, sizeof(line)) ;
+
+		fflush(stdout) ;
 	}
 	exit(0) ;
 }
@@ -54,63 +54,78 @@ int pamconv(int num_msg, const struct pam_message **msg, struct pam_response **r
 
 struct pam_conv conv = { pamconv, NULL };
 
-int main(int ac, char **av, char **ev)
+/*
+ * Validates one "LOGIN:<user> <password>" request per input line and writes one
+ * response line per request, so the authentication service can keep this process
+ * alive and reuse it across logins. Exits when stdin is closed.
+ *
+ * Each response is prefixed with "[<user>] ", the user read from the request, so
+ * that the service can verify that a response belongs to the request it sent. A
+ * line that doesn't fit in the buffer gets exactly one FAILED response, without
+ * the prefix: the rest of it is discarded instead of being read as another request.
+ */
+static void validate(char *line)
 {
 	char username[64] ;
 	char password[64] ;
-	char line[512] ;
 
 	int retval;
 	pam_handle_t *pamh = NULL;
 
-	fgets(line,512,stdin) ;
-	sscanf(line, "LOGIN:%s %s",username,password) ;
+	username[0] = '\0' ;
+	password[0] = '\0' ;
+
+	sscanf(line, "LOGIN:%63s %63s",username,password) ;
 	conv.appdata_ptr = (char *) password;
 
 	retval = pam_start("ranger-remote", username, &conv, &pamh);
 	if (retval != PAM_SUCCESS) {
 		/* why expose this? */
-		fprintf(stdout, "FAILED: [%s] does not exists.\n", username) ;
-		if (pamh) {
-			pam_end(pamh, retval);
-		}
-		exit(1);
+		fprintf(stdout, "[%s] FAILED: [%s] does not exists.\n", username, username) ;
 	}
-
-	retval = pam_authenticate(pamh, 0);
-	if (retval != PAM_SUCCESS) {
-		fprintf(stdout, "FAILED: Password did not match.\n") ;
-		if (pamh) {
-			pam_end(pamh, retval);
-		}		
-		exit(1);
+	else if ((retval = pam_authenticate(pamh, 0)) != PAM_SUCCESS) {
+		fprintf(stdout, "[%s] FAILED: Password did not match.\n", username) ;
 	}
-
 	/* authorize */
-	retval = pam_acct_mgmt(pamh, 0);
-	if (retval != PAM_SUCCESS) {
-		fprintf(stdout, "FAILED: [%s] is not authorized.\n", username) ;
-		if (pamh) {
-			pam_end(pamh, retval);
-		}
-		exit(1);
+	else if ((retval = pam_acct_mgmt(pamh, 0)) != PAM_SUCCESS) {
+		fprintf(stdout, "[%s] FAILED: [%s] is not authorized.\n", username, username) ;
 	}
-
 	/* establish the requested credentials */
-	if ((retval = pam_setcred(pamh, PAM_ESTABLISH_CRED)) != PAM_SUCCESS) {
-			fprintf(stdout, "FAILED: Error setting credentials for [%s].\n", username) ;
-			if (pamh) {
-				pam_end(pamh, retval);
-			}
-    		exit(1);
+	else if ((retval = pam_setcred(pamh, PAM_ESTABLISH_CRED)) != PAM_SUCCESS) {
+		fprintf(stdout, "[%s] FAILED: Error setting credentials for [%s].\n", username, username) ;
+	}
+	else {
+		/* not opening a session, as logout has not been implemented as a remote service */
+		fprintf(stdout, "[%s] OK:\n", username) ;
 	}
-
-	/* not opening a session, as logout has not been implemented as a remote service */
-	fprintf(stdout, "OK:\n") ;
 
 	if (pamh) {
 		pam_end(pamh, retval);
 	}
 
+	conv.appdata_ptr = NULL;
+	memset(password, 0, sizeof(password)) ;
+}
+
+int main(int ac, char **av, char **ev)
+{
+	char line[512] ;
+	int  c ;
+
+	while (fgets(line,512,stdin) != NULL) {
+		if (strchr(line, '\n') == NULL && !feof(stdin)) {
+			while ((c = fgetc(stdin)) != EOF && c != '\n') ;
+
+			fprintf(stdout, "FAILED: request is too long.\n") ;
+		}
+		else {
+			validate(line) ;
+		}
+
+		memset(line, 0, sizeof(line)) ;
+
+		fflush(stdout) ;
+	}
+
 	exit(0) ;
 }
@@ -25,6 +25,7 @@ import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.util.List;
 
 import org.apache.log4j.Logger;
@@ -33,7 +34,11 @@ public class PasswordValidator implements Runnable {
 
 	private static final Logger LOG = Logger.getLogger(PasswordValidator.class);
 	
-	private static String validatorProgram = null;
+	private static volatile ValidatorProcessPool validatorProcessPool = null;
+
+	private static volatile ValidationResultCache resultCache = null;
+
+	private static int keepAliveTimeoutMs = 0;
 
 	private static List<String> adminUserList;
 
@@ -53,62 +58,29 @@ public class PasswordValidator implements Runnable {
 		String userName = null;
 
 		try {
+			if (keepAliveTimeoutMs > 0) {
+				client.setSoTimeout(keepAliveTimeoutMs);
+			}
+
 			reader = new BufferedReader(new InputStreamReader(client.getInputStream()));
 			writer = new PrintWriter(new OutputStreamWriter(client.getOutputStream()));
-			String request = reader.readLine();
-			
-			if (request.startsWith("LOGIN:")) {
-				String line = request.substring(6).trim();
-				int passwordAt = line.indexOf(' ');
-				if (passwordAt != -1) {
-					userName = line.substring(0,passwordAt).trim();
-				}
-			}
 
-			if (validatorProgram == null) {
-				String res = "FAILED: Unable to validate credentials.";
-				writer.println(res);
-				writer.flush();
-				LOG.error("Response [" + res + "] for user: " + userName + " as ValidatorProgram is not defined in configuration.");
+			String request;
 
-			}
-			else {
-				
-				BufferedReader pReader = null;
-				PrintWriter pWriter = null;
-				Process p =  null;
-				
-				try {
-					p = Runtime.getRuntime().exec(validatorProgram);
-					
-					pReader = new BufferedReader(new InputStreamReader(p.getInputStream()));
-					
-					pWriter = new PrintWriter(new OutputStreamWriter(p.getOutputStream()));
-					
-					pWriter.println(request); pWriter.flush();
-	
-					String res = pReader.readLine();
+			while ((request = reader.readLine()) != null) {
+				userName = getUserName(request);
 
+				String res = validate(request, userName);
 
-					if (res != null && res.startsWith("OK")) {
-						if (adminRoleNames != null && adminUserList != null) {
-							if (adminUserList.contains(userName)) {
-								res = res + " " + adminRoleNames;
-							}
-						}
-					}
+				writer.println(res); writer.flush();
 
-					LOG.info("Response [" + res + "] for user: " + userName);
-					
-					writer.println(res); writer.flush();
-				}
-				finally {
-					if (p != null) {
-						p.destroy();
-					}
+				if (keepAliveTimeoutMs <= 0) {
+					break;
 				}
 			}
-			
+		}
+		catch(SocketTimeoutException ste) {
+			LOG.debug("Closing idle connection from " + client.getRemoteSocketAddress());
 		}
 		catch(Throwable t) {
 			if (userName != null && writer != null ) {
@@ -131,14 +103,88 @@ public class PasswordValidator implements Runnable {
 			}
 		}
 	}
-	
-	
+
+	static String validate(String request, String userName) throws IOException {
+		String res;
+
+		if (validatorProcessPool == null) {
+			res = "FAILED: Unable to validate credentials.";
+			LOG.error("Response [" + res + "] for user: " + userName + " as ValidatorProgram is not defined in configuration.");
+		}
+		else if (!ValidatorProcessPool.isValidRequest(request)) {
+			res = "FAILED: Invalid request.";
+			LOG.error("Response [" + res + "] for user: " + userName + " as the request is longer than " + ValidatorProcessPool.MAX_REQUEST_LENGTH + " bytes or has line breaks.");
+		}
+		else {
+			res = resultCache != null ? resultCache.get(request) : null;
+
+			if (res == null) {
+				res = validatorProcessPool.validate(request);
+
+				if (resultCache != null && res != null && res.startsWith("OK")) {
+					resultCache.put(request, res);
+				}
+			}
+			else if (LOG.isDebugEnabled()) {
+				LOG.debug("Using cached validation result for user: " + userName);
+			}
+
+			if (res != null && res.startsWith("OK")) {
+				if (adminRoleNames != null && adminUserList != null) {
+					if (adminUserList.contains(userName)) {
+						res = res + " " + adminRoleNames;
+					}
+				}
+			}
+
+			LOG.info("Response [" + res + "] for user: " + userName);
+		}
+
+		return res;
+	}
+
+	private static String getUserName(String request) {
+		String ret = null;
+
+		if (request.startsWith("LOGIN:")) {
+			String line = request.substring(6).trim();
+			int passwordAt = line.indexOf(' ');
+			if (passwordAt != -1) {
+				ret = line.substring(0,passwordAt).trim();
+			}
+		}
+
+		return ret;
+	}
+
 	public static String getValidatorProgram() {
-		return validatorProgram;
+		return validatorProcessPool != null ? validatorProcessPool.getValidatorProgram() : null;
 	}
 
 	public static void setValidatorProgram(String validatorProgram) {
-		PasswordValidator.validatorProgram = validatorProgram;
+		setValidatorProgram(validatorProgram, 1);
+	}
+
+	public static void setValidatorProgram(String validatorProgram, int processPoolSize) {
+		ValidatorProcessPool oldPool = validatorProcessPool;
+
+		PasswordValidator.validatorProcessPool = validatorProgram != null ? new ValidatorProcessPool(validatorProgram, processPoolSize) : null;
+
+		if (oldPool != null) {
+			oldPool.shutdown();
+		}
+	}
+
+	public static void setResultCache(int maxSize, long ttlMillis) {
+		PasswordValidator.resultCache = (maxSize > 0 && ttlMillis > 0) ? new ValidationResultCache(maxSize, ttlMillis) : null;
+	}
+
+	public static int getKeepAliveTimeoutMs() {
+		return keepAliveTimeoutMs;
+	}
+
+	public static void setKeepAliveTimeoutMs(int keepAliveTimeoutMs) {
+		PasswordValidator.keepAliveTimeoutMs = keepAliveTimeoutMs;
 	}
 
 	public static List<String> getAdminUserList() {
@@ -33,6 +33,13 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.KeyManagerFactory;
@@ -68,6 +75,19 @@ public class UnixAuthenticationService {
 	private static final String SSL_ENABLED_PARAM = "ranger.usersync.ssl";
 	
 	private static final String CREDSTORE_FILENAME_PARAM = "ranger.usersync.credstore.filename";
+
+	private static final String VALIDATOR_MAX_THREADS_PARAM         = "ranger.usersync.passwordvalidator.max.threads";
+	private static final String VALIDATOR_MAX_QUEUE_SIZE_PARAM      = "ranger.usersync.passwordvalidator.max.queue.size";
+	private static final String VALIDATOR_PROCESS_POOL_SIZE_PARAM   = "ranger.usersync.passwordvalidator.process.pool.size";
+	private static final String VALIDATOR_KEEPALIVE_TIMEOUT_PARAM   = "ranger.usersync.passwordvalidator.keepalive.timeout.ms";
+	private static final String VALIDATOR_CACHE_SIZE_PARAM          = "ranger.usersync.passwordvalidator.cache.size";
+	private static final String VALIDATOR_CACHE_TTL_PARAM           = "ranger.usersync.passwordvalidator.cache.ttl.ms";
+
+	private static final int  DEFAULT_VALIDATOR_MAX_THREADS       = 25;
+	private static final int  DEFAULT_VALIDATOR_MAX_QUEUE_SIZE    = 500;
+	private static final int  DEFAULT_VALIDATOR_KEEPALIVE_TIMEOUT = 0;
+	private static final int  DEFAULT_VALIDATOR_CACHE_SIZE        = 1000;
+	private static final long DEFAULT_VALIDATOR_CACHE_TTL         = 30 * 1000L;
 	
 	private String keyStorePath;
 	private String keyStorePathPassword;
@@ -77,6 +97,9 @@ public class UnixAuthenticationService {
 	private String adminRoleNames;
 	
 	private int  portNum;
+
+	private int maxValidatorThreads   = DEFAULT_VALIDATOR_MAX_THREADS;
+	private int maxValidatorQueueSize = DEFAULT_VALIDATOR_MAX_QUEUE_SIZE;
 	
 	private boolean SSLEnabled = false;
 	
@@ -165,10 +188,17 @@ public class UnixAuthenticationService {
 		
 		trustStorePath  = prop.getProperty(SSL_TRUSTSTORE_PATH_PARAM);
 		portNum = Integer.parseInt(prop.getProperty(REMOTE_LOGIN_AUTH_SERVICE_PORT_PARAM));
+		maxValidatorThreads   = getIntProperty(prop, VALIDATOR_MAX_THREADS_PARAM, DEFAULT_VALIDATOR_MAX_THREADS);
+		maxValidatorQueueSize = getIntProperty(prop, VALIDATOR_MAX_QUEUE_SIZE_PARAM, DEFAULT_VALIDATOR_MAX_QUEUE_SIZE);
+
 		String validatorProg = prop.getProperty(CRED_VALIDATOR_PROG);
 		if (validatorProg != null) {
-			PasswordValidator.setValidatorProgram(validatorProg);
+			PasswordValidator.setValidatorProgram(validatorProg, getIntProperty(prop, VALIDATOR_PROCESS_POOL_SIZE_PARAM, maxValidatorThreads));
 		}
+
+		PasswordValidator.setKeepAliveTimeoutMs(getIntProperty(prop, VALIDATOR_KEEPALIVE_TIMEOUT_PARAM, DEFAULT_VALIDATOR_KEEPALIVE_TIMEOUT));
+		PasswordValidator.setResultCache(getIntProperty(prop, VALIDATOR_CACHE_SIZE_PARAM, DEFAULT_VALIDATOR_CACHE_SIZE),
+		                                 getLongProperty(prop, VALIDATOR_CACHE_TTL_PARAM, DEFAULT_VALIDATOR_CACHE_TTL));
 		
 		String adminUsers = prop.getProperty(ADMIN_USER_LIST_PARAM);
 		
@@ -288,20 +318,73 @@ public class UnixAuthenticationService {
 		}
 		
 				
+		LOG.info("Starting password validator pool: maxThreads=" + maxValidatorThreads + ", maxQueueSize=" + maxValidatorQueueSize);
+
+		ThreadPoolExecutor validatorExecutor = createValidatorExecutor(maxValidatorThreads, maxValidatorQueueSize);
+
 		Socket client = null;
 		
 		try {
 		
 			while ( (client = socket.accept()) != null ) {
-				Thread clientValidatorThread = new Thread(new PasswordValidator(client));
-				clientValidatorThread.start();
+				validatorExecutor.execute(new PasswordValidator(client));
 			}
 		} catch (IOException e) {
 			socket.close();
 			throw(e);
+		} finally {
+			validatorExecutor.shutdown();
 		}
 
 	}
+
+	/*
+	 * When all workers are busy and the queue is full, the acceptor blocks until a slot frees up;
+	 * further connections then wait in the server socket's backlog instead of spawning new threads.
+	 */
+	static ThreadPoolExecutor createValidatorExecutor(int maxThreads, int maxQueueSize) {
+		final AtomicInteger threadCount = new AtomicInteger();
+
+		ThreadFactory threadFactory = new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "PasswordValidator-" + threadCount.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		};
+
+		RejectedExecutionHandler blockWhenFull = new RejectedExecutionHandler() {
+			@Override
+			public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+				if (executor.isShutdown()) {
+					throw new RejectedExecutionException("password validator pool is shut down");
+				}
+
+				try {
+					executor.getQueue().put(r);
+				} catch (InterruptedException excp) {
+					Thread.currentThread().interrupt();
+					throw new RejectedExecutionException("interrupted while waiting for a password validator", excp);
+				}
+			}
+		};
+
+		return new ThreadPoolExecutor(maxThreads, maxThreads, 60L, TimeUnit.SECONDS,
+		                              new ArrayBlockingQueue<Runnable>(Math.max(maxQueueSize, 1)), threadFactory, blockWhenFull);
+	}
+
+	private static int getIntProperty(Properties prop, String name, int defaultValue) {
+		String val = prop.getProperty(name);
+
+		return (val != null && !val.trim().isEmpty()) ? Integer.parseInt(val.trim()) : defaultValue;
+	}
+
+	private static long getLongProperty(Properties prop, String name, long defaultValue) {
+		String val = prop.getProperty(name);
+
+		return (val != null && !val.trim().isEmpty()) ? Long.parseLong(val.trim()) : defaultValue;
+	}
 	
 	private InputStream getFileInputStream(String path) throws FileNotFoundException {
 		
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authentication;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * Bounded LRU cache of recent successful validations. Entries are keyed by a
+ * SHA-256 digest of the login request, so passwords are never kept in memory,
+ * and expire after a short TTL so that password changes take effect quickly.
+ */
+public class ValidationResultCache {
+
+	private final long                    ttlMillis;
+	private final Map<String, CacheEntry> entries;
+
+	public ValidationResultCache(final int maxSize, long ttlMillis) {
+		this.ttlMillis = ttlMillis;
+		this.entries   = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	public String get(String request) {
+		String ret = null;
+		String key = getKey(request);
+
+		synchronized (entries) {
+			CacheEntry entry = entries.get(key);
+
+			if (entry != null) {
+				if (entry.expiryTime > currentTimeMillis()) {
+					ret = entry.response;
+				} else {
+					entries.remove(key);
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	public void put(String request, String response) {
+		String key = getKey(request);
+
+		synchronized (entries) {
+			entries.put(key, new CacheEntry(response, currentTimeMillis() + ttlMillis));
+		}
+	}
+
+	long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	private static String getKey(String request) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+
+			return Hex.encodeHexString(digest.digest(request.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException excp) {
+			throw new RuntimeException(excp);
+		}
+	}
+
+	private static class CacheEntry {
+		final String response;
+		final long   expiryTime;
+
+		CacheEntry(String response, long expiryTime) {
+			this.response   = response;
+			this.expiryTime = expiryTime;
+		}
+	}
+}
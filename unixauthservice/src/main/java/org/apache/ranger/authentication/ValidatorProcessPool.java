@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authentication;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Keeps a bounded set of long-lived credential validator processes, so that a
+ * login does not have to fork a new process. A validator that answers one
+ * request and exits (older credValidator/pamCredValidator builds) still works:
+ * such a process is detected as dead and simply replaced on the next request.
+ *
+ * As a process is shared by logins of different users, a response is used only
+ * when it is known to be the answer to the request just sent:
+ * - requests are single lines that fit in the validator's line buffer, so that a
+ *   validator never reads one request as two and writes an extra response
+ * - validators prefix each response with "[<user>] ", the user of the request; a
+ *   process whose response has a different prefix is destroyed. A response without
+ *   the prefix, from older validators, is used only when it is the first response of
+ *   a new process, and that process is not reused
+ */
+public class ValidatorProcessPool {
+
+	private static final Logger LOG = Logger.getLogger(ValidatorProcessPool.class);
+
+	// credValidator and pamCredValidator read a request, and the newline after it, into a 512 byte buffer
+	public static final int MAX_REQUEST_LENGTH = 510;
+
+	private static final String LOGIN_PREFIX = "LOGIN:";
+
+	private final String                           validatorProgram;
+	private final BlockingQueue<ValidatorProcess> idleProcesses;
+
+	public ValidatorProcessPool(String validatorProgram, int maxIdleProcesses) {
+		this.validatorProgram = validatorProgram;
+		this.idleProcesses    = new ArrayBlockingQueue<ValidatorProcess>(Math.max(maxIdleProcesses, 1));
+	}
+
+	public String getValidatorProgram() {
+		return validatorProgram;
+	}
+
+	/*
+	 * A request is sent to a validator process only if it is one line, of at most MAX_REQUEST_LENGTH bytes
+	 */
+	public static boolean isValidRequest(String request) {
+		boolean ret = request != null
+		              && request.indexOf('\n') == -1 && request.indexOf('\r') == -1 && request.indexOf('\0') == -1
+		              && request.getBytes(StandardCharsets.UTF_8).length <= MAX_REQUEST_LENGTH;
+
+		return ret;
+	}
+
+	public String validate(String request) throws IOException {
+		if (!isValidRequest(request)) {
+			throw new IOException("invalid request: must be a single line of at most " + MAX_REQUEST_LENGTH + " bytes");
+		}
+
+		String ret = null;
+
+		ValidatorProcess process = idleProcesses.poll();
+
+		if (process != null) {
+			// a pooled process may have exited since it was last used; retry once with a new one
+			try {
+				ret = process.validate(request);
+			} catch (IOException excp) {
+				LOG.debug("Pooled validator process failed; starting a new one", excp);
+			}
+
+			if (ret == null) {
+				process.destroy();
+				process = null;
+			}
+		}
+
+		if (process == null) {
+			process = new ValidatorProcess(validatorProgram);
+
+			try {
+				ret = process.validate(request);
+			} catch (IOException excp) {
+				process.destroy();
+
+				throw excp;
+			}
+		}
+
+		if (ret == null || !process.isReusable() || !idleProcesses.offer(process)) {
+			process.destroy();
+		}
+
+		return ret;
+	}
+
+	public void shutdown() {
+		ValidatorProcess process;
+
+		while ((process = idleProcesses.poll()) != null) {
+			process.destroy();
+		}
+	}
+
+	int getIdleProcessCount() {
+		return idleProcesses.size();
+	}
+
+	/*
+	 * The user a validator reads from the request, i.e. as sscanf(line, "LOGIN:%63s ...") does
+	 */
+	static String getUserName(String request) {
+		String ret = "";
+
+		if (request.startsWith(LOGIN_PREFIX)) {
+			int beginIdx = LOGIN_PREFIX.length();
+
+			while (beginIdx < request.length() && isSpace(request.charAt(beginIdx))) {
+				beginIdx++;
+			}
+
+			int endIdx = beginIdx;
+
+			while (endIdx < request.length() && !isSpace(request.charAt(endIdx))) {
+				endIdx++;
+			}
+
+			ret = request.substring(beginIdx, endIdx);
+		}
+
+		return ret;
+	}
+
+	// same as isspace() of the C locale
+	private static boolean isSpace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+
+	private static class ValidatorProcess {
+		private final Process        process;
+		private final BufferedReader reader;
+		private final Writer         writer;
+		private       int            requestCount   = 0;
+		private       boolean        isTaggedOutput = true;
+
+		ValidatorProcess(String validatorProgram) throws IOException {
+			ProcessBuilder builder = new ProcessBuilder(validatorProgram.trim().split("\\s+"));
+
+			// stderr of a long-lived process must not fill up the pipe and block it
+			builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+
+			process = builder.start();
+			reader  = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+			writer  = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+		}
+
+		String validate(String request) throws IOException {
+			requestCount++;
+
+			try {
+				writer.write(request);
+				writer.write('\n');
+				writer.flush();
+			} catch (IOException excp) {
+				throw new IOException("failed to send request to validator process", excp);
+			}
+
+			String ret = reader.readLine();
+
+			if (ret != null) {
+				String tag = "[" + getUserName(request) + "] ";
+
+				if (ret.startsWith(tag)) {
+					ret = ret.substring(tag.length());
+				} else if (requestCount == 1 && !ret.startsWith("[")) {
+					isTaggedOutput = false; // older validator: answers only this request
+				} else {
+					throw new IOException("response from validator process does not match the request");
+				}
+			}
+
+			return ret;
+		}
+
+		boolean isReusable() {
+			return isTaggedOutput && process.isAlive();
+		}
+
+		void destroy() {
+			process.destroy();
+		}
+	}
+}
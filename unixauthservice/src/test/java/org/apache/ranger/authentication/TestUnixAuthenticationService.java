@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authentication;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestUnixAuthenticationService {
+
+	@Test
+	public void testAcceptorBlocksWhenQueueIsFull() throws Exception {
+		final ThreadPoolExecutor executor = UnixAuthenticationService.createValidatorExecutor(1, 1);
+		final CountDownLatch     release  = new CountDownLatch(1);
+		final CountDownLatch     started  = new CountDownLatch(1);
+		final CountDownLatch     ran      = new CountDownLatch(3);
+
+		Runnable task = new Runnable() {
+			@Override
+			public void run() {
+				started.countDown();
+
+				try {
+					release.await();
+				} catch (InterruptedException excp) {
+					Thread.currentThread().interrupt();
+				}
+
+				ran.countDown();
+			}
+		};
+
+		try {
+			executor.execute(task); // runs on the only worker
+			Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+
+			executor.execute(task); // fills the queue
+
+			final Runnable finalTask = task;
+
+			Thread acceptor = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					executor.execute(finalTask);
+				}
+			});
+
+			acceptor.start();
+			acceptor.join(500);
+
+			Assert.assertTrue("acceptor must wait for a free slot", acceptor.isAlive());
+			Assert.assertEquals(1, executor.getPoolSize());
+
+			release.countDown();
+			acceptor.join(10000);
+
+			Assert.assertFalse(acceptor.isAlive());
+			Assert.assertTrue(ran.await(10, TimeUnit.SECONDS));
+		} finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testExecuteFailsAfterShutdown() {
+		ThreadPoolExecutor executor = UnixAuthenticationService.createValidatorExecutor(1, 1);
+
+		executor.shutdown();
+
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+				}
+			});
+
+			Assert.fail("execute() must fail after shutdown");
+		} catch (java.util.concurrent.RejectedExecutionException excp) {
+			// expected
+		}
+	}
+}
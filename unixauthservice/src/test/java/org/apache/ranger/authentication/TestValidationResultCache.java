@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authentication;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestValidationResultCache {
+
+	@Test
+	public void testEntriesExpireAfterTtl() {
+		TestCache cache = new TestCache(10, 1000);
+
+		cache.put("LOGIN:user1 pwd1", "OK:");
+
+		cache.now += 999;
+		Assert.assertEquals("OK:", cache.get("LOGIN:user1 pwd1"));
+
+		cache.now += 1;
+		Assert.assertNull(cache.get("LOGIN:user1 pwd1"));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEntryIsEvicted() {
+		TestCache cache = new TestCache(2, 1000);
+
+		cache.put("LOGIN:user1 pwd1", "OK:");
+		cache.put("LOGIN:user2 pwd2", "OK:");
+
+		Assert.assertEquals("OK:", cache.get("LOGIN:user1 pwd1")); // user2 is now the least recently used
+
+		cache.put("LOGIN:user3 pwd3", "OK:");
+
+		Assert.assertEquals("OK:", cache.get("LOGIN:user1 pwd1"));
+		Assert.assertNull(cache.get("LOGIN:user2 pwd2"));
+		Assert.assertEquals("OK:", cache.get("LOGIN:user3 pwd3"));
+	}
+
+	@Test
+	public void testEntriesAreKeyedByTheWholeRequest() {
+		TestCache cache = new TestCache(10, 1000);
+
+		cache.put("LOGIN:user1 pwd1", "OK:");
+
+		Assert.assertNull(cache.get("LOGIN:user1 pwd2"));
+		Assert.assertNull(cache.get("LOGIN:user2 pwd1"));
+	}
+
+	private static class TestCache extends ValidationResultCache {
+		long now = 1000000;
+
+		TestCache(int maxSize, long ttlMillis) {
+			super(maxSize, ttlMillis);
+		}
+
+		@Override
+		long currentTimeMillis() {
+			return now;
+		}
+	}
+}
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authentication;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/*
+ * Runs the pool with shell scripts that stand in for credValidator: a user's password is "good-<user>"
+ */
+public class TestValidatorProcessPool {
+	// answers each request with "[<user>] OK:" or "[<user>] FAILED: ...", as credValidator does
+	private static final String VALIDATOR =
+			"while IFS= read -r line; do\n" +
+			"  echo \"$line\" >> \"$0.log\"\n" +
+			"  user=$(echo \"$line\" | sed -e 's/^LOGIN:\\([^ ]*\\) .*/\\1/')\n" +
+			"  pwd=$(echo \"$line\" | sed -e 's/^LOGIN:[^ ]* //')\n" +
+			"  if [ \"$pwd\" = \"good-$user\" ]; then echo \"[$user] OK:\"; else echo \"[$user] FAILED: Password did not match.\"; fi\n" +
+			"done\n";
+
+	// answers one request, without the user prefix, and exits, as validators before the prefix was added do
+	private static final String ONE_SHOT_VALIDATOR =
+			"IFS= read -r line\n" +
+			"echo \"$line\" >> \"$0.log\"\n" +
+			"user=$(echo \"$line\" | sed -e 's/^LOGIN:\\([^ ]*\\) .*/\\1/')\n" +
+			"pwd=$(echo \"$line\" | sed -e 's/^LOGIN:[^ ]* //')\n" +
+			"if [ \"$pwd\" = \"good-$user\" ]; then echo \"OK:\"; else echo \"FAILED: Password did not match.\"; fi\n";
+
+	// writes an extra response after each response, like a validator that read one request as two
+	private static final String EXTRA_RESPONSE_VALIDATOR =
+			"while IFS= read -r line; do\n" +
+			"  echo \"$line\" >> \"$0.log\"\n" +
+			"  user=$(echo \"$line\" | sed -e 's/^LOGIN:\\([^ ]*\\) .*/\\1/')\n" +
+			"  echo \"[$user] FAILED: Password did not match.\"\n" +
+			"  echo \"[attacker] OK:\"\n" +
+			"done\n";
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	private ValidatorProcessPool pool;
+
+	@After
+	public void tearDown() {
+		if (pool != null) {
+			pool.shutdown();
+		}
+
+		PasswordValidator.setValidatorProgram(null);
+		PasswordValidator.setResultCache(0, 0);
+	}
+
+	@Test
+	public void testProcessIsReused() throws Exception {
+		File script = createScript("validator.sh", VALIDATOR);
+
+		pool = new ValidatorProcessPool("sh " + script.getAbsolutePath(), 2);
+
+		Assert.assertEquals("OK:", pool.validate("LOGIN:user1 good-user1"));
+		Assert.assertEquals("FAILED: Password did not match.", pool.validate("LOGIN:user2 bad"));
+		Assert.assertEquals("OK:", pool.validate("LOGIN:user2 good-user2"));
+		Assert.assertEquals(1, pool.getIdleProcessCount());
+		Assert.assertEquals(3, getRequests(script).size());
+	}
+
+	@Test
+	public void testExitedProcessesAreReplaced() throws Exception {
+		File script = createScript("validator.sh", ONE_SHOT_VALIDATOR);
+
+		pool = new ValidatorProcessPool("sh " + script.getAbsolutePath(), 2);
+
+		Assert.assertEquals("OK:", pool.validate("LOGIN:user1 good-user1"));
+		Assert.assertEquals("FAILED: Password did not match.", pool.validate("LOGIN:user1 bad"));
+		Assert.assertEquals("OK:", pool.validate("LOGIN:user2 good-user2"));
+		Assert.assertEquals(0, pool.getIdleProcessCount());
+		Assert.assertEquals(3, getRequests(script).size());
+	}
+
+	@Test
+	public void testPooledProcessThatExitedIsReplaced() throws Exception {
+		// answers one request, with the user prefix, and exits: the process may be pooled before it exits
+		File script = createScript("validator.sh", VALIDATOR.replace("done\n", "  exit 0\ndone\n"));
+
+		pool = new ValidatorProcessPool("sh " + script.getAbsolutePath(), 2);
+
+		for (int i = 0; i < 5; i++) {
+			Assert.assertEquals("OK:", pool.validate("LOGIN:user" + i + " good-user" + i));
+			Assert.assertEquals("FAILED: Password did not match.", pool.validate("LOGIN:user" + i + " bad"));
+		}
+
+		Assert.assertEquals(10, getRequests(script).size());
+	}
+
+	@Test
+	public void testResponseForAnotherRequestIsNotUsed() throws Exception {
+		File script = createScript("validator.sh", EXTRA_RESPONSE_VALIDATOR);
+
+		pool = new ValidatorProcessPool("sh " + script.getAbsolutePath(), 2);
+
+		Assert.assertEquals("FAILED: Password did not match.", pool.validate("LOGIN:attacker x"));
+		Assert.assertEquals(1, pool.getIdleProcessCount());
+
+		// the pooled process answers with the response queued for the previous request: it is destroyed and
+		// the request is sent to a new process
+		Assert.assertEquals("FAILED: Password did not match.", pool.validate("LOGIN:root wrong"));
+	}
+
+	@Test
+	public void testOverlongAndMultiLineRequestsAreRejected() throws Exception {
+		File script = createScript("validator.sh", VALIDATOR);
+
+		pool = new ValidatorProcessPool("sh " + script.getAbsolutePath(), 2);
+
+		String padding = StringUtils.repeat("x", 511);
+
+		assertRejected(padding + "LOGIN:user1 good-user1");
+		assertRejected("LOGIN:root wrong\nLOGIN:user1 good-user1");
+		assertRejected("LOGIN:root wrong\rLOGIN:user1 good-user1");
+		assertRejected("LOGIN:root wrong\0LOGIN:user1 good-user1");
+
+		Assert.assertEquals(0, getRequests(script).size());
+
+		String longest = "LOGIN:user1 good-user1 " + StringUtils.repeat("x", ValidatorProcessPool.MAX_REQUEST_LENGTH - 23);
+
+		Assert.assertEquals(ValidatorProcessPool.MAX_REQUEST_LENGTH, longest.length());
+		Assert.assertTrue(ValidatorProcessPool.isValidRequest(longest));
+		Assert.assertFalse(ValidatorProcessPool.isValidRequest(longest + "x"));
+		Assert.assertFalse(ValidatorProcessPool.isValidRequest(StringUtils.repeat("é", 256))); // 512 bytes in UTF-8
+	}
+
+	@Test
+	public void testPasswordValidatorRejectsInvalidRequests() throws Exception {
+		File script = createScript("validator.sh", VALIDATOR);
+
+		PasswordValidator.setValidatorProgram("sh " + script.getAbsolutePath(), 2);
+
+		String res = PasswordValidator.validate(StringUtils.repeat("x", 511) + "LOGIN:user1 good-user1", null);
+
+		Assert.assertTrue(res, res.startsWith("FAILED"));
+		Assert.assertEquals(0, getRequests(script).size());
+	}
+
+	@Test
+	public void testFailedLoginsAreNotCached() throws Exception {
+		File script = createScript("validator.sh", VALIDATOR);
+
+		PasswordValidator.setValidatorProgram("sh " + script.getAbsolutePath(), 2);
+		PasswordValidator.setResultCache(100, 60 * 1000L);
+
+		Assert.assertTrue(PasswordValidator.validate("LOGIN:user1 bad", "user1").startsWith("FAILED"));
+		Assert.assertTrue(PasswordValidator.validate("LOGIN:user1 bad", "user1").startsWith("FAILED"));
+		Assert.assertEquals(2, getRequests(script).size());
+
+		Assert.assertTrue(PasswordValidator.validate("LOGIN:user1 good-user1", "user1").startsWith("OK"));
+		Assert.assertTrue(PasswordValidator.validate("LOGIN:user1 good-user1", "user1").startsWith("OK"));
+		Assert.assertEquals(3, getRequests(script).size());
+	}
+
+	@Test
+	public void testUserName() {
+		Assert.assertEquals("user1", ValidatorProcessPool.getUserName("LOGIN:user1 pwd"));
+		Assert.assertEquals("user1", ValidatorProcessPool.getUserName("LOGIN: \tuser1\tpwd"));
+		Assert.assertEquals("", ValidatorProcessPool.getUserName("LOGIN:"));
+		Assert.assertEquals("", ValidatorProcessPool.getUserName("user1 pwd"));
+	}
+
+	private void assertRejected(String request) {
+		try {
+			pool.validate(request);
+
+			Assert.fail("request must be rejected: " + request);
+		} catch (IOException excp) {
+			// expected
+		}
+	}
+
+	private File createScript(String name, String contents) throws IOException {
+		File ret = tempFolder.newFile(name);
+
+		Files.write(ret.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+		tempFolder.newFile(name + ".log");
+
+		return ret;
+	}
+
+	private List<String> getRequests(File script) throws IOException {
+		return Files.readAllLines(new File(script.getAbsolutePath() + ".log").toPath(), StandardCharsets.UTF_8);
+	}
+}